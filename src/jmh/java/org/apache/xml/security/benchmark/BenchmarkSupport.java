@@ -0,0 +1,153 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+
+import org.apache.xml.security.signature.XMLSignature;
+import org.apache.xml.security.transforms.Transforms;
+import org.apache.xml.security.utils.XMLUtils;
+import org.openjdk.jmh.infra.Blackhole;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Shared test data for the benchmarks: generated documents of a given size and the
+ * keys of the "transmitter.jks" test keystore.
+ */
+public final class BenchmarkSupport {
+
+    public static final String NAMESPACE = "http://www.example.com";
+
+    private static final String EXT_NAMESPACE = "http://www.example.com/ext";
+
+    private static Key signatureKey;
+    private static X509Certificate signatureCert;
+
+    private BenchmarkSupport() {
+        // complete
+    }
+
+    /**
+     * Generates a UTF-8 encoded document of (at least) the given size in bytes. The document
+     * consists of a root element in the {@link #NAMESPACE} with a flat list of items, which use
+     * a default and a prefixed namespace, attributes, comments and text content.
+     */
+    public static byte[] generateDocument(int size) {
+        String header = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<test xmlns=\"" + NAMESPACE + "\" xmlns:ex=\"" + EXT_NAMESPACE + "\">\n";
+        String footer = "</test>\n";
+
+        StringBuilder sb = new StringBuilder(size + 512);
+        sb.append(header);
+        int i = 0;
+        while (sb.length() + footer.length() < size) {
+            sb.append("<item id=\"item-").append(i).append("\" ex:type=\"sample\">")
+                .append("<!-- item ").append(i).append(" -->")
+                .append("<name>Item ").append(i).append("</name>")
+                .append("<ex:value ex:unit=\"EUR\">").append(i * 31 % 1000).append(".50</ex:value>")
+                .append("<description>Lorem ipsum dolor sit amet, consectetur adipiscing elit &amp; more</description>")
+                .append("</item>\n");
+            i++;
+        }
+        sb.append(footer);
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static Document parse(byte[] bytes) throws Exception {
+        try (InputStream inputStream = new ByteArrayInputStream(bytes)) {
+            return XMLUtils.read(inputStream, false);
+        }
+    }
+
+    public static byte[] serialize(Document document) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        XMLUtils.outputDOM(document, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Adds an enveloped RSA-SHA256 signature over the whole document.
+     */
+    public static void sign(Document document) throws Exception {
+        XMLSignature sig = new XMLSignature(document, "", XMLSignature.ALGO_ID_SIGNATURE_RSA_SHA256);
+        Element root = document.getDocumentElement();
+        root.insertBefore(sig.getElement(), root.getFirstChild());
+
+        Transforms transforms = new Transforms(document);
+        transforms.addTransform(Transforms.TRANSFORM_ENVELOPED_SIGNATURE);
+        transforms.addTransform(Transforms.TRANSFORM_C14N_EXCL_OMIT_COMMENTS);
+        sig.addDocument("", transforms, "http://www.w3.org/2001/04/xmlenc#sha256");
+
+        sig.sign(getSignatureKey());
+        sig.addKeyInfo(getSignatureCert());
+    }
+
+    public static synchronized Key getSignatureKey() throws Exception {
+        loadKeyStore();
+        return signatureKey;
+    }
+
+    public static synchronized X509Certificate getSignatureCert() throws Exception {
+        loadKeyStore();
+        return signatureCert;
+    }
+
+    private static void loadKeyStore() throws Exception {
+        if (signatureKey == null) {
+            KeyStore keyStore = KeyStore.getInstance("jks");
+            try (InputStream inputStream =
+                    BenchmarkSupport.class.getClassLoader().getResourceAsStream("transmitter.jks")) {
+                keyStore.load(inputStream, "default".toCharArray());
+            }
+            signatureKey = keyStore.getKey("transmitter", "default".toCharArray());
+            signatureCert = (X509Certificate) keyStore.getCertificate("transmitter");
+        }
+    }
+
+    /**
+     * An OutputStream which hands everything written to it to a Blackhole.
+     */
+    public static class BlackholeOutputStream extends OutputStream {
+
+        private final Blackhole blackhole;
+
+        public BlackholeOutputStream(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void write(int b) {
+            blackhole.consume(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            blackhole.consume(b);
+            blackhole.consume(len);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLInputFactory;
+
+import org.apache.xml.security.c14n.Canonicalizer;
+import org.apache.xml.security.stax.ext.stax.XMLSecEvent;
+import org.apache.xml.security.stax.impl.transformer.canonicalizer.Canonicalizer20010315_ExclOmitCommentsTransformer;
+import org.apache.xml.security.test.stax.utils.XMLSecEventAllocator;
+import org.apache.xml.security.utils.UnsyncBufferedOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.w3c.dom.Document;
+
+/**
+ * Canonicalizes namespace-heavy SOAP messages with a WS-Security header with the DOM and the StAX
+ * exclusive canonicalizers, which exercises the output buffering and the escaping of the many
+ * short attribute values and text nodes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SOAPCanonicalizationBenchmark {
+
+    private static final String[][] NAMESPACES = {
+        {"soapenv", "http://schemas.xmlsoap.org/soap/envelope/"},
+        {"wsse", "http://docs.oasis-open.org/wss/2004/01/oasis-200401-wss-wssecurity-secext-1.0.xsd"},
+        {"wsu", "http://docs.oasis-open.org/wss/2004/01/oasis-200401-wss-wssecurity-utility-1.0.xsd"},
+        {"wsa", "http://www.w3.org/2005/08/addressing"},
+        {"ds", "http://www.w3.org/2000/09/xmldsig#"},
+        {"xenc", "http://www.w3.org/2001/04/xmlenc#"},
+        {"xsi", "http://www.w3.org/2001/XMLSchema-instance"},
+        {"ord", "urn:example:orders:v2"},
+        {"cust", "urn:example:customers:v1"},
+        {"cmn", "urn:example:common:v3"},
+    };
+
+    @Param({"10", "1000"})
+    public int lineItems;
+
+    private Document document;
+    private Canonicalizer canonicalizer;
+    private List<XMLSecEvent> xmlSecEvents;
+
+    @Setup
+    public void setUp() throws Exception {
+        org.apache.xml.security.Init.init();
+        byte[] message = generateMessage(lineItems);
+        document = BenchmarkSupport.parse(message);
+        canonicalizer = Canonicalizer.getInstance(Canonicalizer.ALGO_ID_C14N_EXCL_OMIT_COMMENTS);
+
+        XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+        xmlInputFactory.setEventAllocator(new XMLSecEventAllocator());
+        XMLEventReader xmlEventReader = xmlInputFactory.createXMLEventReader(new ByteArrayInputStream(message));
+        xmlSecEvents = new ArrayList<>();
+        while (xmlEventReader.hasNext()) {
+            xmlSecEvents.add((XMLSecEvent) xmlEventReader.nextEvent());
+        }
+    }
+
+    /**
+     * Generates a SOAP message with a WS-Security header and a body with the given number of
+     * line items, which declares all namespaces on the envelope and uses them throughout.
+     */
+    static byte[] generateMessage(int lineItems) {
+        StringBuilder sb = new StringBuilder(512 + lineItems * 640);
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<soapenv:Envelope");
+        for (String[] namespace : NAMESPACES) {
+            sb.append(" xmlns:").append(namespace[0]).append("=\"").append(namespace[1]).append('"');
+        }
+        sb.append(">\n<soapenv:Header>\n")
+            .append("<wsa:Action soapenv:mustUnderstand=\"1\">urn:example:orders:v2:submit</wsa:Action>\n")
+            .append("<wsa:MessageID wsu:Id=\"id-msg\">urn:uuid:6b29fc40-ca47-1067-b31d-00dd010662da</wsa:MessageID>\n")
+            .append("<wsse:Security soapenv:mustUnderstand=\"1\">\n")
+            .append("<wsu:Timestamp wsu:Id=\"TS-1\"><wsu:Created>2023-01-01T00:00:00Z</wsu:Created>")
+            .append("<wsu:Expires>2023-01-01T00:05:00Z</wsu:Expires></wsu:Timestamp>\n")
+            .append("<wsse:BinarySecurityToken wsu:Id=\"X509-1\" EncodingType=\"http://docs.oasis-open.org/wss/2004/01/")
+            .append("oasis-200401-wss-soap-message-security-1.0#Base64Binary\">MIIBszCCAVmgAwIBAgIJAK</wsse:BinarySecurityToken>\n")
+            .append("</wsse:Security>\n</soapenv:Header>\n")
+            .append("<soapenv:Body wsu:Id=\"id-body\">\n<ord:SubmitOrder wsu:Id=\"id-order\">\n")
+            .append("<cust:Customer cmn:ref=\"C-1\"><cust:Name>M\u00fcller GmbH</cust:Name>")
+            .append("<cmn:Country>DE</cmn:Country></cust:Customer>\n");
+        for (int i = 0; i < lineItems; i++) {
+            sb.append("<ord:LineItem wsu:Id=\"item-").append(i).append("\" ord:position=\"").append(i)
+                .append("\" xsi:type=\"ord:StandardLineItem\">")
+                .append("<ord:Product cmn:sku=\"SKU-").append(i * 7919 % 100000).append("\">")
+                .append("<cmn:Description>Widget &amp; accessories, size ").append(i % 12).append("</cmn:Description>")
+                .append("</ord:Product>")
+                .append("<ord:Quantity cmn:unit=\"pcs\">").append(i % 50 + 1).append("</ord:Quantity>")
+                .append("<ord:Price cmn:currency=\"EUR\">").append(i * 31 % 1000).append(".50</ord:Price>")
+                .append("</ord:LineItem>\n");
+        }
+        sb.append("</ord:SubmitOrder>\n</soapenv:Body>\n</soapenv:Envelope>\n");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void domCanonicalize(Blackhole blackhole) throws Exception {
+        canonicalizer.canonicalizeSubtree(document, newOutputStream(blackhole));
+    }
+
+    @Benchmark
+    public void staxCanonicalize(Blackhole blackhole) throws Exception {
+        Canonicalizer20010315_ExclOmitCommentsTransformer transformer =
+            new Canonicalizer20010315_ExclOmitCommentsTransformer();
+        OutputStream outputStream = newOutputStream(blackhole);
+        transformer.setOutputStream(outputStream);
+        for (XMLSecEvent xmlSecEvent : xmlSecEvents) {
+            transformer.transform(xmlSecEvent);
+        }
+        outputStream.flush();
+    }
+
+    /**
+     * The signature processors canonicalize into a buffered digest stream, so the sink is buffered
+     * here too.
+     */
+    private static OutputStream newOutputStream(Blackhole blackhole) {
+        return new UnsyncBufferedOutputStream(new BenchmarkSupport.BlackholeOutputStream(blackhole));
+    }
+}
@@ -0,0 +1,182 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.xml.security.stax.ext.InboundXMLSec;
+import org.apache.xml.security.stax.ext.OutboundXMLSec;
+import org.apache.xml.security.stax.ext.SecurePart;
+import org.apache.xml.security.stax.ext.XMLSec;
+import org.apache.xml.security.stax.ext.XMLSecurityConstants;
+import org.apache.xml.security.stax.ext.XMLSecurityProperties;
+import org.apache.xml.security.stax.securityToken.SecurityTokenConstants;
+import org.apache.xml.security.test.stax.utils.XmlReaderToWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Runs the streaming OutboundXMLSec and InboundXMLSec pipelines for signature and
+ * encryption of a whole document.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class StAXBenchmark {
+
+    @Param({"1024", "1048576", "104857600"})
+    public int documentSize;
+
+    private XMLInputFactory xmlInputFactory;
+    private byte[] plaintextDocument;
+    private byte[] signedDocument;
+    private byte[] encryptedDocument;
+    private OutboundXMLSec outboundSignatureXMLSec;
+    private InboundXMLSec inboundSignatureXMLSec;
+    private OutboundXMLSec outboundEncryptionXMLSec;
+    private InboundXMLSec inboundDecryptionXMLSec;
+
+    @Setup
+    public void setUp() throws Exception {
+        org.apache.xml.security.Init.init();
+
+        xmlInputFactory = XMLInputFactory.newInstance();
+        xmlInputFactory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+
+        X509Certificate cert = BenchmarkSupport.getSignatureCert();
+        QName rootElement = new QName(BenchmarkSupport.NAMESPACE, "test");
+
+        XMLSecurityProperties signatureProperties = new XMLSecurityProperties();
+        signatureProperties.setActions(Collections.singletonList(XMLSecurityConstants.SIGNATURE));
+        signatureProperties.setSignatureKeyIdentifier(SecurityTokenConstants.KeyIdentifier_X509KeyIdentifier);
+        signatureProperties.setSignatureKey(BenchmarkSupport.getSignatureKey());
+        signatureProperties.setSignatureCerts(new X509Certificate[]{cert});
+        signatureProperties.addSignaturePart(
+            new SecurePart(
+                rootElement,
+                SecurePart.Modifier.Element,
+                new String[]{
+                    "http://www.w3.org/2000/09/xmldsig#enveloped-signature",
+                    "http://www.w3.org/2001/10/xml-exc-c14n#"
+                },
+                "http://www.w3.org/2001/04/xmlenc#sha256"
+            )
+        );
+        outboundSignatureXMLSec = XMLSec.getOutboundXMLSec(signatureProperties);
+
+        XMLSecurityProperties verificationProperties = new XMLSecurityProperties();
+        verificationProperties.setSignatureVerificationKey(cert.getPublicKey());
+        inboundSignatureXMLSec = XMLSec.getInboundWSSec(verificationProperties);
+
+        KeyGenerator keygen = KeyGenerator.getInstance("AES");
+        keygen.init(256);
+        SecretKey encryptionKey = keygen.generateKey();
+
+        XMLSecurityProperties encryptionProperties = new XMLSecurityProperties();
+        encryptionProperties.setActions(Collections.singletonList(XMLSecurityConstants.ENCRYPTION));
+        encryptionProperties.setEncryptionKey(encryptionKey);
+        encryptionProperties.setEncryptionSymAlgorithm("http://www.w3.org/2001/04/xmlenc#aes256-cbc");
+        encryptionProperties.addEncryptionPart(new SecurePart(rootElement, SecurePart.Modifier.Content));
+        outboundEncryptionXMLSec = XMLSec.getOutboundXMLSec(encryptionProperties);
+
+        XMLSecurityProperties decryptionProperties = new XMLSecurityProperties();
+        decryptionProperties.setDecryptionKey(encryptionKey);
+        inboundDecryptionXMLSec = XMLSec.getInboundWSSec(decryptionProperties);
+
+        plaintextDocument = BenchmarkSupport.generateDocument(documentSize);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(documentSize * 2);
+        processOutbound(outboundSignatureXMLSec, plaintextDocument, outputStream);
+        signedDocument = outputStream.toByteArray();
+
+        outputStream = new ByteArrayOutputStream(documentSize * 2);
+        processOutbound(outboundEncryptionXMLSec, plaintextDocument, outputStream);
+        encryptedDocument = outputStream.toByteArray();
+    }
+
+    @Benchmark
+    public void outboundSignature(Blackhole blackhole) throws Exception {
+        processOutbound(outboundSignatureXMLSec, plaintextDocument, new BenchmarkSupport.BlackholeOutputStream(blackhole));
+    }
+
+    @Benchmark
+    public void inboundSignature(Blackhole blackhole) throws Exception {
+        processInbound(inboundSignatureXMLSec, signedDocument, blackhole);
+    }
+
+    @Benchmark
+    public void outboundEncryption(Blackhole blackhole) throws Exception {
+        processOutbound(outboundEncryptionXMLSec, plaintextDocument, new BenchmarkSupport.BlackholeOutputStream(blackhole));
+    }
+
+    @Benchmark
+    public void inboundDecryption(Blackhole blackhole) throws Exception {
+        processInbound(inboundDecryptionXMLSec, encryptedDocument, blackhole);
+    }
+
+    private void processOutbound(OutboundXMLSec outboundXMLSec, byte[] document, OutputStream outputStream)
+        throws Exception {
+        XMLStreamWriter xmlStreamWriter =
+            outboundXMLSec.processOutMessage(outputStream, StandardCharsets.UTF_8.name());
+        XMLStreamReader xmlStreamReader =
+            xmlInputFactory.createXMLStreamReader(new ByteArrayInputStream(document));
+        XmlReaderToWriter.writeAll(xmlStreamReader, xmlStreamWriter);
+        xmlStreamWriter.close();
+        xmlStreamReader.close();
+    }
+
+    private void processInbound(InboundXMLSec inboundXMLSec, byte[] document, Blackhole blackhole)
+        throws Exception {
+        XMLStreamReader xmlStreamReader =
+            xmlInputFactory.createXMLStreamReader(new ByteArrayInputStream(document));
+        XMLStreamReader securityStreamReader = inboundXMLSec.processInMessage(xmlStreamReader);
+        while (securityStreamReader.hasNext()) {
+            blackhole.consume(securityStreamReader.next());
+        }
+        securityStreamReader.close();
+        xmlStreamReader.close();
+    }
+}
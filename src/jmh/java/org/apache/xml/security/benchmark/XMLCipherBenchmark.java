@@ -0,0 +1,106 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+
+import org.apache.xml.security.encryption.XMLCipher;
+import org.apache.xml.security.utils.EncryptionConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Encrypts and decrypts the root element of a DOM document with XMLCipher.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class XMLCipherBenchmark {
+
+    @Param({XMLCipher.AES_128, XMLCipher.AES_256_GCM})
+    public String algorithm;
+
+    @Param({"1024", "1048576", "104857600"})
+    public int documentSize;
+
+    private SecretKey key;
+    private byte[] plaintextDocument;
+    private byte[] encryptedDocument;
+    private Document documentToEncrypt;
+    private Document documentToDecrypt;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        org.apache.xml.security.Init.init();
+
+        KeyGenerator keygen = KeyGenerator.getInstance("AES");
+        keygen.init(XMLCipher.AES_128.equals(algorithm) ? 128 : 256);
+        key = keygen.generateKey();
+
+        plaintextDocument = BenchmarkSupport.generateDocument(documentSize);
+        encryptedDocument = BenchmarkSupport.serialize(encrypt(BenchmarkSupport.parse(plaintextDocument)));
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() throws Exception {
+        // Encryption and decryption replace the content of the document
+        documentToEncrypt = BenchmarkSupport.parse(plaintextDocument);
+        documentToDecrypt = BenchmarkSupport.parse(encryptedDocument);
+    }
+
+    @Benchmark
+    public Document encrypt() throws Exception {
+        return encrypt(documentToEncrypt);
+    }
+
+    @Benchmark
+    public Document decrypt() throws Exception {
+        Element encryptedData =
+            (Element) documentToDecrypt.getElementsByTagNameNS(
+                EncryptionConstants.EncryptionSpecNS, EncryptionConstants._TAG_ENCRYPTEDDATA).item(0);
+
+        XMLCipher cipher = XMLCipher.getInstance(algorithm);
+        cipher.init(XMLCipher.DECRYPT_MODE, key);
+        return cipher.doFinal(documentToDecrypt, encryptedData);
+    }
+
+    private Document encrypt(Document document) throws Exception {
+        XMLCipher cipher = XMLCipher.getInstance(algorithm);
+        cipher.init(XMLCipher.ENCRYPT_MODE, key);
+        return cipher.doFinal(document, document.getDocumentElement(), true);
+    }
+}
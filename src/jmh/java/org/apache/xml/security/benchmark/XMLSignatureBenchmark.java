@@ -0,0 +1,105 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.crypto.dsig.XMLSignatureFactory;
+import javax.xml.crypto.dsig.dom.DOMValidateContext;
+
+import org.apache.xml.security.signature.XMLSignature;
+import org.apache.xml.security.utils.Constants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Signs and verifies an enveloped signature over a whole DOM document, using both the
+ * XMLSignature API and the JSR-105 XMLSignatureFactory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class XMLSignatureBenchmark {
+
+    @Param({"1024", "1048576", "104857600"})
+    public int documentSize;
+
+    private byte[] unsignedDocument;
+    private Document documentToSign;
+    private Document signedDocument;
+    private XMLSignatureFactory signatureFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        org.apache.xml.security.Init.init();
+        unsignedDocument = BenchmarkSupport.generateDocument(documentSize);
+
+        Document document = BenchmarkSupport.parse(unsignedDocument);
+        BenchmarkSupport.sign(document);
+        signedDocument = BenchmarkSupport.parse(BenchmarkSupport.serialize(document));
+
+        signatureFactory =
+            XMLSignatureFactory.getInstance("DOM", new org.apache.jcp.xml.dsig.internal.dom.XMLDSigRI());
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() throws Exception {
+        // Signing modifies the document, so every invocation needs a fresh one
+        documentToSign = BenchmarkSupport.parse(unsignedDocument);
+    }
+
+    @Benchmark
+    public Document sign() throws Exception {
+        BenchmarkSupport.sign(documentToSign);
+        return documentToSign;
+    }
+
+    @Benchmark
+    public boolean checkSignatureValue() throws Exception {
+        XMLSignature signature = new XMLSignature(getSignatureElement(), "", true);
+        return signature.checkSignatureValue(BenchmarkSupport.getSignatureCert());
+    }
+
+    @Benchmark
+    public boolean validateJSR105() throws Exception {
+        DOMValidateContext validateContext =
+            new DOMValidateContext(BenchmarkSupport.getSignatureCert().getPublicKey(), getSignatureElement());
+        return signatureFactory.unmarshalXMLSignature(validateContext).validate(validateContext);
+    }
+
+    private Element getSignatureElement() {
+        return (Element) signedDocument.getElementsByTagNameNS(
+            Constants.SignatureSpecNS, Constants._TAG_SIGNATURE).item(0);
+    }
+}
@@ -19,12 +19,14 @@
 
 package org.apache.jcp.xml.dsig.internal.dom;
 
+import java.io.ByteArrayOutputStream;
 import java.security.Key;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.SignatureException;
 import java.security.spec.AlgorithmParameterSpec;
 import javax.xml.crypto.MarshalException;
+import javax.xml.crypto.XMLCryptoContext;
 import javax.xml.crypto.dom.DOMCryptoContext;
 import javax.xml.crypto.dsig.SignatureMethod;
 import javax.xml.crypto.dsig.SignedInfo;
@@ -65,10 +67,51 @@ abstract class AbstractDOMSignatureMethod extends DOMStructure
      *    as the passed in signature is improperly encoded
      * @throws XMLSignatureException if an unexpected error occurs
      */
-    abstract boolean verify(Key key, SignedInfo si, byte[] sig,
-                            XMLValidateContext context)
+    boolean verify(Key key, SignedInfo si, byte[] sig,
+                   XMLValidateContext context)
+        throws InvalidKeyException, SignatureException, XMLSignatureException
+    {
+        return verify(key, si, null, sig, context);
+    }
+
+    /**
+     * Verifies the passed-in signature with the specified key, like
+     * {@link #verify(Key, SignedInfo, byte[], XMLValidateContext)}, but over
+     * the SignedInfo which was canonicalized before, if it is given.
+     *
+     * @param key the verification key
+     * @param si the SignedInfo
+     * @param canonicalizedSignedInfo the canonicalized SignedInfo, or
+     *    <code>null</code> to canonicalize <code>si</code>
+     * @param sig the signature bytes to be verified
+     * @param context the XMLValidateContext
+     * @return <code>true</code> if the signature verified successfully,
+     *    <code>false</code> if not
+     * @throws InvalidKeyException if the key is improperly encoded, of
+     *    the wrong type, or parameters are missing, etc
+     * @throws SignatureException if an unexpected error occurs, such
+     *    as the passed in signature is improperly encoded
+     * @throws XMLSignatureException if an unexpected error occurs
+     */
+    abstract boolean verify(Key key, SignedInfo si, byte[] canonicalizedSignedInfo,
+                            byte[] sig, XMLValidateContext context)
         throws InvalidKeyException, SignatureException, XMLSignatureException;
 
+    /**
+     * Writes the canonicalized SignedInfo to the output stream, canonicalizing
+     * it unless <code>canonicalizedSignedInfo</code> is given.
+     */
+    static void canonicalize(SignedInfo si, byte[] canonicalizedSignedInfo,
+                             XMLCryptoContext context, ByteArrayOutputStream os)
+        throws XMLSignatureException
+    {
+        if (canonicalizedSignedInfo != null) {
+            os.write(canonicalizedSignedInfo, 0, canonicalizedSignedInfo.length);
+        } else {
+            ((DOMSignedInfo)si).canonicalize(context, os);
+        }
+    }
+
     /**
      * Signs the bytes with the specified key, using the underlying
      * Signature or Mac algorithm.
@@ -29,6 +29,7 @@ import java.util.Set;
 import javax.xml.crypto.NodeSetData;
 import org.w3c.dom.Node;
 import org.apache.xml.security.signature.NodeFilter;
+import org.apache.xml.security.signature.SubtreeNodeSet;
 import org.apache.xml.security.signature.XMLSignatureInput;
 import org.apache.xml.security.utils.XMLUtils;
 
@@ -47,7 +48,7 @@ public class ApacheNodeSetData implements ApacheData, NodeSetData {
                 (getNodeSet(xi.getNodeFilters())).iterator();
         }
         try {
-            return Collections.unmodifiableSet(xi.getNodeSet()).iterator();
+            return xi.getNodeSetView().iterator();
         } catch (Exception e) {
             // should not occur
             throw new RuntimeException
@@ -65,9 +66,8 @@ public class ApacheNodeSetData implements ApacheData, NodeSetData {
                 (XMLUtils.getOwnerDocument(xi.getSubNode()));
         }
 
-        Set<Node> inputSet = new LinkedHashSet<>();
-        XMLUtils.getSet(xi.getSubNode(), inputSet,
-                        null, !xi.isExcludeComments());
+        Set<Node> inputSet =
+            new SubtreeNodeSet(xi.getSubNode(), null, !xi.isExcludeComments());
         Set<Node> nodeSet = new LinkedHashSet<>();
         for (Node currentNode : inputSet) {
             Iterator<NodeFilter> it = nodeFilters.iterator();
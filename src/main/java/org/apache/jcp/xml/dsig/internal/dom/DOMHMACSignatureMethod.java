@@ -143,8 +143,8 @@ public abstract class DOMHMACSignatureMethod extends AbstractDOMSignatureMethod
         parent.appendChild(hmacElem);
     }
 
-    boolean verify(Key key, SignedInfo si, byte[] sig,
-                   XMLValidateContext context)
+    boolean verify(Key key, SignedInfo si, byte[] canonicalizedSignedInfo,
+                   byte[] sig, XMLValidateContext context)
         throws InvalidKeyException, SignatureException, XMLSignatureException
     {
         if (key == null || si == null || sig == null) {
@@ -168,7 +168,7 @@ public abstract class DOMHMACSignatureMethod extends AbstractDOMSignatureMethod
                 ("HMACOutputLength must not be less than " + getDigestLength());
         }
         hmac.init(key);
-        ((DOMSignedInfo)si).canonicalize(context, new MacOutputStream(hmac));
+        canonicalize(si, canonicalizedSignedInfo, context, new MacOutputStream(hmac));
         byte[] result = hmac.doFinal();
 
         return MessageDigest.isEqual(sig, result);
@@ -203,8 +203,8 @@ public abstract class DOMRSAPSSSignatureMethod extends AbstractDOMSignatureMetho
         return getDefaultParameterSpec();
     }
 
-    boolean verify(Key key, SignedInfo si, byte[] sig,
-                   XMLValidateContext context)
+    boolean verify(Key key, SignedInfo si, byte[] canonicalizedSignedInfo,
+                   byte[] sig, XMLValidateContext context)
         throws InvalidKeyException, SignatureException, XMLSignatureException
     {
         if (key == null || si == null || sig == null) {
@@ -236,7 +236,7 @@ public abstract class DOMRSAPSSSignatureMethod extends AbstractDOMSignatureMetho
         LOG.debug("Signature Bytes length: {}", sig.length);
 
         try (SignerOutputStream outputStream = new SignerOutputStream(signature)) {
-            ((DOMSignedInfo)si).canonicalize(context, outputStream);
+            canonicalize(si, canonicalizedSignedInfo, context, outputStream);
 
             return signature.verify(sig);
         } catch (IOException ioe) {
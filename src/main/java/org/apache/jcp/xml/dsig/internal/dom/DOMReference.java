@@ -618,7 +618,7 @@ public final class DOMReference extends DOMStructure
             XMLSignatureInput xsi = ad.getXMLSignatureInput();
             if (xsi.isNodeSet()) {
                 try {
-                    final Set<Node> s = xsi.getNodeSet();
+                    final Set<Node> s = xsi.getNodeSetView();
                     return new NodeSetData() {
                         public Iterator<Node> iterator() { return s.iterator(); }
                     };
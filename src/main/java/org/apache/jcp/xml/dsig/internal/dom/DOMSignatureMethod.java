@@ -249,8 +249,8 @@ public abstract class DOMSignatureMethod extends AbstractDOMSignatureMethod {
             : Signature.getInstance(getJCAAlgorithm(), p);
     }
 
-    boolean verify(Key key, SignedInfo si, byte[] sig,
-                   XMLValidateContext context)
+    boolean verify(Key key, SignedInfo si, byte[] canonicalizedSignedInfo,
+                   byte[] sig, XMLValidateContext context)
         throws InvalidKeyException, SignatureException, XMLSignatureException
     {
         if (key == null || si == null || sig == null) {
@@ -276,7 +276,7 @@ public abstract class DOMSignatureMethod extends AbstractDOMSignatureMethod {
 
         byte[] s;
         try (SignerOutputStream outputStream = new SignerOutputStream(signature)) {
-            ((DOMSignedInfo)si).canonicalize(context, outputStream);
+            canonicalize(si, canonicalizedSignedInfo, context, outputStream);
             // Do any necessary format conversions
             s = preVerifyFormat(key, sig);
         } catch (IOException ioe) {
@@ -35,6 +35,7 @@ import javax.xml.crypto.dsig.dom.DOMSignContext;
 import javax.xml.crypto.dsig.dom.DOMValidateContext;
 import javax.xml.crypto.dsig.keyinfo.KeyInfo;
 
+import java.io.ByteArrayOutputStream;
 import java.security.InvalidKeyException;
 import java.security.Key;
 import java.security.Provider;
@@ -49,6 +50,7 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 
+import org.apache.xml.security.utils.VerifiedSignatureCache;
 import org.apache.xml.security.utils.XMLUtils;
 
 /**
@@ -562,8 +564,23 @@ public final class DOMXMLSignature extends DOMStructure
 
             // canonicalize SignedInfo and verify signature
             try {
-                validationStatus = ((AbstractDOMSignatureMethod)sm).verify
-                    (validationKey, si, value, validateContext);
+                byte[] signedInfoBytes = null;
+                if (VerifiedSignatureCache.isEnabled()) {
+                    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                    ((DOMSignedInfo)si).canonicalize(validateContext, bos);
+                    signedInfoBytes = bos.toByteArray();
+                }
+                if (signedInfoBytes != null
+                    && VerifiedSignatureCache.isVerified(signedInfoBytes, value, validationKey)) {
+                    LOG.debug("The signature value was verified before");
+                    validationStatus = true;
+                } else {
+                    validationStatus = ((AbstractDOMSignatureMethod)sm).verify
+                        (validationKey, si, signedInfoBytes, value, validateContext);
+                    if (validationStatus && signedInfoBytes != null) {
+                        VerifiedSignatureCache.putVerified(signedInfoBytes, value, validationKey);
+                    }
+                }
             } catch (Exception e) {
                 throw new XMLSignatureException(e);
             }
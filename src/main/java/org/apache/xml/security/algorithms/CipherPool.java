@@ -0,0 +1,173 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.algorithms;
+
+import java.security.AccessController;
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.PrivilegedAction;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.xml.security.encryption.XMLCipherUtil;
+
+/**
+ * A bounded pool of {@link Cipher} instances per algorithm URI and JCE provider. The algorithm
+ * URI is translated with the {@link JCEMapper}.
+ *
+ * <p>A Cipher obtained from the pool is in an undefined state and must be initialized with
+ * one of the <code>init</code> methods before it is used. It must only be released once it is
+ * not used any more, as it is then handed out to other threads. A released Cipher is initialized
+ * with an all-zero key before it is pooled, so that the pool doesn't keep the key schedule of its
+ * last operation reachable. A Cipher which can't be reset that way is discarded.</p>
+ *
+ * The number of pooled instances per algorithm and provider can be set with the system property
+ * <code>org.apache.xml.security.cipher.pool-size</code> (default 10). A pool size of 0 disables pooling.
+ */
+public final class CipherPool {
+
+    private static final org.slf4j.Logger LOG =
+        org.slf4j.LoggerFactory.getLogger(CipherPool.class);
+
+    private static final int POOL_SIZE =
+            AccessController.doPrivileged(
+                    (PrivilegedAction<Integer>) () -> Integer.getInteger("org.apache.xml.security.cipher.pool-size", 10));
+
+    private static final Map<String, Queue<Cipher>> CIPHERS = new ConcurrentHashMap<>();
+
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+
+    private CipherPool() {
+        // we don't allow instantiation
+    }
+
+    /**
+     * Returns a Cipher for the given algorithm URI, either from the pool or a newly created one.
+     *
+     * @param algorithmURI the algorithm URI
+     * @param provider the JCE provider name, or null to use the preferred provider
+     * @return a Cipher which has to be initialized before it is used
+     * @throws NoSuchAlgorithmException
+     * @throws NoSuchProviderException
+     * @throws NoSuchPaddingException
+     */
+    public static Cipher getInstance(String algorithmURI, String provider)
+        throws NoSuchAlgorithmException, NoSuchProviderException, NoSuchPaddingException {
+        String jceAlgorithm = JCEMapper.translateURItoJCEID(algorithmURI);
+        if (jceAlgorithm == null) {
+            throw new NoSuchAlgorithmException("No JCE algorithm is registered for " + algorithmURI);
+        }
+
+        if (POOL_SIZE > 0) {
+            Queue<Cipher> queue = CIPHERS.get(getKey(algorithmURI, provider));
+            Cipher cipher = queue != null ? queue.poll() : null;
+            if (cipher != null) {
+                HITS.increment();
+                return cipher;
+            }
+        }
+        MISSES.increment();
+
+        LOG.debug("Creating a new Cipher for JCE Algorithm {}", jceAlgorithm);
+        if (provider == null) {
+            return Cipher.getInstance(jceAlgorithm);
+        }
+        return Cipher.getInstance(jceAlgorithm, provider);
+    }
+
+    /**
+     * Returns a Cipher to the pool. The Cipher must have been obtained with
+     * {@link #getInstance(String, String)} for the same algorithm URI and provider.
+     *
+     * @param algorithmURI the algorithm URI
+     * @param provider the JCE provider name, or null if the preferred provider was used
+     * @param cipher the Cipher which is not used anymore
+     */
+    public static void release(String algorithmURI, String provider, Cipher cipher) {
+        if (cipher == null || POOL_SIZE <= 0) {
+            return;
+        }
+        if (!reset(algorithmURI, cipher)) {
+            return;
+        }
+        Queue<Cipher> queue =
+            CIPHERS.computeIfAbsent(getKey(algorithmURI, provider), k -> new ArrayBlockingQueue<>(POOL_SIZE));
+        queue.offer(cipher);
+    }
+
+    /**
+     * Initializes the Cipher with an all-zero key and IV, which replaces the key of its last operation.
+     * The decrypt mode is used, as a GCM Cipher refuses to encrypt twice with the same key and IV.
+     *
+     * @return false if the Cipher couldn't be reset and must not be pooled
+     */
+    private static boolean reset(String algorithmURI, Cipher cipher) {
+        String keyAlgorithm = JCEMapper.getJCEKeyAlgorithmFromURI(algorithmURI);
+        int keyLength = JCEMapper.getKeyLengthFromURI(algorithmURI);
+        int ivLength = JCEMapper.getIVLengthFromURI(algorithmURI);
+        if (keyAlgorithm == null || keyLength <= 0 || ivLength <= 0) {
+            LOG.debug("Not pooling the Cipher for {} as it can't be reset", algorithmURI);
+            return false;
+        }
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(new byte[keyLength / 8], keyAlgorithm),
+                        XMLCipherUtil.constructBlockCipherParameters(algorithmURI, new byte[ivLength / 8]));
+            return true;
+        } catch (GeneralSecurityException | RuntimeException e) {
+            LOG.debug("Not pooling the Cipher for {} as it can't be reset: {}", algorithmURI, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * @return the number of Ciphers which were taken from the pool
+     */
+    public static long getHitCount() {
+        return HITS.sum();
+    }
+
+    /**
+     * @return the number of Ciphers which had to be created because the pool was empty
+     */
+    public static long getMissCount() {
+        return MISSES.sum();
+    }
+
+    /**
+     * Discards all pooled Ciphers and resets the hit and miss counters.
+     */
+    public static void clear() {
+        CIPHERS.clear();
+        HITS.reset();
+        MISSES.reset();
+    }
+
+    private static String getKey(String algorithmURI, String provider) {
+        return provider == null ? algorithmURI : algorithmURI + '\n' + provider;
+    }
+}
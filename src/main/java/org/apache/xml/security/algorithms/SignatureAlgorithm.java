@@ -35,6 +35,8 @@ import org.apache.xml.security.signature.XMLSignatureException;
 import org.apache.xml.security.utils.ClassLoaderUtils;
 import org.apache.xml.security.utils.Constants;
 import org.apache.xml.security.utils.JavaUtils;
+import org.apache.xml.security.utils.SecurityMetrics;
+import org.apache.xml.security.utils.SecurityMetricsListener;
 import org.w3c.dom.Attr;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -56,6 +58,9 @@ public class SignatureAlgorithm extends Algorithm {
     /** Field signatureAlgorithm */
     private final SignatureAlgorithmSpi signatureAlgorithmSpi;
 
+    /** The number of bytes updated since the last initialization, sign or verify, for the metrics */
+    private long updatedBytes;
+
     private final String algorithmURI;
 
     /**
@@ -201,7 +206,12 @@ public class SignatureAlgorithm extends Algorithm {
      * @throws XMLSignatureException
      */
     public byte[] sign() throws XMLSignatureException {
-        return signatureAlgorithmSpi.engineSign();
+        long start = SecurityMetrics.start();
+        byte[] signature = signatureAlgorithmSpi.engineSign();
+        SecurityMetrics.record(
+            SecurityMetricsListener.Stage.SIGNATURE_SIGN, signatureAlgorithmSpi.engineGetURI(), start, updatedBytes);
+        updatedBytes = 0;
+        return signature;
     }
 
     /**
@@ -232,6 +242,7 @@ public class SignatureAlgorithm extends Algorithm {
      */
     public void update(byte[] input) throws XMLSignatureException {
         signatureAlgorithmSpi.engineUpdate(input);
+        updatedBytes += input.length;
     }
 
     /**
@@ -243,6 +254,7 @@ public class SignatureAlgorithm extends Algorithm {
      */
     public void update(byte input) throws XMLSignatureException {
         signatureAlgorithmSpi.engineUpdate(input);
+        updatedBytes++;
     }
 
     /**
@@ -256,6 +268,7 @@ public class SignatureAlgorithm extends Algorithm {
      */
     public void update(byte[] buf, int offset, int len) throws XMLSignatureException {
         signatureAlgorithmSpi.engineUpdate(buf, offset, len);
+        updatedBytes += len;
     }
 
     /**
@@ -267,6 +280,7 @@ public class SignatureAlgorithm extends Algorithm {
      */
     public void initSign(Key signingKey) throws XMLSignatureException {
         signatureAlgorithmSpi.engineInitSign(signingKey);
+        updatedBytes = 0;
     }
 
     /**
@@ -280,6 +294,7 @@ public class SignatureAlgorithm extends Algorithm {
      */
     public void initSign(Key signingKey, SecureRandom secureRandom) throws XMLSignatureException {
         signatureAlgorithmSpi.engineInitSign(signingKey, secureRandom);
+        updatedBytes = 0;
     }
 
     /**
@@ -294,6 +309,7 @@ public class SignatureAlgorithm extends Algorithm {
         Key signingKey, AlgorithmParameterSpec algorithmParameterSpec
     ) throws XMLSignatureException {
         signatureAlgorithmSpi.engineInitSign(signingKey, algorithmParameterSpec);
+        updatedBytes = 0;
     }
 
     /**
@@ -317,6 +333,7 @@ public class SignatureAlgorithm extends Algorithm {
      */
     public void initVerify(Key verificationKey) throws XMLSignatureException {
         signatureAlgorithmSpi.engineInitVerify(verificationKey);
+        updatedBytes = 0;
     }
 
     /**
@@ -329,7 +346,12 @@ public class SignatureAlgorithm extends Algorithm {
      * @throws XMLSignatureException
      */
     public boolean verify(byte[] signature) throws XMLSignatureException {
-        return signatureAlgorithmSpi.engineVerify(signature);
+        long start = SecurityMetrics.start();
+        boolean verified = signatureAlgorithmSpi.engineVerify(signature);
+        SecurityMetrics.record(
+            SecurityMetricsListener.Stage.SIGNATURE_VERIFY, signatureAlgorithmSpi.engineGetURI(), start, updatedBytes);
+        updatedBytes = 0;
+        return verified;
     }
 
     /**
@@ -35,6 +35,8 @@ import org.apache.xml.security.exceptions.AlgorithmAlreadyRegisteredException;
 import org.apache.xml.security.parser.XMLParserException;
 import org.apache.xml.security.utils.ClassLoaderUtils;
 import org.apache.xml.security.utils.JavaUtils;
+import org.apache.xml.security.utils.SecurityMetrics;
+import org.apache.xml.security.utils.SecurityMetricsListener;
 import org.w3c.dom.Node;
 
 /**
@@ -224,7 +226,11 @@ public final class Canonicalizer {
      */
     public void canonicalize(byte[] inputBytes, OutputStream writer, boolean secureValidation)
         throws XMLParserException, java.io.IOException, CanonicalizationException {
-        canonicalizerSpi.engineCanonicalize(inputBytes, writer, secureValidation);
+        long start = SecurityMetrics.start();
+        OutputStream out = SecurityMetrics.countBytes(start, writer); //NOPMD
+        canonicalizerSpi.engineCanonicalize(inputBytes, out, secureValidation);
+        SecurityMetrics.record(
+            SecurityMetricsListener.Stage.CANONICALIZATION, canonicalizerSpi.engineGetURI(), start, out);
     }
 
     /**
@@ -236,7 +242,11 @@ public final class Canonicalizer {
      * @throws CanonicalizationException
      */
     public void canonicalizeSubtree(Node node, OutputStream writer) throws CanonicalizationException {
-        canonicalizerSpi.engineCanonicalizeSubTree(node, writer);
+        long start = SecurityMetrics.start();
+        OutputStream out = SecurityMetrics.countBytes(start, writer); //NOPMD
+        canonicalizerSpi.engineCanonicalizeSubTree(node, out);
+        SecurityMetrics.record(
+            SecurityMetricsListener.Stage.CANONICALIZATION, canonicalizerSpi.engineGetURI(), start, out);
     }
 
     /**
@@ -249,7 +259,11 @@ public final class Canonicalizer {
      */
     public void canonicalizeSubtree(Node node, String inclusiveNamespaces, OutputStream writer)
         throws CanonicalizationException {
-        canonicalizerSpi.engineCanonicalizeSubTree(node, inclusiveNamespaces, writer);
+        long start = SecurityMetrics.start();
+        OutputStream out = SecurityMetrics.countBytes(start, writer); //NOPMD
+        canonicalizerSpi.engineCanonicalizeSubTree(node, inclusiveNamespaces, out);
+        SecurityMetrics.record(
+            SecurityMetricsListener.Stage.CANONICALIZATION, canonicalizerSpi.engineGetURI(), start, out);
     }
 
     /**
@@ -263,7 +277,11 @@ public final class Canonicalizer {
     public void canonicalizeSubtree(Node node, String inclusiveNamespaces,
                                     boolean propagateDefaultNamespace, OutputStream writer)
             throws CanonicalizationException {
-        canonicalizerSpi.engineCanonicalizeSubTree(node, inclusiveNamespaces, propagateDefaultNamespace, writer);
+        long start = SecurityMetrics.start();
+        OutputStream out = SecurityMetrics.countBytes(start, writer); //NOPMD
+        canonicalizerSpi.engineCanonicalizeSubTree(node, inclusiveNamespaces, propagateDefaultNamespace, out);
+        SecurityMetrics.record(
+            SecurityMetricsListener.Stage.CANONICALIZATION, canonicalizerSpi.engineGetURI(), start, out);
     }
 
     /**
@@ -275,7 +293,11 @@ public final class Canonicalizer {
      */
     public void canonicalizeXPathNodeSet(Set<Node> xpathNodeSet, OutputStream writer)
         throws CanonicalizationException {
-        canonicalizerSpi.engineCanonicalizeXPathNodeSet(xpathNodeSet, writer);
+        long start = SecurityMetrics.start();
+        OutputStream out = SecurityMetrics.countBytes(start, writer); //NOPMD
+        canonicalizerSpi.engineCanonicalizeXPathNodeSet(xpathNodeSet, out);
+        SecurityMetrics.record(
+            SecurityMetricsListener.Stage.CANONICALIZATION, canonicalizerSpi.engineGetURI(), start, out);
     }
 
     /**
@@ -289,7 +311,11 @@ public final class Canonicalizer {
     public void canonicalizeXPathNodeSet(
         Set<Node> xpathNodeSet, String inclusiveNamespaces, OutputStream writer
     ) throws CanonicalizationException {
-        canonicalizerSpi.engineCanonicalizeXPathNodeSet(xpathNodeSet, inclusiveNamespaces, writer);
+        long start = SecurityMetrics.start();
+        OutputStream out = SecurityMetrics.countBytes(start, writer); //NOPMD
+        canonicalizerSpi.engineCanonicalizeXPathNodeSet(xpathNodeSet, inclusiveNamespaces, out);
+        SecurityMetrics.record(
+            SecurityMetricsListener.Stage.CANONICALIZATION, canonicalizerSpi.engineGetURI(), start, out);
     }
 
 }
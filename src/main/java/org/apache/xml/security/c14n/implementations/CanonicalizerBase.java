@@ -33,8 +33,11 @@ import org.apache.xml.security.c14n.CanonicalizerSpi;
 import org.apache.xml.security.c14n.helper.AttrCompare;
 import org.apache.xml.security.parser.XMLParserException;
 import org.apache.xml.security.signature.NodeFilter;
+import org.apache.xml.security.signature.SubtreeNodeSet;
 import org.apache.xml.security.signature.XMLSignatureInput;
 import org.apache.xml.security.utils.Constants;
+import org.apache.xml.security.utils.UnsyncBufferedOutputStream;
+import org.apache.xml.security.utils.UnsyncByteArrayOutputStream;
 import org.apache.xml.security.utils.XMLUtils;
 import org.w3c.dom.Attr;
 import org.w3c.dom.Comment;
@@ -118,7 +121,12 @@ public abstract class CanonicalizerBase extends CanonicalizerSpi {
     public void engineCanonicalizeXPathNodeSet(Set<Node> xpathNodeSet, OutputStream writer)
         throws CanonicalizationException {
         this.xpathNodeSet = xpathNodeSet;
-        engineCanonicalizeXPathNodeSetInternal(XMLUtils.getOwnerDocument(this.xpathNodeSet), writer);
+        if (xpathNodeSet instanceof SubtreeNodeSet) {
+            // no node outside of the subtree is visible, so there is no need to traverse the whole document
+            engineCanonicalizeXPathNodeSetInternal(((SubtreeNodeSet) xpathNodeSet).getRoot(), writer);
+        } else {
+            engineCanonicalizeXPathNodeSetInternal(XMLUtils.getOwnerDocument(this.xpathNodeSet), writer);
+        }
     }
 
     /**
@@ -174,8 +182,9 @@ public abstract class CanonicalizerBase extends CanonicalizerSpi {
                 getParentNameSpaces((Element)rootNode, ns);
                 nodeLevel = NODE_NOT_BEFORE_OR_AFTER_DOCUMENT_ELEMENT;
             }
-            this.canonicalizeSubTree(rootNode, ns, rootNode, nodeLevel, excludeNode, writer);
-            writer.flush();
+            OutputStream bufferedWriter = buffer(writer);  //NOPMD
+            this.canonicalizeSubTree(rootNode, ns, rootNode, nodeLevel, excludeNode, bufferedWriter);
+            bufferedWriter.flush();
         } catch (UnsupportedEncodingException ex) {
             throw new CanonicalizationException(ex);
         } catch (IOException ex) {
@@ -255,7 +264,7 @@ public abstract class CanonicalizerBase extends CanonicalizerSpi {
                 sibling = currentNode.getFirstChild();
                 if (sibling == null) {
                     writer.write(END_TAG.clone());
-                    UtfHelpper.writeStringToUtf8(name, writer);
+                    UtfHelpper.writeByte(name, writer, cache);
                     writer.write('>');
                     //We finished with this level, pop to the previous definitions.
                     ns.outputNodePop();
@@ -299,13 +308,25 @@ public abstract class CanonicalizerBase extends CanonicalizerSpi {
     private void engineCanonicalizeXPathNodeSetInternal(Node doc, OutputStream writer)
         throws CanonicalizationException {
         try {
-            this.canonicalizeXPathNodeSet(doc, doc, writer);
-            writer.flush();
+            OutputStream bufferedWriter = buffer(writer);  //NOPMD
+            this.canonicalizeXPathNodeSet(doc, doc, bufferedWriter);
+            bufferedWriter.flush();
         } catch (IOException ex) {
             throw new CanonicalizationException(ex);
         }
     }
 
+    /**
+     * The canonicalization output is written mostly byte by byte, so it is buffered unless the
+     * writer buffers already.
+     */
+    private static OutputStream buffer(OutputStream writer) {
+        if (writer instanceof UnsyncBufferedOutputStream || writer instanceof UnsyncByteArrayOutputStream) {
+            return writer;
+        }
+        return new UnsyncBufferedOutputStream(writer);
+    }
+
     /**
      * Canonicalizes all the nodes included in the currentNode and contained in the
      * xpathNodeSet field.
@@ -613,12 +634,10 @@ public abstract class CanonicalizerBase extends CanonicalizerSpi {
         writer.write(' ');
         UtfHelpper.writeByte(name, writer, cache);
         writer.write(EQUALS_STR.clone());
-        byte[] toWrite;
         final int length = value.length();
-        int i = 0;
-        while (i < length) {
-            int c = value.codePointAt(i);
-            i += Character.charCount(c);
+        byte[] toWrite;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
 
             switch (c) {
 
@@ -650,7 +669,9 @@ public abstract class CanonicalizerBase extends CanonicalizerSpi {
                 if (c < 0x80) {
                     writer.write(c);
                 } else {
-                    UtfHelpper.writeCodePointToUtf8(c, writer);
+                    int codePoint = value.codePointAt(i);
+                    i += Character.charCount(codePoint) - 1;
+                    UtfHelpper.writeCodePointToUtf8(codePoint, writer);
                 }
                 continue;
             }
@@ -766,9 +787,8 @@ public abstract class CanonicalizerBase extends CanonicalizerSpi {
     ) throws IOException {
         final int length = text.length();
         byte[] toWrite;
-        for (int i = 0; i < length; ) {
-            int c = text.codePointAt(i);
-            i += Character.charCount(c);
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
 
             switch (c) {
 
@@ -792,7 +812,9 @@ public abstract class CanonicalizerBase extends CanonicalizerSpi {
                 if (c < 0x80) {
                     writer.write(c);
                 } else {
-                    UtfHelpper.writeCodePointToUtf8(c, writer);
+                    int codePoint = text.codePointAt(i);
+                    i += Character.charCount(codePoint) - 1;
+                    UtfHelpper.writeCodePointToUtf8(codePoint, writer);
                 }
                 continue;
             }
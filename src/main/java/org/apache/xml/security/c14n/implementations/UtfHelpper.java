@@ -24,6 +24,8 @@ import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.Map;
 
+import org.apache.xml.security.utils.BoundedCache;
+
 public final class UtfHelpper {
 
     /**
@@ -54,6 +56,14 @@ public final class UtfHelpper {
         out.write(result);
     }
 
+    public static void writeByte(
+        final String str,
+        final OutputStream out,
+        BoundedCache<String, byte[]> cache
+    ) throws IOException {
+        out.write(cache.computeIfAbsent(str, UtfHelpper::getStringInUtf8));
+    }
+
     public static void writeCodePointToUtf8(final int c, final OutputStream out) throws IOException {
         if (!Character.isValidCodePoint(c) || c >= 0xD800 && c <= 0xDBFF || c >= 0xDC00 && c <= 0xDFFF) {
             // valid code point: c >= 0x0000 && c <= 0x10FFFF
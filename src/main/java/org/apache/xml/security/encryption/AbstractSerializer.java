@@ -39,6 +39,9 @@ import org.w3c.dom.NodeList;
  */
 public abstract class AbstractSerializer implements Serializer {
 
+    /** The end of the context created by {@link #createContextStart(Node)} */
+    protected static final byte[] CONTEXT_END = "</dummy>".getBytes(StandardCharsets.UTF_8);
+
     private final Canonicalizer canon;
     protected final boolean secureValidation;
 
@@ -83,6 +86,28 @@ public abstract class AbstractSerializer implements Serializer {
 
     protected static byte[] createContext(byte[] source, Node ctx) throws XMLEncryptionException {
         // Create the context to parse the document against
+        try (ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream()) {
+            byteArrayOutputStream.write(createContextStart(ctx));
+            byteArrayOutputStream.write(source);
+            byteArrayOutputStream.write(CONTEXT_END);
+
+            return byteArrayOutputStream.toByteArray();
+        } catch (IOException e) {
+            throw new XMLEncryptionException(e);
+        }
+    }
+
+    /**
+     * Returns the start of the context to parse the source against, i.e. the XML
+     * declaration and the start tag of a dummy element, which declares all the
+     * namespaces in scope of the context node. The context has to be closed with
+     * {@link #CONTEXT_END}.
+     *
+     * @param ctx the context node
+     * @return the start of the context
+     * @throws XMLEncryptionException
+     */
+    protected static byte[] createContextStart(Node ctx) throws XMLEncryptionException {
         try (ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
             OutputStreamWriter outputStreamWriter = new OutputStreamWriter(byteArrayOutputStream, StandardCharsets.UTF_8)) {
             outputStreamWriter.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?><dummy");
@@ -110,10 +135,6 @@ public abstract class AbstractSerializer implements Serializer {
                 wk = wk.getParentNode();
             }
             outputStreamWriter.write(">");
-            outputStreamWriter.flush();
-            byteArrayOutputStream.write(source);
-
-            outputStreamWriter.write("</dummy>");
             outputStreamWriter.close();
 
             return byteArrayOutputStream.toByteArray();
@@ -0,0 +1,222 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.encryption;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.ShortBufferException;
+
+import org.apache.xml.security.utils.Base64Decoder;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.Text;
+
+/**
+ * An InputStream which decrypts the encrypted octets of an underlying InputStream chunk
+ * by chunk with an initialized Cipher. In contrast to a javax.crypto.CipherInputStream,
+ * a failure of the final decryption step is not swallowed but reported as an IOException
+ * with an XMLEncryptionException as its cause.
+ */
+class DecryptionInputStream extends InputStream {
+
+    static final int BUFFER_SIZE = 8192;
+
+    private final InputStream encryptedStream;
+    private final Cipher cipher;
+    private final Runnable releaseCipher;
+
+    private final byte[] inputBuffer = new byte[BUFFER_SIZE];
+    private byte[] outputBuffer = new byte[BUFFER_SIZE + 32];
+    private int outputPosition;
+    private int outputLength;
+    private boolean finished;
+    private boolean released;
+
+    /**
+     * @param encryptedStream the encrypted octets without the IV
+     * @param cipher a Cipher initialized for decryption
+     * @param releaseCipher called once the Cipher is not used anymore
+     */
+    DecryptionInputStream(InputStream encryptedStream, Cipher cipher, Runnable releaseCipher) {
+        this.encryptedStream = encryptedStream;
+        this.cipher = cipher;
+        this.releaseCipher = releaseCipher;
+    }
+
+    @Override
+    public int read() throws IOException {
+        while (outputPosition == outputLength) {
+            if (finished) {
+                return -1;
+            }
+            decryptNextChunk();
+        }
+        return outputBuffer[outputPosition++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (outputPosition == outputLength) {
+            if (finished) {
+                return -1;
+            }
+            decryptNextChunk();
+        }
+        int count = Math.min(len, outputLength - outputPosition);
+        System.arraycopy(outputBuffer, outputPosition, b, off, count);
+        outputPosition += count;
+        return count;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return outputLength - outputPosition;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            encryptedStream.close();
+        } finally {
+            release();
+        }
+    }
+
+    private void decryptNextChunk() throws IOException {
+        int read = encryptedStream.read(inputBuffer);
+        outputPosition = 0;
+        try {
+            if (read == -1) {
+                ensureOutputBuffer(cipher.getOutputSize(0));
+                outputLength = cipher.doFinal(outputBuffer, 0);
+                finished = true;
+                release();
+            } else {
+                ensureOutputBuffer(cipher.getOutputSize(read));
+                outputLength = cipher.update(inputBuffer, 0, read, outputBuffer, 0);
+            }
+        } catch (IllegalBlockSizeException | BadPaddingException | ShortBufferException e) {
+            outputLength = 0;
+            finished = true;
+            release();
+            throw new IOException(new XMLEncryptionException(e));
+        }
+    }
+
+    private void ensureOutputBuffer(int size) {
+        if (outputBuffer.length < size) {
+            // AEAD ciphers hold back all output until doFinal, so grow geometrically
+            outputBuffer = new byte[Math.max(size, outputBuffer.length * 2)];
+        }
+    }
+
+    private void release() {
+        if (!released) {
+            released = true;
+            releaseCipher.run();
+        }
+    }
+
+    /**
+     * An InputStream of the base64 decoded text children of an Element, as used for the content
+     * of a CipherValue. The text is decoded directly from the Text nodes, which may be split into
+     * several adjacent nodes, without copying it into a String or an encoded byte array first.
+     */
+    static class Base64TextInputStream extends InputStream {
+
+        private final Base64Decoder decoder = new Base64Decoder();
+        private final byte[] buffer = new byte[Base64Decoder.getMaxDecodedLength(BUFFER_SIZE)];
+        private int bufferPosition;
+        private int bufferLength;
+        private boolean finished;
+
+        private Node currentNode;
+        private String currentText;
+        private int currentPosition;
+
+        Base64TextInputStream(Element element) {
+            currentNode = element.getFirstChild();
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (bufferPosition == bufferLength && !fill()) {
+                return -1;
+            }
+            return buffer[bufferPosition++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (bufferPosition == bufferLength && !fill()) {
+                return -1;
+            }
+            int count = Math.min(len, bufferLength - bufferPosition);
+            System.arraycopy(buffer, bufferPosition, b, off, count);
+            bufferPosition += count;
+            return count;
+        }
+
+        /**
+         * Decodes the next chunk of text into the buffer.
+         *
+         * @return false at the end of the text
+         */
+        private boolean fill() throws IOException {
+            bufferPosition = 0;
+            bufferLength = 0;
+            while (bufferLength == 0) {
+                if (finished) {
+                    return false;
+                }
+                if (nextText()) {
+                    int count = Math.min(BUFFER_SIZE, currentText.length() - currentPosition);
+                    bufferLength = decoder.decode(currentText, currentPosition, count, buffer, 0);
+                    currentPosition += count;
+                } else {
+                    bufferLength = decoder.finish(buffer, 0);
+                    finished = true;
+                }
+            }
+            return true;
+        }
+
+        private boolean nextText() {
+            while (currentText == null || currentPosition == currentText.length()) {
+                if (currentNode == null) {
+                    return false;
+                }
+                currentText = currentNode instanceof Text ? ((Text) currentNode).getData() : null;
+                currentPosition = 0;
+                currentNode = currentNode.getNextSibling();
+            }
+            return true;
+        }
+    }
+}
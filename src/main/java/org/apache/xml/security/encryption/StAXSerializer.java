@@ -0,0 +1,221 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.encryption;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.xml.security.c14n.Canonicalizer;
+import org.apache.xml.security.c14n.InvalidCanonicalizerException;
+import org.w3c.dom.Document;
+import org.w3c.dom.DocumentFragment;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.Text;
+
+/**
+ * Converts <code>String</code>s into <code>Node</code>s and visa versa. The decrypted octets
+ * are parsed with an XMLStreamReader and the resulting nodes are created directly in the
+ * Document of the context node, so that neither a temporary Document nor an import of the
+ * parsed nodes is required. With secureValidation enabled a DTD in the decrypted content is
+ * rejected, as it is by the {@link DocumentSerializer}.
+ */
+public class StAXSerializer extends AbstractSerializer {
+
+    private static final org.slf4j.Logger LOG =
+        org.slf4j.LoggerFactory.getLogger(StAXSerializer.class);
+
+    /** used with secure validation, DTDs are rejected like the DocumentSerializer does */
+    private static final XMLInputFactory secureXmlInputFactory = createXMLInputFactory(false);
+    /** used without secure validation, internal DTD subsets are processed, external entities not */
+    private static final XMLInputFactory xmlInputFactory = createXMLInputFactory(true);
+
+    public StAXSerializer(boolean secureValidation) throws InvalidCanonicalizerException {
+        this(Canonicalizer.ALGO_ID_C14N_PHYSICAL, secureValidation);
+    }
+
+    public StAXSerializer(String canonAlg, boolean secureValidation) throws InvalidCanonicalizerException {
+        super(canonAlg, secureValidation);
+    }
+
+    /**
+     * @param source
+     * @param ctx
+     * @return the Node resulting from the parse of the source
+     * @throws XMLEncryptionException
+     */
+    public Node deserialize(byte[] source, Node ctx) throws XMLEncryptionException, IOException {
+        // Parse the source against the namespace context without copying it
+        try (InputStream is = new SequenceInputStream(
+                new SequenceInputStream(
+                    new ByteArrayInputStream(createContextStart(ctx)), new ByteArrayInputStream(source)),
+                new ByteArrayInputStream(CONTEXT_END))) {
+            return deserialize(ctx, is);
+        }
+    }
+
+    /**
+     * @param ctx
+     * @param inputStream
+     * @return the Node resulting from the parse of the source
+     * @throws XMLEncryptionException
+     */
+    private Node deserialize(Node ctx, InputStream inputStream) throws XMLEncryptionException {
+        Document contextDocument = null;
+        if (Node.DOCUMENT_NODE == ctx.getNodeType()) {
+            contextDocument = (Document)ctx;
+        } else {
+            contextDocument = ctx.getOwnerDocument();
+        }
+
+        XMLStreamReader xmlStreamReader = null;
+        try {
+            xmlStreamReader = (secureValidation ? secureXmlInputFactory : xmlInputFactory)
+                .createXMLStreamReader(inputStream);
+
+            DocumentFragment result = contextDocument.createDocumentFragment();
+            Node parent = result;
+            // The depth of the dummy element is 1
+            int depth = 0;
+            while (xmlStreamReader.hasNext()) {
+                int eventType = xmlStreamReader.next();
+                switch (eventType) {
+                case XMLStreamConstants.START_ELEMENT:
+                    if (++depth > 1) {
+                        Element element = createElement(contextDocument, xmlStreamReader);
+                        parent.appendChild(element);
+                        parent = element;
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    if (--depth > 0) {
+                        parent = parent.getParentNode();
+                    }
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.SPACE:
+                    if (depth > 0) {
+                        Node lastChild = parent.getLastChild();
+                        if (lastChild != null && lastChild.getNodeType() == Node.TEXT_NODE) {
+                            ((Text) lastChild).appendData(xmlStreamReader.getText());
+                        } else {
+                            parent.appendChild(contextDocument.createTextNode(xmlStreamReader.getText()));
+                        }
+                    }
+                    break;
+                case XMLStreamConstants.CDATA:
+                    if (depth > 0) {
+                        parent.appendChild(contextDocument.createCDATASection(xmlStreamReader.getText()));
+                    }
+                    break;
+                case XMLStreamConstants.COMMENT:
+                    if (depth > 0) {
+                        parent.appendChild(contextDocument.createComment(xmlStreamReader.getText()));
+                    }
+                    break;
+                case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                    if (depth > 0) {
+                        parent.appendChild(
+                            contextDocument.createProcessingInstruction(
+                                xmlStreamReader.getPITarget(), xmlStreamReader.getPIData()));
+                    }
+                    break;
+                case XMLStreamConstants.DTD:
+                    if (secureValidation) {
+                        throw new XMLEncryptionException("empty", "Decrypted content must not contain a DTD");
+                    }
+                    break;
+                case XMLStreamConstants.ENTITY_REFERENCE:
+                    throw new XMLEncryptionException("empty", "Decrypted content must not contain unresolved entity references");
+                default:
+                    break;
+                }
+            }
+            return result;
+        } catch (XMLStreamException e) {
+            throw new XMLEncryptionException(e);
+        } finally {
+            if (xmlStreamReader != null) {
+                try {
+                    xmlStreamReader.close();
+                } catch (XMLStreamException e) {
+                    LOG.debug(e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    private static XMLInputFactory createXMLInputFactory(boolean supportDTD) {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, supportDTD);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        try {
+            factory.setProperty("org.codehaus.stax2.preserveLocation", false);
+        } catch (IllegalArgumentException e) {
+            LOG.debug(e.getMessage(), e);
+            //ignore
+        }
+        return factory;
+    }
+
+    private static Element createElement(Document document, XMLStreamReader xmlStreamReader) {
+        Element element =
+            document.createElementNS(
+                emptyToNull(xmlStreamReader.getNamespaceURI()),
+                getQualifiedName(xmlStreamReader.getPrefix(), xmlStreamReader.getLocalName()));
+
+        for (int i = 0; i < xmlStreamReader.getNamespaceCount(); i++) {
+            String prefix = xmlStreamReader.getNamespacePrefix(i);
+            String uri = xmlStreamReader.getNamespaceURI(i);
+            if (prefix == null || prefix.isEmpty()) {
+                element.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, XMLConstants.XMLNS_ATTRIBUTE, uri == null ? "" : uri);
+            } else {
+                element.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, XMLConstants.XMLNS_ATTRIBUTE + ":" + prefix, uri);
+            }
+        }
+
+        for (int i = 0; i < xmlStreamReader.getAttributeCount(); i++) {
+            element.setAttributeNS(
+                emptyToNull(xmlStreamReader.getAttributeNamespace(i)),
+                getQualifiedName(xmlStreamReader.getAttributePrefix(i), xmlStreamReader.getAttributeLocalName(i)),
+                xmlStreamReader.getAttributeValue(i));
+        }
+        return element;
+    }
+
+    private static String getQualifiedName(String prefix, String localName) {
+        if (prefix == null || prefix.isEmpty()) {
+            return localName;
+        }
+        return prefix + ":" + localName;
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+}
@@ -18,9 +18,11 @@
  */
 package org.apache.xml.security.encryption;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -52,6 +54,7 @@ import javax.crypto.spec.OAEPParameterSpec;
 import javax.crypto.spec.PSource;
 import javax.xml.transform.TransformerConfigurationException;
 
+import org.apache.xml.security.algorithms.CipherPool;
 import org.apache.xml.security.algorithms.JCEMapper;
 import org.apache.xml.security.algorithms.MessageDigestAlgorithm;
 import org.apache.xml.security.c14n.Canonicalizer;
@@ -68,12 +71,15 @@ import org.apache.xml.security.transforms.TransformationException;
 import org.apache.xml.security.utils.Constants;
 import org.apache.xml.security.utils.ElementProxy;
 import org.apache.xml.security.utils.EncryptionConstants;
+import org.apache.xml.security.utils.SecurityMetrics;
+import org.apache.xml.security.utils.SecurityMetricsListener;
 import org.apache.xml.security.utils.XMLUtils;
 import org.w3c.dom.Attr;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import org.w3c.dom.Text;
 
 /**
  * <code>XMLCipher</code> encrypts and decrypts the contents of
@@ -1092,6 +1098,7 @@ public class XMLCipher {
     private EncryptedData encryptData(
         Document context, Element element, String type, InputStream serializedData
     ) throws /* XMLEncryption */ Exception {
+        long start = SecurityMetrics.start();
         contextDocument = context;
 
         if (algorithm == null) {
@@ -1126,7 +1133,7 @@ public class XMLCipher {
         // Now create the working cipher if none was created already
         Cipher c;
         if (contextCipher == null) {
-            c = constructCipher(algorithm, null);
+            c = getPooledCipher(algorithm);
         } else {
             c = contextCipher;
         }
@@ -1174,11 +1181,16 @@ public class XMLCipher {
         if (c.getIV() != null) {
             iv = c.getIV();
         }
+        if (c != contextCipher) {
+            CipherPool.release(algorithm, requestedJCEProvider, c);
+        }
         // Now build up to a properly XML Encryption encoded octet stream
         byte[] finalEncryptedBytes = new byte[iv.length + encryptedBytes.length];
         System.arraycopy(iv, 0, finalEncryptedBytes, 0, iv.length);
         System.arraycopy(encryptedBytes, 0, finalEncryptedBytes, iv.length, encryptedBytes.length);
         String base64EncodedEncryptedOctets = XMLUtils.encodeToString(finalEncryptedBytes);
+        SecurityMetrics.record(
+            SecurityMetricsListener.Stage.ENCRYPTION, algorithm, start, finalEncryptedBytes.length);
 
         LOG.debug("Encrypted octets:\n{}", base64EncodedEncryptedOctets);
         LOG.debug("Encrypted octets length = {}", base64EncodedEncryptedOctets.length());
@@ -1563,6 +1575,19 @@ public class XMLCipher {
         return c;
     }
 
+    /**
+     * Get a Cipher for a block encryption algorithm from the CipherPool. It has to be released
+     * to the CipherPool once the encryption or decryption is finished.
+     */
+    private Cipher getPooledCipher(String algorithm) throws XMLEncryptionException {
+        LOG.debug("JCE Algorithm = {}", JCEMapper.translateURItoJCEID(algorithm));
+        try {
+            return CipherPool.getInstance(algorithm, requestedJCEProvider);
+        } catch (NoSuchAlgorithmException | NoSuchProviderException | NoSuchPaddingException e) {
+            throw new XMLEncryptionException(e);
+        }
+    }
+
     private Cipher constructCipher(String algorithm, String digestAlgorithm, Exception nsae) throws XMLEncryptionException {
         if (!XMLCipher.RSA_OAEP.equals(algorithm)) {
             throw new XMLEncryptionException(nsae);
@@ -1728,6 +1753,7 @@ public class XMLCipher {
      */
     public byte[] decryptToByteArray(Element element) throws XMLEncryptionException {
         LOG.debug("Decrypting to ByteArray...");
+        long start = SecurityMetrics.start();
 
         if (cipherMode != DECRYPT_MODE) {
             throw new XMLEncryptionException("empty", "XMLCipher unexpectedly not in DECRYPT_MODE...");
@@ -1736,6 +1762,150 @@ public class XMLCipher {
         EncryptedData encryptedData = factory.newEncryptedData(element);
         String encMethodAlgorithm = encryptedData.getEncryptionMethod().getAlgorithm();
 
+        resolveDecryptionKey(encryptedData, encMethodAlgorithm);
+
+        // Obtain the encrypted octets
+        XMLCipherInput cipherInput = new XMLCipherInput(encryptedData);
+        cipherInput.setSecureValidation(secureValidation);
+        byte[] encryptedBytes = cipherInput.getBytes();
+
+        // Now create the working cipher
+        Cipher c = getPooledCipher(encMethodAlgorithm);
+
+        int ivLen = JCEMapper.getIVLengthFromURI(encMethodAlgorithm) / 8;
+        byte[] ivBytes = new byte[ivLen];
+
+        // You may be able to pass the entire piece in to IvParameterSpec
+        // and it will only take the first x bytes, but no way to be certain
+        // that this will work for every JCE provider, so lets copy the
+        // necessary bytes into a dedicated array.
+
+        System.arraycopy(encryptedBytes, 0, ivBytes, 0, ivLen);
+
+        initDecryptionCipher(c, encMethodAlgorithm, ivBytes);
+
+        try {
+            byte[] plaintextBytes = c.doFinal(encryptedBytes, ivLen, encryptedBytes.length - ivLen);
+            CipherPool.release(encMethodAlgorithm, requestedJCEProvider, c);
+            SecurityMetrics.record(
+                SecurityMetricsListener.Stage.DECRYPTION, encMethodAlgorithm, start, plaintextBytes.length);
+            return plaintextBytes;
+        } catch (IllegalBlockSizeException | BadPaddingException e) {
+            throw new XMLEncryptionException(e);
+        }
+    }
+
+    /**
+     * Decrypt an EncryptedData element to an OutputStream.
+     *
+     * Unlike {@link #decryptToByteArray(Element)}, the base64 encoded CipherValue
+     * is decoded and decrypted in chunks, so that the encrypted octets and the
+     * plaintext are never held in memory as a whole. Note that some algorithms
+     * (e.g. AES-GCM) have to buffer the ciphertext internally until the
+     * authentication tag has been verified.
+     *
+     * Does not modify the source document and does not close the OutputStream.
+     * @param element the EncryptedData element
+     * @param outputStream the OutputStream the plaintext is written to
+     * @throws XMLEncryptionException
+     */
+    public void decryptToOutputStream(Element element, OutputStream outputStream) throws XMLEncryptionException {
+        LOG.debug("Decrypting to OutputStream...");
+
+        try (InputStream inputStream = decryptToInputStream(element)) {
+            byte[] buffer = new byte[DecryptionInputStream.BUFFER_SIZE];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            if (e.getCause() instanceof XMLEncryptionException) {
+                throw (XMLEncryptionException) e.getCause();
+            }
+            throw new XMLEncryptionException(e);
+        }
+    }
+
+    /**
+     * Decrypt an EncryptedData element to an InputStream.
+     *
+     * The plaintext is decrypted while the returned InputStream is read. A
+     * decryption failure at the end of the data (e.g. bad padding) is reported as
+     * an IOException with an XMLEncryptionException as its cause. The
+     * InputStream should be closed once it is not used anymore.
+     *
+     * Does not modify the source document, which must not be modified either
+     * until the InputStream has been read.
+     * @param element the EncryptedData element
+     * @return an InputStream of the plaintext
+     * @throws XMLEncryptionException
+     */
+    public InputStream decryptToInputStream(Element element) throws XMLEncryptionException {
+        LOG.debug("Decrypting to InputStream...");
+
+        if (cipherMode != DECRYPT_MODE) {
+            throw new XMLEncryptionException("empty", "XMLCipher unexpectedly not in DECRYPT_MODE...");
+        }
+
+        // The CipherValue is read straight from the DOM below, so don't copy it here
+        EncryptedData encryptedData = factory.newEncryptedData(element, false);
+        String encMethodAlgorithm = encryptedData.getEncryptionMethod().getAlgorithm();
+
+        resolveDecryptionKey(encryptedData, encMethodAlgorithm);
+
+        // Obtain the encrypted octets
+        InputStream encryptedStream;
+        if (encryptedData.getCipherData().getDataType() == CipherData.VALUE_TYPE) {
+            // Need to get the last CipherData found, as earlier ones will
+            // be for elements in the KeyInfo lists
+            NodeList dataElements =
+                element.getElementsByTagNameNS(
+                    EncryptionConstants.EncryptionSpecNS, EncryptionConstants._TAG_CIPHERDATA);
+            Element dataElement = (Element) dataElements.item(dataElements.getLength() - 1);
+            Element cipherValueElement =
+                (Element) dataElement.getElementsByTagNameNS(
+                    EncryptionConstants.EncryptionSpecNS,
+                    EncryptionConstants._TAG_CIPHERVALUE).item(0);
+            encryptedStream = new DecryptionInputStream.Base64TextInputStream(cipherValueElement);
+        } else {
+            XMLCipherInput cipherInput = new XMLCipherInput(encryptedData);
+            cipherInput.setSecureValidation(secureValidation);
+            encryptedStream = new ByteArrayInputStream(cipherInput.getBytes());
+        }
+
+        int ivLen = JCEMapper.getIVLengthFromURI(encMethodAlgorithm) / 8;
+        byte[] ivBytes = new byte[ivLen];
+        try {
+            int offset = 0;
+            while (offset < ivLen) {
+                int read = encryptedStream.read(ivBytes, offset, ivLen - offset);
+                if (read == -1) {
+                    throw new XMLEncryptionException("empty", "The encrypted data is shorter than the IV");
+                }
+                offset += read;
+            }
+        } catch (IOException e) {
+            throw new XMLEncryptionException(e);
+        }
+
+        // Now create the working cipher
+        Cipher c = getPooledCipher(encMethodAlgorithm);
+        try {
+            initDecryptionCipher(c, encMethodAlgorithm, ivBytes);
+        } catch (XMLEncryptionException e) {
+            CipherPool.release(encMethodAlgorithm, requestedJCEProvider, c);
+            throw e;
+        }
+
+        return new DecryptionInputStream(encryptedStream, c,
+            () -> CipherPool.release(encMethodAlgorithm, requestedJCEProvider, c));
+    }
+
+    /**
+     * Resolve the decryption key from the KeyInfo of the EncryptedData, if no key was set.
+     */
+    private void resolveDecryptionKey(EncryptedData encryptedData, String encMethodAlgorithm)
+        throws XMLEncryptionException {
         if (key == null) {
             KeyInfo ki = encryptedData.getKeyInfo();
             if (ki != null) {
@@ -1757,38 +1927,10 @@ public class XMLCipher {
                 throw new XMLEncryptionException("empty", "encryption.nokey");
             }
         }
+    }
 
-        // Obtain the encrypted octets
-        XMLCipherInput cipherInput = new XMLCipherInput(encryptedData);
-        cipherInput.setSecureValidation(secureValidation);
-        byte[] encryptedBytes = cipherInput.getBytes();
-
-        // Now create the working cipher
-        String jceAlgorithm =
-            JCEMapper.translateURItoJCEID(encMethodAlgorithm);
-        LOG.debug("JCE Algorithm = {}", jceAlgorithm);
-
-        Cipher c;
-        try {
-            if (requestedJCEProvider == null) {
-                c = Cipher.getInstance(jceAlgorithm);
-            } else {
-                c = Cipher.getInstance(jceAlgorithm, requestedJCEProvider);
-            }
-        } catch (NoSuchAlgorithmException | NoSuchProviderException | NoSuchPaddingException e) {
-            throw new XMLEncryptionException(e);
-        }
-
-        int ivLen = JCEMapper.getIVLengthFromURI(encMethodAlgorithm) / 8;
-        byte[] ivBytes = new byte[ivLen];
-
-        // You may be able to pass the entire piece in to IvParameterSpec
-        // and it will only take the first x bytes, but no way to be certain
-        // that this will work for every JCE provider, so lets copy the
-        // necessary bytes into a dedicated array.
-
-        System.arraycopy(encryptedBytes, 0, ivBytes, 0, ivLen);
-
+    private void initDecryptionCipher(Cipher c, String encMethodAlgorithm, byte[] ivBytes)
+        throws XMLEncryptionException {
         String blockCipherAlg = algorithm;
         if (blockCipherAlg == null) {
             blockCipherAlg = encMethodAlgorithm;
@@ -1800,12 +1942,6 @@ public class XMLCipher {
         } catch (InvalidKeyException | InvalidAlgorithmParameterException e) {
             throw new XMLEncryptionException(e);
         }
-
-        try {
-            return c.doFinal(encryptedBytes, ivLen, encryptedBytes.length - ivLen);
-        } catch (IllegalBlockSizeException | BadPaddingException e) {
-            throw new XMLEncryptionException(e);
-        }
     }
 
     /*
@@ -2130,6 +2266,16 @@ public class XMLCipher {
          * @throws XMLEncryptionException
          */
         CipherData newCipherData(Element element) throws XMLEncryptionException {
+            return newCipherData(element, true);
+        }
+
+        /**
+         * @param element
+         * @param readCipherValue whether to read the text of a CipherValue element
+         * @return a new CipherData
+         * @throws XMLEncryptionException
+         */
+        CipherData newCipherData(Element element, boolean readCipherValue) throws XMLEncryptionException {
             if (null == element) {
                 throw new NullPointerException("element is null");
             }
@@ -2155,7 +2301,7 @@ public class XMLCipher {
 
             CipherData result = newCipherData(type);
             if (type == CipherData.VALUE_TYPE) {
-                result.setCipherValue(newCipherValue(e));
+                result.setCipherValue(readCipherValue ? newCipherValue(e) : newCipherValue((String) null));
             } else if (type == CipherData.REFERENCE_TYPE) {
                 result.setCipherReference(newCipherReference(e));
             }
@@ -2198,9 +2344,15 @@ public class XMLCipher {
          * @return a new CipherValue
          */
         CipherValue newCipherValue(Element element) {
-            String value = XMLUtils.getFullTextChildrenFromNode(element);
+            // Read CDATA sections as well, like DecryptionInputStream.Base64TextInputStream does
+            StringBuilder value = new StringBuilder();
+            for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+                if (child instanceof Text) {
+                    value.append(((Text) child).getData());
+                }
+            }
 
-            return newCipherValue(value);
+            return newCipherValue(value.toString());
         }
 
         /**
@@ -2210,6 +2362,16 @@ public class XMLCipher {
          *
          */
         EncryptedData newEncryptedData(Element element) throws XMLEncryptionException {
+            return newEncryptedData(element, true);
+        }
+
+        /**
+         * @param element
+         * @param readCipherValue whether to read the text of a CipherValue element
+         * @return a new EncryptedData
+         * @throws XMLEncryptionException
+         */
+        EncryptedData newEncryptedData(Element element, boolean readCipherValue) throws XMLEncryptionException {
             EncryptedData result = null;
 
             NodeList dataElements =
@@ -2222,7 +2384,7 @@ public class XMLCipher {
             Element dataElement =
                 (Element) dataElements.item(dataElements.getLength() - 1);
 
-            CipherData data = newCipherData(dataElement);
+            CipherData data = newCipherData(dataElement, readCipherValue);
 
             result = newEncryptedData(data);
 
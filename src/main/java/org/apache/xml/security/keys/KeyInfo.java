@@ -50,6 +50,8 @@ import org.apache.xml.security.transforms.Transforms;
 import org.apache.xml.security.utils.Constants;
 import org.apache.xml.security.utils.ElementProxy;
 import org.apache.xml.security.utils.EncryptionConstants;
+import org.apache.xml.security.utils.SecurityMetrics;
+import org.apache.xml.security.utils.SecurityMetricsListener;
 import org.apache.xml.security.utils.SignatureElementProxy;
 import org.apache.xml.security.utils.XMLUtils;
 import org.w3c.dom.Attr;
@@ -819,6 +821,13 @@ public class KeyInfo extends SignatureElementProxy {
      * @throws KeyResolverException
      */
     public PublicKey getPublicKey() throws KeyResolverException {
+        long start = SecurityMetrics.start();
+        PublicKey result = resolvePublicKey();
+        SecurityMetrics.record(SecurityMetricsListener.Stage.KEY_RESOLUTION, "PublicKey", start, -1);
+        return result;
+    }
+
+    private PublicKey resolvePublicKey() throws KeyResolverException {
         PublicKey pk = this.getPublicKeyFromInternalResolvers();
 
         if (pk != null) {
@@ -909,6 +918,13 @@ public class KeyInfo extends SignatureElementProxy {
      * @throws KeyResolverException
      */
     public X509Certificate getX509Certificate() throws KeyResolverException {
+        long start = SecurityMetrics.start();
+        X509Certificate result = resolveX509Certificate();
+        SecurityMetrics.record(SecurityMetricsListener.Stage.KEY_RESOLUTION, "X509Certificate", start, -1);
+        return result;
+    }
+
+    private X509Certificate resolveX509Certificate() throws KeyResolverException {
         // First search using the individual resolvers from the user
         X509Certificate cert = this.getX509CertificateFromInternalResolvers();
 
@@ -1009,6 +1025,13 @@ public class KeyInfo extends SignatureElementProxy {
      * @throws KeyResolverException
      */
     public SecretKey getSecretKey() throws KeyResolverException {
+        long start = SecurityMetrics.start();
+        SecretKey result = resolveSecretKey();
+        SecurityMetrics.record(SecurityMetricsListener.Stage.KEY_RESOLUTION, "SecretKey", start, -1);
+        return result;
+    }
+
+    private SecretKey resolveSecretKey() throws KeyResolverException {
         SecretKey sk = this.getSecretKeyFromInternalResolvers();
 
         if (sk != null) {
@@ -1100,6 +1123,13 @@ public class KeyInfo extends SignatureElementProxy {
      * @throws KeyResolverException
      */
     public PrivateKey getPrivateKey() throws KeyResolverException {
+        long start = SecurityMetrics.start();
+        PrivateKey result = resolvePrivateKey();
+        SecurityMetrics.record(SecurityMetricsListener.Stage.KEY_RESOLUTION, "PrivateKey", start, -1);
+        return result;
+    }
+
+    private PrivateKey resolvePrivateKey() throws KeyResolverException {
         PrivateKey pk = this.getPrivateKeyFromInternalResolvers();
 
         if (pk != null) {
@@ -21,11 +21,17 @@ package org.apache.xml.security.keys.keyresolver;
 import java.security.PublicKey;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import javax.xml.namespace.QName;
+
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 
@@ -47,6 +53,10 @@ import org.apache.xml.security.utils.JavaUtils;
 /**
  * KeyResolver is factory class for subclass of KeyResolverSpi that
  * represent child element of KeyInfo.
+ *
+ * The registered resolvers are indexed by the names of the elements they support (see
+ * {@link KeyResolverSpi#engineGetSupportedElements()}), so that a KeyInfo child is only offered
+ * to the resolvers which may be able to resolve it, in the order in which they were registered.
  */
 public class KeyResolver {
 
@@ -57,6 +67,12 @@ public class KeyResolver {
 
     private static final AtomicBoolean defaultResolversAdded = new AtomicBoolean();
 
+    /** guards the registration of resolvers and the construction of the index */
+    private static final Object indexLock = new Object();
+
+    /** the index of resolverList, or null if it has to be rebuilt */
+    private static volatile ResolverIndex resolverIndex;
+
     /**
      * Method length
      *
@@ -80,7 +96,7 @@ public class KeyResolver {
     public static final X509Certificate getX509Certificate(
         Element element, String baseURI, StorageResolver storage, boolean secureValidation
     ) throws KeyResolverException {
-        for (KeyResolverSpi resolver : resolverList) {
+        for (KeyResolverSpi resolver : getResolvers(element)) {
             if (resolver == null) {
                 Object[] exArgs = {
                         element != null
@@ -120,7 +136,7 @@ public class KeyResolver {
     public static final PublicKey getPublicKey(
         Element element, String baseURI, StorageResolver storage, boolean secureValidation
     ) throws KeyResolverException {
-        for (KeyResolverSpi resolver : resolverList) {
+        for (KeyResolverSpi resolver : getResolvers(element)) {
             if (resolver == null) {
                 Object[] exArgs = {
                         element != null
@@ -220,10 +236,13 @@ public class KeyResolver {
         boolean start
     ) {
         JavaUtils.checkRegisterPermission();
-        if (start) {
-            resolverList.add(0, keyResolverSpi);
-        } else {
-            resolverList.add(keyResolverSpi);
+        synchronized (indexLock) {
+            if (start) {
+                resolverList.add(0, keyResolverSpi);
+            } else {
+                resolverList.add(keyResolverSpi);
+            }
+            resolverIndex = null;
         }
     }
 
@@ -252,7 +271,10 @@ public class KeyResolver {
                 JavaUtils.newInstanceWithEmptyConstructor(ClassLoaderUtils.loadClass(className, KeyResolver.class));
             keyResolverList.add(keyResolverSpi);
         }
-        resolverList.addAll(keyResolverList);
+        synchronized (indexLock) {
+            resolverList.addAll(keyResolverList);
+            resolverIndex = null;
+        }
     }
 
     /**
@@ -274,7 +296,83 @@ public class KeyResolver {
             keyResolverList.add(new X509DigestResolver());
             keyResolverList.add(new ECKeyValueResolver());
 
-            resolverList.addAll(keyResolverList);
+            synchronized (indexLock) {
+                resolverList.addAll(keyResolverList);
+                resolverIndex = null;
+            }
+        }
+    }
+
+    /**
+     * Returns the registered resolvers which may be able to resolve the element, in the order
+     * in which they were registered.
+     */
+    private static KeyResolverSpi[] getResolvers(Element element) {
+        ResolverIndex index = resolverIndex;
+        if (index == null) {
+            synchronized (indexLock) {
+                index = resolverIndex;
+                if (index == null) {
+                    index = new ResolverIndex(resolverList);
+                    resolverIndex = index;
+                }
+            }
+        }
+        return index.getResolvers(element);
+    }
+
+    /**
+     * An immutable index of the registered resolvers by the names of the elements they support.
+     */
+    private static final class ResolverIndex {
+
+        private final KeyResolverSpi[] allResolvers;
+        /** the resolvers which don't declare the elements they support */
+        private final KeyResolverSpi[] unindexedResolvers;
+        private final Map<QName, KeyResolverSpi[]> resolversByElement;
+
+        ResolverIndex(List<KeyResolverSpi> resolvers) {
+            allResolvers = resolvers.toArray(new KeyResolverSpi[0]);
+
+            List<Set<QName>> supportedElements = new ArrayList<>(allResolvers.length);
+            Set<QName> elementNames = new LinkedHashSet<>();
+            List<KeyResolverSpi> unindexed = new ArrayList<>();
+            for (KeyResolverSpi resolver : allResolvers) {
+                Set<QName> supported = resolver != null ? resolver.engineGetSupportedElements() : null;
+                supportedElements.add(supported);
+                if (supported == null) {
+                    unindexed.add(resolver);
+                } else {
+                    elementNames.addAll(supported);
+                }
+            }
+            unindexedResolvers = unindexed.toArray(new KeyResolverSpi[0]);
+
+            resolversByElement = new HashMap<>();
+            for (QName elementName : elementNames) {
+                List<KeyResolverSpi> candidates = new ArrayList<>();
+                for (int i = 0; i < allResolvers.length; i++) {
+                    Set<QName> supported = supportedElements.get(i);
+                    if (supported == null || supported.contains(elementName)) {
+                        candidates.add(allResolvers[i]);
+                    }
+                }
+                resolversByElement.put(elementName, candidates.toArray(new KeyResolverSpi[0]));
+            }
+        }
+
+        KeyResolverSpi[] getResolvers(Element element) {
+            if (element == null) {
+                return allResolvers;
+            }
+            String localName = element.getLocalName();
+            if (localName == null) {
+                return unindexedResolvers;
+            }
+            String namespaceURI = element.getNamespaceURI();
+            KeyResolverSpi[] resolvers =
+                resolversByElement.get(new QName(namespaceURI == null ? "" : namespaceURI, localName));
+            return resolvers != null ? resolvers : unindexedResolvers;
         }
     }
 
@@ -24,8 +24,10 @@ import java.io.InputStream;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.security.cert.X509Certificate;
+import java.util.Set;
 
 import javax.crypto.SecretKey;
+import javax.xml.namespace.QName;
 
 import org.apache.xml.security.keys.storage.StorageResolver;
 import org.apache.xml.security.parser.XMLParserException;
@@ -57,6 +59,18 @@ public abstract class KeyResolverSpi {
      */
     protected abstract boolean engineCanResolve(Element element, String baseURI, StorageResolver storage);
 
+    /**
+     * Returns the names of the KeyInfo child elements this KeyResolverSpi is able to resolve.
+     * {@link KeyResolver} only offers those elements to it, which saves asking every registered
+     * KeyResolverSpi about every element. The default, null, means that the KeyResolverSpi is
+     * asked about every element.
+     *
+     * @return the names of the supported elements, or null if they are not known
+     */
+    protected Set<QName> engineGetSupportedElements() {  //NOPMD
+        return null;
+    }
+
     /**
      * Method engineResolvePublicKey
      *
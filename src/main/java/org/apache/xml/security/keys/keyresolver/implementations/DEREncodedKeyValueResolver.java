@@ -21,8 +21,11 @@ package org.apache.xml.security.keys.keyresolver.implementations;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.Set;
 
 import javax.crypto.SecretKey;
+import javax.xml.namespace.QName;
 
 import org.apache.xml.security.exceptions.XMLSecurityException;
 import org.apache.xml.security.keys.content.DEREncodedKeyValue;
@@ -43,12 +46,21 @@ public class DEREncodedKeyValueResolver extends KeyResolverSpi {
     private static final org.slf4j.Logger LOG =
         org.slf4j.LoggerFactory.getLogger(DEREncodedKeyValueResolver.class);
 
+    private static final Set<QName> SUPPORTED_ELEMENTS =
+        Collections.singleton(new QName(Constants.SignatureSpec11NS, Constants._TAG_DERENCODEDKEYVALUE));
+
     /** {@inheritDoc} */
     @Override
     protected boolean engineCanResolve(Element element, String baseURI, StorageResolver storage) {
         return XMLUtils.elementIsInSignature11Space(element, Constants._TAG_DERENCODEDKEYVALUE);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected Set<QName> engineGetSupportedElements() {
+        return SUPPORTED_ELEMENTS;
+    }
+
     /** {@inheritDoc} */
     @Override
     protected PublicKey engineResolvePublicKey(Element element, String baseURI, StorageResolver storage, boolean secureValidation)
@@ -21,6 +21,12 @@ package org.apache.xml.security.keys.keyresolver.implementations;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.xml.namespace.QName;
 
 import org.apache.xml.security.exceptions.XMLSecurityException;
 import org.apache.xml.security.keys.content.keyvalues.ECKeyValue;
@@ -35,6 +41,11 @@ public class ECKeyValueResolver extends KeyResolverSpi {
     private static final org.slf4j.Logger LOG =
         org.slf4j.LoggerFactory.getLogger(ECKeyValueResolver.class);
 
+    private static final Set<QName> SUPPORTED_ELEMENTS =
+        Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            new QName(Constants.SignatureSpecNS, Constants._TAG_KEYVALUE),
+            new QName(Constants.SignatureSpecNS, Constants._TAG_ECKEYVALUE))));
+
     /** {@inheritDoc} */
     @Override
     protected boolean engineCanResolve(Element element, String baseURI, StorageResolver storage) {
@@ -42,6 +53,12 @@ public class ECKeyValueResolver extends KeyResolverSpi {
             || XMLUtils.elementIsInSignatureSpace(element, Constants._TAG_ECKEYVALUE);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected Set<QName> engineGetSupportedElements() {
+        return SUPPORTED_ELEMENTS;
+    }
+
     /** {@inheritDoc} */
     @Override
     protected PublicKey engineResolvePublicKey(
@@ -25,8 +25,10 @@ import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 import javax.crypto.SecretKey;
+import javax.xml.namespace.QName;
 
 import org.apache.xml.security.encryption.EncryptedKey;
 import org.apache.xml.security.encryption.XMLCipher;
@@ -53,6 +55,9 @@ public class EncryptedKeyResolver extends KeyResolverSpi {
     private static final org.slf4j.Logger LOG =
         org.slf4j.LoggerFactory.getLogger(RSAKeyValueResolver.class);
 
+    private static final Set<QName> SUPPORTED_ELEMENTS =
+        Collections.singleton(new QName(EncryptionConstants.EncryptionSpecNS, EncryptionConstants._TAG_ENCRYPTEDKEY));
+
     private final Key kek;
     private final String algorithm;
     private final List<KeyResolverSpi> internalKeyResolvers;
@@ -89,6 +94,12 @@ public class EncryptedKeyResolver extends KeyResolverSpi {
         return XMLUtils.elementIsInEncryptionSpace(element, EncryptionConstants._TAG_ENCRYPTEDKEY);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected Set<QName> engineGetSupportedElements() {
+        return SUPPORTED_ELEMENTS;
+    }
+
 
     /** {@inheritDoc} */
     @Override
@@ -22,6 +22,8 @@ import java.io.IOException;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.Set;
 
 import javax.crypto.SecretKey;
 import javax.xml.namespace.QName;
@@ -54,12 +56,21 @@ public class KeyInfoReferenceResolver extends KeyResolverSpi {
     private static final org.slf4j.Logger LOG =
         org.slf4j.LoggerFactory.getLogger(KeyInfoReferenceResolver.class);
 
+    private static final Set<QName> SUPPORTED_ELEMENTS =
+        Collections.singleton(new QName(Constants.SignatureSpec11NS, Constants._TAG_KEYINFOREFERENCE));
+
     /** {@inheritDoc} */
     @Override
     protected boolean engineCanResolve(Element element, String baseURI, StorageResolver storage) {
         return XMLUtils.elementIsInSignature11Space(element, Constants._TAG_KEYINFOREFERENCE);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected Set<QName> engineGetSupportedElements() {
+        return SUPPORTED_ELEMENTS;
+    }
+
     /** {@inheritDoc} */
     @Override
     protected PublicKey engineResolvePublicKey(Element element, String baseURI, StorageResolver storage, boolean secureValidation)
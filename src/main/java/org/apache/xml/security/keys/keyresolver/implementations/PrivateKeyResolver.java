@@ -27,8 +27,12 @@ import java.security.cert.Certificate;
 import java.security.cert.CertificateEncodingException;
 import java.security.cert.X509Certificate;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
 import javax.crypto.SecretKey;
+import javax.xml.namespace.QName;
 import org.apache.xml.security.exceptions.XMLSecurityException;
 import org.apache.xml.security.keys.content.X509Data;
 import org.apache.xml.security.keys.content.x509.XMLX509Certificate;
@@ -52,6 +56,11 @@ public class PrivateKeyResolver extends KeyResolverSpi {
     private static final org.slf4j.Logger LOG =
         org.slf4j.LoggerFactory.getLogger(PrivateKeyResolver.class);
 
+    private static final Set<QName> SUPPORTED_ELEMENTS =
+        Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            new QName(Constants.SignatureSpecNS, Constants._TAG_X509DATA),
+            new QName(Constants.SignatureSpecNS, Constants._TAG_KEYNAME))));
+
     private final KeyStore keyStore;
     private final char[] password;
 
@@ -70,6 +79,12 @@ public class PrivateKeyResolver extends KeyResolverSpi {
             || XMLUtils.elementIsInSignatureSpace(element, Constants._TAG_KEYNAME);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected Set<QName> engineGetSupportedElements() {
+        return SUPPORTED_ELEMENTS;
+    }
+
     /** {@inheritDoc} */
     @Override
     protected PublicKey engineResolvePublicKey(
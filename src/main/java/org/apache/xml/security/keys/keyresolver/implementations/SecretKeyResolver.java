@@ -23,7 +23,10 @@ import java.security.KeyStore;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.Set;
 import javax.crypto.SecretKey;
+import javax.xml.namespace.QName;
 import org.apache.xml.security.keys.keyresolver.KeyResolverException;
 import org.apache.xml.security.keys.keyresolver.KeyResolverSpi;
 import org.apache.xml.security.keys.storage.StorageResolver;
@@ -40,6 +43,9 @@ public class SecretKeyResolver extends KeyResolverSpi
     private static final org.slf4j.Logger LOG =
         org.slf4j.LoggerFactory.getLogger(SecretKeyResolver.class);
 
+    private static final Set<QName> SUPPORTED_ELEMENTS =
+        Collections.singleton(new QName(Constants.SignatureSpecNS, Constants._TAG_KEYNAME));
+
     private final KeyStore keyStore;
     private final char[] password;
 
@@ -57,6 +63,12 @@ public class SecretKeyResolver extends KeyResolverSpi
         return XMLUtils.elementIsInSignatureSpace(element, Constants._TAG_KEYNAME);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected Set<QName> engineGetSupportedElements() {
+        return SUPPORTED_ELEMENTS;
+    }
+
     /** {@inheritDoc} */
     @Override
     protected PublicKey engineResolvePublicKey(
@@ -20,12 +20,12 @@ package org.apache.xml.security.keys.keyresolver.implementations;
 
 import java.security.PrivateKey;
 import java.security.PublicKey;
-import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
-import java.util.Arrays;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.Set;
 
 import javax.crypto.SecretKey;
+import javax.xml.namespace.QName;
 
 import org.apache.xml.security.exceptions.XMLSecurityException;
 import org.apache.xml.security.keys.content.X509Data;
@@ -47,6 +47,9 @@ public class X509DigestResolver extends KeyResolverSpi {
     private static final org.slf4j.Logger LOG =
         org.slf4j.LoggerFactory.getLogger(X509DigestResolver.class);
 
+    private static final Set<QName> SUPPORTED_ELEMENTS =
+        Collections.singleton(new QName(Constants.SignatureSpecNS, Constants._TAG_X509DATA));
+
     /** {@inheritDoc} */
     @Override
     protected boolean engineCanResolve(Element element, String baseURI, StorageResolver storage) {
@@ -62,6 +65,12 @@ public class X509DigestResolver extends KeyResolverSpi {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected Set<QName> engineGetSupportedElements() {
+        return SUPPORTED_ELEMENTS;
+    }
+
     /** {@inheritDoc} */
     @Override
     protected PublicKey engineResolvePublicKey(Element element, String baseURI, StorageResolver storage, boolean secureValidation)
@@ -126,19 +135,13 @@ public class X509DigestResolver extends KeyResolverSpi {
                 x509Digests[i] = new XMLX509Digest(x509childNodes[i], baseURI);
             }
 
-            Iterator<Certificate> storageIterator = storage.getIterator();
-            while (storageIterator.hasNext()) {
-                X509Certificate cert = (X509Certificate) storageIterator.next();
-
-                for (int i = 0; i < x509Digests.length; i++) {
-                    XMLX509Digest keyInfoDigest = x509Digests[i];
-                    byte[] certDigestBytes = XMLX509Digest.getDigestBytesFromCert(cert, keyInfoDigest.getAlgorithm());
-
-                    if (Arrays.equals(keyInfoDigest.getDigestBytes(), certDigestBytes)) {
-                        LOG.debug("Found certificate with: {}", cert.getSubjectX500Principal().getName());
-                        return cert;
-                    }
-
+            for (int i = 0; i < x509Digests.length; i++) {
+                XMLX509Digest keyInfoDigest = x509Digests[i];
+                X509Certificate cert =
+                    storage.getCertificateByDigest(keyInfoDigest.getAlgorithm(), keyInfoDigest.getDigestBytes());
+                if (cert != null) {
+                    LOG.debug("Found certificate with: {}", cert.getSubjectX500Principal().getName());
+                    return cert;
                 }
             }
 
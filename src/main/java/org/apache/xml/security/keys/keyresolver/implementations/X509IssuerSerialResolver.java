@@ -20,9 +20,11 @@ package org.apache.xml.security.keys.keyresolver.implementations;
 
 import java.security.PrivateKey;
 import java.security.PublicKey;
-import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.Set;
+
+import javax.xml.namespace.QName;
 
 import org.apache.xml.security.exceptions.XMLSecurityException;
 import org.apache.xml.security.keys.content.X509Data;
@@ -39,6 +41,9 @@ public class X509IssuerSerialResolver extends KeyResolverSpi {
     private static final org.slf4j.Logger LOG =
         org.slf4j.LoggerFactory.getLogger(X509IssuerSerialResolver.class);
 
+    private static final Set<QName> SUPPORTED_ELEMENTS =
+        Collections.singleton(new QName(Constants.SignatureSpecNS, Constants._TAG_X509DATA));
+
     /** {@inheritDoc} */
     @Override
     protected boolean engineCanResolve(Element element, String baseURI, StorageResolver storage) {
@@ -54,6 +59,12 @@ public class X509IssuerSerialResolver extends KeyResolverSpi {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected Set<QName> engineGetSupportedElements() {
+        return SUPPORTED_ELEMENTS;
+    }
+
     /** {@inheritDoc} */
     @Override
     protected PublicKey engineResolvePublicKey(
@@ -98,26 +109,19 @@ public class X509IssuerSerialResolver extends KeyResolverSpi {
 
             int noOfISS = x509data.lengthIssuerSerial();
 
-            Iterator<Certificate> storageIterator = storage.getIterator();
-            while (storageIterator.hasNext()) {
-                X509Certificate cert = (X509Certificate)storageIterator.next();
-                XMLX509IssuerSerial certSerial = new XMLX509IssuerSerial(element.getOwnerDocument(), cert);
-
-                LOG.debug("Found Certificate Issuer: {}", certSerial.getIssuerName());
-                LOG.debug("Found Certificate Serial: {}", certSerial.getSerialNumber().toString());
-
-                for (int i = 0; i < noOfISS; i++) {
-                    XMLX509IssuerSerial xmliss = x509data.itemIssuerSerial(i);
+            for (int i = 0; i < noOfISS; i++) {
+                XMLX509IssuerSerial xmliss = x509data.itemIssuerSerial(i);
 
-                    LOG.debug("Found Element Issuer:     {}", xmliss.getIssuerName());
-                    LOG.debug("Found Element Serial:     {}", xmliss.getSerialNumber().toString());
+                LOG.debug("Found Element Issuer:     {}", xmliss.getIssuerName());
+                LOG.debug("Found Element Serial:     {}", xmliss.getSerialNumber());
 
-                    if (certSerial.equals(xmliss)) {
-                        LOG.debug("match !!! ");
-                        return cert;
-                    }
-                    LOG.debug("no match...");
+                X509Certificate cert =
+                    storage.getCertificateByIssuerSerial(xmliss.getIssuerName(), xmliss.getSerialNumber());
+                if (cert != null) {
+                    LOG.debug("match !!! ");
+                    return cert;
                 }
+                LOG.debug("no match...");
             }
 
             return null;
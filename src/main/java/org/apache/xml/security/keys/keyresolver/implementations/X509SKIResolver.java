@@ -20,10 +20,11 @@ package org.apache.xml.security.keys.keyresolver.implementations;
 
 import java.security.PrivateKey;
 import java.security.PublicKey;
-import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.Set;
 
+import javax.xml.namespace.QName;
 
 import org.apache.xml.security.exceptions.XMLSecurityException;
 import org.apache.xml.security.keys.content.x509.XMLX509SKI;
@@ -39,6 +40,9 @@ public class X509SKIResolver extends KeyResolverSpi {
     private static final org.slf4j.Logger LOG =
         org.slf4j.LoggerFactory.getLogger(X509SKIResolver.class);
 
+    private static final Set<QName> SUPPORTED_ELEMENTS =
+        Collections.singleton(new QName(Constants.SignatureSpecNS, Constants._TAG_X509DATA));
+
 
     /** {@inheritDoc} */
     @Override
@@ -52,6 +56,12 @@ public class X509SKIResolver extends KeyResolverSpi {
         return x509childNodes != null && x509childNodes.length > 0;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected Set<QName> engineGetSupportedElements() {
+        return SUPPORTED_ELEMENTS;
+    }
+
     /** {@inheritDoc} */
     @Override
     protected PublicKey engineResolvePublicKey(
@@ -96,17 +106,12 @@ public class X509SKIResolver extends KeyResolverSpi {
                 x509childObject[i] = new XMLX509SKI(x509childNodes[i], baseURI);
             }
 
-            Iterator<Certificate> storageIterator = storage.getIterator();
-            while (storageIterator.hasNext()) {
-                X509Certificate cert = (X509Certificate)storageIterator.next();
-                XMLX509SKI certSKI = new XMLX509SKI(element.getOwnerDocument(), cert);
-
-                for (int i = 0; i < x509childObject.length; i++) {
-                    if (certSKI.equals(x509childObject[i])) {
-                        LOG.debug("Return PublicKey from {}", cert.getSubjectX500Principal().getName());
+            for (int i = 0; i < x509childObject.length; i++) {
+                X509Certificate cert = storage.getCertificateBySKI(x509childObject[i].getSKIBytes());
+                if (cert != null) {
+                    LOG.debug("Return PublicKey from {}", cert.getSubjectX500Principal().getName());
 
-                        return cert;
-                    }
+                    return cert;
                 }
             }
         } catch (XMLSecurityException ex) {
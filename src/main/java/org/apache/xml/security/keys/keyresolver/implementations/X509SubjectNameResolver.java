@@ -20,10 +20,11 @@ package org.apache.xml.security.keys.keyresolver.implementations;
 
 import java.security.PrivateKey;
 import java.security.PublicKey;
-import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.Set;
 
+import javax.xml.namespace.QName;
 
 import org.apache.xml.security.exceptions.XMLSecurityException;
 import org.apache.xml.security.keys.content.x509.XMLX509SubjectName;
@@ -39,6 +40,9 @@ public class X509SubjectNameResolver extends KeyResolverSpi {
     private static final org.slf4j.Logger LOG =
         org.slf4j.LoggerFactory.getLogger(X509SubjectNameResolver.class);
 
+    private static final Set<QName> SUPPORTED_ELEMENTS =
+        Collections.singleton(new QName(Constants.SignatureSpecNS, Constants._TAG_X509DATA));
+
     /** {@inheritDoc} */
     @Override
     protected boolean engineCanResolve(Element element, String baseURI, StorageResolver storage) {
@@ -51,6 +55,12 @@ public class X509SubjectNameResolver extends KeyResolverSpi {
         return x509childNodes != null && x509childNodes.length > 0;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected Set<QName> engineGetSupportedElements() {
+        return SUPPORTED_ELEMENTS;
+    }
+
     /** {@inheritDoc} */
     @Override
     protected PublicKey engineResolvePublicKey(
@@ -95,24 +105,16 @@ public class X509SubjectNameResolver extends KeyResolverSpi {
                 x509childObject[i] = new XMLX509SubjectName(x509childNodes[i], baseURI);
             }
 
-            Iterator<Certificate> storageIterator = storage.getIterator();
-            while (storageIterator.hasNext()) {
-                X509Certificate cert = (X509Certificate)storageIterator.next();
-                XMLX509SubjectName certSN =
-                    new XMLX509SubjectName(element.getOwnerDocument(), cert);
-
-                LOG.debug("Found Certificate SN: {}", certSN.getSubjectName());
-
-                for (int i = 0; i < x509childObject.length; i++) {
-                    LOG.debug("Found Element SN:     {}", x509childObject[i].getSubjectName());
+            for (int i = 0; i < x509childObject.length; i++) {
+                LOG.debug("Found Element SN:     {}", x509childObject[i].getSubjectName());
 
-                    if (certSN.equals(x509childObject[i])) {
-                        LOG.debug("match !!! ");
+                X509Certificate cert = storage.getCertificateBySubjectName(x509childObject[i].getSubjectName());
+                if (cert != null) {
+                    LOG.debug("match !!! ");
 
-                        return cert;
-                    }
-                    LOG.debug("no match...");
+                    return cert;
                 }
+                LOG.debug("no match...");
             }
 
             return null;
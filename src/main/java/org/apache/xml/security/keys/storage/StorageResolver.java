@@ -18,6 +18,7 @@
  */
 package org.apache.xml.security.keys.storage;
 
+import java.math.BigInteger;
 import java.security.KeyStore;
 import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
@@ -26,6 +27,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 
+import org.apache.xml.security.exceptions.XMLSecurityException;
 import org.apache.xml.security.keys.storage.implementations.KeyStoreResolver;
 import org.apache.xml.security.keys.storage.implementations.SingleCertificateResolver;
 
@@ -106,6 +108,73 @@ public class StorageResolver {
         return new StorageResolverIterator(this.storageResolvers.iterator());
     }
 
+    /**
+     * Returns the first X.509 certificate with the given subject key identifier from the resolvers.
+     *
+     * @param ski the subject key identifier
+     * @return the certificate or <code>null</code> if there is none
+     */
+    public X509Certificate getCertificateBySKI(byte[] ski) {
+        for (StorageResolverSpi resolver : storageResolvers) {
+            X509Certificate cert = resolver.getCertificateBySKI(ski);
+            if (cert != null) {
+                return cert;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the first X.509 certificate with the given issuer and serial number from the resolvers.
+     *
+     * @param issuerName the issuer name, normalized by {@link org.apache.xml.security.utils.RFC2253Parser}
+     * @param serialNumber the serial number
+     * @return the certificate or <code>null</code> if there is none
+     */
+    public X509Certificate getCertificateByIssuerSerial(String issuerName, BigInteger serialNumber) {
+        for (StorageResolverSpi resolver : storageResolvers) {
+            X509Certificate cert = resolver.getCertificateByIssuerSerial(issuerName, serialNumber);
+            if (cert != null) {
+                return cert;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the first X.509 certificate with the given subject name from the resolvers.
+     *
+     * @param subjectName the subject name, normalized by {@link org.apache.xml.security.utils.RFC2253Parser}
+     * @return the certificate or <code>null</code> if there is none
+     */
+    public X509Certificate getCertificateBySubjectName(String subjectName) {
+        for (StorageResolverSpi resolver : storageResolvers) {
+            X509Certificate cert = resolver.getCertificateBySubjectName(subjectName);
+            if (cert != null) {
+                return cert;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the first X.509 certificate with the given digest from the resolvers.
+     *
+     * @param algorithmURI the URI of the digest algorithm
+     * @param digest the digest of the encoded certificate
+     * @return the certificate or <code>null</code> if there is none
+     * @throws XMLSecurityException if the digest algorithm is not supported
+     */
+    public X509Certificate getCertificateByDigest(String algorithmURI, byte[] digest) throws XMLSecurityException {
+        for (StorageResolverSpi resolver : storageResolvers) {
+            X509Certificate cert = resolver.getCertificateByDigest(algorithmURI, digest);
+            if (cert != null) {
+                return cert;
+            }
+        }
+        return null;
+    }
+
     /**
      * Class StorageResolverIterator
      * This iterates over all the Certificates found in all the resolvers.
@@ -18,9 +18,17 @@
  */
 package org.apache.xml.security.keys.storage;
 
+import java.math.BigInteger;
 import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
 import java.util.Iterator;
 
+import org.apache.xml.security.exceptions.XMLSecurityException;
+import org.apache.xml.security.keys.content.x509.XMLX509Digest;
+import org.apache.xml.security.keys.content.x509.XMLX509SKI;
+import org.apache.xml.security.utils.RFC2253Parser;
+
 public abstract class StorageResolverSpi {
 
     /**
@@ -29,4 +37,93 @@ public abstract class StorageResolverSpi {
      * @return the iterator for the storage
      */
     public abstract Iterator<Certificate> getIterator();
+
+    /**
+     * Returns the first X.509 certificate with the given subject key identifier. This
+     * implementation scans the certificates of {@link #getIterator()}, implementations which
+     * index their certificates override it.
+     *
+     * @param ski the subject key identifier
+     * @return the certificate or <code>null</code> if there is none
+     */
+    public X509Certificate getCertificateBySKI(byte[] ski) {
+        Iterator<Certificate> iterator = getIterator();
+        while (iterator.hasNext()) {
+            Certificate cert = iterator.next();
+            if (cert instanceof X509Certificate && ((X509Certificate) cert).getVersion() >= 3) {
+                try {
+                    if (Arrays.equals(ski, XMLX509SKI.getSKIBytesFromCert((X509Certificate) cert))) {
+                        return (X509Certificate) cert;
+                    }
+                } catch (XMLSecurityException ex) { //NOPMD
+                    // the certificate has no subject key identifier
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the first X.509 certificate with the given issuer and serial number.
+     *
+     * @param issuerName the issuer name, normalized by {@link RFC2253Parser#normalize(String)}
+     * @param serialNumber the serial number
+     * @return the certificate or <code>null</code> if there is none
+     * @see #getCertificateBySKI(byte[])
+     */
+    public X509Certificate getCertificateByIssuerSerial(String issuerName, BigInteger serialNumber) {
+        Iterator<Certificate> iterator = getIterator();
+        while (iterator.hasNext()) {
+            Certificate cert = iterator.next();
+            if (cert instanceof X509Certificate) {
+                X509Certificate x509Cert = (X509Certificate) cert;
+                if (serialNumber.equals(x509Cert.getSerialNumber())
+                    && issuerName.equals(RFC2253Parser.normalize(x509Cert.getIssuerX500Principal().getName()))) {
+                    return x509Cert;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the first X.509 certificate with the given subject name.
+     *
+     * @param subjectName the subject name, normalized by {@link RFC2253Parser#normalize(String)}
+     * @return the certificate or <code>null</code> if there is none
+     * @see #getCertificateBySKI(byte[])
+     */
+    public X509Certificate getCertificateBySubjectName(String subjectName) {
+        Iterator<Certificate> iterator = getIterator();
+        while (iterator.hasNext()) {
+            Certificate cert = iterator.next();
+            if (cert instanceof X509Certificate
+                && subjectName.equals(
+                    RFC2253Parser.normalize(((X509Certificate) cert).getSubjectX500Principal().getName()))) {
+                return (X509Certificate) cert;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the first X.509 certificate with the given digest.
+     *
+     * @param algorithmURI the URI of the digest algorithm
+     * @param digest the digest of the encoded certificate
+     * @return the certificate or <code>null</code> if there is none
+     * @throws XMLSecurityException if the digest algorithm is not supported
+     * @see #getCertificateBySKI(byte[])
+     */
+    public X509Certificate getCertificateByDigest(String algorithmURI, byte[] digest) throws XMLSecurityException {
+        Iterator<Certificate> iterator = getIterator();
+        while (iterator.hasNext()) {
+            Certificate cert = iterator.next();
+            if (cert instanceof X509Certificate
+                && Arrays.equals(digest, XMLX509Digest.getDigestBytesFromCert((X509Certificate) cert, algorithmURI))) {
+                return (X509Certificate) cert;
+            }
+        }
+        return null;
+    }
 }
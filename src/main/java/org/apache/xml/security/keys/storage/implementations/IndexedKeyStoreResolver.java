@@ -0,0 +1,199 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.keys.storage.implementations;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.xml.security.exceptions.XMLSecurityException;
+import org.apache.xml.security.keys.content.x509.XMLX509Digest;
+import org.apache.xml.security.keys.content.x509.XMLX509SKI;
+import org.apache.xml.security.keys.storage.StorageResolverException;
+import org.apache.xml.security.keys.storage.StorageResolverSpi;
+import org.apache.xml.security.utils.RFC2253Parser;
+
+/**
+ * Makes the Certificates from a JAVA {@link KeyStore} object available to the
+ * {@link org.apache.xml.security.keys.storage.StorageResolver}, like the {@link KeyStoreResolver},
+ * but reads the Certificates once and indexes them by subject key identifier, issuer name and
+ * serial number, subject name and (per digest algorithm, on first use) digest, so that the
+ * lookups take constant time instead of a scan over the whole KeyStore.
+ *
+ * The index is rebuilt when the number of entries in the KeyStore has changed. If entries are
+ * replaced instead, {@link #refresh()} must be called.
+ */
+public class IndexedKeyStoreResolver extends StorageResolverSpi {
+
+    private static final org.slf4j.Logger LOG =
+        org.slf4j.LoggerFactory.getLogger(IndexedKeyStoreResolver.class);
+
+    /** Field keyStore */
+    private final KeyStore keyStore;
+
+    private volatile Index index;
+
+    /**
+     * Constructor IndexedKeyStoreResolver
+     *
+     * @param keyStore is the keystore which contains the Certificates
+     * @throws StorageResolverException
+     */
+    public IndexedKeyStoreResolver(KeyStore keyStore) throws StorageResolverException {
+        this.keyStore = keyStore;
+        try {
+            this.index = new Index(keyStore);
+        } catch (KeyStoreException ex) {
+            throw new StorageResolverException(ex);
+        }
+    }
+
+    /**
+     * Rebuilds the index from the current content of the KeyStore.
+     *
+     * @throws StorageResolverException if the KeyStore can't be read
+     */
+    public void refresh() throws StorageResolverException {
+        try {
+            this.index = new Index(keyStore);
+        } catch (KeyStoreException ex) {
+            throw new StorageResolverException(ex);
+        }
+    }
+
+    private Index getIndex() {
+        Index current = this.index;
+        try {
+            if (keyStore.size() != current.size) {
+                synchronized (this) {
+                    current = this.index;
+                    if (keyStore.size() != current.size) {
+                        current = new Index(keyStore);
+                        this.index = current;
+                    }
+                }
+            }
+        } catch (KeyStoreException ex) {
+            LOG.debug("Error reading certificates: {}", ex.getMessage());
+        }
+        return current;
+    }
+
+    /** {@inheritDoc} */
+    public Iterator<Certificate> getIterator() {
+        return getIndex().certificates.iterator();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public X509Certificate getCertificateBySKI(byte[] ski) {
+        return getIndex().bySKI.get(ByteBuffer.wrap(ski));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public X509Certificate getCertificateByIssuerSerial(String issuerName, BigInteger serialNumber) {
+        return getIndex().byIssuerSerial.get(new AbstractMap.SimpleImmutableEntry<>(issuerName, serialNumber));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public X509Certificate getCertificateBySubjectName(String subjectName) {
+        return getIndex().bySubjectName.get(subjectName);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public X509Certificate getCertificateByDigest(String algorithmURI, byte[] digest) throws XMLSecurityException {
+        return getIndex().getDigestIndex(algorithmURI).get(ByteBuffer.wrap(digest));
+    }
+
+    /**
+     * An immutable snapshot of the Certificates in the KeyStore, with the lookup tables.
+     */
+    private static final class Index {
+
+        private final int size;
+        private final List<Certificate> certificates;
+        private final Map<ByteBuffer, X509Certificate> bySKI = new HashMap<>();
+        private final Map<Map.Entry<String, BigInteger>, X509Certificate> byIssuerSerial = new HashMap<>();
+        private final Map<String, X509Certificate> bySubjectName = new HashMap<>();
+        private final Map<String, Map<ByteBuffer, X509Certificate>> byDigest = new ConcurrentHashMap<>();
+
+        Index(KeyStore keyStore) throws KeyStoreException {
+            this.size = keyStore.size();
+            List<Certificate> tmpCerts = new ArrayList<>();
+            Enumeration<String> aliases = keyStore.aliases();
+            while (aliases.hasMoreElements()) {
+                Certificate cert = keyStore.getCertificate(aliases.nextElement());
+                if (cert == null) {
+                    continue;
+                }
+                tmpCerts.add(cert);
+                if (cert instanceof X509Certificate) {
+                    add((X509Certificate) cert);
+                }
+            }
+            this.certificates = Collections.unmodifiableList(tmpCerts);
+        }
+
+        // The first certificate wins, as it would in a scan of the KeyStore
+        private void add(X509Certificate cert) {
+            if (cert.getVersion() >= 3) {
+                try {
+                    byte[] ski = XMLX509SKI.getSKIBytesFromCert(cert);
+                    bySKI.putIfAbsent(ByteBuffer.wrap(ski), cert);
+                } catch (XMLSecurityException ex) {
+                    LOG.debug("Certificate {} has no SubjectKeyIdentifier", cert.getSubjectX500Principal().getName());
+                }
+            }
+            String issuerName = RFC2253Parser.normalize(cert.getIssuerX500Principal().getName());
+            byIssuerSerial.putIfAbsent(
+                new AbstractMap.SimpleImmutableEntry<>(issuerName, cert.getSerialNumber()), cert);
+            bySubjectName.putIfAbsent(RFC2253Parser.normalize(cert.getSubjectX500Principal().getName()), cert);
+        }
+
+        Map<ByteBuffer, X509Certificate> getDigestIndex(String algorithmURI) throws XMLSecurityException {
+            Map<ByteBuffer, X509Certificate> digestIndex = byDigest.get(algorithmURI);
+            if (digestIndex == null) {
+                digestIndex = new HashMap<>();
+                for (Certificate cert : certificates) {
+                    if (cert instanceof X509Certificate) {
+                        byte[] digest = XMLX509Digest.getDigestBytesFromCert((X509Certificate) cert, algorithmURI);
+                        digestIndex.putIfAbsent(ByteBuffer.wrap(digest), (X509Certificate) cert);
+                    }
+                }
+                byDigest.put(algorithmURI, digestIndex);
+            }
+            return digestIndex;
+        }
+    }
+}
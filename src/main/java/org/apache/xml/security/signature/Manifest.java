@@ -27,6 +27,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import org.apache.xml.security.c14n.CanonicalizationException;
 import org.apache.xml.security.c14n.InvalidCanonicalizerException;
@@ -43,6 +47,7 @@ import org.w3c.dom.DOMException;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
 
 /**
  * Handles <code>&lt;ds:Manifest&gt;</code> elements.
@@ -78,6 +83,9 @@ public class Manifest extends SignatureElementProxy {
 
     private boolean secureValidation = true;
 
+    /** Field referenceVerificationExecutor */
+    private Executor referenceVerificationExecutor;
+
     /**
      * Constructs {@link Manifest}
      *
@@ -324,94 +332,213 @@ public class Manifest extends SignatureElementProxy {
         }
 
         this.verificationResults = new ArrayList<>(referencesEl.length);
+
+        // digest the References concurrently if an Executor was configured. The results are
+        // still consumed below in document order, so nested Manifests are followed as before.
+        List<Future<Boolean>> digestResults = null;
+        if (referenceVerificationExecutor != null && referencesEl.length > 1 && !containsXPathTransform()) {
+            digestResults = submitReferenceVerification();
+        }
+
         boolean verify = true;
+        try {
+            for (int i = 0; i < this.referencesEl.length; i++) {
+                Reference currentRef;
+                if (digestResults == null) {
+                    currentRef = new Reference(referencesEl[i], this.baseURI, this, secureValidation);
+                    this.references.set(i, currentRef);
+                } else {
+                    currentRef = this.references.get(i);
+                }
+
+                verify = verifyReference(currentRef, digestResults == null ? null : digestResults.get(i),
+                                          verify, followManifests);
+            }
+        } finally {
+            if (digestResults != null) {
+                for (Future<Boolean> digestResult : digestResults) {
+                    digestResult.cancel(true);
+                }
+            }
+        }
+
+        return verify;
+    }
+
+    /**
+     * An XPath transform may expand the namespace nodes of the whole Document while it is
+     * canonicalized (see {@link XMLUtils#circumventBug2650(Document)}), which must not happen
+     * while other References read the DOM concurrently. This also covers the References of
+     * nested Manifests, which may be followed while the digests of this Manifest are calculated.
+     *
+     * @return true if the Document contains an XPath transform
+     */
+    private boolean containsXPathTransform() {
+        NodeList transforms =
+            getDocument().getElementsByTagNameNS(Constants.SignatureSpecNS, Constants._TAG_TRANSFORM);
+        for (int i = 0; i < transforms.getLength(); i++) {
+            Element transform = (Element) transforms.item(i);
+            if (Transforms.TRANSFORM_XPATH.equals(transform.getAttributeNS(null, Constants._ATT_ALGORITHM))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates all Reference objects and hands the digest calculation of each of them to the
+     * configured Executor.
+     *
+     * @return the pending digest verification results, in document order
+     * @throws XMLSecurityException
+     */
+    private List<Future<Boolean>> submitReferenceVerification() throws XMLSecurityException {
+        List<Future<Boolean>> digestResults = new ArrayList<>(referencesEl.length);
         for (int i = 0; i < this.referencesEl.length; i++) {
             Reference currentRef =
                 new Reference(referencesEl[i], this.baseURI, this, secureValidation);
 
             this.references.set(i, currentRef);
+        }
+        try {
+            for (int i = 0; i < this.referencesEl.length; i++) {
+                FutureTask<Boolean> digestResult = new FutureTask<>(this.references.get(i)::verify);
+                digestResults.add(digestResult);
+                referenceVerificationExecutor.execute(digestResult);
+            }
+        } catch (RuntimeException ex) {
+            for (Future<Boolean> digestResult : digestResults) {
+                digestResult.cancel(true);
+            }
+            throw new XMLSecurityException(ex);
+        }
+        return digestResults;
+    }
 
-            // if only one item does not verify, the whole verification fails
-            try {
-                boolean currentRefVerified = currentRef.verify();
+    /**
+     * Verifies a single Reference, and follows it if it points to a nested Manifest.
+     *
+     * @param currentRef the Reference to verify
+     * @param digestResult the pending result of a concurrent digest verification, or null
+     * if the digest has to be verified in the current thread
+     * @param verifiedSoFar whether all preceding References were verified successfully
+     * @param followManifests whether nested Manifests have to be verified too
+     * @return true if the Reference (and a nested Manifest if followed) verified
+     * @throws MissingResourceFailureException
+     * @throws XMLSecurityException
+     */
+    private boolean verifyReference(
+        Reference currentRef, Future<Boolean> digestResult, boolean verifiedSoFar, boolean followManifests
+    ) throws MissingResourceFailureException, XMLSecurityException {
+        boolean verify = verifiedSoFar;
+        // if only one item does not verify, the whole verification fails
+        try {
+            boolean currentRefVerified =
+                digestResult == null ? currentRef.verify() : getDigestResult(digestResult);
 
-                if (!currentRefVerified) {
-                    verify = false;
-                }
-                LOG.debug("The Reference has Type {}", currentRef.getType());
-
-                List<VerifiedReference> manifestReferences = Collections.emptyList();
-
-                // was verification successful till now and do we want to verify the Manifest?
-                if (verify && followManifests && currentRef.typeIsReferenceToManifest()) {
-                    LOG.debug("We have to follow a nested Manifest");
-
-                    try {
-                        XMLSignatureInput signedManifestNodes =
-                            currentRef.dereferenceURIandPerformTransforms(null);
-                        Set<Node> nl = signedManifestNodes.getNodeSet();
-                        Manifest referencedManifest = null;
-
-                        for (Node n : nl) {
-                            if (n.getNodeType() == Node.ELEMENT_NODE
-                                && ((Element) n).getNamespaceURI().equals(Constants.SignatureSpecNS)
-                                && ((Element) n).getLocalName().equals(Constants._TAG_MANIFEST)
-                            ) {
-                                try {
-                                    referencedManifest =
-                                        new Manifest(
-                                             (Element)n, signedManifestNodes.getSourceURI(), secureValidation
-                                        );
-                                    break;
-                                } catch (XMLSecurityException ex) {
-                                    LOG.debug(ex.getMessage(), ex);
-                                    // Hm, seems not to be a ds:Manifest
-                                }
+            if (!currentRefVerified) {
+                verify = false;
+            }
+            LOG.debug("The Reference has Type {}", currentRef.getType());
+
+            List<VerifiedReference> manifestReferences = Collections.emptyList();
+
+            // was verification successful till now and do we want to verify the Manifest?
+            if (verify && followManifests && currentRef.typeIsReferenceToManifest()) {
+                LOG.debug("We have to follow a nested Manifest");
+
+                try {
+                    XMLSignatureInput signedManifestNodes =
+                        currentRef.dereferenceURIandPerformTransforms(null);
+                    Set<Node> nl = signedManifestNodes.getNodeSet();
+                    Manifest referencedManifest = null;
+
+                    for (Node n : nl) {
+                        if (n.getNodeType() == Node.ELEMENT_NODE
+                            && ((Element) n).getNamespaceURI().equals(Constants.SignatureSpecNS)
+                            && ((Element) n).getLocalName().equals(Constants._TAG_MANIFEST)
+                        ) {
+                            try {
+                                referencedManifest =
+                                    new Manifest(
+                                         (Element)n, signedManifestNodes.getSourceURI(), secureValidation
+                                    );
+                                break;
+                            } catch (XMLSecurityException ex) {
+                                LOG.debug(ex.getMessage(), ex);
+                                // Hm, seems not to be a ds:Manifest
                             }
                         }
+                    }
 
-                        if (referencedManifest == null) {
-                            // The Reference stated that it points to a ds:Manifest
-                            // but we did not find a ds:Manifest in the signed area
-                            throw new MissingResourceFailureException(currentRef, "empty",
-                                                                      new Object[]{"No Manifest found"});
-                        }
-
-                        referencedManifest.perManifestResolvers = this.perManifestResolvers;
-                        referencedManifest.resolverProperties = this.resolverProperties;
+                    if (referencedManifest == null) {
+                        // The Reference stated that it points to a ds:Manifest
+                        // but we did not find a ds:Manifest in the signed area
+                        throw new MissingResourceFailureException(currentRef, "empty",
+                                                                  new Object[]{"No Manifest found"});
+                    }
 
-                        boolean referencedManifestValid =
-                            referencedManifest.verifyReferences(followManifests);
+                    referencedManifest.perManifestResolvers = this.perManifestResolvers;
+                    referencedManifest.resolverProperties = this.resolverProperties;
+                    referencedManifest.referenceVerificationExecutor = this.referenceVerificationExecutor;
 
-                        if (!referencedManifestValid) {
-                            verify = false;
+                    boolean referencedManifestValid =
+                        referencedManifest.verifyReferences(followManifests);
 
-                            LOG.warn("The nested Manifest was invalid (bad)");
-                        } else {
-                            LOG.debug("The nested Manifest was valid (good)");
-                        }
+                    if (!referencedManifestValid) {
+                        verify = false;
 
-                        manifestReferences = referencedManifest.getVerificationResults();
-                    } catch (IOException ex) {
-                        throw new ReferenceNotInitializedException(ex);
-                    } catch (XMLParserException ex) {
-                        throw new ReferenceNotInitializedException(ex);
+                        LOG.warn("The nested Manifest was invalid (bad)");
+                    } else {
+                        LOG.debug("The nested Manifest was valid (good)");
                     }
+
+                    manifestReferences = referencedManifest.getVerificationResults();
+                } catch (IOException ex) {
+                    throw new ReferenceNotInitializedException(ex);
+                } catch (XMLParserException ex) {
+                    throw new ReferenceNotInitializedException(ex);
                 }
+            }
 
-                verificationResults.add(new VerifiedReference(currentRefVerified, currentRef.getURI(), manifestReferences));
-            } catch (ReferenceNotInitializedException ex) {
-                Object[] exArgs = { currentRef.getURI() };
+            verificationResults.add(new VerifiedReference(currentRefVerified, currentRef.getURI(), manifestReferences));
+        } catch (ReferenceNotInitializedException ex) {
+            Object[] exArgs = { currentRef.getURI() };
 
-                throw new MissingResourceFailureException(
-                    ex, currentRef, "signature.Verification.Reference.NoInput", exArgs
-                );
-            }
+            throw new MissingResourceFailureException(
+                ex, currentRef, "signature.Verification.Reference.NoInput", exArgs
+            );
         }
 
         return verify;
     }
 
+    /**
+     * Waits for a concurrent digest verification and unwraps its failure, if any.
+     *
+     * @param digestResult the pending digest verification
+     * @return the result of {@link Reference#verify}
+     * @throws XMLSecurityException
+     */
+    private static boolean getDigestResult(Future<Boolean> digestResult) throws XMLSecurityException {
+        try {
+            return digestResult.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new XMLSecurityException(ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof XMLSecurityException) {
+                throw (XMLSecurityException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new XMLSecurityException(ex);
+        }
+    }
+
     /**
      * After verifying a {@link Manifest} or a {@link SignedInfo} using the
      * {@link Manifest#verifyReferences()} or {@link SignedInfo#verify()} methods,
@@ -478,6 +605,38 @@ public class Manifest extends SignatureElementProxy {
         return perManifestResolvers;
     }
 
+    /**
+     * Set an Executor that is used to verify the digests of the References of this Manifest
+     * concurrently. By default (null) the References are verified one after the other in the
+     * calling thread. Nested Manifests that are followed during verification use the same
+     * Executor.
+     *
+     * <p>The verification results are always reported in document order. Note that the
+     * References then read the same DOM from several threads, so the Document must not be
+     * modified while the verification is in progress. As the XPath transform may modify the
+     * Document, the References are verified sequentially if the Document contains one.</p>
+     *
+     * <p>A DOM is not guaranteed to be safe for concurrent reads. In particular the Xerces
+     * deferred DOM, which is what {@link org.apache.xml.security.utils.XMLUtils#read} returns by
+     * default, expands its nodes lazily on first access. Such a Document must either be fully
+     * expanded (e.g. by traversing all of its nodes) before it is verified concurrently, or be
+     * parsed with the feature "http://apache.org/xml/features/dom/defer-node-expansion" set to
+     * false.</p>
+     *
+     * @param referenceVerificationExecutor the Executor to use, or null to verify sequentially
+     */
+    public void setReferenceVerificationExecutor(Executor referenceVerificationExecutor) {
+        this.referenceVerificationExecutor = referenceVerificationExecutor;
+    }
+
+    /**
+     * Get the Executor used to verify the References concurrently
+     * @return the Executor, or null if the References are verified sequentially
+     */
+    public Executor getReferenceVerificationExecutor() {
+        return referenceVerificationExecutor;
+    }
+
     /**
      * Get the resolver property map
      * @return the resolver property map
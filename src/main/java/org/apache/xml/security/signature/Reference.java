@@ -18,8 +18,10 @@
  */
 package org.apache.xml.security.signature;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.Collections;
@@ -30,6 +32,7 @@ import java.util.Set;
 import org.apache.xml.security.algorithms.Algorithm;
 import org.apache.xml.security.algorithms.MessageDigestAlgorithm;
 import org.apache.xml.security.c14n.CanonicalizationException;
+import org.apache.xml.security.c14n.Canonicalizer;
 import org.apache.xml.security.exceptions.XMLSecurityException;
 import org.apache.xml.security.signature.reference.ReferenceData;
 import org.apache.xml.security.signature.reference.ReferenceNodeSetData;
@@ -42,6 +45,10 @@ import org.apache.xml.security.transforms.Transforms;
 import org.apache.xml.security.transforms.params.InclusiveNamespaces;
 import org.apache.xml.security.utils.Constants;
 import org.apache.xml.security.utils.DigesterOutputStream;
+import org.apache.xml.security.utils.ExternalDigestCache;
+import org.apache.xml.security.utils.MappedFileInputStream;
+import org.apache.xml.security.utils.SecurityMetrics;
+import org.apache.xml.security.utils.SecurityMetricsListener;
 import org.apache.xml.security.utils.SignatureElementProxy;
 import org.apache.xml.security.utils.UnsyncBufferedOutputStream;
 import org.apache.xml.security.utils.XMLUtils;
@@ -605,7 +612,7 @@ public class Reference extends SignatureElementProxy {
     private void cacheDereferencedElement(XMLSignatureInput input) {
         if (input.isNodeSet()) {
             try {
-                final Set<Node> s = input.getNodeSet();
+                final Set<Node> s = input.getNodeSetView();
                 referenceData = new ReferenceNodeSetData() {
                     public Iterator<Node> iterator() {
                         return new Iterator<Node>() {
@@ -691,6 +698,27 @@ public class Reference extends SignatureElementProxy {
      */
     private byte[] calculateDigest(boolean validating)
         throws ReferenceNotInitializedException, XMLSignatureException {
+        ExternalDigestCache.ResourceVersion resourceVersion = null;
+        String transformsKey = null;
+        String digestAlgorithm = null;
+        if (validating && ExternalDigestCache.isEnabled()) {
+            // the version of the resource has to be known before it is fetched
+            resourceVersion = getResourceVersion();
+            MessageDigestAlgorithm mda = this.getMessageDigestAlgorithm();
+            if (resourceVersion != null && mda != null) {
+                transformsKey = getTransformsKey();
+                digestAlgorithm = mda.getAlgorithmURI();
+                byte[] digest = ExternalDigestCache.getDigest(resourceVersion, transformsKey, digestAlgorithm);
+                if (digest != null) {
+                    LOG.debug("Using the cached digest of {}", resourceVersion);
+                    return digest;
+                }
+            } else {
+                resourceVersion = null;
+            }
+        }
+
+        long start = SecurityMetrics.start();
         XMLSignatureInput input = this.getContentsBeforeTransformation();
         if (input.isPreCalculatedDigest()) {
             return getPreCalculatedDigest(input);
@@ -719,6 +747,9 @@ public class Reference extends SignatureElementProxy {
                 }
                 transforms.addTransform(Transforms.TRANSFORM_C14N11_OMIT_COMMENTS);
                 output.updateOutputStream(os, true);
+            } else if (!output.isOutputStreamSet() && output.getOctetStreamReal() instanceof MappedFileInputStream) {
+                // a memory-mapped file is handed to the digest directly, bypassing the buffer
+                output.updateOutputStream(diOs);
             } else {
                 output.updateOutputStream(os);
             }
@@ -727,7 +758,15 @@ public class Reference extends SignatureElementProxy {
             //this.getReferencedBytes(diOs);
             //mda.update(data);
 
-            return diOs.getDigestValue();
+            byte[] digest = diOs.getDigestValue();
+            if (start != SecurityMetrics.NOT_STARTED) {
+                SecurityMetrics.record(
+                    SecurityMetricsListener.Stage.REFERENCE_DIGEST, mda.getAlgorithmURI(), start, diOs.getByteCount());
+            }
+            if (resourceVersion != null) {
+                ExternalDigestCache.putDigest(resourceVersion, transformsKey, digestAlgorithm, digest);
+            }
+            return digest;
         } catch (XMLSecurityException | IOException ex) {
             throw new ReferenceNotInitializedException(ex);
         } finally { //NOPMD
@@ -741,6 +780,49 @@ public class Reference extends SignatureElementProxy {
         }
     }
 
+    /**
+     * Returns the current version of the external resource this reference points to, or null
+     * for a same-document reference, or if the version is not known.
+     */
+    private ExternalDigestCache.ResourceVersion getResourceVersion() {
+        Attr uriAttr = getElement().getAttributeNodeNS(null, Constants._ATT_URI);
+        ResourceResolverContext resolverContext =
+            new ResourceResolverContext(uriAttr, this.baseURI,
+                secureValidation, this.manifest.getResolverProperties());
+        switch (resolverContext.getURIType()) {
+        case HTTP:
+        case FILE:
+        case OTHER:
+            break;
+        default:
+            return null;
+        }
+        try {
+            return ResourceResolver.getResourceVersion(this.manifest.getPerManifestResolvers(), resolverContext);
+        } catch (ResourceResolverException ex) {
+            // the resource is fetched anyway, which reports the problem
+            LOG.debug("Unable to determine the version of {}", getURI(), ex);
+            return null;
+        }
+    }
+
+    /**
+     * Returns a representation of the transforms of this reference, including all their
+     * parameters and the namespace bindings in scope.
+     */
+    private String getTransformsKey() throws XMLSignatureException {
+        if (transforms == null) {
+            return "";
+        }
+        try (ByteArrayOutputStream os = new ByteArrayOutputStream()) {
+            Canonicalizer.getInstance(Canonicalizer.ALGO_ID_C14N_OMIT_COMMENTS)
+                .canonicalizeSubtree(transforms.getElement(), os);
+            return new String(os.toByteArray(), StandardCharsets.UTF_8);
+        } catch (XMLSecurityException | IOException ex) {
+            throw new XMLSignatureException(ex);
+        }
+    }
+
     /**
      * Get the pre-calculated digest value from the XMLSignatureInput.
      *
@@ -778,6 +860,10 @@ public class Reference extends SignatureElementProxy {
     /**
      * Tests reference validation is success or false
      *
+     * If the {@link ExternalDigestCache} is enabled, the digest of an unchanged external
+     * resource is taken from the cache, without fetching and transforming the resource. In this
+     * case {@link #getTransformsOutput()} and {@link #getReferenceData()} return null.
+     *
      * @return true if reference validation is success, otherwise false
      * @throws ReferenceNotInitializedException
      * @throws XMLSecurityException
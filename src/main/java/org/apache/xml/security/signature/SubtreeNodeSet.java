@@ -0,0 +1,211 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.signature;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.xml.security.utils.XMLUtils;
+import org.w3c.dom.Attr;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * A read-only node-set which holds the nodes of a subtree, optionally without the subtree of an
+ * excluded node, as a view of the DOM instead of a copy of the nodes.
+ *
+ * It contains the same nodes, in the same document order, as the set filled by
+ * {@link XMLUtils#getSet(Node, java.util.Set, Node, boolean)}, but membership is decided from
+ * the position of a node in the tree, so that the node-set of a large document doesn't need a
+ * hash table entry per node. As a view, it reflects changes made to the DOM afterwards.
+ */
+public final class SubtreeNodeSet extends AbstractSet<Node> {
+
+    private final Node root;
+    private final Node excludeNode;
+    private final boolean includeComments;
+    private final boolean empty;
+
+    /**
+     * @param root the root of the subtree
+     * @param excludeNode the root of a subtree which is not part of the node-set, or null
+     * @param includeComments whether comment nodes are part of the node-set
+     */
+    public SubtreeNodeSet(Node root, Node excludeNode, boolean includeComments) {
+        this.root = root;
+        this.excludeNode = excludeNode;
+        this.includeComments = includeComments;
+        this.empty = excludeNode != null && XMLUtils.isDescendantOrSelf(excludeNode, root);
+    }
+
+    public Node getRoot() {
+        return root;
+    }
+
+    public Node getExcludeNode() {
+        return excludeNode;
+    }
+
+    public boolean isIncludeComments() {
+        return includeComments;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (empty || !(o instanceof Node)) {
+            return false;
+        }
+        Node node = (Node) o;
+        if (node.getNodeType() == Node.ATTRIBUTE_NODE) {
+            // attributes are included together with their owner element
+            node = ((Attr) node).getOwnerElement();
+            if (node == null) {
+                return false;
+            }
+        }
+        if (!isIncluded(node)) {
+            return false;
+        }
+        for (Node current = node; current != root; ) {
+            if (current == excludeNode) {
+                return false;
+            }
+            current = current.getParentNode();
+            if (current == null) {
+                return false;
+            }
+            // only the children of elements, and of the root document, are traversed
+            int type = current.getNodeType();
+            if (type != Node.ELEMENT_NODE && (current != root || type != Node.DOCUMENT_NODE)) {
+                return false;
+            }
+        }
+        return node != excludeNode;
+    }
+
+    @Override
+    public Iterator<Node> iterator() {
+        return new SubtreeIterator();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return !iterator().hasNext();
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Iterator<Node> iterator = iterator(); iterator.hasNext(); iterator.next()) {
+            size++;
+        }
+        return size;
+    }
+
+    private boolean isIncluded(Node node) {
+        switch (node.getNodeType()) {
+        case Node.DOCUMENT_NODE:
+        case Node.DOCUMENT_TYPE_NODE:
+            return false;
+        case Node.COMMENT_NODE:
+            return includeComments;
+        case Node.TEXT_NODE:
+            // a run of adjacent text nodes is represented by the first one
+            if (node == root) {
+                return true;
+            }
+            Node previousSibling = node.getPreviousSibling();
+            return previousSibling == null || previousSibling.getNodeType() != Node.TEXT_NODE;
+        default:
+            return true;
+        }
+    }
+
+    /**
+     * Walks the subtree in document order, every element is followed by its attributes.
+     */
+    private final class SubtreeIterator implements Iterator<Node> {
+
+        private Node nextTreeNode = empty ? null : root;
+        private NamedNodeMap attributes;
+        private int attributeIndex;
+        private Node next;
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                next = advance();
+            }
+            return next != null;
+        }
+
+        @Override
+        public Node next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Node node = next;
+            next = null;
+            return node;
+        }
+
+        private Node advance() {
+            if (attributes != null) {
+                if (attributeIndex < attributes.getLength()) {
+                    return attributes.item(attributeIndex++);
+                }
+                attributes = null;
+            }
+            while (nextTreeNode != null) {
+                Node node = nextTreeNode;
+                if (node == excludeNode) {
+                    nextTreeNode = successor(node, false);
+                    continue;
+                }
+                int type = node.getNodeType();
+                nextTreeNode = successor(node, type == Node.ELEMENT_NODE || type == Node.DOCUMENT_NODE);
+                if (isIncluded(node)) {
+                    if (type == Node.ELEMENT_NODE && node.hasAttributes()) {
+                        attributes = node.getAttributes();
+                        attributeIndex = 0;
+                    }
+                    return node;
+                }
+            }
+            return null;
+        }
+
+        private Node successor(Node node, boolean descend) {
+            if (descend) {
+                Node firstChild = node.getFirstChild();
+                if (firstChild != null) {
+                    return firstChild;
+                }
+            }
+            for (Node current = node; current != root; current = current.getParentNode()) {
+                Node nextSibling = current.getNextSibling();
+                if (nextSibling != null) {
+                    return nextSibling;
+                }
+            }
+            return null;
+        }
+    }
+}
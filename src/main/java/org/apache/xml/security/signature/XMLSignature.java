@@ -25,6 +25,7 @@ import java.security.Provider;
 import java.security.PublicKey;
 import java.security.cert.X509Certificate;
 import java.security.spec.AlgorithmParameterSpec;
+import java.util.concurrent.Executor;
 
 import javax.crypto.SecretKey;
 
@@ -39,6 +40,7 @@ import org.apache.xml.security.utils.I18n;
 import org.apache.xml.security.utils.SignatureElementProxy;
 import org.apache.xml.security.utils.SignerOutputStream;
 import org.apache.xml.security.utils.UnsyncBufferedOutputStream;
+import org.apache.xml.security.utils.VerifiedSignatureCache;
 import org.apache.xml.security.utils.XMLUtils;
 import org.apache.xml.security.utils.resolver.ResourceResolverSpi;
 import org.w3c.dom.Attr;
@@ -839,7 +841,9 @@ public final class XMLSignature extends SignatureElementProxy {
     /**
      * Verifies if the signature is valid by redigesting all References,
      * comparing those against the stored DigestValues and then checking to see
-     * if the Signatures match on the SignedInfo.
+     * if the Signatures match on the SignedInfo. If the {@link VerifiedSignatureCache}
+     * is enabled, a signature value which was verified with the key before is not
+     * verified again, the References are always checked.
      *
      * @param pk {@link java.security.PublicKey} part of the keypair or
      * {@link javax.crypto.SecretKey} that was used to sign
@@ -867,6 +871,15 @@ public final class XMLSignature extends SignatureElementProxy {
             LOG.debug("jceSigAlgorithm = {}", sa.getJCEAlgorithmString());
             LOG.debug("PublicKey = {}", pk);
 
+            byte[] signedInfoBytes = null;
+            if (VerifiedSignatureCache.isEnabled()) {
+                signedInfoBytes = si.getCanonicalizedOctetStream();
+                if (VerifiedSignatureCache.isVerified(signedInfoBytes, this.getSignatureValue(), pk)) {
+                    LOG.debug("The signature value was verified before, only verifying the references");
+                    return si.verify(this.followManifestsDuringValidation);
+                }
+            }
+
             byte[] sigBytes = null;
             try (SignerOutputStream so = new SignerOutputStream(sa);
                 OutputStream bos = new UnsyncBufferedOutputStream(so)) {
@@ -891,11 +904,14 @@ public final class XMLSignature extends SignatureElementProxy {
                 LOG.warn("Signature verification failed.");
                 return false;
             }
+            if (signedInfoBytes != null) {
+                VerifiedSignatureCache.putVerified(signedInfoBytes, sigBytes, pk);
+            }
 
             return si.verify(this.followManifestsDuringValidation);
         } catch (XMLSignatureException ex) {
             throw ex;
-        } catch (XMLSecurityException ex) {
+        } catch (XMLSecurityException | IOException ex) {
             throw new XMLSignatureException(ex);
         }
     }
@@ -1022,6 +1038,20 @@ public final class XMLSignature extends SignatureElementProxy {
         this.followManifestsDuringValidation = followManifests;
     }
 
+    /**
+     * Set an Executor that is used to verify the digests of the References of the
+     * <code>ds:SignedInfo</code> (and of followed nested Manifests) concurrently.
+     * By default the References are verified sequentially. The Document is read from several
+     * threads, see {@link Manifest#setReferenceVerificationExecutor(Executor)} for the
+     * requirements on the DOM implementation.
+     *
+     * @param referenceVerificationExecutor the Executor to use, or null to verify sequentially
+     * @see Manifest#setReferenceVerificationExecutor(Executor)
+     */
+    public void setReferenceVerificationExecutor(Executor referenceVerificationExecutor) {
+        this.getSignedInfo().setReferenceVerificationExecutor(referenceVerificationExecutor);
+    }
+
     /**
      * Get the local name of this element
      *
@@ -23,7 +23,9 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
@@ -33,7 +35,9 @@ import org.apache.xml.security.c14n.implementations.Canonicalizer11_OmitComments
 import org.apache.xml.security.c14n.implementations.Canonicalizer20010315OmitComments;
 import org.apache.xml.security.c14n.implementations.CanonicalizerBase;
 import org.apache.xml.security.parser.XMLParserException;
+import org.apache.xml.security.utils.DigesterOutputStream;
 import org.apache.xml.security.utils.JavaUtils;
+import org.apache.xml.security.utils.MappedFileInputStream;
 import org.apache.xml.security.utils.XMLUtils;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
@@ -228,6 +232,30 @@ public class XMLSignatureInput {
         throw new RuntimeException("getNodeSet() called but no input data present");
     }
 
+    /**
+     * Returns a read-only view of the node set from input which was specified as the
+     * parameter of {@link XMLSignatureInput} constructor. Unlike {@link #getNodeSet()},
+     * a subtree input is not copied but returned as a {@link SubtreeNodeSet}, which
+     * reflects later changes of the DOM.
+     *
+     * @return the node set
+     * @throws XMLParserException
+     * @throws IOException
+     */
+    public Set<Node> getNodeSetView() throws XMLParserException, IOException {
+        if (inputNodeSet != null) {
+            return Collections.unmodifiableSet(inputNodeSet);
+        }
+        if (inputOctetStreamProxy == null && subNode != null) {
+            return new SubtreeNodeSet(subNode, excludeNode, excludeComments);
+        } else if (isOctetStream()) {
+            convertToNodes();
+            return new SubtreeNodeSet(subNode, null, false);
+        }
+
+        throw new RuntimeException("getNodeSetView() called but no input data present");
+    }
+
     /**
      * Returns the Octet stream(byte Stream) from input which was specified as
      * the parameter of {@link XMLSignatureInput} constructor
@@ -495,6 +523,18 @@ public class XMLSignatureInput {
                 c14nizer = new Canonicalizer20010315OmitComments();
             }
             c14nizer.engineCanonicalize(this, diOs, secureValidation);
+        } else if (diOs instanceof DigesterOutputStream
+            && inputOctetStreamProxy instanceof MappedFileInputStream) {
+            MappedFileInputStream mappedFile = (MappedFileInputStream) inputOctetStreamProxy;    //NOPMD
+            try {
+                ByteBuffer region;
+                while ((region = mappedFile.nextRegion()) != null) {
+                    ((DigesterOutputStream) diOs).write(region);
+                }
+            } catch (IOException ex) {
+                inputOctetStreamProxy.close();
+                throw ex;
+            }
         } else {
             byte[] buffer = new byte[4 * 1024];
             int bytesread = 0;
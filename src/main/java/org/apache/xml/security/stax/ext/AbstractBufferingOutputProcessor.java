@@ -20,40 +20,102 @@ package org.apache.xml.security.stax.ext;
 
 import org.apache.xml.security.exceptions.XMLSecurityException;
 import org.apache.xml.security.stax.ext.stax.XMLSecEvent;
+import org.apache.xml.security.stax.impl.util.XMLSecEventBuffer;
+import org.apache.xml.security.utils.SecurityMetrics;
+import org.apache.xml.security.utils.SecurityMetricsListener;
 
 import javax.xml.stream.XMLStreamException;
+import java.io.UncheckedIOException;
 import java.util.*;
 
 /**
  * An abstract OutputProcessor class for reusabilty
  *
+ * The events are held back in an {@link XMLSecEventBuffer}, which spills them to a temporary
+ * file each time {@link XMLSecurityProperties#getOutputBufferMaxEventsInMemory()} of them are
+ * held in memory.
  */
 public abstract class AbstractBufferingOutputProcessor extends AbstractOutputProcessor {
 
-    private final ArrayDeque<XMLSecEvent> xmlSecEventBuffer = new ArrayDeque<>(100);
+    private static final org.slf4j.Logger LOG =
+        org.slf4j.LoggerFactory.getLogger(AbstractBufferingOutputProcessor.class);
+
+    private XMLSecEventBuffer xmlSecEventBuffer;
 
     protected AbstractBufferingOutputProcessor() throws XMLSecurityException {
         super();
     }
 
     protected Deque<XMLSecEvent> getXmlSecEventBuffer() {
+        if (xmlSecEventBuffer == null) {
+            XMLSecurityProperties securityProperties = getSecurityProperties();
+            if (securityProperties != null) {
+                xmlSecEventBuffer = new XMLSecEventBuffer(
+                    securityProperties.getOutputBufferMaxEventsInMemory(),
+                    securityProperties.getOutputBufferSpillDirectory());
+            } else {
+                xmlSecEventBuffer = new XMLSecEventBuffer(0, null);
+            }
+        }
         return xmlSecEventBuffer;
     }
 
     @Override
     public void processEvent(XMLSecEvent xmlSecEvent, OutputProcessorChain outputProcessorChain)
             throws XMLStreamException, XMLSecurityException {
-        xmlSecEventBuffer.offer(xmlSecEvent);
+        try {
+            getXmlSecEventBuffer().offer(xmlSecEvent);
+        } catch (UncheckedIOException e) {
+            throw new XMLSecurityException(e.getCause());
+        }
     }
 
     @Override
     public void doFinal(OutputProcessorChain outputProcessorChain) throws XMLStreamException, XMLSecurityException {
-        OutputProcessorChain subOutputProcessorChain = outputProcessorChain.createSubChain(this);
-        flushBufferAndCallbackAfterHeader(subOutputProcessorChain, getXmlSecEventBuffer());
-        //call final on the rest of the chain
-        subOutputProcessorChain.doFinal();
-        //this processor is now finished and we can remove it now
-        outputProcessorChain.removeProcessor(this);
+        getXmlSecEventBuffer();
+        Throwable primaryException = null;
+        try {
+            OutputProcessorChain subOutputProcessorChain = outputProcessorChain.createSubChain(this);
+            flushBufferAndCallbackAfterHeader(subOutputProcessorChain, getXmlSecEventBuffer());
+            //call final on the rest of the chain
+            subOutputProcessorChain.doFinal();
+            //this processor is now finished and we can remove it now
+            outputProcessorChain.removeProcessor(this);
+        } catch (UncheckedIOException e) {
+            XMLSecurityException securityException = new XMLSecurityException(e.getCause());
+            primaryException = securityException;
+            throw securityException;
+        } catch (XMLStreamException | XMLSecurityException | RuntimeException | Error e) {
+            primaryException = e;
+            throw e;
+        } finally {
+            closeXmlSecEventBuffer(primaryException);
+        }
+    }
+
+    /**
+     * Deletes the temporary file of the spilled events, if there is one, and reports the
+     * statistics of the buffer to the SecurityMetrics listener. A failure to delete the file is
+     * added as suppressed exception to the primary exception, if there is one, so that it
+     * doesn't mask it.
+     */
+    private void closeXmlSecEventBuffer(Throwable primaryException) throws XMLSecurityException {
+        try {
+            xmlSecEventBuffer.close();
+        } catch (UncheckedIOException e) {
+            if (primaryException == null) {
+                throw new XMLSecurityException(e.getCause());
+            }
+            primaryException.addSuppressed(e);
+        }
+        if (xmlSecEventBuffer.getSpilledEventCount() > 0) {
+            LOG.debug("{} spilled {} events ({} bytes) to disk, at most {} events were held in memory",
+                      getClass().getName(), xmlSecEventBuffer.getSpilledEventCount(),
+                      xmlSecEventBuffer.getSpilledByteCount(), xmlSecEventBuffer.getPeakEventsInMemory());
+        }
+        SecurityMetrics.recordBufferReleased(
+            SecurityMetricsListener.Stage.OUTPUT_PROCESSING, xmlSecEventBuffer.getSpilledEventCount(),
+            xmlSecEventBuffer.getSpilledByteCount(), xmlSecEventBuffer.getPeakEventsInMemory());
     }
 
     protected abstract void processHeaderEvent(OutputProcessorChain outputProcessorChain)
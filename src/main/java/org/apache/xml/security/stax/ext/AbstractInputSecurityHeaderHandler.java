@@ -21,6 +21,7 @@ package org.apache.xml.security.stax.ext;
 import org.apache.xml.security.exceptions.XMLSecurityException;
 import org.apache.xml.security.stax.ext.stax.XMLSecEvent;
 import org.apache.xml.security.stax.impl.XMLSecurityEventReader;
+import org.apache.xml.security.stax.impl.XMLSecurityStructureBinder;
 
 import jakarta.xml.bind.JAXBException;
 import jakarta.xml.bind.Unmarshaller;
@@ -39,9 +40,19 @@ public abstract class AbstractInputSecurityHeaderHandler implements XMLSecurityH
     @SuppressWarnings("unchecked")
     protected <T> T parseStructure(final Deque<XMLSecEvent> eventDeque, final int index,
                                    final XMLSecurityProperties securityProperties) throws XMLSecurityException {
+        // the binder doesn't validate against the schema, so it is only used when validation is disabled
+        if (securityProperties.isUseStAXStructureBinder() && securityProperties.isDisableSchemaValidation()) {
+            Object structure = XMLSecurityStructureBinder.bind(eventDeque, index);
+            if (structure != null) {
+                return (T) structure;
+            }
+        }
         try {
-            Unmarshaller unmarshaller = XMLSecurityConstants.getJaxbUnmarshaller(securityProperties.isDisableSchemaValidation());
-            return (T) unmarshaller.unmarshal(new XMLSecurityEventReader(eventDeque, index));
+            final boolean disableSchemaValidation = securityProperties.isDisableSchemaValidation();
+            Unmarshaller unmarshaller = XMLSecurityConstants.getJaxbUnmarshaller(disableSchemaValidation);
+            T structure = (T) unmarshaller.unmarshal(new XMLSecurityEventReader(eventDeque, index));
+            XMLSecurityConstants.releaseJaxbUnmarshaller(unmarshaller, disableSchemaValidation);
+            return structure;
 
         } catch (JAXBException e) {
             if (e.getCause() != null && e.getCause() instanceof Exception) {
@@ -18,6 +18,7 @@
  */
 package org.apache.xml.security.stax.ext;
 
+import org.apache.xml.security.stax.securityEvent.SecurityEventConstants;
 import org.apache.xml.security.stax.securityEvent.SecurityEventListener;
 
 import java.util.List;
@@ -48,4 +49,17 @@ public interface SecurityContext extends SecurityEventListener {
      * @param securityEventListener The SecurityEventListener
      */
     void addSecurityEventListener(SecurityEventListener securityEventListener);
+
+    /**
+     * Returns whether a SecurityEvent of the given type is consumed, i.e. whether a registered
+     * SecurityEventListener subscribes to it or the context checks it itself. A SecurityEvent
+     * which is not consumed doesn't need to be constructed and registered. By default every
+     * SecurityEvent is consumed.
+     *
+     * @param securityEventType The type of the SecurityEvent
+     * @return true if SecurityEvents of this type must be registered
+     */
+    default boolean isSubscribed(SecurityEventConstants.Event securityEventType) {
+        return true;
+    }
 }
@@ -141,6 +141,11 @@ public class XMLSec {
             throw new XMLSecurityConfigurationException("stax.idgenerationdisablewithmultipleparts");
         }
 
+        if (securityProperties.getOutputBufferMaxEventsInMemory() < 0) {
+            throw new XMLSecurityConfigurationException("stax.invalidBufferMaxEventsInMemory",
+                                                        securityProperties.getOutputBufferMaxEventsInMemory());
+        }
+
         for (XMLSecurityConstants.Action action : securityProperties.getActions()) {
             if (XMLSecurityConstants.SIGNATURE.equals(action)) {
                 if (securityProperties.getSignatureAlgorithm() == null) {
@@ -188,6 +193,14 @@ public class XMLSec {
      *          if the configuration is invalid
      */
     public static XMLSecurityProperties validateAndApplyDefaultsToInboundSecurityProperties(XMLSecurityProperties securityProperties) throws XMLSecurityConfigurationException {
+        if (securityProperties.getInputBufferMaxEventsInMemory() < 0) {
+            throw new XMLSecurityConfigurationException("stax.invalidBufferMaxEventsInMemory",
+                                                        securityProperties.getInputBufferMaxEventsInMemory());
+        }
+        if (securityProperties.getMaxInboundSignatures() < 1) {
+            throw new XMLSecurityConfigurationException("stax.invalidMaxInboundSignatures",
+                                                        securityProperties.getMaxInboundSignatures());
+        }
         return new XMLSecurityProperties(securityProperties);
     }
 }
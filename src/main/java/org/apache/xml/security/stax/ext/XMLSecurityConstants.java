@@ -18,8 +18,15 @@
  */
 package org.apache.xml.security.stax.ext;
 
+import java.security.AccessController;
 import java.security.NoSuchAlgorithmException;
+import java.security.PrivilegedAction;
 import java.security.SecureRandom;
+import java.util.Collections;
+import java.util.Queue;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
 
 import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.JAXBException;
@@ -44,8 +51,12 @@ public class XMLSecurityConstants {
 
     private static final SecureRandom SECURE_RANDOM;
     private static final String RANDOM_ALGORITHM_KEY = "org.apache.xml.security.securerandom.algorithm";
+    private static final int UNMARSHALLER_POOL_SIZE =
+        AccessController.doPrivileged(
+            (PrivilegedAction<Integer>) () -> Integer.getInteger("org.apache.xml.security.stax.unmarshaller.pool-size", 16));
     private static JAXBContext jaxbContext;
     private static Schema schema;
+    private static volatile UnmarshallerPool unmarshallerPool = new UnmarshallerPool(null, null);
 
     static {
         try {
@@ -91,24 +102,78 @@ public class XMLSecurityConstants {
 
     public static synchronized void setJaxbContext(JAXBContext jaxbContext) {
         XMLSecurityConstants.jaxbContext = jaxbContext;
+        unmarshallerPool = new UnmarshallerPool(jaxbContext, schema);
     }
 
     public static synchronized void setJaxbSchemas(Schema schema) {
         XMLSecurityConstants.schema = schema;
+        unmarshallerPool = new UnmarshallerPool(jaxbContext, schema);
     }
 
     public static synchronized Schema getJaxbSchemas() {
         return XMLSecurityConstants.schema;
     }
 
+    /**
+     * Returns an Unmarshaller, taken from a pool if one is available. An Unmarshaller which
+     * is not used any more can be returned to the pool with
+     * {@link #releaseJaxbUnmarshaller(Unmarshaller, boolean)}.
+     * The pool size can be set with the system property
+     * <code>org.apache.xml.security.stax.unmarshaller.pool-size</code> (default 16).
+     */
     public static Unmarshaller getJaxbUnmarshaller(boolean disableSchemaValidation) throws JAXBException {
-        Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
+        UnmarshallerPool pool = unmarshallerPool;
+        Unmarshaller unmarshaller =
+            disableSchemaValidation ? pool.unmarshallers.poll() : pool.schemaValidatingUnmarshallers.poll();
+        if (unmarshaller != null) {
+            return unmarshaller;
+        }
+        unmarshaller = pool.jaxbContext.createUnmarshaller();
         if (!disableSchemaValidation) {
-            unmarshaller.setSchema(schema);
+            unmarshaller.setSchema(pool.schema);
         }
+        pool.created.add(unmarshaller);
         return unmarshaller;
     }
 
+    /**
+     * Returns an Unmarshaller obtained from {@link #getJaxbUnmarshaller(boolean)} with the same
+     * disableSchemaValidation value to the pool. Only release an Unmarshaller after a successful
+     * unmarshal, and don't use it afterwards. An Unmarshaller which was created before the
+     * JAXBContext or the Schema was changed is discarded.
+     */
+    public static void releaseJaxbUnmarshaller(Unmarshaller unmarshaller, boolean disableSchemaValidation) {
+        UnmarshallerPool pool = unmarshallerPool;
+        if (UNMARSHALLER_POOL_SIZE > 0 && pool.created.contains(unmarshaller)) {
+            if (disableSchemaValidation) {
+                pool.unmarshallers.offer(unmarshaller);
+            } else {
+                pool.schemaValidatingUnmarshallers.offer(unmarshaller);
+            }
+        }
+    }
+
+    /**
+     * The pooled Unmarshallers of one JAXBContext and Schema. The pool is replaced as a whole
+     * when the JAXBContext or the Schema is changed. Only Unmarshallers created by the current
+     * pool are accepted back.
+     */
+    private static final class UnmarshallerPool {
+        private final JAXBContext jaxbContext;
+        private final Schema schema;
+        private final Queue<Unmarshaller> unmarshallers =
+            new ArrayBlockingQueue<>(Math.max(UNMARSHALLER_POOL_SIZE, 1));
+        private final Queue<Unmarshaller> schemaValidatingUnmarshallers =
+            new ArrayBlockingQueue<>(Math.max(UNMARSHALLER_POOL_SIZE, 1));
+        private final Set<Unmarshaller> created =
+            Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+        UnmarshallerPool(JAXBContext jaxbContext, Schema schema) {
+            this.jaxbContext = jaxbContext;
+            this.schema = schema;
+        }
+    }
+
     public enum Phase {
         PREPROCESSING,
         PROCESSING,
@@ -308,4 +373,45 @@ public class XMLSecurityConstants {
         XMLSecEvent,
         InputStream,
     }
+
+    /**
+     * Defines how the CipherValue of an inbound EncryptedData structure is decrypted.
+     */
+    public enum DecryptionMode {
+        /**
+         * Decrypt in the thread that reads the document. The CipherValue is decrypted on demand
+         * while the decrypted content is parsed.
+         */
+        Inline,
+        /**
+         * Decrypt in a task which is handed to an Executor. The decryption falls back to
+         * {@link #Inline} when the Executor rejects the task.
+         */
+        Executor,
+        /**
+         * Decrypt in a new virtual thread. Requires a Java runtime with virtual thread support.
+         */
+        VirtualThread,
+    }
+
+    /**
+     * Defines how the MessageDigest, Signature and Mac engines of the JCA are reused between
+     * References and Signatures. A reused engine is reset or re-initialized before it is used again.
+     */
+    public enum EngineReuse {
+        /**
+         * Create a new engine for every Reference and Signature. This is the default.
+         */
+        None,
+        /**
+         * Reuse engines which were created and released by the same thread. The engines are kept
+         * in a ThreadLocal until {@link org.apache.xml.security.stax.impl.algorithms.JCEEngineCache#clearThreadCache()}
+         * is called by that thread.
+         */
+        ThreadConfined,
+        /**
+         * Reuse engines from a bounded pool which is shared by all threads.
+         */
+        Pooled,
+    }
 }
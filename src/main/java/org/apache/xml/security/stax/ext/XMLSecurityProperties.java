@@ -20,10 +20,12 @@ package org.apache.xml.security.stax.ext;
 
 import org.apache.xml.security.stax.securityToken.SecurityTokenConstants;
 
+import java.io.File;
 import java.security.Key;
 import java.security.cert.X509Certificate;
 import java.security.spec.AlgorithmParameterSpec;
 import java.util.*;
+import java.util.concurrent.Executor;
 
 import javax.xml.namespace.QName;
 
@@ -81,6 +83,18 @@ public class XMLSecurityProperties {
     private boolean signaturePositionStart = false;
     private AlgorithmParameterSpec algorithmParameterSpec;
 
+    private XMLSecurityConstants.DecryptionMode decryptionMode = XMLSecurityConstants.DecryptionMode.Inline;
+    private Executor decryptionExecutor;
+
+    private XMLSecurityConstants.EngineReuse engineReuse = XMLSecurityConstants.EngineReuse.None;
+    private boolean useStAXStructureBinder = false;
+    private int outputBufferMaxEventsInMemory;
+    private File outputBufferSpillDirectory;
+    private int inputBufferMaxEventsInMemory;
+    private File inputBufferSpillDirectory;
+    private int maxInboundSignatures = 1;
+    private boolean passThroughCharacters = false;
+
     public XMLSecurityProperties() {
     }
 
@@ -120,6 +134,16 @@ public class XMLSecurityProperties {
         this.signaturePositionQName = xmlSecurityProperties.signaturePositionQName;
         this.signaturePositionStart = xmlSecurityProperties.signaturePositionStart;
         this.algorithmParameterSpec = xmlSecurityProperties.algorithmParameterSpec;
+        this.decryptionMode = xmlSecurityProperties.decryptionMode;
+        this.decryptionExecutor = xmlSecurityProperties.decryptionExecutor;
+        this.engineReuse = xmlSecurityProperties.engineReuse;
+        this.useStAXStructureBinder = xmlSecurityProperties.useStAXStructureBinder;
+        this.outputBufferMaxEventsInMemory = xmlSecurityProperties.outputBufferMaxEventsInMemory;
+        this.outputBufferSpillDirectory = xmlSecurityProperties.outputBufferSpillDirectory;
+        this.inputBufferMaxEventsInMemory = xmlSecurityProperties.inputBufferMaxEventsInMemory;
+        this.inputBufferSpillDirectory = xmlSecurityProperties.inputBufferSpillDirectory;
+        this.maxInboundSignatures = xmlSecurityProperties.maxInboundSignatures;
+        this.passThroughCharacters = xmlSecurityProperties.passThroughCharacters;
     }
 
     public boolean isSignaturePositionStart() {
@@ -539,4 +563,164 @@ public class XMLSecurityProperties {
     public void setAlgorithmParameterSpec(AlgorithmParameterSpec algorithmParameterSpec) {
         this.algorithmParameterSpec = algorithmParameterSpec;
     }
+
+    public XMLSecurityConstants.DecryptionMode getDecryptionMode() {
+        return decryptionMode;
+    }
+
+    /**
+     * Specifies how inbound EncryptedData structures are decrypted. The default
+     * is {@link XMLSecurityConstants.DecryptionMode#Inline}, which decrypts in the
+     * thread that reads the document.
+     *
+     * @param decryptionMode the DecryptionMode to use
+     */
+    public void setDecryptionMode(XMLSecurityConstants.DecryptionMode decryptionMode) {
+        this.decryptionMode = decryptionMode;
+    }
+
+    public Executor getDecryptionExecutor() {
+        return decryptionExecutor;
+    }
+
+    /**
+     * Specifies the Executor which is used with {@link XMLSecurityConstants.DecryptionMode#Executor}.
+     * The Executor must run each task without waiting for other decryption tasks to complete,
+     * because the reading thread blocks until the task produces the decrypted data.
+     * If no Executor is set, a shared bounded Executor is used.
+     *
+     * @param decryptionExecutor the Executor to use for decryption
+     */
+    public void setDecryptionExecutor(Executor decryptionExecutor) {
+        this.decryptionExecutor = decryptionExecutor;
+    }
+
+    public XMLSecurityConstants.EngineReuse getEngineReuse() {
+        return engineReuse;
+    }
+
+    /**
+     * Specifies how the MessageDigest, Signature and Mac engines are reused by the signature
+     * processors. The default is {@link XMLSecurityConstants.EngineReuse#None}.
+     *
+     * @param engineReuse the EngineReuse to use
+     */
+    public void setEngineReuse(XMLSecurityConstants.EngineReuse engineReuse) {
+        this.engineReuse = engineReuse;
+    }
+
+    public boolean isUseStAXStructureBinder() {
+        return useStAXStructureBinder;
+    }
+
+    /**
+     * Specifies whether inbound Signature, SignedInfo, EncryptedKey and EncryptedData structures are
+     * bound directly from the StAX events instead of with JAXB. As a structure bound directly is only
+     * checked for the element order and cardinality of the schema, the binder is only used when
+     * schema validation is disabled with {@link #setDisableSchemaValidation(boolean)}; otherwise this
+     * setting has no effect. Structures which contain elements or attributes the binder doesn't know
+     * are still unmarshalled with JAXB. The default is false.
+     *
+     * @param useStAXStructureBinder true to bind the known structures without JAXB
+     */
+    public void setUseStAXStructureBinder(boolean useStAXStructureBinder) {
+        this.useStAXStructureBinder = useStAXStructureBinder;
+    }
+
+    public int getOutputBufferMaxEventsInMemory() {
+        return outputBufferMaxEventsInMemory;
+    }
+
+    /**
+     * Specifies how many events an outbound processor which has to hold back the document, e.g.
+     * to output the Signature before the signed content, keeps in memory. Each time this number
+     * is reached, the events are spilled to a temporary file and read back when the document is
+     * flushed. Note that the temporary file holds the document as it was passed to the processor,
+     * which may be plaintext. The default is 0, which keeps all events in memory.
+     *
+     * @param outputBufferMaxEventsInMemory the number of events to keep in memory, or 0
+     */
+    public void setOutputBufferMaxEventsInMemory(int outputBufferMaxEventsInMemory) {
+        this.outputBufferMaxEventsInMemory = outputBufferMaxEventsInMemory;
+    }
+
+    public File getOutputBufferSpillDirectory() {
+        return outputBufferSpillDirectory;
+    }
+
+    /**
+     * Specifies the directory for the temporary files of spilled outbound events. The default is
+     * null, which uses the default temporary-file directory.
+     *
+     * @param outputBufferSpillDirectory the directory for the temporary files
+     */
+    public void setOutputBufferSpillDirectory(File outputBufferSpillDirectory) {
+        this.outputBufferSpillDirectory = outputBufferSpillDirectory;
+    }
+
+    public int getInputBufferMaxEventsInMemory() {
+        return inputBufferMaxEventsInMemory;
+    }
+
+    /**
+     * Specifies how many events the inbound processing keeps in memory while it buffers the
+     * document until the end of a Signature element, e.g. when the Signature is the last child
+     * of the root element. Each time this number is reached, the events are spilled to a
+     * temporary file and read back when the Signature is verified. Note that the temporary file
+     * holds the document as it was received, or decrypted. The default is 0, which keeps all
+     * events in memory.
+     *
+     * @param inputBufferMaxEventsInMemory the number of events to keep in memory, or 0
+     */
+    public void setInputBufferMaxEventsInMemory(int inputBufferMaxEventsInMemory) {
+        this.inputBufferMaxEventsInMemory = inputBufferMaxEventsInMemory;
+    }
+
+    public File getInputBufferSpillDirectory() {
+        return inputBufferSpillDirectory;
+    }
+
+    /**
+     * Specifies the directory for the temporary files of spilled inbound events. The default is
+     * null, which uses the default temporary-file directory.
+     *
+     * @param inputBufferSpillDirectory the directory for the temporary files
+     */
+    public void setInputBufferSpillDirectory(File inputBufferSpillDirectory) {
+        this.inputBufferSpillDirectory = inputBufferSpillDirectory;
+    }
+
+    public int getMaxInboundSignatures() {
+        return maxInboundSignatures;
+    }
+
+    /**
+     * Specifies how many Signature elements an inbound document may contain. They are verified in
+     * a single pass, so the document is buffered until the end of the last one of them, or until
+     * the end of the document if it contains fewer of them. A document with more Signature
+     * elements is rejected. The default is 1.
+     *
+     * @param maxInboundSignatures the maximum number of Signature elements, at least 1
+     */
+    public void setMaxInboundSignatures(int maxInboundSignatures) {
+        this.maxInboundSignatures = maxInboundSignatures;
+    }
+
+    public boolean isPassThroughCharacters() {
+        return passThroughCharacters;
+    }
+
+    /**
+     * Specifies whether the inbound character data is passed through without copying it. A
+     * CHARACTERS event then refers to the text buffer of the XMLStreamReader and is only valid
+     * until the next event is read. The built-in processors copy the text when they buffer or
+     * digest an event, but custom input processors which keep CHARACTERS events must call
+     * {@link org.apache.xml.security.stax.ext.stax.XMLSecEventFactory#materialize} on them.
+     * The default is false.
+     *
+     * @param passThroughCharacters true to pass through the character data without copying it
+     */
+    public void setPassThroughCharacters(boolean passThroughCharacters) {
+        this.passThroughCharacters = passThroughCharacters;
+    }
 }
@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.security.PublicKey;
 import java.security.cert.CertificateEncodingException;
 import java.security.cert.X509Certificate;
@@ -60,16 +61,19 @@ import org.apache.xml.security.stax.ext.stax.XMLSecEvent;
 import org.apache.xml.security.stax.ext.stax.XMLSecNamespace;
 import org.apache.xml.security.stax.ext.stax.XMLSecStartElement;
 import org.apache.xml.security.stax.impl.util.ConcreteLSInput;
+import org.apache.xml.security.stax.impl.util.DigestOutputStream;
 import org.apache.xml.security.stax.securityEvent.DefaultTokenSecurityEvent;
 import org.apache.xml.security.stax.securityEvent.EncryptedKeyTokenSecurityEvent;
 import org.apache.xml.security.stax.securityEvent.KeyNameTokenSecurityEvent;
 import org.apache.xml.security.stax.securityEvent.KeyValueTokenSecurityEvent;
+import org.apache.xml.security.stax.securityEvent.SecurityEventConstants;
 import org.apache.xml.security.stax.securityEvent.TokenSecurityEvent;
 import org.apache.xml.security.stax.securityEvent.X509TokenSecurityEvent;
 import org.apache.xml.security.stax.securityToken.InboundSecurityToken;
 import org.apache.xml.security.stax.securityToken.SecurityTokenConstants;
 import org.apache.xml.security.utils.ClassLoaderUtils;
 import org.apache.xml.security.utils.JavaUtils;
+import org.apache.xml.security.utils.MappedFileInputStream;
 import org.apache.xml.security.utils.XMLUtils;
 
 /**
@@ -379,6 +383,33 @@ public class XMLSecurityUtils {
         }
     }
 
+    /**
+     * Returns the type of the TokenSecurityEvent which {@link #createTokenSecurityEvent} creates for the token,
+     * so that the event is only constructed when it is subscribed to.
+     */
+    public static SecurityEventConstants.Event getTokenSecurityEventType(
+            final InboundSecurityToken inboundSecurityToken) throws XMLSecurityException {
+
+        SecurityTokenConstants.TokenType tokenType = inboundSecurityToken.getTokenType();
+
+        if (SecurityTokenConstants.X509V1Token.equals(tokenType)
+                || SecurityTokenConstants.X509V3Token.equals(tokenType)
+                || SecurityTokenConstants.X509Pkcs7Token.equals(tokenType)
+                || SecurityTokenConstants.X509PkiPathV1Token.equals(tokenType)) {
+            return SecurityEventConstants.X509Token;
+        } else if (SecurityTokenConstants.KeyValueToken.equals(tokenType)) {
+            return SecurityEventConstants.KeyValueToken;
+        } else if (SecurityTokenConstants.KeyNameToken.equals(tokenType)) {
+            return SecurityEventConstants.KeyNameToken;
+        } else if (SecurityTokenConstants.DefaultToken.equals(tokenType)) {
+            return SecurityEventConstants.DefaultToken;
+        } else if (SecurityTokenConstants.EncryptedKeyToken.equals(tokenType)) {
+            return SecurityEventConstants.EncryptedKeyToken;
+        }
+        throw new XMLSecurityException("stax.unsupportedToken",
+                                       new Object[]{tokenType});
+    }
+
     @SuppressWarnings("unchecked")
     public static TokenSecurityEvent<? extends InboundSecurityToken> createTokenSecurityEvent(
             final InboundSecurityToken inboundSecurityToken, String correlationID) throws XMLSecurityException {
@@ -454,6 +485,14 @@ public class XMLSecurityUtils {
     }
 
     public static void copy(InputStream inputStream, OutputStream outputStream) throws IOException {
+        if (inputStream instanceof MappedFileInputStream && outputStream instanceof DigestOutputStream) {
+            // digest the mapped regions of the file directly
+            ByteBuffer region;
+            while ((region = ((MappedFileInputStream) inputStream).nextRegion()) != null) {
+                ((DigestOutputStream) outputStream).write(region);
+            }
+            return;
+        }
         int read = 0;
         byte[] buf = new byte[4096];
         while ((read = inputStream.read(buf)) != -1) {
@@ -28,4 +28,27 @@ public interface XMLSecCharacters extends XMLSecEvent, Characters {
     XMLSecCharacters asCharacters();
 
     char[] getText();
+
+    /**
+     * Returns the number of characters of this event.
+     */
+    default int getTextLength() {
+        return getData().length();
+    }
+
+    /**
+     * Copies characters of this event into the target array, without creating a copy of the
+     * whole text first.
+     *
+     * @return the number of characters copied, which is less than length at the end of the text
+     */
+    default int getTextCharacters(int sourceStart, char[] target, int targetStart, int length) {
+        String data = getData();
+        int copied = Math.min(length, data.length() - sourceStart);
+        if (copied <= 0) {
+            return 0;
+        }
+        data.getChars(sourceStart, sourceStart + copied, target, targetStart);
+        return copied;
+    }
 }
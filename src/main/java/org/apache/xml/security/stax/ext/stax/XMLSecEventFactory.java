@@ -50,6 +50,18 @@ public final class XMLSecEventFactory {
     }
 
     public static XMLSecEvent allocate(XMLStreamReader xmlStreamReader, XMLSecStartElement parentXMLSecStartElement) throws XMLStreamException {
+        return allocate(xmlStreamReader, parentXMLSecStartElement, false);
+    }
+
+    /**
+     * Creates the XMLSecEvent for the current event of the XMLStreamReader.
+     *
+     * @param passThrough if true, a CHARACTERS event refers to the text buffer of the reader instead
+     *    of a copy of it. Such an event is only valid until the reader moves on, a processor which
+     *    keeps it any longer must {@link #materialize(XMLSecEvent)} it first.
+     */
+    public static XMLSecEvent allocate(XMLStreamReader xmlStreamReader, XMLSecStartElement parentXMLSecStartElement,
+                                       boolean passThrough) throws XMLStreamException {
         switch (xmlStreamReader.getEventType()) {
             case XMLStreamConstants.START_ELEMENT: {
                 List<XMLSecAttribute> comparableAttributes = null;
@@ -76,6 +88,10 @@ public final class XMLSecEventFactory {
             case XMLStreamConstants.PROCESSING_INSTRUCTION:
                 return new XMLSecProcessingInstructionImpl(xmlStreamReader.getPITarget(), xmlStreamReader.getPIData(), parentXMLSecStartElement);
             case XMLStreamConstants.CHARACTERS:
+                if (passThrough) {
+                    return new XMLSecCharactersImpl(xmlStreamReader.getTextCharacters(), xmlStreamReader.getTextStart(),
+                            xmlStreamReader.getTextLength(), xmlStreamReader.isWhiteSpace(), parentXMLSecStartElement);
+                }
                 char[] text = new char[xmlStreamReader.getTextLength()];
                 xmlStreamReader.getTextCharacters(0, text, 0, xmlStreamReader.getTextLength());
                 return new XMLSecCharactersImpl(text, false, false, xmlStreamReader.isWhiteSpace(), parentXMLSecStartElement);
@@ -107,6 +123,19 @@ public final class XMLSecEventFactory {
         throw new IllegalArgumentException("Unknown XML event occurred");
     }
 
+    /**
+     * Makes an event which was allocated in pass-through mode independent of the XMLStreamReader it
+     * was read from, so that it can be kept after the reader moved on. Other events are left as they are.
+     *
+     * @return the given event
+     */
+    public static XMLSecEvent materialize(XMLSecEvent xmlSecEvent) {
+        if (xmlSecEvent instanceof XMLSecCharactersImpl) {
+            ((XMLSecCharactersImpl) xmlSecEvent).materialize();
+        }
+        return xmlSecEvent;
+    }
+
     public static XMLSecStartElement createXmlSecStartElement(QName name, List<XMLSecAttribute> attributes, List<XMLSecNamespace> namespaces) {
         return new XMLSecStartElementImpl(name, attributes, namespaces);
     }
@@ -20,31 +20,62 @@ package org.apache.xml.security.stax.impl;
 
 import org.apache.xml.security.exceptions.XMLSecurityException;
 import org.apache.xml.security.stax.securityEvent.SecurityEvent;
+import org.apache.xml.security.stax.securityEvent.SecurityEventConstants;
 import org.apache.xml.security.stax.securityEvent.SecurityEventListener;
+import org.apache.xml.security.stax.securityEvent.SubscribingSecurityEventListener;
 
 import java.util.*;
 
 /**
+ * The registered SecurityEventListeners and their subscriptions are kept in immutable snapshots
+ * which are replaced when a listener is added, so registering a SecurityEvent is lock-free.
  */
 public class AbstractSecurityContextImpl {
     @SuppressWarnings("unchecked")
     private final Map content = Collections.synchronizedMap(new HashMap());
-    private final List<SecurityEventListener> securityEventListeners = new ArrayList<>(2);
+    private volatile Subscription[] subscriptions = new Subscription[0];
+    /**
+     * The union of the subscribed SecurityEvent types, null if no listener is registered yet (a
+     * subclass may consume the events itself) or if a listener receives all types
+     */
+    private volatile Set<SecurityEventConstants.Event> subscribedSecurityEvents;
 
-    public void addSecurityEventListener(SecurityEventListener securityEventListener) {
+    public synchronized void addSecurityEventListener(SecurityEventListener securityEventListener) {
         if (securityEventListener != null) {
-            this.securityEventListeners.add(securityEventListener);
+            Subscription subscription = new Subscription(securityEventListener);
+            Subscription[] newSubscriptions = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+            newSubscriptions[subscriptions.length] = subscription;
+
+            Set<SecurityEventConstants.Event> newSubscribedSecurityEvents = new HashSet<>();
+            for (Subscription newSubscription : newSubscriptions) {
+                if (newSubscription.securityEventTypes == null) {
+                    newSubscribedSecurityEvents = null;
+                    break;
+                }
+                newSubscribedSecurityEvents.addAll(newSubscription.securityEventTypes);
+            }
+            this.subscriptions = newSubscriptions;
+            this.subscribedSecurityEvents = newSubscribedSecurityEvents;
         }
     }
 
-    public synchronized void registerSecurityEvent(SecurityEvent securityEvent) throws XMLSecurityException {
+    public boolean isSubscribed(SecurityEventConstants.Event securityEventType) {
+        Set<SecurityEventConstants.Event> securityEventTypes = this.subscribedSecurityEvents;
+        return securityEventTypes == null || securityEventTypes.contains(securityEventType);
+    }
+
+    public void registerSecurityEvent(SecurityEvent securityEvent) throws XMLSecurityException {
         forwardSecurityEvent(securityEvent);
     }
 
     protected void forwardSecurityEvent(SecurityEvent securityEvent) throws XMLSecurityException {
-        for (int i = 0; i < securityEventListeners.size(); i++) {
-            SecurityEventListener securityEventListener = securityEventListeners.get(i);
-            securityEventListener.registerSecurityEvent(securityEvent);
+        final Subscription[] currentSubscriptions = this.subscriptions;
+        for (int i = 0; i < currentSubscriptions.length; i++) {
+            Subscription subscription = currentSubscriptions[i];
+            if (subscription.securityEventTypes == null
+                || subscription.securityEventTypes.contains(securityEvent.getSecurityEventType())) {
+                subscription.securityEventListener.registerSecurityEvent(securityEvent);
+            }
         }
     }
 
@@ -105,4 +136,22 @@ public class AbstractSecurityContextImpl {
     public <T, U> Map<T, U> getAsMap(Object key) {
         return (Map<T, U>) content.get(key);
     }
+
+    private static final class Subscription {
+        private final SecurityEventListener securityEventListener;
+        /** The subscribed SecurityEvent types, null if the listener receives all types */
+        private final Set<SecurityEventConstants.Event> securityEventTypes;
+
+        Subscription(SecurityEventListener securityEventListener) {
+            this.securityEventListener = securityEventListener;
+            if (securityEventListener instanceof SubscribingSecurityEventListener) {
+                Set<SecurityEventConstants.Event> subscribed =
+                    ((SubscribingSecurityEventListener) securityEventListener).getSubscribedSecurityEvents();
+                this.securityEventTypes =
+                    subscribed != null ? new HashSet<>(subscribed) : Collections.<SecurityEventConstants.Event>emptySet();
+            } else {
+                this.securityEventTypes = null;
+            }
+        }
+    }
 }
@@ -39,6 +39,15 @@ public class InboundSecurityContextImpl extends AbstractSecurityContextImpl impl
     private final Map<String, SecurityTokenProvider<? extends InboundSecurityToken>> securityTokenProviders =
             new HashMap<>();
 
+    @Override
+    public boolean isSubscribed(SecurityEventConstants.Event securityEventType) {
+        //the AlgorithmSuite events are needed to reject MD5 even when no listener subscribes to them
+        if (!InboundSecurityContextImpl.allowMD5Algorithm && SecurityEventConstants.AlgorithmSuite.equals(securityEventType)) {
+            return true;
+        }
+        return super.isSubscribed(securityEventType);
+    }
+
     @Override
     protected void forwardSecurityEvent(SecurityEvent securityEvent) throws XMLSecurityException {
         if (!InboundSecurityContextImpl.allowMD5Algorithm && SecurityEventConstants.AlgorithmSuite.equals(securityEvent.getSecurityEventType())) {
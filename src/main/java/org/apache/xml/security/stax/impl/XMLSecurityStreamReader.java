@@ -40,6 +40,8 @@ import org.apache.xml.security.stax.ext.InputProcessorChain;
 import org.apache.xml.security.stax.ext.XMLSecurityProperties;
 import org.apache.xml.security.stax.ext.stax.XMLSecEvent;
 import org.apache.xml.security.stax.ext.stax.XMLSecStartElement;
+import org.apache.xml.security.utils.SecurityMetrics;
+import org.apache.xml.security.utils.SecurityMetricsListener;
 
 /**
  * A custom implementation of a XMLStreamReader to get back from the XMLEventReader world
@@ -55,6 +57,8 @@ public class XMLSecurityStreamReader implements XMLStreamReader {
     private boolean standalone;
     private boolean standaloneSet;
     private String characterEncodingScheme;
+    /** The time spent in the processor chain so far, for the metrics */
+    private long processingNanos;
 
     private static final String ERR_STATE_NOT_ELEM = "Current state not START_ELEMENT or END_ELEMENT";
     private static final String ERR_STATE_NOT_STELEM = "Current state not START_ELEMENT";
@@ -75,6 +79,7 @@ public class XMLSecurityStreamReader implements XMLStreamReader {
 
     @Override
     public int next() throws XMLStreamException {
+        long start = SecurityMetrics.start();
         int eventType;
         try {
             inputProcessorChain.reset();
@@ -98,6 +103,13 @@ public class XMLSecurityStreamReader implements XMLStreamReader {
         } catch (XMLSecurityException e) {
             throw new XMLStreamException(e);
         }
+        if (start != SecurityMetrics.NOT_STARTED) {
+            processingNanos += System.nanoTime() - start;
+            if (eventType == END_DOCUMENT) {
+                SecurityMetrics.recordDuration(
+                    SecurityMetricsListener.Stage.INPUT_PROCESSING, null, processingNanos, -1);
+            }
+        }
         return eventType;
     }
 
@@ -472,8 +484,7 @@ public class XMLSecurityStreamReader implements XMLStreamReader {
             case CDATA:
             case SPACE:
             case CHARACTERS:
-                xmlSecEvent.asCharacters().getData().getChars(sourceStart, sourceStart + length, target, targetStart);
-                return length;
+                return xmlSecEvent.asCharacters().getTextCharacters(sourceStart, target, targetStart, length);
             default:
                 throw new IllegalStateException("Current state not TEXT");
         }
@@ -497,7 +508,7 @@ public class XMLSecurityStreamReader implements XMLStreamReader {
             case CDATA:
             case SPACE:
             case CHARACTERS:
-                return xmlSecEvent.asCharacters().getData().length();
+                return xmlSecEvent.asCharacters().getTextLength();
             default:
                 throw new IllegalStateException("Current state not TEXT");
         }
@@ -26,6 +26,8 @@ import org.apache.xml.security.stax.ext.stax.XMLSecAttribute;
 import org.apache.xml.security.stax.ext.stax.XMLSecEvent;
 import org.apache.xml.security.stax.ext.stax.XMLSecEventFactory;
 import org.apache.xml.security.stax.ext.stax.XMLSecNamespace;
+import org.apache.xml.security.utils.SecurityMetrics;
+import org.apache.xml.security.utils.SecurityMetricsListener;
 
 import javax.xml.XMLConstants;
 import javax.xml.namespace.NamespaceContext;
@@ -51,15 +53,21 @@ public class XMLSecurityStreamWriter implements XMLStreamWriter {
     private boolean haveToWriteEndElement = false;
     private SecurePart signEntireRequestPart;
     private SecurePart encryptEntireRequestPart;
+    /** The time spent in the processor chain so far, for the metrics */
+    private long processingNanos;
 
     public XMLSecurityStreamWriter(OutputProcessorChain outputProcessorChain) {
         this.outputProcessorChain = outputProcessorChain;
     }
 
     private void chainProcessEvent(XMLSecEvent xmlSecEvent) throws XMLStreamException {
+        long start = SecurityMetrics.start();
         try {
             outputProcessorChain.reset();
             outputProcessorChain.processEvent(xmlSecEvent);
+            if (start != SecurityMetrics.NOT_STARTED) {
+                processingNanos += System.nanoTime() - start;
+            }
         } catch (XMLSecurityException e) {
             throw new XMLStreamException(e);
         } catch (XMLStreamException e) {
@@ -186,8 +194,13 @@ public class XMLSecurityStreamWriter implements XMLStreamWriter {
     public void close() throws XMLStreamException {
         try {
             writeEndDocument();
+            long start = SecurityMetrics.start();
             outputProcessorChain.reset();
             outputProcessorChain.doFinal();
+            if (start != SecurityMetrics.NOT_STARTED) {
+                SecurityMetrics.recordDuration(SecurityMetricsListener.Stage.OUTPUT_PROCESSING, null,
+                    processingNanos + System.nanoTime() - start, -1);
+            }
         } catch (XMLSecurityException e) {
             throw new XMLStreamException(e);
         }
@@ -0,0 +1,586 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.stax.impl;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.events.Attribute;
+
+import org.apache.xml.security.binding.excc14n.InclusiveNamespaces;
+import org.apache.xml.security.binding.xmldsig.CanonicalizationMethodType;
+import org.apache.xml.security.binding.xmldsig.DigestMethodType;
+import org.apache.xml.security.binding.xmldsig.KeyInfoType;
+import org.apache.xml.security.binding.xmldsig.ReferenceType;
+import org.apache.xml.security.binding.xmldsig.SignatureMethodType;
+import org.apache.xml.security.binding.xmldsig.SignatureType;
+import org.apache.xml.security.binding.xmldsig.SignatureValueType;
+import org.apache.xml.security.binding.xmldsig.SignedInfoType;
+import org.apache.xml.security.binding.xmldsig.TransformType;
+import org.apache.xml.security.binding.xmldsig.TransformsType;
+import org.apache.xml.security.binding.xmldsig.X509DataType;
+import org.apache.xml.security.binding.xmldsig.X509IssuerSerialType;
+import org.apache.xml.security.binding.xmlenc.CipherDataType;
+import org.apache.xml.security.binding.xmlenc.CipherReferenceType;
+import org.apache.xml.security.binding.xmlenc.CipherValueType;
+import org.apache.xml.security.binding.xmlenc.EncryptedDataType;
+import org.apache.xml.security.binding.xmlenc.EncryptedKeyType;
+import org.apache.xml.security.binding.xmlenc.EncryptedType;
+import org.apache.xml.security.binding.xmlenc.EncryptionMethodType;
+import org.apache.xml.security.binding.xmlenc.ReferenceList;
+import org.apache.xml.security.binding.xmlenc11.MGFType;
+import org.apache.xml.security.stax.ext.XMLSecurityConstants;
+import org.apache.xml.security.stax.ext.stax.XMLSecAttribute;
+import org.apache.xml.security.stax.ext.stax.XMLSecEvent;
+import org.apache.xml.security.stax.ext.stax.XMLSecStartElement;
+
+/**
+ * Binds Signature, SignedInfo, EncryptedKey and EncryptedData structures directly from the
+ * buffered XMLSecEvents to the JAXB types, without the reflection and schema validation
+ * overhead of a JAXB Unmarshaller.
+ *
+ * Only the commonly used subset of the structures is supported. The binder checks the element
+ * order and cardinality of the schema for that subset and returns <code>null</code> as soon as it
+ * sees anything else, so that the caller can fall back to JAXB.
+ */
+public final class XMLSecurityStructureBinder {
+
+    private static final org.apache.xml.security.binding.xmldsig.ObjectFactory DSIG_FACTORY =
+        new org.apache.xml.security.binding.xmldsig.ObjectFactory();
+    private static final org.apache.xml.security.binding.xmlenc.ObjectFactory XENC_FACTORY =
+        new org.apache.xml.security.binding.xmlenc.ObjectFactory();
+    private static final org.apache.xml.security.binding.xmlenc11.ObjectFactory XENC11_FACTORY =
+        new org.apache.xml.security.binding.xmlenc11.ObjectFactory();
+    private static final org.apache.xml.security.binding.excc14n.ObjectFactory C14N_EXCL_FACTORY =
+        new org.apache.xml.security.binding.excc14n.ObjectFactory();
+
+    private static final List<QName> ID_ATTRIBUTES = Arrays.asList(XMLSecurityConstants.ATT_NULL_Id);
+    private static final List<QName> ALGORITHM_ATTRIBUTES = Arrays.asList(XMLSecurityConstants.ATT_NULL_Algorithm);
+    private static final List<QName> REFERENCE_ATTRIBUTES =
+        Arrays.asList(XMLSecurityConstants.ATT_NULL_Id, XMLSecurityConstants.ATT_NULL_URI, XMLSecurityConstants.ATT_NULL_Type);
+    private static final List<QName> ENCRYPTED_TYPE_ATTRIBUTES =
+        Arrays.asList(XMLSecurityConstants.ATT_NULL_Id, XMLSecurityConstants.ATT_NULL_Type,
+                      XMLSecurityConstants.ATT_NULL_MimeType, XMLSecurityConstants.ATT_NULL_Encoding);
+    private static final List<QName> URI_ATTRIBUTES = Arrays.asList(XMLSecurityConstants.ATT_NULL_URI);
+    private static final List<QName> PREFIX_LIST_ATTRIBUTES = Arrays.asList(XMLSecurityConstants.ATT_NULL_PrefixList);
+    private static final List<QName> NO_ATTRIBUTES = Arrays.asList();
+
+    private final Iterator<XMLSecEvent> xmlSecEventIterator;
+
+    private XMLSecurityStructureBinder(Deque<XMLSecEvent> xmlSecEvents, int fromIndex) {
+        this.xmlSecEventIterator = xmlSecEvents.descendingIterator();
+        int curIdx = 0;
+        while (curIdx++ < fromIndex) {
+            this.xmlSecEventIterator.next();
+        }
+    }
+
+    /**
+     * Binds the structure which starts at the given index of the XMLSecEvent deque.
+     *
+     * @return the JAXBElement for the structure or <code>null</code> if the structure isn't supported
+     */
+    public static Object bind(Deque<XMLSecEvent> xmlSecEvents, int fromIndex) {
+        XMLSecurityStructureBinder binder = new XMLSecurityStructureBinder(xmlSecEvents, fromIndex);
+        try {
+            XMLSecStartElement startElement = binder.nextStartElement();
+            QName name = startElement.getName();
+            if (XMLSecurityConstants.TAG_dsig_Signature.equals(name)) {
+                return DSIG_FACTORY.createSignature(binder.bindSignature(startElement));
+            } else if (XMLSecurityConstants.TAG_dsig_SignedInfo.equals(name)) {
+                return DSIG_FACTORY.createSignedInfo(binder.bindSignedInfo(startElement));
+            } else if (XMLSecurityConstants.TAG_xenc_EncryptedKey.equals(name)) {
+                return XENC_FACTORY.createEncryptedKey(binder.bindEncryptedKey(startElement));
+            } else if (XMLSecurityConstants.TAG_xenc_EncryptedData.equals(name)) {
+                EncryptedDataType encryptedDataType = new EncryptedDataType();
+                binder.bindEncryptedType(startElement, encryptedDataType, ENCRYPTED_TYPE_ATTRIBUTES);
+                return XENC_FACTORY.createEncryptedData(encryptedDataType);
+            }
+        } catch (UnsupportedStructureException e) {
+            // fall back to JAXB
+        }
+        return null;
+    }
+
+    private SignatureType bindSignature(XMLSecStartElement startElement) throws UnsupportedStructureException {
+        SignatureType signatureType = new SignatureType();
+        signatureType.setId(getIdAttribute(startElement, ID_ATTRIBUTES));
+
+        signatureType.setSignedInfo(bindSignedInfo(nextStartElement(XMLSecurityConstants.TAG_dsig_SignedInfo)));
+
+        XMLSecStartElement signatureValue = nextStartElement(XMLSecurityConstants.TAG_dsig_SignatureValue);
+        SignatureValueType signatureValueType = new SignatureValueType();
+        signatureValueType.setId(getIdAttribute(signatureValue, ID_ATTRIBUTES));
+        signatureValueType.setValue(decodeBase64(readText()));
+        signatureType.setSignatureValue(signatureValueType);
+
+        XMLSecEvent xmlSecEvent = nextTag();
+        if (isStartElement(xmlSecEvent, XMLSecurityConstants.TAG_dsig_KeyInfo)) {
+            signatureType.setKeyInfo(bindKeyInfo(xmlSecEvent.asStartElement()));
+            xmlSecEvent = nextTag();
+        }
+        // ds:Object is not supported
+        requireEndElement(xmlSecEvent);
+        return signatureType;
+    }
+
+    private SignedInfoType bindSignedInfo(XMLSecStartElement startElement) throws UnsupportedStructureException {
+        SignedInfoType signedInfoType = new SignedInfoType();
+        signedInfoType.setId(getIdAttribute(startElement, ID_ATTRIBUTES));
+
+        XMLSecStartElement canonicalizationMethod = nextStartElement(XMLSecurityConstants.TAG_dsig_CanonicalizationMethod);
+        CanonicalizationMethodType canonicalizationMethodType = new CanonicalizationMethodType();
+        canonicalizationMethodType.setAlgorithm(getAlgorithmAttribute(canonicalizationMethod));
+        bindInclusiveNamespaces(canonicalizationMethodType.getContent());
+        signedInfoType.setCanonicalizationMethod(canonicalizationMethodType);
+
+        XMLSecStartElement signatureMethod = nextStartElement(XMLSecurityConstants.TAG_dsig_SignatureMethod);
+        SignatureMethodType signatureMethodType = new SignatureMethodType();
+        signatureMethodType.setAlgorithm(getAlgorithmAttribute(signatureMethod));
+        XMLSecEvent xmlSecEvent = nextTag();
+        if (isStartElement(xmlSecEvent, XMLSecurityConstants.TAG_dsig_HMACOutputLength)) {
+            checkAttributes(xmlSecEvent.asStartElement(), NO_ATTRIBUTES);
+            signatureMethodType.getContent().add(
+                DSIG_FACTORY.createSignatureMethodTypeHMACOutputLength(parseInteger(readText())));
+            xmlSecEvent = nextTag();
+        }
+        requireEndElement(xmlSecEvent);
+        signedInfoType.setSignatureMethod(signatureMethodType);
+
+        xmlSecEvent = nextTag();
+        do {
+            if (!isStartElement(xmlSecEvent, XMLSecurityConstants.TAG_dsig_Reference)) {
+                throw new UnsupportedStructureException();
+            }
+            signedInfoType.getReference().add(bindReference(xmlSecEvent.asStartElement()));
+            xmlSecEvent = nextTag();
+        } while (!xmlSecEvent.isEndElement());
+        return signedInfoType;
+    }
+
+    private ReferenceType bindReference(XMLSecStartElement startElement) throws UnsupportedStructureException {
+        checkAttributes(startElement, REFERENCE_ATTRIBUTES);
+        ReferenceType referenceType = new ReferenceType();
+        referenceType.setId(getIdAttribute(startElement, REFERENCE_ATTRIBUTES));
+        referenceType.setURI(getAttribute(startElement, XMLSecurityConstants.ATT_NULL_URI));
+        referenceType.setType(getAttribute(startElement, XMLSecurityConstants.ATT_NULL_Type));
+
+        XMLSecStartElement xmlSecStartElement = nextStartElement();
+        if (XMLSecurityConstants.TAG_dsig_Transforms.equals(xmlSecStartElement.getName())) {
+            checkAttributes(xmlSecStartElement, NO_ATTRIBUTES);
+            TransformsType transformsType = new TransformsType();
+            bindTransforms(transformsType.getTransform());
+            referenceType.setTransforms(transformsType);
+            xmlSecStartElement = nextStartElement();
+        }
+        referenceType.setDigestMethod(bindDigestMethod(xmlSecStartElement));
+
+        checkAttributes(nextStartElement(XMLSecurityConstants.TAG_dsig_DigestValue), NO_ATTRIBUTES);
+        referenceType.setDigestValue(decodeBase64(readText()));
+        requireEndElement(nextTag());
+        return referenceType;
+    }
+
+    private void bindTransforms(List<TransformType> transforms) throws UnsupportedStructureException {
+        XMLSecEvent xmlSecEvent = nextTag();
+        do {
+            if (!isStartElement(xmlSecEvent, XMLSecurityConstants.TAG_dsig_Transform)) {
+                throw new UnsupportedStructureException();
+            }
+            TransformType transformType = new TransformType();
+            transformType.setAlgorithm(getAlgorithmAttribute(xmlSecEvent.asStartElement()));
+            // ds:XPath is not supported
+            bindInclusiveNamespaces(transformType.getContent());
+            transforms.add(transformType);
+            xmlSecEvent = nextTag();
+        } while (!xmlSecEvent.isEndElement());
+    }
+
+    private void bindInclusiveNamespaces(List<Object> content) throws UnsupportedStructureException {
+        XMLSecEvent xmlSecEvent = nextTag();
+        if (isStartElement(xmlSecEvent, XMLSecurityConstants.TAG_c14nExcl_InclusiveNamespaces)) {
+            XMLSecStartElement startElement = xmlSecEvent.asStartElement();
+            checkAttributes(startElement, PREFIX_LIST_ATTRIBUTES);
+            InclusiveNamespaces inclusiveNamespaces = new InclusiveNamespaces();
+            String prefixList = getAttribute(startElement, XMLSecurityConstants.ATT_NULL_PrefixList);
+            if (prefixList != null) {
+                for (String prefix : prefixList.trim().split("\\s+")) {
+                    if (!prefix.isEmpty()) {
+                        inclusiveNamespaces.getPrefixList().add(prefix);
+                    }
+                }
+            }
+            requireEndElement(nextTag());
+            content.add(C14N_EXCL_FACTORY.createInclusiveNamespaces(inclusiveNamespaces));
+            xmlSecEvent = nextTag();
+        }
+        requireEndElement(xmlSecEvent);
+    }
+
+    private DigestMethodType bindDigestMethod(XMLSecStartElement startElement) throws UnsupportedStructureException {
+        if (!XMLSecurityConstants.TAG_dsig_DigestMethod.equals(startElement.getName())) {
+            throw new UnsupportedStructureException();
+        }
+        DigestMethodType digestMethodType = new DigestMethodType();
+        digestMethodType.setAlgorithm(getAlgorithmAttribute(startElement));
+        requireEndElement(nextTag());
+        return digestMethodType;
+    }
+
+    private KeyInfoType bindKeyInfo(XMLSecStartElement startElement) throws UnsupportedStructureException {
+        KeyInfoType keyInfoType = new KeyInfoType();
+        keyInfoType.setId(getIdAttribute(startElement, ID_ATTRIBUTES));
+
+        XMLSecEvent xmlSecEvent = nextTag();
+        do {
+            if (!xmlSecEvent.isStartElement()) {
+                throw new UnsupportedStructureException();
+            }
+            XMLSecStartElement child = xmlSecEvent.asStartElement();
+            QName name = child.getName();
+            if (XMLSecurityConstants.TAG_dsig_KeyName.equals(name)) {
+                checkAttributes(child, NO_ATTRIBUTES);
+                keyInfoType.getContent().add(DSIG_FACTORY.createKeyName(readText()));
+            } else if (XMLSecurityConstants.TAG_dsig_X509Data.equals(name)) {
+                checkAttributes(child, NO_ATTRIBUTES);
+                keyInfoType.getContent().add(DSIG_FACTORY.createX509Data(bindX509Data()));
+            } else if (XMLSecurityConstants.TAG_xenc_EncryptedKey.equals(name)) {
+                keyInfoType.getContent().add(XENC_FACTORY.createEncryptedKey(bindEncryptedKey(child)));
+            } else {
+                throw new UnsupportedStructureException();
+            }
+            xmlSecEvent = nextTag();
+        } while (!xmlSecEvent.isEndElement());
+        return keyInfoType;
+    }
+
+    private X509DataType bindX509Data() throws UnsupportedStructureException {
+        X509DataType x509DataType = new X509DataType();
+        List<Object> content = x509DataType.getX509IssuerSerialOrX509SKIOrX509SubjectName();
+
+        XMLSecEvent xmlSecEvent = nextTag();
+        do {
+            if (!xmlSecEvent.isStartElement()) {
+                throw new UnsupportedStructureException();
+            }
+            XMLSecStartElement child = xmlSecEvent.asStartElement();
+            checkAttributes(child, NO_ATTRIBUTES);
+            QName name = child.getName();
+            if (XMLSecurityConstants.TAG_dsig_X509IssuerSerial.equals(name)) {
+                X509IssuerSerialType x509IssuerSerialType = new X509IssuerSerialType();
+                checkAttributes(nextStartElement(XMLSecurityConstants.TAG_dsig_X509IssuerName), NO_ATTRIBUTES);
+                x509IssuerSerialType.setX509IssuerName(readText());
+                checkAttributes(nextStartElement(XMLSecurityConstants.TAG_dsig_X509SerialNumber), NO_ATTRIBUTES);
+                x509IssuerSerialType.setX509SerialNumber(parseInteger(readText()));
+                requireEndElement(nextTag());
+                content.add(DSIG_FACTORY.createX509DataTypeX509IssuerSerial(x509IssuerSerialType));
+            } else if (XMLSecurityConstants.TAG_dsig_X509SKI.equals(name)) {
+                content.add(DSIG_FACTORY.createX509DataTypeX509SKI(decodeBase64(readText())));
+            } else if (XMLSecurityConstants.TAG_dsig_X509SubjectName.equals(name)) {
+                content.add(DSIG_FACTORY.createX509DataTypeX509SubjectName(readText()));
+            } else if (XMLSecurityConstants.TAG_dsig_X509Certificate.equals(name)) {
+                content.add(DSIG_FACTORY.createX509DataTypeX509Certificate(decodeBase64(readText())));
+            } else {
+                throw new UnsupportedStructureException();
+            }
+            xmlSecEvent = nextTag();
+        } while (!xmlSecEvent.isEndElement());
+        return x509DataType;
+    }
+
+    private EncryptedKeyType bindEncryptedKey(XMLSecStartElement startElement) throws UnsupportedStructureException {
+        EncryptedKeyType encryptedKeyType = new EncryptedKeyType();
+        XMLSecEvent xmlSecEvent = bindEncryptedType(startElement, encryptedKeyType, ENCRYPTED_TYPE_ATTRIBUTES);
+        if (isStartElement(xmlSecEvent, XMLSecurityConstants.TAG_xenc_ReferenceList)) {
+            checkAttributes(xmlSecEvent.asStartElement(), NO_ATTRIBUTES);
+            ReferenceList referenceList = new ReferenceList();
+            xmlSecEvent = nextTag();
+            do {
+                // xenc:KeyReference is not supported
+                if (!isStartElement(xmlSecEvent, XMLSecurityConstants.TAG_xenc_DataReference)) {
+                    throw new UnsupportedStructureException();
+                }
+                XMLSecStartElement dataReference = xmlSecEvent.asStartElement();
+                checkAttributes(dataReference, URI_ATTRIBUTES);
+                org.apache.xml.security.binding.xmlenc.ReferenceType referenceType =
+                    new org.apache.xml.security.binding.xmlenc.ReferenceType();
+                referenceType.setURI(getAttribute(dataReference, XMLSecurityConstants.ATT_NULL_URI));
+                requireEndElement(nextTag());
+                referenceList.getDataReferenceOrKeyReference().add(
+                    XENC_FACTORY.createReferenceListDataReference(referenceType));
+                xmlSecEvent = nextTag();
+            } while (!xmlSecEvent.isEndElement());
+            encryptedKeyType.setReferenceList(referenceList);
+            xmlSecEvent = nextTag();
+        }
+        // xenc:CarriedKeyName is not supported
+        requireEndElement(xmlSecEvent);
+        return encryptedKeyType;
+    }
+
+    /**
+     * Binds the content of an EncryptedType up to and including the CipherData element. For an
+     * EncryptedData the closing element is consumed as well, otherwise the event after the
+     * CipherData element is returned.
+     */
+    private XMLSecEvent bindEncryptedType(XMLSecStartElement startElement, EncryptedType encryptedType,
+                                          List<QName> attributes) throws UnsupportedStructureException {
+        checkAttributes(startElement, attributes);
+        encryptedType.setId(getIdAttribute(startElement, attributes));
+        encryptedType.setType(getAttribute(startElement, XMLSecurityConstants.ATT_NULL_Type));
+        encryptedType.setMimeType(getAttribute(startElement, XMLSecurityConstants.ATT_NULL_MimeType));
+        encryptedType.setEncoding(getAttribute(startElement, XMLSecurityConstants.ATT_NULL_Encoding));
+
+        XMLSecStartElement xmlSecStartElement = nextStartElement();
+        if (XMLSecurityConstants.TAG_xenc_EncryptionMethod.equals(xmlSecStartElement.getName())) {
+            encryptedType.setEncryptionMethod(bindEncryptionMethod(xmlSecStartElement));
+            xmlSecStartElement = nextStartElement();
+        }
+        if (XMLSecurityConstants.TAG_dsig_KeyInfo.equals(xmlSecStartElement.getName())) {
+            encryptedType.setKeyInfo(bindKeyInfo(xmlSecStartElement));
+            xmlSecStartElement = nextStartElement();
+        }
+        if (!XMLSecurityConstants.TAG_xenc_CipherData.equals(xmlSecStartElement.getName())) {
+            throw new UnsupportedStructureException();
+        }
+        checkAttributes(xmlSecStartElement, NO_ATTRIBUTES);
+        CipherDataType cipherDataType = new CipherDataType();
+        xmlSecStartElement = nextStartElement();
+        if (XMLSecurityConstants.TAG_xenc_CipherValue.equals(xmlSecStartElement.getName())) {
+            checkAttributes(xmlSecStartElement, NO_ATTRIBUTES);
+            CipherValueType cipherValueType = new CipherValueType();
+            // xop:Include is not supported
+            String cipherValue = readText();
+            if (!cipherValue.isEmpty()) {
+                cipherValueType.getContent().add(cipherValue);
+            }
+            cipherDataType.setCipherValue(cipherValueType);
+        } else if (XMLSecurityConstants.TAG_xenc_CipherReference.equals(xmlSecStartElement.getName())) {
+            checkAttributes(xmlSecStartElement, URI_ATTRIBUTES);
+            CipherReferenceType cipherReferenceType = new CipherReferenceType();
+            cipherReferenceType.setURI(getAttribute(xmlSecStartElement, XMLSecurityConstants.ATT_NULL_URI));
+            XMLSecEvent xmlSecEvent = nextTag();
+            if (isStartElement(xmlSecEvent, XMLSecurityConstants.TAG_xenc_Transforms)) {
+                checkAttributes(xmlSecEvent.asStartElement(), NO_ATTRIBUTES);
+                org.apache.xml.security.binding.xmlenc.TransformsType transformsType =
+                    new org.apache.xml.security.binding.xmlenc.TransformsType();
+                bindTransforms(transformsType.getTransform());
+                cipherReferenceType.setTransforms(transformsType);
+                xmlSecEvent = nextTag();
+            }
+            requireEndElement(xmlSecEvent);
+            cipherDataType.setCipherReference(cipherReferenceType);
+        } else {
+            throw new UnsupportedStructureException();
+        }
+        requireEndElement(nextTag());
+        encryptedType.setCipherData(cipherDataType);
+
+        XMLSecEvent xmlSecEvent = nextTag();
+        if (encryptedType instanceof EncryptedDataType) {
+            // xenc:EncryptionProperties is not supported
+            requireEndElement(xmlSecEvent);
+        }
+        return xmlSecEvent;
+    }
+
+    private EncryptionMethodType bindEncryptionMethod(XMLSecStartElement startElement) throws UnsupportedStructureException {
+        EncryptionMethodType encryptionMethodType = new EncryptionMethodType();
+        encryptionMethodType.setAlgorithm(getAlgorithmAttribute(startElement));
+
+        XMLSecEvent xmlSecEvent = nextTag();
+        while (!xmlSecEvent.isEndElement()) {
+            XMLSecStartElement child = xmlSecEvent.asStartElement();
+            QName name = child.getName();
+            if (XMLSecurityConstants.TAG_dsig_DigestMethod.equals(name)) {
+                encryptionMethodType.getContent().add(DSIG_FACTORY.createDigestMethod(bindDigestMethod(child)));
+            } else if (XMLSecurityConstants.TAG_xenc_OAEPparams.equals(name)
+                && encryptionMethodType.getContent().isEmpty()) {
+                checkAttributes(child, NO_ATTRIBUTES);
+                encryptionMethodType.getContent().add(
+                    XENC_FACTORY.createEncryptionMethodTypeOAEPparams(decodeBase64(readText())));
+            } else if (XMLSecurityConstants.TAG_xenc11_MGF.equals(name)) {
+                MGFType mgfType = new MGFType();
+                mgfType.setAlgorithm(getAlgorithmAttribute(child));
+                requireEndElement(nextTag());
+                encryptionMethodType.getContent().add(XENC11_FACTORY.createMGF(mgfType));
+            } else {
+                throw new UnsupportedStructureException();
+            }
+            xmlSecEvent = nextTag();
+        }
+        return encryptionMethodType;
+    }
+
+    private XMLSecEvent nextEvent() throws UnsupportedStructureException {
+        if (!xmlSecEventIterator.hasNext()) {
+            throw new UnsupportedStructureException();
+        }
+        return xmlSecEventIterator.next();
+    }
+
+    /**
+     * Returns the next StartElement or EndElement, skipping whitespace and comments.
+     */
+    private XMLSecEvent nextTag() throws UnsupportedStructureException {
+        while (true) {
+            XMLSecEvent xmlSecEvent = nextEvent();
+            switch (xmlSecEvent.getEventType()) {
+                case XMLSecEvent.START_ELEMENT:
+                case XMLSecEvent.END_ELEMENT:
+                    return xmlSecEvent;
+                case XMLSecEvent.CHARACTERS:
+                case XMLSecEvent.SPACE:
+                    if (!xmlSecEvent.asCharacters().isWhiteSpace()) {
+                        throw new UnsupportedStructureException();
+                    }
+                    break;
+                case XMLSecEvent.COMMENT:
+                    break;
+                default:
+                    throw new UnsupportedStructureException();
+            }
+        }
+    }
+
+    private XMLSecStartElement nextStartElement() throws UnsupportedStructureException {
+        XMLSecEvent xmlSecEvent = nextTag();
+        if (!xmlSecEvent.isStartElement()) {
+            throw new UnsupportedStructureException();
+        }
+        return xmlSecEvent.asStartElement();
+    }
+
+    private XMLSecStartElement nextStartElement(QName name) throws UnsupportedStructureException {
+        XMLSecStartElement xmlSecStartElement = nextStartElement();
+        if (!name.equals(xmlSecStartElement.getName())) {
+            throw new UnsupportedStructureException();
+        }
+        return xmlSecStartElement;
+    }
+
+    /**
+     * Reads the text content of the current element, including its EndElement.
+     */
+    private String readText() throws UnsupportedStructureException {
+        StringBuilder stringBuilder = null;
+        String text = "";
+        while (true) {
+            XMLSecEvent xmlSecEvent = nextEvent();
+            switch (xmlSecEvent.getEventType()) {
+                case XMLSecEvent.END_ELEMENT:
+                    return stringBuilder != null ? stringBuilder.toString() : text;
+                case XMLSecEvent.CHARACTERS:
+                case XMLSecEvent.SPACE:
+                case XMLSecEvent.CDATA:
+                    String data = xmlSecEvent.asCharacters().getData();
+                    if (stringBuilder != null) {
+                        stringBuilder.append(data);
+                    } else if (text.isEmpty()) {
+                        text = data;
+                    } else {
+                        stringBuilder = new StringBuilder(text).append(data);
+                    }
+                    break;
+                case XMLSecEvent.COMMENT:
+                    break;
+                default:
+                    throw new UnsupportedStructureException();
+            }
+        }
+    }
+
+    private static boolean isStartElement(XMLSecEvent xmlSecEvent, QName name) {
+        return xmlSecEvent.isStartElement() && name.equals(xmlSecEvent.asStartElement().getName());
+    }
+
+    private static void requireEndElement(XMLSecEvent xmlSecEvent) throws UnsupportedStructureException {
+        if (!xmlSecEvent.isEndElement()) {
+            throw new UnsupportedStructureException();
+        }
+    }
+
+    private static void checkAttributes(XMLSecStartElement startElement, List<QName> attributes)
+        throws UnsupportedStructureException {
+        List<XMLSecAttribute> declaredAttributes = startElement.getOnElementDeclaredAttributes();
+        for (int i = 0; i < declaredAttributes.size(); i++) {
+            if (!attributes.contains(declaredAttributes.get(i).getName())) {
+                throw new UnsupportedStructureException();
+            }
+        }
+    }
+
+    private static String getAttribute(XMLSecStartElement startElement, QName name) {
+        Attribute attribute = startElement.getAttributeByName(name);
+        return attribute != null ? attribute.getValue() : null;
+    }
+
+    private static String getIdAttribute(XMLSecStartElement startElement, List<QName> attributes)
+        throws UnsupportedStructureException {
+        checkAttributes(startElement, attributes);
+        String id = getAttribute(startElement, XMLSecurityConstants.ATT_NULL_Id);
+        return id != null ? id.trim() : null;
+    }
+
+    private static String getAlgorithmAttribute(XMLSecStartElement startElement) throws UnsupportedStructureException {
+        checkAttributes(startElement, ALGORITHM_ATTRIBUTES);
+        String algorithm = getAttribute(startElement, XMLSecurityConstants.ATT_NULL_Algorithm);
+        if (algorithm == null) {
+            throw new UnsupportedStructureException();
+        }
+        return algorithm;
+    }
+
+    private static byte[] decodeBase64(String text) throws UnsupportedStructureException {
+        StringBuilder stringBuilder = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c != ' ' && c != '\t' && c != '\r' && c != '\n') {
+                stringBuilder.append(c);
+            }
+        }
+        try {
+            return Base64.getDecoder().decode(stringBuilder.toString());
+        } catch (IllegalArgumentException e) {
+            throw new UnsupportedStructureException();
+        }
+    }
+
+    private static BigInteger parseInteger(String text) throws UnsupportedStructureException {
+        try {
+            return new BigInteger(text.trim());
+        } catch (NumberFormatException e) {
+            throw new UnsupportedStructureException();
+        }
+    }
+
+    private static final class UnsupportedStructureException extends Exception {
+
+        private static final long serialVersionUID = 1L;
+
+        UnsupportedStructureException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -19,6 +19,7 @@
 package org.apache.xml.security.stax.impl.algorithms;
 
 import org.apache.xml.security.exceptions.XMLSecurityException;
+import org.apache.xml.security.stax.ext.XMLSecurityConstants;
 
 import javax.crypto.Mac;
 import java.security.*;
@@ -28,35 +29,62 @@ import java.security.spec.AlgorithmParameterSpec;
  */
 public class HMACSignatureAlgorithm implements SignatureAlgorithm {
 
+    private final String jceName;
+    private final String jceProvider;
+    private final XMLSecurityConstants.EngineReuse engineReuse;
     private Mac mac;
 
     public HMACSignatureAlgorithm(String jceName, String jceProvider) throws NoSuchProviderException, NoSuchAlgorithmException {
-        if (jceProvider != null) {
-            mac = Mac.getInstance(jceName, jceProvider);
-        } else {
-            mac = Mac.getInstance(jceName);
+        this(jceName, jceProvider, XMLSecurityConstants.EngineReuse.None);
+    }
+
+    public HMACSignatureAlgorithm(String jceName, String jceProvider, XMLSecurityConstants.EngineReuse engineReuse)
+        throws NoSuchProviderException, NoSuchAlgorithmException {
+        this.jceName = jceName;
+        this.jceProvider = jceProvider;
+        this.engineReuse = engineReuse;
+        this.mac = JCEEngineCache.getMac(jceName, jceProvider, engineReuse);
+    }
+
+    /**
+     * Returns the Mac engine. It is taken from the JCEEngineCache again, if it
+     * was released after a previous sign or verify operation.
+     */
+    private Mac getMac() throws XMLSecurityException {
+        if (mac == null) {
+            try {
+                mac = JCEEngineCache.getMac(jceName, jceProvider, engineReuse);
+            } catch (NoSuchAlgorithmException | NoSuchProviderException e) {
+                throw new XMLSecurityException(e);
+            }
         }
+        return mac;
+    }
+
+    private void releaseMac() {
+        JCEEngineCache.releaseMac(jceName, jceProvider, engineReuse, mac);
+        mac = null;
     }
 
     @Override
     public void engineUpdate(byte[] input) throws XMLSecurityException {
-        mac.update(input);
+        getMac().update(input);
     }
 
     @Override
     public void engineUpdate(byte input) throws XMLSecurityException {
-        mac.update(input);
+        getMac().update(input);
     }
 
     @Override
     public void engineUpdate(byte[] buf, int offset, int len) throws XMLSecurityException {
-        mac.update(buf, offset, len);
+        getMac().update(buf, offset, len);
     }
 
     @Override
     public void engineInitSign(Key signingKey) throws XMLSecurityException {
         try {
-            mac.init(signingKey);
+            getMac().init(signingKey);
         } catch (InvalidKeyException e) {
             throw new XMLSecurityException(e);
         }
@@ -65,7 +93,7 @@ public class HMACSignatureAlgorithm implements SignatureAlgorithm {
     @Override
     public void engineInitSign(Key signingKey, SecureRandom secureRandom) throws XMLSecurityException {
         try {
-            mac.init(signingKey);
+            getMac().init(signingKey);
         } catch (InvalidKeyException e) {
             throw new XMLSecurityException(e);
         }
@@ -74,7 +102,7 @@ public class HMACSignatureAlgorithm implements SignatureAlgorithm {
     @Override
     public void engineInitSign(Key signingKey, AlgorithmParameterSpec algorithmParameterSpec) throws XMLSecurityException {
         try {
-            mac.init(signingKey, algorithmParameterSpec);
+            getMac().init(signingKey, algorithmParameterSpec);
         } catch (InvalidKeyException | InvalidAlgorithmParameterException e) {
             throw new XMLSecurityException(e);
         }
@@ -82,13 +110,15 @@ public class HMACSignatureAlgorithm implements SignatureAlgorithm {
 
     @Override
     public byte[] engineSign() throws XMLSecurityException {
-        return mac.doFinal();
+        byte[] result = getMac().doFinal();
+        releaseMac();
+        return result;
     }
 
     @Override
     public void engineInitVerify(Key verificationKey) throws XMLSecurityException {
         try {
-            mac.init(verificationKey);
+            getMac().init(verificationKey);
         } catch (InvalidKeyException e) {
             throw new XMLSecurityException(e);
         }
@@ -96,7 +126,8 @@ public class HMACSignatureAlgorithm implements SignatureAlgorithm {
 
     @Override
     public boolean engineVerify(byte[] signature) throws XMLSecurityException {
-        byte[] completeResult = mac.doFinal();
+        byte[] completeResult = getMac().doFinal();
+        releaseMac();
         return MessageDigest.isEqual(completeResult, signature);
     }
 
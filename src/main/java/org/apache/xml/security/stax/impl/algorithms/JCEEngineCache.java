@@ -0,0 +1,204 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.stax.impl.algorithms;
+
+import java.security.AccessController;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.PrivilegedAction;
+import java.security.Signature;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.xml.security.stax.ext.XMLSecurityConstants;
+
+/**
+ * Caches MessageDigest, Signature and Mac engines per JCE algorithm name and provider, so that
+ * the JCA provider lookup is not repeated for every Reference and Signature of a document.
+ * Depending on the {@link XMLSecurityConstants.EngineReuse} an engine is either reused by the
+ * thread which released it or taken from a pool shared by all threads.
+ *
+ * <p>An engine must only be released once it is not used any more. MessageDigest engines are
+ * reset when they are released. Mac engines are re-initialized with an all-zero key, so that a
+ * cached Mac never holds on to a HMAC key. A Signature engine holds on to its last key until it is
+ * initialized again, so only engines which were used for verification, i.e. which hold a public
+ * key, may be released. Signature engines used for signing must be discarded.</p>
+ *
+ * <p>The per-thread caches are kept in a ThreadLocal. A thread of a pool which outlives the
+ * application, e.g. a container thread, keeps the cached engines and with them the classes of
+ * their JCA provider alive. Such threads should call {@link #clearThreadCache()} when they are done
+ * with the ThreadConfined reuse.</p>
+ *
+ * The number of cached engines per algorithm and provider can be set with the system property
+ * <code>org.apache.xml.security.stax.engine.pool-size</code> (default 16) for the shared pool and
+ * <code>org.apache.xml.security.stax.engine.thread-cache-size</code> (default 4) per thread.
+ */
+public final class JCEEngineCache {
+
+    private static final int POOL_SIZE =
+        AccessController.doPrivileged(
+            (PrivilegedAction<Integer>) () -> Integer.getInteger("org.apache.xml.security.stax.engine.pool-size", 16));
+
+    private static final int THREAD_CACHE_SIZE =
+        AccessController.doPrivileged(
+            (PrivilegedAction<Integer>) () -> Integer.getInteger("org.apache.xml.security.stax.engine.thread-cache-size", 4));
+
+    private static final EngineCache<MessageDigest> MESSAGE_DIGESTS =
+        new EngineCache<>((jceName, jceProvider) ->
+            jceProvider == null ? MessageDigest.getInstance(jceName) : MessageDigest.getInstance(jceName, jceProvider),
+            messageDigest -> {
+                messageDigest.reset();
+                return true;
+            });
+
+    private static final EngineCache<Signature> SIGNATURES =
+        new EngineCache<>((jceName, jceProvider) ->
+            jceProvider == null ? Signature.getInstance(jceName) : Signature.getInstance(jceName, jceProvider),
+            signature -> true);
+
+    private static final EngineCache<Mac> MACS =
+        new EngineCache<>((jceName, jceProvider) ->
+            jceProvider == null ? Mac.getInstance(jceName) : Mac.getInstance(jceName, jceProvider),
+            JCEEngineCache::clearMac);
+
+    private JCEEngineCache() {
+        // we don't allow instantiation
+    }
+
+    /**
+     * Removes the engines which are cached for the current thread by the
+     * {@link XMLSecurityConstants.EngineReuse#ThreadConfined} reuse.
+     */
+    public static void clearThreadCache() {
+        MESSAGE_DIGESTS.threadCache.remove();
+        SIGNATURES.threadCache.remove();
+        MACS.threadCache.remove();
+    }
+
+    public static MessageDigest getMessageDigest(String jceName, String jceProvider, XMLSecurityConstants.EngineReuse engineReuse)
+        throws NoSuchAlgorithmException, NoSuchProviderException {
+        return MESSAGE_DIGESTS.get(jceName, jceProvider, engineReuse);
+    }
+
+    public static void releaseMessageDigest(String jceName, String jceProvider, XMLSecurityConstants.EngineReuse engineReuse,
+                                            MessageDigest messageDigest) {
+        MESSAGE_DIGESTS.release(jceName, jceProvider, engineReuse, messageDigest);
+    }
+
+    public static Signature getSignature(String jceName, String jceProvider, XMLSecurityConstants.EngineReuse engineReuse)
+        throws NoSuchAlgorithmException, NoSuchProviderException {
+        return SIGNATURES.get(jceName, jceProvider, engineReuse);
+    }
+
+    public static void releaseSignature(String jceName, String jceProvider, XMLSecurityConstants.EngineReuse engineReuse,
+                                        Signature signature) {
+        SIGNATURES.release(jceName, jceProvider, engineReuse, signature);
+    }
+
+    public static Mac getMac(String jceName, String jceProvider, XMLSecurityConstants.EngineReuse engineReuse)
+        throws NoSuchAlgorithmException, NoSuchProviderException {
+        return MACS.get(jceName, jceProvider, engineReuse);
+    }
+
+    public static void releaseMac(String jceName, String jceProvider, XMLSecurityConstants.EngineReuse engineReuse,
+                                  Mac mac) {
+        MACS.release(jceName, jceProvider, engineReuse, mac);
+    }
+
+    /**
+     * Replaces the key of the given Mac with an all-zero key of the same algorithm.
+     *
+     * @return false if the Mac could not be re-initialized and must not be cached
+     */
+    private static boolean clearMac(Mac mac) {
+        try {
+            int keyLength = mac.getMacLength() > 0 ? mac.getMacLength() : 32;
+            mac.init(new SecretKeySpec(new byte[keyLength], mac.getAlgorithm()));
+            return true;
+        } catch (GeneralSecurityException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    @FunctionalInterface
+    private interface EngineFactory<T> {
+        T newInstance(String jceName, String jceProvider) throws NoSuchAlgorithmException, NoSuchProviderException;
+    }
+
+    private static final class EngineCache<T> {
+
+        private final EngineFactory<T> engineFactory;
+        private final Predicate<T> reset;
+        private final Map<String, Queue<T>> pool = new ConcurrentHashMap<>();
+        private final ThreadLocal<Map<String, Deque<T>>> threadCache = ThreadLocal.withInitial(HashMap::new);
+
+        EngineCache(EngineFactory<T> engineFactory, Predicate<T> reset) {
+            this.engineFactory = engineFactory;
+            this.reset = reset;
+        }
+
+        T get(String jceName, String jceProvider, XMLSecurityConstants.EngineReuse engineReuse)
+            throws NoSuchAlgorithmException, NoSuchProviderException {
+            T engine = null;
+            if (engineReuse == XMLSecurityConstants.EngineReuse.Pooled) {
+                Queue<T> queue = pool.get(getKey(jceName, jceProvider));
+                engine = queue != null ? queue.poll() : null;
+            } else if (engineReuse == XMLSecurityConstants.EngineReuse.ThreadConfined) {
+                Deque<T> deque = threadCache.get().get(getKey(jceName, jceProvider));
+                engine = deque != null ? deque.pollFirst() : null;
+            }
+            if (engine == null) {
+                engine = engineFactory.newInstance(jceName, jceProvider);
+            }
+            return engine;
+        }
+
+        void release(String jceName, String jceProvider, XMLSecurityConstants.EngineReuse engineReuse, T engine) {
+            if (engine == null) {
+                return;
+            }
+            if (engineReuse == XMLSecurityConstants.EngineReuse.Pooled && POOL_SIZE > 0) {
+                if (!reset.test(engine)) {
+                    return;
+                }
+                pool.computeIfAbsent(getKey(jceName, jceProvider), k -> new ArrayBlockingQueue<>(POOL_SIZE)).offer(engine);
+            } else if (engineReuse == XMLSecurityConstants.EngineReuse.ThreadConfined && THREAD_CACHE_SIZE > 0) {
+                Deque<T> deque = threadCache.get().computeIfAbsent(getKey(jceName, jceProvider), k -> new ArrayDeque<>());
+                if (deque.size() < THREAD_CACHE_SIZE && reset.test(engine)) {
+                    deque.offerFirst(engine);
+                }
+            }
+        }
+
+        private static String getKey(String jceName, String jceProvider) {
+            return jceProvider == null ? jceName : jceName + '\n' + jceProvider;
+        }
+    }
+}
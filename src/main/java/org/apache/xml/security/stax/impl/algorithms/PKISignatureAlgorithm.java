@@ -20,6 +20,7 @@ package org.apache.xml.security.stax.impl.algorithms;
 
 import org.apache.xml.security.algorithms.implementations.ECDSAUtils;
 import org.apache.xml.security.exceptions.XMLSecurityException;
+import org.apache.xml.security.stax.ext.XMLSecurityConstants;
 import org.apache.xml.security.utils.JavaUtils;
 
 import java.io.IOException;
@@ -32,24 +33,57 @@ import java.security.spec.AlgorithmParameterSpec;
 public class PKISignatureAlgorithm implements SignatureAlgorithm {
 
     private final String jceName;
-    private final Signature signature;
+    private final String jceProvider;
+    private final XMLSecurityConstants.EngineReuse engineReuse;
+    private Signature signature;
 
     /** Length for each integer in signature */
     private int signIntLen = -1;
 
     public PKISignatureAlgorithm(String jceName, String jceProvider) throws NoSuchProviderException, NoSuchAlgorithmException {
+        this(jceName, jceProvider, XMLSecurityConstants.EngineReuse.None);
+    }
+
+    public PKISignatureAlgorithm(String jceName, String jceProvider, XMLSecurityConstants.EngineReuse engineReuse)
+        throws NoSuchProviderException, NoSuchAlgorithmException {
         this.jceName = jceName;
-        if (jceProvider != null) {
-            signature = Signature.getInstance(this.jceName, jceProvider);
-        } else {
-            signature = Signature.getInstance(this.jceName);
+        this.jceProvider = jceProvider;
+        this.engineReuse = engineReuse;
+        this.signature = JCEEngineCache.getSignature(jceName, jceProvider, engineReuse);
+    }
+
+    /**
+     * Returns the Signature engine. It is taken from the JCEEngineCache again, if it
+     * was released after a previous sign or verify operation.
+     */
+    private Signature getSignature() throws XMLSecurityException {
+        if (signature == null) {
+            try {
+                signature = JCEEngineCache.getSignature(jceName, jceProvider, engineReuse);
+            } catch (NoSuchAlgorithmException | NoSuchProviderException e) {
+                throw new XMLSecurityException(e);
+            }
         }
+        return signature;
+    }
+
+    /**
+     * Drops the Signature engine after signing. It still holds the private key and
+     * is therefore not released to the JCEEngineCache.
+     */
+    private void discardSignature() {
+        signature = null;
+    }
+
+    private void releaseSignature() {
+        JCEEngineCache.releaseSignature(jceName, jceProvider, engineReuse, signature);
+        signature = null;
     }
 
     @Override
     public void engineUpdate(byte[] input) throws XMLSecurityException {
         try {
-            signature.update(input);
+            getSignature().update(input);
         } catch (SignatureException e) {
             throw new XMLSecurityException(e);
         }
@@ -58,7 +92,7 @@ public class PKISignatureAlgorithm implements SignatureAlgorithm {
     @Override
     public void engineUpdate(byte input) throws XMLSecurityException {
         try {
-            signature.update(input);
+            getSignature().update(input);
         } catch (SignatureException e) {
             throw new XMLSecurityException(e);
         }
@@ -67,7 +101,7 @@ public class PKISignatureAlgorithm implements SignatureAlgorithm {
     @Override
     public void engineUpdate(byte[] buf, int offset, int len) throws XMLSecurityException {
         try {
-            signature.update(buf, offset, len);
+            getSignature().update(buf, offset, len);
         } catch (SignatureException e) {
             throw new XMLSecurityException(e);
         }
@@ -77,7 +111,7 @@ public class PKISignatureAlgorithm implements SignatureAlgorithm {
     public void engineInitSign(Key signingKey) throws XMLSecurityException {
         initSignIntLen(signingKey);
         try {
-            signature.initSign((PrivateKey) signingKey);
+            getSignature().initSign((PrivateKey) signingKey);
         } catch (InvalidKeyException e) {
             throw new XMLSecurityException(e);
         }
@@ -87,7 +121,7 @@ public class PKISignatureAlgorithm implements SignatureAlgorithm {
     public void engineInitSign(Key signingKey, SecureRandom secureRandom) throws XMLSecurityException {
         initSignIntLen(signingKey);
         try {
-            signature.initSign((PrivateKey) signingKey, secureRandom);
+            getSignature().initSign((PrivateKey) signingKey, secureRandom);
         } catch (InvalidKeyException e) {
             throw new XMLSecurityException(e);
         }
@@ -97,7 +131,7 @@ public class PKISignatureAlgorithm implements SignatureAlgorithm {
     public void engineInitSign(Key signingKey, AlgorithmParameterSpec algorithmParameterSpec) throws XMLSecurityException {
         initSignIntLen(signingKey);
         try {
-            signature.initSign((PrivateKey) signingKey);
+            getSignature().initSign((PrivateKey) signingKey);
         } catch (InvalidKeyException e) {
             throw new XMLSecurityException(e);
         }
@@ -114,7 +148,8 @@ public class PKISignatureAlgorithm implements SignatureAlgorithm {
     @Override
     public byte[] engineSign() throws XMLSecurityException {
         try {
-            byte[] jcebytes = signature.sign();
+            byte[] jcebytes = getSignature().sign();
+            discardSignature();
             if (this.jceName.contains("ECDSA")) {
                 return ECDSAUtils.convertASN1toXMLDSIG(jcebytes, signIntLen);
             } else if (this.jceName.contains("DSA")) {
@@ -131,7 +166,7 @@ public class PKISignatureAlgorithm implements SignatureAlgorithm {
     @Override
     public void engineInitVerify(Key verificationKey) throws XMLSecurityException {
         try {
-            signature.initVerify((PublicKey) verificationKey);
+            getSignature().initVerify((PublicKey) verificationKey);
         } catch (InvalidKeyException e) {
             throw new XMLSecurityException(e);
         }
@@ -146,7 +181,9 @@ public class PKISignatureAlgorithm implements SignatureAlgorithm {
             } else if (this.jceName.contains("DSA")) {
                 jcebytes = JavaUtils.convertDsaXMLDSIGtoASN1(jcebytes, 20);
             }
-            return this.signature.verify(jcebytes);
+            boolean verified = getSignature().verify(jcebytes);
+            releaseSignature();
+            return verified;
         } catch (SignatureException e) {
             throw new XMLSecurityException(e);
         } catch (IOException e) {
@@ -157,7 +194,7 @@ public class PKISignatureAlgorithm implements SignatureAlgorithm {
     @Override
     public void engineSetParameter(AlgorithmParameterSpec params) throws XMLSecurityException {
         try {
-            signature.setParameter(params);
+            getSignature().setParameter(params);
         } catch (InvalidAlgorithmParameterException e) {
             throw new XMLSecurityException(e);
         }
@@ -20,6 +20,7 @@ package org.apache.xml.security.stax.impl.algorithms;
 
 import org.apache.xml.security.exceptions.XMLSecurityException;
 import org.apache.xml.security.stax.config.JCEAlgorithmMapper;
+import org.apache.xml.security.stax.ext.XMLSecurityConstants;
 
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
@@ -41,6 +42,11 @@ public final class SignatureAlgorithmFactory {
     }
 
     public SignatureAlgorithm getSignatureAlgorithm(String algoURI) throws XMLSecurityException, NoSuchProviderException, NoSuchAlgorithmException {
+        return getSignatureAlgorithm(algoURI, XMLSecurityConstants.EngineReuse.None);
+    }
+
+    public SignatureAlgorithm getSignatureAlgorithm(String algoURI, XMLSecurityConstants.EngineReuse engineReuse)
+        throws XMLSecurityException, NoSuchProviderException, NoSuchAlgorithmException {
         String algorithmClass = JCEAlgorithmMapper.getAlgorithmClassFromURI(algoURI);
         if (algorithmClass == null) {
             throw new XMLSecurityException("algorithms.NoSuchMap",
@@ -49,9 +55,9 @@ public final class SignatureAlgorithmFactory {
         String jceName = JCEAlgorithmMapper.translateURItoJCEID(algoURI);
         String jceProvider = JCEAlgorithmMapper.getJCEProviderFromURI(algoURI);
         if ("MAC".equalsIgnoreCase(algorithmClass)) {
-            return new HMACSignatureAlgorithm(jceName, jceProvider);
+            return new HMACSignatureAlgorithm(jceName, jceProvider, engineReuse);
         } else if ("Signature".equalsIgnoreCase(algorithmClass)) {
-            return new PKISignatureAlgorithm(jceName, jceProvider);
+            return new PKISignatureAlgorithm(jceName, jceProvider, engineReuse);
         } else {
             return null;
         }
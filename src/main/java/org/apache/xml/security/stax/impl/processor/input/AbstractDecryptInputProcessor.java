@@ -21,10 +21,8 @@ package org.apache.xml.security.stax.impl.processor.input;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
-import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.security.NoSuchAlgorithmException;
@@ -35,6 +33,15 @@ import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
@@ -53,7 +60,7 @@ import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.events.Attribute;
 
-import org.apache.commons.codec.binary.Base64OutputStream;
+import org.apache.xml.security.algorithms.CipherPool;
 import org.apache.xml.security.binding.xmldsig.KeyInfoType;
 import org.apache.xml.security.binding.xmlenc.EncryptedDataType;
 import org.apache.xml.security.binding.xmlenc.EncryptedKeyType;
@@ -71,11 +78,13 @@ import org.apache.xml.security.stax.ext.UncheckedXMLSecurityException;
 import org.apache.xml.security.stax.ext.XMLSecurityConstants;
 import org.apache.xml.security.stax.ext.XMLSecurityProperties;
 import org.apache.xml.security.stax.ext.XMLSecurityUtils;
+import org.apache.xml.security.stax.ext.stax.XMLSecCharacters;
 import org.apache.xml.security.stax.ext.stax.XMLSecEvent;
 import org.apache.xml.security.stax.ext.stax.XMLSecEventFactory;
 import org.apache.xml.security.stax.ext.stax.XMLSecNamespace;
 import org.apache.xml.security.stax.ext.stax.XMLSecStartElement;
 import org.apache.xml.security.stax.impl.XMLSecurityEventReader;
+import org.apache.xml.security.stax.impl.XMLSecurityStructureBinder;
 import org.apache.xml.security.stax.impl.util.FullyBufferedOutputStream;
 import org.apache.xml.security.stax.impl.util.IDGenerator;
 import org.apache.xml.security.stax.impl.util.IVSplittingOutputStream;
@@ -85,6 +94,7 @@ import org.apache.xml.security.stax.securityToken.InboundSecurityToken;
 import org.apache.xml.security.stax.securityToken.SecurityTokenConstants;
 import org.apache.xml.security.stax.securityToken.SecurityTokenFactory;
 import org.apache.xml.security.stax.securityToken.SecurityTokenProvider;
+import org.apache.xml.security.utils.Base64DecodingOutputStream;
 import org.apache.xml.security.utils.UnsyncByteArrayInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -279,6 +289,8 @@ public abstract class AbstractDecryptInputProcessor extends AbstractInputProcess
                 } else {
                     nextEvent = subInputProcessorChain.processEvent();
                 }
+                // the event is only processed after the decryption has been set up
+                XMLSecEventFactory.materialize(nextEvent);
 
                 InputStream decryptInputStream = null;  //NOPMD
                 if (nextEvent.isStartElement() && nextEvent.asStartElement().getName().equals(XMLSecurityConstants.TAG_XOP_INCLUDE)) {
@@ -288,11 +300,12 @@ public abstract class AbstractDecryptInputProcessor extends AbstractInputProcess
                         xmlSecEvents.push(nextEvent);
                         xmlSecEvents.push(XMLSecEventFactory.createXmlSecEndElement(XMLSecurityConstants.TAG_XOP_INCLUDE));
 
-                        Unmarshaller unmarshaller =
-                                XMLSecurityConstants.getJaxbUnmarshaller(getSecurityProperties().isDisableSchemaValidation());
+                        final boolean disableSchemaValidation = getSecurityProperties().isDisableSchemaValidation();
+                        Unmarshaller unmarshaller = XMLSecurityConstants.getJaxbUnmarshaller(disableSchemaValidation);
                         @SuppressWarnings("unchecked")
                         JAXBElement<Include> includeJAXBElement =
                                 (JAXBElement<Include>) unmarshaller.unmarshal(new XMLSecurityEventReader(xmlSecEvents, 0));
+                        XMLSecurityConstants.releaseJaxbUnmarshaller(unmarshaller, disableSchemaValidation);
                         Include include = includeJAXBElement.getValue();
                         String href = include.getHref();
 
@@ -302,30 +315,17 @@ public abstract class AbstractDecryptInputProcessor extends AbstractInputProcess
                         throw new XMLSecurityException(e);
                     }
                 } else {
-                    //create a new Thread for streaming decryption
-                    DecryptionThread decryptionThread = new DecryptionThread(subInputProcessorChain, isSecurityHeaderEvent, nextEvent);
+                    CipherValueDecrypter cipherValueDecrypter =
+                        new CipherValueDecrypter(subInputProcessorChain, isSecurityHeaderEvent, nextEvent);
                     Key decryptionKey =
                         inboundSecurityToken.getSecretKey(algorithmURI, XMLSecurityConstants.Enc, encryptedDataType.getId());
                     decryptionKey = XMLSecurityUtils.prepareSecretKey(algorithmURI, decryptionKey.getEncoded());
-                    decryptionThread.setSecretKey(decryptionKey);
-                    decryptionThread.setSymmetricCipher(symCipher);
-                    decryptionThread.setIvLength(ivLength);
+                    cipherValueDecrypter.setSecretKey(decryptionKey);
+                    cipherValueDecrypter.setSymmetricCipher(symCipher);
+                    cipherValueDecrypter.setAlgorithmURI(algorithmURI);
+                    cipherValueDecrypter.setIvLength(ivLength);
 
-                    Thread thread = new Thread(decryptionThread);
-                    thread.setPriority(Thread.NORM_PRIORITY + 1);
-                    thread.setName("decryption thread");
-                    //when an exception in the decryption thread occurs, we want to forward them:
-                    thread.setUncaughtExceptionHandler(decryptedEventReaderInputProcessor);
-
-                    decryptedEventReaderInputProcessor.setDecryptionThread(thread);
-
-                    //we have to start the thread before we call decryptionThread.getPipedInputStream().
-                    //Otherwise we will end in a deadlock, because the StAX reader expects already data.
-                    //@See some lines below:
-                    LOG.debug("Starting decryption thread");
-                    thread.start();
-
-                    decryptInputStream = decryptionThread.getPipedInputStream();
+                    decryptInputStream = startDecryption(cipherValueDecrypter, decryptedEventReaderInputProcessor);
                 }
 
                 InputStream prologInputStream;  //NOPMD
@@ -339,15 +339,22 @@ public abstract class AbstractDecryptInputProcessor extends AbstractInputProcess
 
                 decryptInputStream = applyTransforms(referenceType, decryptInputStream);
 
-                //spec says (4.2): "The cleartext octet sequence obtained in step 3 is
-                //interpreted as UTF-8 encoded character data."
-                XMLStreamReader xmlStreamReader =
-                        inputProcessorChain.getSecurityContext().<XMLInputFactory>get(
-                                XMLSecurityConstants.XMLINPUTFACTORY).createXMLStreamReader(
-                                new MultiInputStream(prologInputStream, decryptInputStream, epilogInputStream), StandardCharsets.UTF_8.name());
-
-                //forward to wrapper element
-                forwardToWrapperElement(xmlStreamReader);
+                XMLStreamReader xmlStreamReader;
+                try {
+                    //spec says (4.2): "The cleartext octet sequence obtained in step 3 is
+                    //interpreted as UTF-8 encoded character data."
+                    xmlStreamReader =
+                            inputProcessorChain.getSecurityContext().<XMLInputFactory>get(
+                                    XMLSecurityConstants.XMLINPUTFACTORY).createXMLStreamReader(
+                                    new MultiInputStream(prologInputStream, decryptInputStream, epilogInputStream), StandardCharsets.UTF_8.name());
+
+                    //forward to wrapper element
+                    forwardToWrapperElement(xmlStreamReader);
+                } catch (XMLStreamException e) {
+                    //a failed decryption shows up as a parse error, so report the original exception if there is one
+                    decryptedEventReaderInputProcessor.testAndThrowUncaughtException();
+                    throw e;
+                }
 
                 decryptedEventReaderInputProcessor.setXmlStreamReader(xmlStreamReader);
 
@@ -361,6 +368,68 @@ public abstract class AbstractDecryptInputProcessor extends AbstractInputProcess
         return xmlSecEvent;
     }
 
+    /**
+     * Starts the decryption of the CipherValue as configured by the DecryptionMode of the security properties.
+     *
+     * @return the InputStream which delivers the decrypted octets
+     */
+    private InputStream startDecryption(CipherValueDecrypter cipherValueDecrypter,
+                                        AbstractDecryptedEventReaderInputProcessor decryptedEventReaderInputProcessor)
+            throws XMLStreamException, XMLSecurityException {
+
+        XMLSecurityConstants.DecryptionMode decryptionMode = getSecurityProperties().getDecryptionMode();
+        if (decryptionMode == XMLSecurityConstants.DecryptionMode.Executor) {
+            Executor executor = getSecurityProperties().getDecryptionExecutor();
+            if (executor == null) {
+                executor = DecryptionExecutorHolder.EXECUTOR;
+            }
+            DecryptionThread decryptionThread = new DecryptionThread(cipherValueDecrypter);
+            //when an exception in the decryption task occurs, we want to forward them:
+            FutureTask<Void> decryptionTask = new FutureTask<>(() -> {
+                try {
+                    decryptionThread.run();
+                } catch (RuntimeException e) {
+                    decryptedEventReaderInputProcessor.uncaughtException(Thread.currentThread(), e);
+                    throw e;
+                }
+            }, null);
+            try {
+                LOG.debug("Submitting decryption task");
+                executor.execute(decryptionTask);
+                decryptedEventReaderInputProcessor.setDecryptionTask(decryptionTask);
+                return decryptionThread.getPipedInputStream();
+            } catch (RejectedExecutionException e) {
+                LOG.debug("Decryption task rejected, decrypting inline");
+            }
+        } else if (decryptionMode == XMLSecurityConstants.DecryptionMode.VirtualThread) {
+            DecryptionThread decryptionThread = new DecryptionThread(cipherValueDecrypter);
+            Thread thread = newVirtualThread(decryptionThread);
+            thread.setName("decryption thread");
+            //when an exception in the decryption thread occurs, we want to forward them:
+            thread.setUncaughtExceptionHandler(decryptedEventReaderInputProcessor);
+
+            decryptedEventReaderInputProcessor.setDecryptionThread(thread);
+
+            //we have to start the thread before we read from decryptionThread.getPipedInputStream().
+            //Otherwise we will end in a deadlock, because the StAX reader expects already data.
+            LOG.debug("Starting decryption thread");
+            thread.start();
+
+            return decryptionThread.getPipedInputStream();
+        }
+        return new DecryptionInputStream(cipherValueDecrypter, decryptedEventReaderInputProcessor);
+    }
+
+    private static Thread newVirtualThread(Runnable runnable) throws XMLSecurityException {
+        try {
+            Object threadBuilder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (Thread) Class.forName("java.lang.Thread$Builder")
+                .getMethod("unstarted", Runnable.class).invoke(threadBuilder, runnable);
+        } catch (ReflectiveOperationException e) {
+            throw new XMLSecurityException(e);
+        }
+    }
+
     protected InputStream applyTransforms(ReferenceType referenceType, InputStream inputStream) throws XMLSecurityException {
         return inputStream;
     }
@@ -442,11 +511,7 @@ public abstract class AbstractDecryptInputProcessor extends AbstractInputProcess
                 throw new XMLSecurityException("algorithms.NoSuchMap",
                                                new Object[] {algorithmURI});
             }
-            if (jceProvider != null) {
-                symCipher = Cipher.getInstance(jceName, jceProvider);
-            } else {
-                symCipher = Cipher.getInstance(jceName);
-            }
+            symCipher = CipherPool.getInstance(algorithmURI, jceProvider);
             //we have to defer the initialization of the cipher until we can extract the IV...
         } catch (NoSuchAlgorithmException | NoSuchPaddingException | NoSuchProviderException e) {
             throw new XMLSecurityException(e);
@@ -500,7 +565,7 @@ public abstract class AbstractDecryptInputProcessor extends AbstractInputProcess
                 encryptedDataXMLSecEvent = subInputProcessorChain.processEvent();
             }
 
-            xmlSecEvents.push(encryptedDataXMLSecEvent);
+            xmlSecEvents.push(XMLSecEventFactory.materialize(encryptedDataXMLSecEvent));
             if (++count >= maximumAllowedEncryptedDataEvents) {
                 throw new XMLSecurityException("stax.xmlStructureSizeExceeded",
                                                new Object[] {maximumAllowedEncryptedDataEvents});
@@ -527,14 +592,24 @@ public abstract class AbstractDecryptInputProcessor extends AbstractInputProcess
         xmlSecEvents.push(XMLSecEventFactory.createXmlSecEndElement(XMLSecurityConstants.TAG_xenc_CipherData));
         xmlSecEvents.push(XMLSecEventFactory.createXmlSecEndElement(XMLSecurityConstants.TAG_xenc_EncryptedData));
 
+        if (getSecurityProperties().isUseStAXStructureBinder() && getSecurityProperties().isDisableSchemaValidation()) {
+            @SuppressWarnings("unchecked")
+            JAXBElement<EncryptedDataType> encryptedDataTypeJAXBElement =
+                    (JAXBElement<EncryptedDataType>) XMLSecurityStructureBinder.bind(xmlSecEvents, 0);
+            if (encryptedDataTypeJAXBElement != null) {
+                return encryptedDataTypeJAXBElement.getValue();
+            }
+        }
+
         EncryptedDataType encryptedDataType;
 
         try {
-            Unmarshaller unmarshaller =
-                    XMLSecurityConstants.getJaxbUnmarshaller(getSecurityProperties().isDisableSchemaValidation());
+            final boolean disableSchemaValidation = getSecurityProperties().isDisableSchemaValidation();
+            Unmarshaller unmarshaller = XMLSecurityConstants.getJaxbUnmarshaller(disableSchemaValidation);
             @SuppressWarnings("unchecked")
             JAXBElement<EncryptedDataType> encryptedDataTypeJAXBElement =
                     (JAXBElement<EncryptedDataType>) unmarshaller.unmarshal(new XMLSecurityEventReader(xmlSecEvents, 0));
+            XMLSecurityConstants.releaseJaxbUnmarshaller(unmarshaller, disableSchemaValidation);
             encryptedDataType = encryptedDataTypeJAXBElement.getValue();
 
         } catch (JAXBException e) {
@@ -547,7 +622,7 @@ public abstract class AbstractDecryptInputProcessor extends AbstractInputProcess
                                                      XMLSecEvent xmlSecEvent) throws XMLStreamException, XMLSecurityException {
         InputProcessorChain subInputProcessorChain = inputProcessorChain.createSubChain(this);
         do {
-            tmpXmlEventList.push(xmlSecEvent);
+            tmpXmlEventList.push(XMLSecEventFactory.materialize(xmlSecEvent));
 
             subInputProcessorChain.reset();
             if (isSecurityHeaderEvent) {
@@ -621,6 +696,7 @@ public abstract class AbstractDecryptInputProcessor extends AbstractInputProcess
         private boolean rootElementProcessed;
         private EncryptedDataType encryptedDataType;
         private Thread decryptionThread;
+        private Future<?> decryptionTask;
 
         public AbstractDecryptedEventReaderInputProcessor(
                 XMLSecurityProperties securityProperties, SecurePart.Modifier encryptionModifier,
@@ -646,6 +722,10 @@ public abstract class AbstractDecryptInputProcessor extends AbstractInputProcess
             this.decryptionThread = decryptionThread;
         }
 
+        public void setDecryptionTask(Future<?> decryptionTask) {
+            this.decryptionTask = decryptionTask;
+        }
+
         public void setXmlStreamReader(XMLStreamReader xmlStreamReader) {
             this.xmlStreamReader = xmlStreamReader;
         }
@@ -734,10 +814,28 @@ public abstract class AbstractDecryptInputProcessor extends AbstractInputProcess
                         //...and test again for an exception in the decryption thread.
                         testAndThrowUncaughtException();
                     }
+                    if (decryptionTask != null) {
+                        //wait until the decryption task is finished...
+                        try {
+                            decryptionTask.get();
+                        } catch (InterruptedException e) {
+                            throw new XMLStreamException(e);
+                        } catch (ExecutionException e) { //NOPMD
+                            //already forwarded to uncaughtException()
+                        }
+                        //...and test again for an exception in the decryption task.
+                        testAndThrowUncaughtException();
+                    }
                     inputProcessorChain.removeProcessor(this);
                 }
             }
-            xmlStreamReader.next();
+            try {
+                xmlStreamReader.next();
+            } catch (XMLStreamException e) {
+                //a failed decryption shows up as a parse error, so report the original exception if there is one
+                testAndThrowUncaughtException();
+                throw e;
+            }
             return xmlSecEvent;
         }
 
@@ -765,38 +863,28 @@ public abstract class AbstractDecryptInputProcessor extends AbstractInputProcess
     }
 
     /**
-     * The DecryptionThread handles encrypted XML-Parts
+     * The CipherValueDecrypter reads the base64 encoded CipherValue of an EncryptedData structure
+     * from the processor-chain and writes the decrypted octets to an OutputStream
      */
-    static class DecryptionThread implements Runnable {
+    static class CipherValueDecrypter {
 
         private final InputProcessorChain inputProcessorChain;
         private final boolean header;
-        private final PipedOutputStream pipedOutputStream;
-        private final PipedInputStream pipedInputStream;
         private Cipher symmetricCipher;
+        private String algorithmURI;
         private int ivLength;
         private Key secretKey;
-        private final XMLSecEvent firstEvent;
-
-        protected DecryptionThread(InputProcessorChain inputProcessorChain,
-                                   boolean header,
-                                   XMLSecEvent firstEvent) throws XMLStreamException, XMLSecurityException {
-
+        private XMLSecEvent nextEvent;
+        private Base64DecodingOutputStream base64DecodingOutputStream;
+        // the characters are copied in chunks, so that a pass-through event isn't copied as a whole
+        private final char[] charBuffer = new char[8192];
+
+        protected CipherValueDecrypter(InputProcessorChain inputProcessorChain,
+                                       boolean header,
+                                       XMLSecEvent firstEvent) {
             this.inputProcessorChain = inputProcessorChain;
             this.header = header;
-            this.firstEvent = firstEvent;
-
-            //prepare the piped streams and connect them:
-            this.pipedInputStream = new PipedInputStream(8192 * 5);
-            try {
-                this.pipedOutputStream = new PipedOutputStream(pipedInputStream);
-            } catch (IOException e) {
-                throw new XMLStreamException(e);
-            }
-        }
-
-        public PipedInputStream getPipedInputStream() {
-            return pipedInputStream;
+            this.nextEvent = firstEvent;
         }
 
         private XMLSecEvent processNextEvent() throws XMLSecurityException, XMLStreamException {
@@ -808,67 +896,62 @@ public abstract class AbstractDecryptInputProcessor extends AbstractInputProcess
             }
         }
 
-        @Override
-        public void run() {
-
-            try {
-                final OutputStream outputStream;    //NOPMD
-
-                final Cipher cipher = getSymmetricCipher();
-                if (cipher.getAlgorithm().toUpperCase().contains("GCM")) {
-                    //we have to buffer the whole data until they are authenticated.
-                    //In GCM mode the authentication tag is appended after the last cipher block...
-                    outputStream = new FullyBufferedOutputStream(pipedOutputStream);
-                } else {
-                    outputStream = pipedOutputStream;
-                }
-
-                final CipherOutputStream cipherOutputStream = new CipherOutputStream(outputStream, cipher) { //NOPMD
-                    //override close() to workaround a bug in oracle-jdk:
-                    //authentication failures when using AEAD ciphers are silently ignored...
-                    @Override
-                    public void close() throws IOException {
-                        super.flush();
-                        try {
-                            byte[] bytes = cipher.doFinal();
-                            outputStream.write(bytes);
-                            outputStream.close();
-                        } catch (IllegalBlockSizeException | BadPaddingException e) {
-                            throw new IOException(e);
-                        }
-                    }
-                };
-                IVSplittingOutputStream ivSplittingOutputStream = new IVSplittingOutputStream(  //NOPMD
-                        cipherOutputStream,
-                        cipher, getSecretKey(), getIvLength());
-                //buffering seems not to help
-                //bufferedOutputStream = new BufferedOutputStream(new Base64OutputStream(ivSplittingOutputStream, false), 8192 * 5);
-                ReplaceableOuputStream replaceableOuputStream = new ReplaceableOuputStream(ivSplittingOutputStream);    //NOPMD
-                OutputStream base64OutputStream = new Base64OutputStream(replaceableOuputStream, false); //NOPMD
-                ivSplittingOutputStream.setParentOutputStream(replaceableOuputStream);
-                OutputStreamWriter outputStreamWriter = //NOPMD
-                        new OutputStreamWriter(base64OutputStream,
-                                               Charset.forName(inputProcessorChain.getDocumentContext().getEncoding()));
+        /**
+         * Sets up the base64 decoding and decryption stages in front of the given OutputStream.
+         */
+        void open(final OutputStream decryptedOutputStream) throws XMLSecurityException {
+            final OutputStream outputStream;    //NOPMD
+
+            final Cipher cipher = getSymmetricCipher();
+            if (cipher.getAlgorithm().toUpperCase().contains("GCM")) {
+                //we have to buffer the whole data until they are authenticated.
+                //In GCM mode the authentication tag is appended after the last cipher block...
+                outputStream = new FullyBufferedOutputStream(decryptedOutputStream);
+            } else {
+                outputStream = decryptedOutputStream;
+            }
 
-                //read the encrypted data from the stream until an end-element occurs and write then
-                //to the decrypter-stream
-                XMLSecEvent xmlSecEvent = firstEvent;
-                // End element must be the CipherValue EndElement.
-                while (xmlSecEvent.getEventType() != XMLStreamConstants.END_ELEMENT) {
-                    if (xmlSecEvent.getEventType() == XMLStreamConstants.CHARACTERS) {
-                        final char[] data = xmlSecEvent.asCharacters().getText();
-                        outputStreamWriter.write(data);
-                    } else {
-                        throw new XMLSecurityException(
-                                "stax.unexpectedXMLEvent",
-                                new Object[] {XMLSecurityUtils.getXMLEventAsString(xmlSecEvent)}
-                        );
+            final CipherOutputStream cipherOutputStream = new CipherOutputStream(outputStream, cipher) { //NOPMD
+                //override close() to workaround a bug in oracle-jdk:
+                //authentication failures when using AEAD ciphers are silently ignored...
+                @Override
+                public void close() throws IOException {
+                    super.flush();
+                    try {
+                        byte[] bytes = cipher.doFinal();
+                        outputStream.write(bytes);
+                        outputStream.close();
+                    } catch (IllegalBlockSizeException | BadPaddingException e) {
+                        throw new IOException(e);
                     }
-                    xmlSecEvent = processNextEvent();
                 }
+            };
+            IVSplittingOutputStream ivSplittingOutputStream = new IVSplittingOutputStream(  //NOPMD
+                    cipherOutputStream,
+                    cipher, getSecretKey(), getIvLength());
+            ReplaceableOuputStream replaceableOuputStream = new ReplaceableOuputStream(ivSplittingOutputStream);    //NOPMD
+            ivSplittingOutputStream.setParentOutputStream(replaceableOuputStream);
+            //the characters of the CipherValue are decoded directly, without encoding them to bytes first
+            this.base64DecodingOutputStream = new Base64DecodingOutputStream(replaceableOuputStream);
+        }
+
+        /**
+         * Reads the next event of the CipherValue and writes its content to the decrypter-stream.
+         *
+         * @return false if the end of the CipherValue was reached and the decryption is finished
+         */
+        boolean decryptNextEvent() throws XMLSecurityException, XMLStreamException, IOException {
+            XMLSecEvent xmlSecEvent = nextEvent;
+            if (xmlSecEvent == null) {
+                xmlSecEvent = processNextEvent();
+            }
+            nextEvent = null;
 
+            // End element must be the CipherValue EndElement.
+            if (xmlSecEvent.getEventType() == XMLStreamConstants.END_ELEMENT) {
                 //close to get Cipher.doFinal() called
-                outputStreamWriter.close();
+                base64DecodingOutputStream.close();
+                CipherPool.release(algorithmURI, JCEAlgorithmMapper.getJCEProviderFromURI(algorithmURI), symmetricCipher);
 
                 // Clean the secret key from memory now that we're done with it
                 if (secretKey instanceof Destroyable) {
@@ -878,19 +961,24 @@ public abstract class AbstractDecryptInputProcessor extends AbstractInputProcess
                         LOG.debug("Error destroying key: {}", e.getMessage());
                     }
                 }
+                return false;
+            }
 
-                LOG.debug("Decryption thread finished");
-
-            } catch (Exception e) {
-                try {
-                    //we have to close the pipe when an exception occurs. Otherwise we can run into a deadlock when an exception occurs
-                    //before we have written any byte to the pipe.
-                    this.pipedOutputStream.close();
-                } catch (IOException e1) { //NOPMD
-                    //ignore since we will throw the original exception below
+            if (xmlSecEvent.getEventType() == XMLStreamConstants.CHARACTERS) {
+                final XMLSecCharacters xmlSecCharacters = xmlSecEvent.asCharacters();
+                int position = 0;
+                int length;
+                while ((length = xmlSecCharacters.getTextCharacters(position, charBuffer, 0, charBuffer.length)) > 0) {
+                    base64DecodingOutputStream.write(charBuffer, 0, length);
+                    position += length;
                 }
-                throw new UncheckedXMLSecurityException(e);
+            } else {
+                throw new XMLSecurityException(
+                        "stax.unexpectedXMLEvent",
+                        new Object[] {XMLSecurityUtils.getXMLEventAsString(xmlSecEvent)}
+                );
             }
+            return true;
         }
 
         protected Cipher getSymmetricCipher() {
@@ -901,6 +989,14 @@ public abstract class AbstractDecryptInputProcessor extends AbstractInputProcess
             this.symmetricCipher = symmetricCipher;
         }
 
+        String getAlgorithmURI() {
+            return algorithmURI;
+        }
+
+        void setAlgorithmURI(String algorithmURI) {
+            this.algorithmURI = algorithmURI;
+        }
+
         int getIvLength() {
             return ivLength;
         }
@@ -917,4 +1013,199 @@ public abstract class AbstractDecryptInputProcessor extends AbstractInputProcess
             this.secretKey = secretKey;
         }
     }
+
+    /**
+     * The DecryptionInputStream decrypts the CipherValue on demand in the thread which reads
+     * the decrypted content. The CipherValue events are pulled from the processor-chain only
+     * when the StAX reader needs more data.
+     */
+    static class DecryptionInputStream extends InputStream {
+
+        private final CipherValueDecrypter cipherValueDecrypter;
+        private final Thread.UncaughtExceptionHandler uncaughtExceptionHandler;
+        private final DecryptedOutputStream decryptedOutputStream = new DecryptedOutputStream();
+        private boolean opened;
+        private boolean finished;
+
+        protected DecryptionInputStream(CipherValueDecrypter cipherValueDecrypter,
+                                        Thread.UncaughtExceptionHandler uncaughtExceptionHandler) {
+            this.cipherValueDecrypter = cipherValueDecrypter;
+            this.uncaughtExceptionHandler = uncaughtExceptionHandler;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] oneByte = new byte[1];
+            int read = read(oneByte, 0, 1);
+            return read < 0 ? -1 : oneByte[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (decryptedOutputStream.available() == 0) {
+                if (finished) {
+                    return -1;
+                }
+                decryptNextEvent();
+            }
+            return decryptedOutputStream.read(b, off, len);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return decryptedOutputStream.available();
+        }
+
+        private void decryptNextEvent() throws IOException {
+            try {
+                if (!opened) {
+                    cipherValueDecrypter.open(decryptedOutputStream);
+                    opened = true;
+                }
+                finished = !cipherValueDecrypter.decryptNextEvent();
+            } catch (XMLSecurityException | XMLStreamException | IOException e) {
+                finished = true;
+                //forward the original exception, the StAX reader only reports a parse error
+                uncaughtExceptionHandler.uncaughtException(Thread.currentThread(), new UncheckedXMLSecurityException(e));
+                throw new IOException(e);
+            }
+        }
+    }
+
+    /**
+     * Buffer for the decrypted octets which are not yet consumed by the DecryptionInputStream.
+     * The buffer is reused as soon as it is drained, so it only grows up to the amount of data
+     * decrypted from a single CipherValue event.
+     */
+    static class DecryptedOutputStream extends OutputStream {
+
+        private byte[] buf = new byte[8192];
+        private int pos;
+        private int count;
+
+        @Override
+        public void write(int b) {
+            ensureCapacity(1);
+            buf[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            ensureCapacity(len);
+            System.arraycopy(b, off, buf, count, len);
+            count += len;
+        }
+
+        private void ensureCapacity(int len) {
+            if (pos == count) {
+                pos = 0;
+                count = 0;
+            }
+            if (count + len > buf.length) {
+                int available = count - pos;
+                if (available + len > buf.length) {
+                    byte[] newBuf = new byte[Math.max(buf.length << 1, available + len)];
+                    System.arraycopy(buf, pos, newBuf, 0, available);
+                    buf = newBuf;
+                } else {
+                    System.arraycopy(buf, pos, buf, 0, available);
+                }
+                pos = 0;
+                count = available;
+            }
+        }
+
+        int available() {
+            return count - pos;
+        }
+
+        int read(byte[] b, int off, int len) {
+            int read = Math.min(len, count - pos);
+            System.arraycopy(buf, pos, b, off, read);
+            pos += read;
+            return read;
+        }
+    }
+
+    /**
+     * The DecryptionThread handles encrypted XML-Parts in a separate thread and hands
+     * the decrypted octets over with a pipe
+     */
+    static class DecryptionThread implements Runnable {
+
+        private final CipherValueDecrypter cipherValueDecrypter;
+        private final PipedOutputStream pipedOutputStream;
+        private final PipedInputStream pipedInputStream;
+
+        protected DecryptionThread(CipherValueDecrypter cipherValueDecrypter) throws XMLStreamException {
+
+            this.cipherValueDecrypter = cipherValueDecrypter;
+
+            //prepare the piped streams and connect them:
+            this.pipedInputStream = new PipedInputStream(8192 * 5);
+            try {
+                this.pipedOutputStream = new PipedOutputStream(pipedInputStream);
+            } catch (IOException e) {
+                throw new XMLStreamException(e);
+            }
+        }
+
+        public PipedInputStream getPipedInputStream() {
+            return pipedInputStream;
+        }
+
+        @Override
+        public void run() {
+
+            try {
+                cipherValueDecrypter.open(pipedOutputStream);
+
+                //read the encrypted data from the stream until an end-element occurs and write then
+                //to the decrypter-stream
+                while (cipherValueDecrypter.decryptNextEvent()) { //NOPMD
+                }
+
+                LOG.debug("Decryption thread finished");
+
+            } catch (Exception e) {
+                try {
+                    //we have to close the pipe when an exception occurs. Otherwise we can run into a deadlock when an exception occurs
+                    //before we have written any byte to the pipe.
+                    this.pipedOutputStream.close();
+                } catch (IOException e1) { //NOPMD
+                    //ignore since we will throw the original exception below
+                }
+                throw new UncheckedXMLSecurityException(e);
+            }
+        }
+    }
+
+    /**
+     * Lazily created, shared Executor for DecryptionMode.Executor. It is bounded by the number of
+     * threads and has no queue, so a saturated Executor rejects the task and the decryption
+     * falls back to inline decryption instead of blocking the reader.
+     */
+    private static final class DecryptionExecutorHolder {
+
+        private static final Executor EXECUTOR;
+
+        static {
+            final AtomicInteger threadCount = new AtomicInteger();
+            EXECUTOR = new ThreadPoolExecutor(
+                    0, Math.max(4, Runtime.getRuntime().availableProcessors() * 2),
+                    60L, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "decryption thread " + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        thread.setPriority(Thread.NORM_PRIORITY + 1);
+                        return thread;
+                    });
+        }
+
+        private DecryptionExecutorHolder() {
+        }
+    }
 }
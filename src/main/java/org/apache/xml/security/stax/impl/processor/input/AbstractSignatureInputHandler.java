@@ -282,6 +282,7 @@ public abstract class AbstractSignatureInputHandler extends AbstractInputSecurit
 
         private final SignatureType signatureType;
         private final InboundSecurityToken inboundSecurityToken;
+        private final XMLSecurityConstants.EngineReuse engineReuse;
 
         private SignerOutputStream signerOutputStream;
         private OutputStream bufferedSignerOutputStream;
@@ -290,6 +291,7 @@ public abstract class AbstractSignatureInputHandler extends AbstractInputSecurit
         public SignatureVerifier(SignatureType signatureType, InboundSecurityContext inboundSecurityContext,
                                  XMLSecurityProperties securityProperties) throws XMLSecurityException {
             this.signatureType = signatureType;
+            this.engineReuse = securityProperties.getEngineReuse();
 
             InboundSecurityToken inboundSecurityToken =
                 retrieveSecurityToken(signatureType, securityProperties, inboundSecurityContext);
@@ -328,7 +330,7 @@ public abstract class AbstractSignatureInputHandler extends AbstractInputSecurit
             try {
                 SignatureAlgorithm signatureAlgorithm =
                         SignatureAlgorithmFactory.getInstance().getSignatureAlgorithm(
-                                algorithmURI);
+                                algorithmURI, engineReuse);
                 if (XMLSignature.ALGO_ID_SIGNATURE_RSA_PSS.equals(algorithmURI)) {
                     PSSParameterSpec spec = rsaPSSParameterSpec(signatureType);
                     signatureAlgorithm.engineSetParameter(spec);
@@ -50,19 +50,25 @@ import org.apache.xml.security.stax.ext.InboundSecurityContext;
 import org.apache.xml.security.stax.ext.InputProcessorChain;
 import org.apache.xml.security.stax.ext.ResourceResolver;
 import org.apache.xml.security.stax.ext.Transformer;
+import org.apache.xml.security.stax.ext.VersionedResourceResolver;
 import org.apache.xml.security.stax.ext.XMLSecurityConstants;
 import org.apache.xml.security.stax.ext.XMLSecurityProperties;
 import org.apache.xml.security.stax.ext.XMLSecurityUtils;
 import org.apache.xml.security.stax.ext.stax.XMLSecEndElement;
 import org.apache.xml.security.stax.ext.stax.XMLSecEvent;
+import org.apache.xml.security.stax.ext.stax.XMLSecEventFactory;
 import org.apache.xml.security.stax.ext.stax.XMLSecStartElement;
 import org.apache.xml.security.stax.impl.transformer.canonicalizer.Canonicalizer20010315_Excl;
 import org.apache.xml.security.stax.impl.transformer.canonicalizer.Canonicalizer20010315_OmitCommentsTransformer;
+import org.apache.xml.security.stax.impl.algorithms.JCEEngineCache;
 import org.apache.xml.security.stax.impl.util.DigestOutputStream;
 import org.apache.xml.security.stax.impl.util.IDGenerator;
 import org.apache.xml.security.stax.impl.util.KeyValue;
 import org.apache.xml.security.stax.securityEvent.AlgorithmSuiteSecurityEvent;
+import org.apache.xml.security.stax.securityEvent.SecurityEventConstants;
 import org.apache.xml.security.stax.securityToken.InboundSecurityToken;
+import org.apache.xml.security.utils.ExternalDigestCache;
+import org.apache.xml.security.utils.MappedFileInputStream;
 import org.apache.xml.security.utils.UnsyncBufferedOutputStream;
 import org.apache.xml.security.utils.XMLUtils;
 import org.slf4j.Logger;
@@ -244,10 +250,7 @@ public abstract class AbstractSignatureReferenceVerifyInputProcessor extends Abs
         if (!externalReferences.isEmpty()) {
             for (int i = 0; i < externalReferences.size(); i++) {
                 KeyValue<ResourceResolver, ReferenceType> keyValue = externalReferences.get(i);
-                verifyExternalReference(
-                        inputProcessorChain,
-                        keyValue.getKey().getInputStreamFromExternalReference(),
-                        keyValue.getValue());
+                verifyExternalReference(inputProcessorChain, keyValue.getKey(), keyValue.getValue());
                 processedReferences.add(keyValue.getValue());
             }
 
@@ -266,8 +269,68 @@ public abstract class AbstractSignatureReferenceVerifyInputProcessor extends Abs
         return new InternalSignatureReferenceVerifier(securityProperties, inputProcessorChain, referenceType, startElement);
     }
 
+    /**
+     * Verifies an external reference. If the {@link ExternalDigestCache} is enabled and the resolver
+     * can tell the version of the resource, the digest of an unchanged resource is taken from the
+     * cache, without fetching and transforming the resource.
+     */
+    protected void verifyExternalReference(InputProcessorChain inputProcessorChain, ResourceResolver resourceResolver,
+                                           ReferenceType referenceType) throws XMLSecurityException, XMLStreamException {
+
+        ExternalDigestCache.ResourceVersion resourceVersion = null;
+        if (ExternalDigestCache.isEnabled() && resourceResolver instanceof VersionedResourceResolver) {
+            // the version of the resource has to be known before it is fetched
+            resourceVersion = ((VersionedResourceResolver) resourceResolver).getResourceVersion();
+        }
+        if (resourceVersion == null) {
+            verifyExternalReference(
+                    inputProcessorChain, resourceResolver.getInputStreamFromExternalReference(), referenceType);
+            return;
+        }
+
+        String transformsKey = getTransformsKey(referenceType);
+        String digestAlgorithm = referenceType.getDigestMethod().getAlgorithm();
+        byte[] digest = ExternalDigestCache.getDigest(resourceVersion, transformsKey, digestAlgorithm);
+        if (digest != null) {
+            LOG.debug("Using the cached digest of {}", resourceVersion);
+            // set up the digest and transforms anyway, for their algorithm checks and security events
+            DigestOutputStream digestOutputStream =
+                    createMessageDigestOutputStream(referenceType, inputProcessorChain.getSecurityContext());
+            try {
+                if (referenceType.getTransforms() != null) {
+                    buildTransformerChain(referenceType, digestOutputStream, inputProcessorChain, null);
+                }
+            } finally {
+                digestOutputStream.release();
+            }
+        } else {
+            digest = calculateExternalReferenceDigest(
+                    inputProcessorChain, resourceResolver.getInputStreamFromExternalReference(), referenceType);
+            ExternalDigestCache.putDigest(resourceVersion, transformsKey, digestAlgorithm, digest);
+        }
+        compareDigest(digest, referenceType);
+    }
+
     protected void verifyExternalReference(InputProcessorChain inputProcessorChain, InputStream inputStream,
                                          ReferenceType referenceType) throws XMLSecurityException, XMLStreamException {
+        compareDigest(calculateExternalReferenceDigest(inputProcessorChain, inputStream, referenceType), referenceType);
+    }
+
+    private byte[] calculateExternalReferenceDigest(InputProcessorChain inputProcessorChain, InputStream inputStream,
+                                                    ReferenceType referenceType)
+            throws XMLSecurityException, XMLStreamException {
+
+        if (referenceType.getTransforms() == null && inputStream instanceof MappedFileInputStream) {
+            // the mapped file is digested directly, without copying it through the buffers
+            try (InputStream mappedInputStream = inputStream;
+                DigestOutputStream digestOutputStream =
+                        createMessageDigestOutputStream(referenceType, inputProcessorChain.getSecurityContext())) {
+                XMLSecurityUtils.copy(mappedInputStream, digestOutputStream);
+                return digestOutputStream.getDigestValue();
+            } catch (IOException e) {
+                throw new XMLSecurityException(e);
+            }
+        }
 
         try (BufferedInputStream bufferedInputStream = new BufferedInputStream(inputStream);
             DigestOutputStream digestOutputStream =
@@ -284,12 +347,33 @@ public abstract class AbstractSignatureReferenceVerifyInputProcessor extends Abs
                 XMLSecurityUtils.copy(bufferedInputStream, bufferedDigestOutputStream);
                 bufferedDigestOutputStream.close();
             }
-            compareDigest(digestOutputStream.getDigestValue(), referenceType);
+            return digestOutputStream.getDigestValue();
         } catch (IOException e) {
             throw new XMLSecurityException(e);
         }
     }
 
+    /**
+     * Returns a representation of all the transform parameters which are relevant for an
+     * external reference.
+     */
+    private static String getTransformsKey(ReferenceType referenceType) {
+        if (referenceType.getTransforms() == null) {
+            return "";
+        }
+        StringBuilder transformsKey = new StringBuilder("Transforms");
+        for (TransformType transformType : referenceType.getTransforms().getTransform()) {
+            transformsKey.append(' ').append(transformType.getAlgorithm());
+            InclusiveNamespaces inclusiveNamespacesType =
+                    XMLSecurityUtils.getQNameType(transformType.getContent(),
+                            XMLSecurityConstants.TAG_c14nExcl_InclusiveNamespaces);
+            if (inclusiveNamespacesType != null) {
+                transformsKey.append(inclusiveNamespacesType.getPrefixList());
+            }
+        }
+        return transformsKey.toString();
+    }
+
     protected DigestOutputStream createMessageDigestOutputStream(ReferenceType referenceType, InboundSecurityContext inboundSecurityContext)
             throws XMLSecurityException {
 
@@ -301,26 +385,26 @@ public abstract class AbstractSignatureReferenceVerifyInputProcessor extends Abs
                                            new Object[] {digestMethodAlgorithm});
         }
 
-        AlgorithmSuiteSecurityEvent algorithmSuiteSecurityEvent = new AlgorithmSuiteSecurityEvent();
-        algorithmSuiteSecurityEvent.setAlgorithmURI(digestMethodAlgorithm);
-        algorithmSuiteSecurityEvent.setAlgorithmUsage(XMLSecurityConstants.SigDig);
-        algorithmSuiteSecurityEvent.setCorrelationID(referenceType.getId());
-        inboundSecurityContext.registerSecurityEvent(algorithmSuiteSecurityEvent);
+        if (inboundSecurityContext.isSubscribed(SecurityEventConstants.AlgorithmSuite)) {
+            AlgorithmSuiteSecurityEvent algorithmSuiteSecurityEvent = new AlgorithmSuiteSecurityEvent();
+            algorithmSuiteSecurityEvent.setAlgorithmURI(digestMethodAlgorithm);
+            algorithmSuiteSecurityEvent.setAlgorithmUsage(XMLSecurityConstants.SigDig);
+            algorithmSuiteSecurityEvent.setCorrelationID(referenceType.getId());
+            inboundSecurityContext.registerSecurityEvent(algorithmSuiteSecurityEvent);
+        }
 
-        MessageDigest messageDigest;
+        final XMLSecurityConstants.EngineReuse engineReuse = getSecurityProperties().getEngineReuse();
+        final MessageDigest messageDigest;
         try {
-            if (jceProvider != null) {
-                messageDigest = MessageDigest.getInstance(jceName, jceProvider);
-            } else {
-                messageDigest = MessageDigest.getInstance(jceName);
-            }
+            messageDigest = JCEEngineCache.getMessageDigest(jceName, jceProvider, engineReuse);
         } catch (NoSuchAlgorithmException e) {
             throw new XMLSecurityException(e);
         } catch (NoSuchProviderException e) {
             throw new XMLSecurityException(e);
         }
 
-        return new DigestOutputStream(messageDigest);
+        return new DigestOutputStream(messageDigest,
+            () -> JCEEngineCache.releaseMessageDigest(jceName, jceProvider, engineReuse, messageDigest));
     }
 
     protected Transformer buildTransformerChain(ReferenceType referenceType, OutputStream outputStream,
@@ -331,11 +415,13 @@ public abstract class AbstractSignatureReferenceVerifyInputProcessor extends Abs
         // If no Transforms then just default to an Inclusive without comments transform
         if (referenceType.getTransforms() == null || referenceType.getTransforms().getTransform().isEmpty()) {
 
-            AlgorithmSuiteSecurityEvent algorithmSuiteSecurityEvent = new AlgorithmSuiteSecurityEvent();
-            algorithmSuiteSecurityEvent.setAlgorithmURI(XMLSecurityConstants.NS_C14N_OMIT_COMMENTS);
-            algorithmSuiteSecurityEvent.setAlgorithmUsage(XMLSecurityConstants.SigTransform);
-            algorithmSuiteSecurityEvent.setCorrelationID(referenceType.getId());
-            inputProcessorChain.getSecurityContext().registerSecurityEvent(algorithmSuiteSecurityEvent);
+            if (inputProcessorChain.getSecurityContext().isSubscribed(SecurityEventConstants.AlgorithmSuite)) {
+                AlgorithmSuiteSecurityEvent algorithmSuiteSecurityEvent = new AlgorithmSuiteSecurityEvent();
+                algorithmSuiteSecurityEvent.setAlgorithmURI(XMLSecurityConstants.NS_C14N_OMIT_COMMENTS);
+                algorithmSuiteSecurityEvent.setAlgorithmUsage(XMLSecurityConstants.SigTransform);
+                algorithmSuiteSecurityEvent.setCorrelationID(referenceType.getId());
+                inputProcessorChain.getSecurityContext().registerSecurityEvent(algorithmSuiteSecurityEvent);
+            }
 
             Transformer transformer = new Canonicalizer20010315_OmitCommentsTransformer();
             transformer.setOutputStream(outputStream);
@@ -363,11 +449,13 @@ public abstract class AbstractSignatureReferenceVerifyInputProcessor extends Abs
 
             String algorithm = transformType.getAlgorithm();
 
-            AlgorithmSuiteSecurityEvent algorithmSuiteSecurityEvent = new AlgorithmSuiteSecurityEvent();
-            algorithmSuiteSecurityEvent.setAlgorithmURI(algorithm);
-            algorithmSuiteSecurityEvent.setAlgorithmUsage(XMLSecurityConstants.SigTransform);
-            algorithmSuiteSecurityEvent.setCorrelationID(referenceType.getId());
-            inputProcessorChain.getSecurityContext().registerSecurityEvent(algorithmSuiteSecurityEvent);
+            if (inputProcessorChain.getSecurityContext().isSubscribed(SecurityEventConstants.AlgorithmSuite)) {
+                AlgorithmSuiteSecurityEvent algorithmSuiteSecurityEvent = new AlgorithmSuiteSecurityEvent();
+                algorithmSuiteSecurityEvent.setAlgorithmURI(algorithm);
+                algorithmSuiteSecurityEvent.setAlgorithmUsage(XMLSecurityConstants.SigTransform);
+                algorithmSuiteSecurityEvent.setCorrelationID(referenceType.getId());
+                inputProcessorChain.getSecurityContext().registerSecurityEvent(algorithmSuiteSecurityEvent);
+            }
 
             InclusiveNamespaces inclusiveNamespacesType =
                     XMLSecurityUtils.getQNameType(transformType.getContent(),
@@ -451,7 +539,8 @@ public abstract class AbstractSignatureReferenceVerifyInputProcessor extends Abs
         public void processEvent(XMLSecEvent xmlSecEvent, InputProcessorChain inputProcessorChain)
             throws XMLStreamException, XMLSecurityException {
 
-            getTransformer().transform(xmlSecEvent);
+            // a transformer may keep the event, e.g. to buffer it for an XSLT or XPath transform
+            getTransformer().transform(XMLSecEventFactory.materialize(xmlSecEvent));
             if (XMLStreamConstants.START_ELEMENT == xmlSecEvent.getEventType()) {
                 this.elementCounter++;
             } else if (XMLStreamConstants.END_ELEMENT == xmlSecEvent.getEventType()) {
@@ -35,6 +35,7 @@ import org.apache.xml.security.stax.ext.XMLSecurityUtils;
 import org.apache.xml.security.stax.ext.stax.XMLSecStartElement;
 import org.apache.xml.security.stax.securityEvent.ContentEncryptedElementSecurityEvent;
 import org.apache.xml.security.stax.securityEvent.EncryptedElementSecurityEvent;
+import org.apache.xml.security.stax.securityEvent.SecurityEventConstants;
 import org.apache.xml.security.stax.securityEvent.TokenSecurityEvent;
 import org.apache.xml.security.stax.securityToken.InboundSecurityToken;
 import org.apache.xml.security.stax.securityToken.SecurityTokenConstants;
@@ -65,8 +66,10 @@ public class XMLDecryptInputProcessor extends AbstractDecryptInputProcessor {
     ) throws XMLSecurityException {
         inboundSecurityToken.addTokenUsage(SecurityTokenConstants.TokenUsage_Encryption);
 
-        TokenSecurityEvent<?> tokenSecurityEvent = XMLSecurityUtils.createTokenSecurityEvent(inboundSecurityToken, encryptedDataType.getId());
-        inboundSecurityContext.registerSecurityEvent(tokenSecurityEvent);
+        if (inboundSecurityContext.isSubscribed(XMLSecurityUtils.getTokenSecurityEventType(inboundSecurityToken))) {
+            TokenSecurityEvent<?> tokenSecurityEvent = XMLSecurityUtils.createTokenSecurityEvent(inboundSecurityToken, encryptedDataType.getId());
+            inboundSecurityContext.registerSecurityEvent(tokenSecurityEvent);
+        }
     }
 
     @Override
@@ -76,16 +79,18 @@ public class XMLDecryptInputProcessor extends AbstractDecryptInputProcessor {
                                           EncryptedDataType encryptedDataType)
             throws XMLSecurityException {
 
-        final DocumentContext documentContext = inputProcessorChain.getDocumentContext();
-        List<QName> elementPath = parentXMLSecStartElement.getElementPath();
-
-        ContentEncryptedElementSecurityEvent contentEncryptedElementSecurityEvent =
-                new ContentEncryptedElementSecurityEvent(inboundSecurityToken, true, documentContext.getProtectionOrder());
-        contentEncryptedElementSecurityEvent.setElementPath(elementPath);
-        contentEncryptedElementSecurityEvent.setXmlSecEvent(parentXMLSecStartElement);
-        contentEncryptedElementSecurityEvent.setSecurityToken(inboundSecurityToken);
-        contentEncryptedElementSecurityEvent.setCorrelationID(encryptedDataType.getId());
-        inputProcessorChain.getSecurityContext().registerSecurityEvent(contentEncryptedElementSecurityEvent);
+        if (inputProcessorChain.getSecurityContext().isSubscribed(SecurityEventConstants.ContentEncrypted)) {
+            final DocumentContext documentContext = inputProcessorChain.getDocumentContext();
+            List<QName> elementPath = parentXMLSecStartElement.getElementPath();
+
+            ContentEncryptedElementSecurityEvent contentEncryptedElementSecurityEvent =
+                    new ContentEncryptedElementSecurityEvent(inboundSecurityToken, true, documentContext.getProtectionOrder());
+            contentEncryptedElementSecurityEvent.setElementPath(elementPath);
+            contentEncryptedElementSecurityEvent.setXmlSecEvent(parentXMLSecStartElement);
+            contentEncryptedElementSecurityEvent.setSecurityToken(inboundSecurityToken);
+            contentEncryptedElementSecurityEvent.setCorrelationID(encryptedDataType.getId());
+            inputProcessorChain.getSecurityContext().registerSecurityEvent(contentEncryptedElementSecurityEvent);
+        }
     }
 
     @Override
@@ -124,16 +129,18 @@ public class XMLDecryptInputProcessor extends AbstractDecryptInputProcessor {
                                               InboundSecurityToken inboundSecurityToken,
                                               EncryptedDataType encryptedDataType) throws XMLSecurityException {
             //fire a SecurityEvent:
-            final DocumentContext documentContext = inputProcessorChain.getDocumentContext();
-            List<QName> elementPath = xmlSecStartElement.getElementPath();
-
-            EncryptedElementSecurityEvent encryptedElementSecurityEvent =
-                    new EncryptedElementSecurityEvent(inboundSecurityToken, true, documentContext.getProtectionOrder());
-            encryptedElementSecurityEvent.setElementPath(elementPath);
-            encryptedElementSecurityEvent.setXmlSecEvent(xmlSecStartElement);
-            encryptedElementSecurityEvent.setSecurityToken(inboundSecurityToken);
-            encryptedElementSecurityEvent.setCorrelationID(encryptedDataType.getId());
-            inputProcessorChain.getSecurityContext().registerSecurityEvent(encryptedElementSecurityEvent);
+            if (inputProcessorChain.getSecurityContext().isSubscribed(SecurityEventConstants.EncryptedElement)) {
+                final DocumentContext documentContext = inputProcessorChain.getDocumentContext();
+                List<QName> elementPath = xmlSecStartElement.getElementPath();
+
+                EncryptedElementSecurityEvent encryptedElementSecurityEvent =
+                        new EncryptedElementSecurityEvent(inboundSecurityToken, true, documentContext.getProtectionOrder());
+                encryptedElementSecurityEvent.setElementPath(elementPath);
+                encryptedElementSecurityEvent.setXmlSecEvent(xmlSecStartElement);
+                encryptedElementSecurityEvent.setSecurityToken(inboundSecurityToken);
+                encryptedElementSecurityEvent.setCorrelationID(encryptedDataType.getId());
+                inputProcessorChain.getSecurityContext().registerSecurityEvent(encryptedElementSecurityEvent);
+            }
         }
 
     }
@@ -54,6 +54,7 @@ import org.apache.xml.security.stax.impl.securityToken.AbstractInboundSecurityTo
 import org.apache.xml.security.stax.impl.util.IDGenerator;
 import org.apache.xml.security.stax.securityEvent.AlgorithmSuiteSecurityEvent;
 import org.apache.xml.security.stax.securityEvent.EncryptedKeyTokenSecurityEvent;
+import org.apache.xml.security.stax.securityEvent.SecurityEventConstants;
 import org.apache.xml.security.stax.securityToken.InboundSecurityToken;
 import org.apache.xml.security.stax.securityToken.SecurityTokenConstants;
 import org.apache.xml.security.stax.securityToken.SecurityTokenFactory;
@@ -199,11 +200,13 @@ public class XMLEncryptedKeyInputHandler extends AbstractInputSecurityHeaderHand
                                         XMLSecurityUtils.getQNameType(encryptedKeyType.getEncryptionMethod().getContent(), XMLSecurityConstants.TAG_dsig_DigestMethod);
                                 String jceDigestAlgorithm = "SHA-1";
                                 if (digestMethodType != null) {
-                                    AlgorithmSuiteSecurityEvent algorithmSuiteSecurityEvent = new AlgorithmSuiteSecurityEvent();
-                                    algorithmSuiteSecurityEvent.setAlgorithmURI(digestMethodType.getAlgorithm());
-                                    algorithmSuiteSecurityEvent.setAlgorithmUsage(XMLSecurityConstants.EncDig);
-                                    algorithmSuiteSecurityEvent.setCorrelationID(correlationID);
-                                    inboundSecurityContext.registerSecurityEvent(algorithmSuiteSecurityEvent);
+                                    if (inboundSecurityContext.isSubscribed(SecurityEventConstants.AlgorithmSuite)) {
+                                        AlgorithmSuiteSecurityEvent algorithmSuiteSecurityEvent = new AlgorithmSuiteSecurityEvent();
+                                        algorithmSuiteSecurityEvent.setAlgorithmURI(digestMethodType.getAlgorithm());
+                                        algorithmSuiteSecurityEvent.setAlgorithmUsage(XMLSecurityConstants.EncDig);
+                                        algorithmSuiteSecurityEvent.setCorrelationID(correlationID);
+                                        inboundSecurityContext.registerSecurityEvent(algorithmSuiteSecurityEvent);
+                                    }
 
                                     jceDigestAlgorithm = JCEAlgorithmMapper.translateURItoJCEID(digestMethodType.getAlgorithm());
                                 }
@@ -296,10 +299,12 @@ public class XMLEncryptedKeyInputHandler extends AbstractInputSecurityHeaderHand
         inboundSecurityContext.registerSecurityTokenProvider(encryptedKeyType.getId(), securityTokenProvider);
 
         //fire a tokenSecurityEvent
-        EncryptedKeyTokenSecurityEvent tokenSecurityEvent = new EncryptedKeyTokenSecurityEvent();
-        tokenSecurityEvent.setSecurityToken(securityTokenProvider.getSecurityToken());
-        tokenSecurityEvent.setCorrelationID(encryptedKeyType.getId());
-        inboundSecurityContext.registerSecurityEvent(tokenSecurityEvent);
+        if (inboundSecurityContext.isSubscribed(SecurityEventConstants.EncryptedKeyToken)) {
+            EncryptedKeyTokenSecurityEvent tokenSecurityEvent = new EncryptedKeyTokenSecurityEvent();
+            tokenSecurityEvent.setSecurityToken(securityTokenProvider.getSecurityToken());
+            tokenSecurityEvent.setCorrelationID(encryptedKeyType.getId());
+            inboundSecurityContext.registerSecurityEvent(tokenSecurityEvent);
+        }
 
         //if this EncryptedKey structure contains a reference list, delegate it to a subclass
         if (encryptedKeyType.getReferenceList() != null) {
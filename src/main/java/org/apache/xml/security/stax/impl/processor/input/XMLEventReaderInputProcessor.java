@@ -38,6 +38,9 @@ import org.apache.xml.security.stax.ext.stax.XMLSecStartElement;
  * The XMLEventReaderInputProcessor reads requested XMLEvents from the original XMLEventReader
  * and returns them to the requester
  *
+ * In pass-through mode (see {@link XMLSecurityProperties#setPassThroughCharacters(boolean)}) the
+ * CHARACTERS events refer to the text buffer of the XMLStreamReader, which is therefore only moved
+ * on when the next event is requested.
  */
 public class XMLEventReaderInputProcessor extends AbstractInputProcessor {
 
@@ -47,11 +50,14 @@ public class XMLEventReaderInputProcessor extends AbstractInputProcessor {
     private final XMLStreamReader xmlStreamReader;
     private XMLSecStartElement parentXmlSecStartElement;
     private boolean EOF = false;
+    private final boolean passThrough;
+    private boolean advancePending;
 
     public XMLEventReaderInputProcessor(XMLSecurityProperties securityProperties, XMLStreamReader xmlStreamReader) {
         super(securityProperties);
         setPhase(XMLSecurityConstants.Phase.PREPROCESSING);
         this.xmlStreamReader = xmlStreamReader;
+        this.passThrough = securityProperties != null && securityProperties.isPassThroughCharacters();
     }
 
     @Override
@@ -67,7 +73,11 @@ public class XMLEventReaderInputProcessor extends AbstractInputProcessor {
     }
 
     private XMLSecEvent processEventInternal() throws XMLStreamException {
-        XMLSecEvent xmlSecEvent = XMLSecEventFactory.allocate(xmlStreamReader, parentXmlSecStartElement);
+        if (advancePending) {
+            advancePending = false;
+            advance();
+        }
+        XMLSecEvent xmlSecEvent = XMLSecEventFactory.allocate(xmlStreamReader, parentXmlSecStartElement, passThrough);
         if (XMLStreamConstants.START_ELEMENT == xmlSecEvent.getEventType()) {
             currentXMLStructureDepth++;
             if (currentXMLStructureDepth > maximumAllowedXMLStructureDepth) {
@@ -85,7 +95,16 @@ public class XMLEventReaderInputProcessor extends AbstractInputProcessor {
             if (parentXmlSecStartElement != null) {
                 parentXmlSecStartElement = parentXmlSecStartElement.getParentXMLSecStartElement();
             }
+        } else if (passThrough && XMLStreamConstants.CHARACTERS == xmlSecEvent.getEventType()) {
+            // the event refers to the text buffer of the reader until it moves on
+            advancePending = true;
+            return xmlSecEvent;
         }
+        advance();
+        return xmlSecEvent;
+    }
+
+    private void advance() throws XMLStreamException {
         if (xmlStreamReader.hasNext()) {
             xmlStreamReader.next();
         } else {
@@ -94,7 +113,6 @@ public class XMLEventReaderInputProcessor extends AbstractInputProcessor {
             }
             EOF = true;
         }
-        return xmlSecEvent;
     }
 
     @Override
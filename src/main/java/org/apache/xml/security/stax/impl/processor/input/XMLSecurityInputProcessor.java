@@ -20,24 +20,46 @@ package org.apache.xml.security.stax.impl.processor.input;
 
 import org.apache.xml.security.exceptions.XMLSecurityException;
 import org.apache.xml.security.stax.ext.AbstractInputProcessor;
+import org.apache.xml.security.stax.ext.InputProcessor;
 import org.apache.xml.security.stax.ext.InputProcessorChain;
 import org.apache.xml.security.stax.ext.XMLSecurityConstants;
 import org.apache.xml.security.stax.ext.XMLSecurityProperties;
-import org.apache.xml.security.stax.ext.stax.XMLSecEndElement;
 import org.apache.xml.security.stax.ext.stax.XMLSecEvent;
+import org.apache.xml.security.stax.ext.stax.XMLSecEventFactory;
 import org.apache.xml.security.stax.ext.stax.XMLSecStartElement;
+import org.apache.xml.security.stax.impl.util.XMLSecEventBuffer;
+import org.apache.xml.security.utils.SecurityMetrics;
+import org.apache.xml.security.utils.SecurityMetricsListener;
 
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
+import java.io.UncheckedIOException;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 
 /**
  * Processor for XML Security.
  *
+ * The document is buffered until the end of the Signature element, in an {@link XMLSecEventBuffer}
+ * which spills the events to a temporary file each time
+ * {@link XMLSecurityProperties#getInputBufferMaxEventsInMemory()} of them are held in memory. The
+ * events of the Signature element itself are always kept in memory.
+ *
+ * Up to {@link XMLSecurityProperties#getMaxInboundSignatures()} Signature elements are verified in
+ * one pass: the SignedInfo of each one is verified at its end, and the buffered events are
+ * replayed once, through the reference verification of all of them, at the end of the last
+ * expected Signature or at the end of the document.
  */
 public class XMLSecurityInputProcessor extends AbstractInputProcessor {
 
-    private int startIndexForProcessor;
+    private static final org.slf4j.Logger LOG =
+        org.slf4j.LoggerFactory.getLogger(XMLSecurityInputProcessor.class);
+
+    private Deque<XMLSecEvent> signatureEvents;
+    private int signatureCount;
+    private final List<InputProcessor> referenceVerifyProcessors = new ArrayList<>();
     private InternalBufferProcessor internalBufferProcessor;
     private boolean signatureElementFound = false;
     private boolean encryptedDataElementFound = false;
@@ -78,11 +100,11 @@ public class XMLSecurityInputProcessor extends AbstractInputProcessor {
             final XMLSecStartElement xmlSecStartElement = xmlSecEvent.asStartElement();
 
             if (!decryptOnly && xmlSecStartElement.getName().equals(XMLSecurityConstants.TAG_dsig_Signature)) {
-                if (signatureElementFound) {
+                if (signatureEvents != null || ++signatureCount > getSecurityProperties().getMaxInboundSignatures()) {
                     throw new XMLSecurityException("stax.multipleSignaturesNotSupported");
                 }
                 signatureElementFound = true;
-                startIndexForProcessor = internalBufferProcessor.getXmlSecEventList().size() - 1;
+                signatureEvents = new ArrayDeque<>();
             } else if (xmlSecStartElement.getName().equals(XMLSecurityConstants.TAG_xenc_EncryptedData)) {
                 encryptedDataElementFound = true;
 
@@ -94,9 +116,8 @@ public class XMLSecurityInputProcessor extends AbstractInputProcessor {
                 inputProcessorChain.addProcessor(decryptInputProcessor);
 
                 if (!decryptOnly) {
-                    final ArrayDeque<XMLSecEvent> xmlSecEventList = internalBufferProcessor.getXmlSecEventList();
                     //remove the last event (EncryptedData)
-                    xmlSecEventList.pollFirst();
+                    internalBufferProcessor.removeLastXmlSecEvent();
                 }
 
                 // temporary processor to return the EncryptedData element for the DecryptionProcessor
@@ -132,44 +153,80 @@ public class XMLSecurityInputProcessor extends AbstractInputProcessor {
                     !signatureElementFound) {
                     throw new XMLSecurityException("Internal error");
                 }
+                // the decrypted event was already recorded and handled when it passed through this processor
+                return xmlSecEvent;
             }
-        } else  if (XMLStreamConstants.END_ELEMENT == xmlSecEvent.getEventType()) {
-            XMLSecEndElement xmlSecEndElement = xmlSecEvent.asEndElement();
+        }
+
+        if (signatureEvents != null) {
+            signatureEvents.push(XMLSecEventFactory.materialize(xmlSecEvent));
             // Handle the signature
-            if (signatureElementFound
-                && xmlSecEndElement.getName().equals(XMLSecurityConstants.TAG_dsig_Signature)) {
+            if (XMLStreamConstants.END_ELEMENT == xmlSecEvent.getEventType()
+                && xmlSecEvent.asEndElement().getName().equals(XMLSecurityConstants.TAG_dsig_Signature)) {
+                // the processors to verify the references are taken out of the chain again until the
+                // buffered events are replayed, so that they see every event exactly once
+                List<InputProcessor> inputProcessors = new ArrayList<>(inputProcessorChain.getProcessors());
                 XMLSignatureInputHandler inputHandler = new XMLSignatureInputHandler();
+                inputHandler.handle(inputProcessorChain, getSecurityProperties(), signatureEvents, 0);
+                signatureEvents = null;
+                for (InputProcessor inputProcessor : new ArrayList<>(inputProcessorChain.getProcessors())) {
+                    if (!inputProcessors.contains(inputProcessor)) {
+                        inputProcessorChain.removeProcessor(inputProcessor);
+                        referenceVerifyProcessors.add(inputProcessor);
+                    }
+                }
 
-                final ArrayDeque<XMLSecEvent> xmlSecEventList = internalBufferProcessor.getXmlSecEventList();
-                inputHandler.handle(inputProcessorChain, getSecurityProperties(),
-                                    xmlSecEventList, startIndexForProcessor);
+                if (signatureCount == getSecurityProperties().getMaxInboundSignatures()) {
+                    replayBufferedEvents(inputProcessorChain);
+                }
+            }
+        } else if (XMLStreamConstants.END_DOCUMENT == xmlSecEvent.getEventType()
+            && !referenceVerifyProcessors.isEmpty()) {
+            replayBufferedEvents(inputProcessorChain);
+        }
 
-                inputProcessorChain.removeProcessor(internalBufferProcessor);
+        return xmlSecEvent;
+    }
 
-                //add the replay processor to the chain...
-                InternalReplayProcessor internalReplayProcessor =
-                    new InternalReplayProcessor(getSecurityProperties(), xmlSecEventList);
-                internalReplayProcessor.addBeforeProcessor(XMLSignatureReferenceVerifyInputProcessor.class.getName());
-                inputProcessorChain.addProcessor(internalReplayProcessor);
+    private void replayBufferedEvents(InputProcessorChain inputProcessorChain)
+            throws XMLStreamException, XMLSecurityException {
 
-                //...and let the SignatureVerificationProcessor process the buffered events (enveloped signature).
-                InputProcessorChain subInputProcessorChain = inputProcessorChain.createSubChain(this, false);
-                while (!xmlSecEventList.isEmpty()) {
-                    subInputProcessorChain.reset();
-                    subInputProcessorChain.processEvent();
-                }
+        final Deque<XMLSecEvent> xmlSecEventList = internalBufferProcessor.getXmlSecEventList();
+        inputProcessorChain.removeProcessor(internalBufferProcessor);
 
-                // copy all processor back to main chain for finalization
-                inputProcessorChain.getProcessors().clear();
-                inputProcessorChain.getProcessors().addAll(subInputProcessorChain.getProcessors());
+        //add the replay processor to the chain, the processors to verify the references are
+        //placed in front of it...
+        InternalReplayProcessor internalReplayProcessor =
+            new InternalReplayProcessor(getSecurityProperties(), xmlSecEventList);
+        inputProcessorChain.addProcessor(internalReplayProcessor);
+        for (InputProcessor inputProcessor : referenceVerifyProcessors) {
+            inputProcessorChain.addProcessor(inputProcessor);
+        }
+        referenceVerifyProcessors.clear();
+
+        //...and let the SignatureVerificationProcessors process the buffered events (enveloped signature).
+        InputProcessorChain subInputProcessorChain = inputProcessorChain.createSubChain(this, false);
+        try {
+            while (!xmlSecEventList.isEmpty()) {
+                subInputProcessorChain.reset();
+                subInputProcessorChain.processEvent();
             }
+        } catch (UncheckedIOException e) {
+            throw new XMLSecurityException(e.getCause());
+        } finally {
+            internalBufferProcessor.close();
         }
 
-        return xmlSecEvent;
+        // copy all processor back to main chain for finalization
+        inputProcessorChain.getProcessors().clear();
+        inputProcessorChain.getProcessors().addAll(subInputProcessorChain.getProcessors());
     }
 
     @Override
     public void doFinal(InputProcessorChain inputProcessorChain) throws XMLStreamException, XMLSecurityException {
+        if (internalBufferProcessor != null) {
+            internalBufferProcessor.close();
+        }
         if (!signatureElementFound && !encryptedDataElementFound) {
             throw new XMLSecurityException("stax.unsecuredMessage");
         }
@@ -181,18 +238,57 @@ public class XMLSecurityInputProcessor extends AbstractInputProcessor {
      */
     public class InternalBufferProcessor extends AbstractInputProcessor {
 
-        private final ArrayDeque<XMLSecEvent> xmlSecEventList = new ArrayDeque<>();
+        private final XMLSecEventBuffer xmlSecEventList;
+        // the most recent event is held back, so that it can be removed without reading back spilled events
+        private XMLSecEvent lastXmlSecEvent;
+        private boolean closed;
 
         InternalBufferProcessor(XMLSecurityProperties securityProperties) {
             super(securityProperties);
             setPhase(XMLSecurityConstants.Phase.POSTPROCESSING);
             addBeforeProcessor(XMLSecurityInputProcessor.class.getName());
+            xmlSecEventList = new XMLSecEventBuffer(
+                securityProperties.getInputBufferMaxEventsInMemory(),
+                securityProperties.getInputBufferSpillDirectory());
         }
 
-        public ArrayDeque<XMLSecEvent> getXmlSecEventList() {
+        /**
+         * Returns the buffered events, the oldest one first.
+         */
+        public Deque<XMLSecEvent> getXmlSecEventList() {
+            if (lastXmlSecEvent != null) {
+                xmlSecEventList.offerLast(lastXmlSecEvent);
+                lastXmlSecEvent = null;
+            }
             return xmlSecEventList;
         }
 
+        XMLSecEvent removeLastXmlSecEvent() {
+            XMLSecEvent xmlSecEvent = lastXmlSecEvent;
+            lastXmlSecEvent = null;
+            return xmlSecEvent;
+        }
+
+        /**
+         * Deletes the temporary file of the spilled events, if there is one, and reports the
+         * statistics of the buffer to the SecurityMetrics listener.
+         */
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            xmlSecEventList.close();
+            if (xmlSecEventList.getSpilledEventCount() > 0) {
+                LOG.debug("Spilled {} inbound events ({} bytes) to disk, at most {} events were held in memory",
+                          xmlSecEventList.getSpilledEventCount(), xmlSecEventList.getSpilledByteCount(),
+                          xmlSecEventList.getPeakEventsInMemory());
+            }
+            SecurityMetrics.recordBufferReleased(
+                SecurityMetricsListener.Stage.INPUT_PROCESSING, xmlSecEventList.getSpilledEventCount(),
+                xmlSecEventList.getSpilledByteCount(), xmlSecEventList.getPeakEventsInMemory());
+        }
+
         @Override
         public XMLSecEvent processHeaderEvent(InputProcessorChain inputProcessorChain)
                 throws XMLStreamException, XMLSecurityException {
@@ -203,7 +299,14 @@ public class XMLSecurityInputProcessor extends AbstractInputProcessor {
         public XMLSecEvent processEvent(InputProcessorChain inputProcessorChain)
                 throws XMLStreamException, XMLSecurityException {
             XMLSecEvent xmlSecEvent = inputProcessorChain.processEvent();
-            xmlSecEventList.push(xmlSecEvent);
+            if (lastXmlSecEvent != null) {
+                try {
+                    xmlSecEventList.offerLast(lastXmlSecEvent);
+                } catch (UncheckedIOException e) {
+                    throw new XMLSecurityException(e.getCause());
+                }
+            }
+            lastXmlSecEvent = XMLSecEventFactory.materialize(xmlSecEvent);
             return xmlSecEvent;
         }
     }
@@ -213,9 +316,12 @@ public class XMLSecurityInputProcessor extends AbstractInputProcessor {
      */
     public static class InternalReplayProcessor extends AbstractInputProcessor {
 
-        private final ArrayDeque<XMLSecEvent> xmlSecEventList;
+        private final Deque<XMLSecEvent> xmlSecEventList;
 
-        public InternalReplayProcessor(XMLSecurityProperties securityProperties, ArrayDeque<XMLSecEvent> xmlSecEventList) {
+        /**
+         * @param xmlSecEventList the events to replay, the oldest one first
+         */
+        public InternalReplayProcessor(XMLSecurityProperties securityProperties, Deque<XMLSecEvent> xmlSecEventList) {
             super(securityProperties);
             this.xmlSecEventList = xmlSecEventList;
         }
@@ -231,7 +337,7 @@ public class XMLSecurityInputProcessor extends AbstractInputProcessor {
                 throws XMLStreamException, XMLSecurityException {
 
             if (!xmlSecEventList.isEmpty()) {
-                return xmlSecEventList.pollLast();
+                return xmlSecEventList.pollFirst();
             } else {
                 inputProcessorChain.removeProcessor(this);
                 return inputProcessorChain.processEvent();
@@ -26,6 +26,7 @@ import org.apache.xml.security.stax.ext.XMLSecurityConstants;
 import org.apache.xml.security.stax.ext.XMLSecurityProperties;
 import org.apache.xml.security.stax.ext.XMLSecurityUtils;
 import org.apache.xml.security.stax.securityEvent.AlgorithmSuiteSecurityEvent;
+import org.apache.xml.security.stax.securityEvent.SecurityEventConstants;
 import org.apache.xml.security.stax.securityEvent.SignatureValueSecurityEvent;
 import org.apache.xml.security.stax.securityEvent.TokenSecurityEvent;
 import org.apache.xml.security.stax.securityToken.InboundSecurityToken;
@@ -44,16 +45,20 @@ public class XMLSignatureInputHandler extends AbstractSignatureInputHandler {
 
         final InboundSecurityContext inboundSecurityContext = inputProcessorChain.getSecurityContext();
 
-        AlgorithmSuiteSecurityEvent algorithmSuiteSecurityEvent = new AlgorithmSuiteSecurityEvent();
-        algorithmSuiteSecurityEvent.setAlgorithmURI(signatureType.getSignedInfo().getCanonicalizationMethod().getAlgorithm());
-        algorithmSuiteSecurityEvent.setAlgorithmUsage(XMLSecurityConstants.SigC14n);
-        algorithmSuiteSecurityEvent.setCorrelationID(signatureType.getId());
-        inboundSecurityContext.registerSecurityEvent(algorithmSuiteSecurityEvent);
+        if (inboundSecurityContext.isSubscribed(SecurityEventConstants.AlgorithmSuite)) {
+            AlgorithmSuiteSecurityEvent algorithmSuiteSecurityEvent = new AlgorithmSuiteSecurityEvent();
+            algorithmSuiteSecurityEvent.setAlgorithmURI(signatureType.getSignedInfo().getCanonicalizationMethod().getAlgorithm());
+            algorithmSuiteSecurityEvent.setAlgorithmUsage(XMLSecurityConstants.SigC14n);
+            algorithmSuiteSecurityEvent.setCorrelationID(signatureType.getId());
+            inboundSecurityContext.registerSecurityEvent(algorithmSuiteSecurityEvent);
+        }
 
-        SignatureValueSecurityEvent signatureValueSecurityEvent = new SignatureValueSecurityEvent();
-        signatureValueSecurityEvent.setSignatureValue(signatureType.getSignatureValue().getValue());
-        signatureValueSecurityEvent.setCorrelationID(signatureType.getId());
-        inboundSecurityContext.registerSecurityEvent(signatureValueSecurityEvent);
+        if (inboundSecurityContext.isSubscribed(SecurityEventConstants.SignatureValue)) {
+            SignatureValueSecurityEvent signatureValueSecurityEvent = new SignatureValueSecurityEvent();
+            signatureValueSecurityEvent.setSignatureValue(signatureType.getSignatureValue().getValue());
+            signatureValueSecurityEvent.setCorrelationID(signatureType.getId());
+            inboundSecurityContext.registerSecurityEvent(signatureValueSecurityEvent);
+        }
 
         return new XMLSignatureVerifier(signatureType, inboundSecurityContext, securityProperties);
     }
@@ -87,8 +92,10 @@ public class XMLSignatureInputHandler extends AbstractSignatureInputHandler {
 
             inboundSecurityToken.addTokenUsage(SecurityTokenConstants.TokenUsage_Signature);
 
-            TokenSecurityEvent<?> tokenSecurityEvent = XMLSecurityUtils.createTokenSecurityEvent(inboundSecurityToken, signatureType.getId());
-            inboundSecurityContext.registerSecurityEvent(tokenSecurityEvent);
+            if (inboundSecurityContext.isSubscribed(XMLSecurityUtils.getTokenSecurityEventType(inboundSecurityToken))) {
+                TokenSecurityEvent<?> tokenSecurityEvent = XMLSecurityUtils.createTokenSecurityEvent(inboundSecurityToken, signatureType.getId());
+                inboundSecurityContext.registerSecurityEvent(tokenSecurityEvent);
+            }
 
             return inboundSecurityToken;
         }
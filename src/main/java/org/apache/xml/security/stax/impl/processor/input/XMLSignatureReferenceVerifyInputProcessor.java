@@ -30,6 +30,7 @@ import org.apache.xml.security.stax.securityToken.InboundSecurityToken;
 import org.apache.xml.security.stax.ext.InputProcessorChain;
 import org.apache.xml.security.stax.ext.XMLSecurityProperties;
 import org.apache.xml.security.stax.ext.stax.XMLSecEvent;
+import org.apache.xml.security.stax.securityEvent.SecurityEventConstants;
 import org.apache.xml.security.stax.securityEvent.SignedElementSecurityEvent;
 
 /**
@@ -49,13 +50,15 @@ public class XMLSignatureReferenceVerifyInputProcessor extends AbstractSignature
     protected void processElementPath(
             List<QName> elementPath, InputProcessorChain inputProcessorChain, XMLSecEvent xmlSecEvent,
             ReferenceType referenceType) throws XMLSecurityException {
-        final DocumentContext documentContext = inputProcessorChain.getDocumentContext();
-        SignedElementSecurityEvent signedElementSecurityEvent =
-                new SignedElementSecurityEvent(getInboundSecurityToken(), true, documentContext.getProtectionOrder());
-        signedElementSecurityEvent.setElementPath(elementPath);
-        signedElementSecurityEvent.setXmlSecEvent(xmlSecEvent);
-        signedElementSecurityEvent.setCorrelationID(referenceType.getId());
-        inputProcessorChain.getSecurityContext().registerSecurityEvent(signedElementSecurityEvent);
+        if (inputProcessorChain.getSecurityContext().isSubscribed(SecurityEventConstants.SignedElement)) {
+            final DocumentContext documentContext = inputProcessorChain.getDocumentContext();
+            SignedElementSecurityEvent signedElementSecurityEvent =
+                    new SignedElementSecurityEvent(getInboundSecurityToken(), true, documentContext.getProtectionOrder());
+            signedElementSecurityEvent.setElementPath(elementPath);
+            signedElementSecurityEvent.setXmlSecEvent(xmlSecEvent);
+            signedElementSecurityEvent.setCorrelationID(referenceType.getId());
+            inputProcessorChain.getSecurityContext().registerSecurityEvent(signedElementSecurityEvent);
+        }
     }
 
 }
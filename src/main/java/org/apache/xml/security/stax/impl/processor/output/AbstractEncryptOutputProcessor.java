@@ -23,6 +23,7 @@ import java.io.OutputStream;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
 import java.security.spec.AlgorithmParameterSpec;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
@@ -32,14 +33,13 @@ import java.util.List;
 import java.util.Map;
 
 import javax.crypto.Cipher;
-import javax.crypto.CipherOutputStream;
 import javax.crypto.NoSuchPaddingException;
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLEventWriter;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
 
-import org.apache.commons.codec.binary.Base64OutputStream;
+import org.apache.xml.security.algorithms.CipherPool;
 import org.apache.xml.security.algorithms.JCEMapper;
 import org.apache.xml.security.encryption.XMLCipherUtil;
 import org.apache.xml.security.exceptions.XMLSecurityException;
@@ -56,7 +56,9 @@ import org.apache.xml.security.stax.ext.stax.XMLSecEventFactory;
 import org.apache.xml.security.stax.ext.stax.XMLSecStartElement;
 import org.apache.xml.security.stax.impl.EncryptionPartDef;
 import org.apache.xml.security.stax.impl.XMLSecurityEventWriter;
+import org.apache.xml.security.stax.impl.util.BufferedCipherOutputStream;
 import org.apache.xml.security.stax.impl.util.TrimmerOutputStream;
+import org.apache.xml.security.utils.Base64EncodingOutputStream;
 import org.apache.xml.security.utils.XMLUtils;
 
 /**
@@ -73,6 +75,16 @@ public abstract class AbstractEncryptOutputProcessor extends AbstractOutputProce
         wrapperEndElement = XMLSecEventFactory.createXmlSecEndElement(new QName("a"));
     }
 
+    /**
+     * The number of plaintext bytes which are passed to the cipher at once
+     */
+    private static final int CIPHER_BUFFER_SIZE = 8192 * 4;
+
+    /**
+     * The number of base64 characters of the CipherValue per character event
+     */
+    private static final int CHARACTERS_CHUNK_SIZE = 8192 * 2;
+
     private AbstractInternalEncryptionOutputProcessor activeInternalEncryptionOutputProcessor;
 
     public AbstractEncryptOutputProcessor() throws XMLSecurityException {
@@ -135,6 +147,7 @@ public abstract class AbstractEncryptOutputProcessor extends AbstractOutputProce
         private EncryptionPartDef encryptionPartDef;
         private CharacterEventGeneratorOutputStream characterEventGeneratorOutputStream;
         private XMLEventWriter xmlEventWriter;
+        private Cipher symmetricCipher;
         private OutputStream cipherOutputStream;
         private String encoding;
 
@@ -165,7 +178,7 @@ public abstract class AbstractEncryptOutputProcessor extends AbstractOutputProce
                     throw new XMLSecurityException("algorithms.NoSuchMap",
                                                    new Object[] {encryptionSymAlgorithm});
                 }
-                Cipher symmetricCipher = Cipher.getInstance(jceAlgorithm);
+                symmetricCipher = CipherPool.getInstance(encryptionSymAlgorithm, null);
 
                 int ivLen = JCEMapper.getIVLengthFromURI(encryptionSymAlgorithm) / 8;
                 byte[] iv = XMLSecurityConstants.generateBytes(ivLen);
@@ -174,15 +187,18 @@ public abstract class AbstractEncryptOutputProcessor extends AbstractOutputProce
                 symmetricCipher.init(Cipher.ENCRYPT_MODE, encryptionPartDef.getSymmetricKey(), parameterSpec);
 
                 characterEventGeneratorOutputStream = new CharacterEventGeneratorOutputStream();
-                Base64OutputStream base64EncoderStream = null;  //NOPMD
+                Base64EncodingOutputStream base64EncoderStream = null;  //NOPMD
                 if (XMLUtils.isIgnoreLineBreaks()) {
-                    base64EncoderStream = new Base64OutputStream(characterEventGeneratorOutputStream, true, 0, null);
+                    base64EncoderStream = new Base64EncodingOutputStream(characterEventGeneratorOutputStream, 0);
                 } else {
-                    base64EncoderStream = new Base64OutputStream(characterEventGeneratorOutputStream, true);
+                    base64EncoderStream = new Base64EncodingOutputStream(characterEventGeneratorOutputStream);
                 }
                 base64EncoderStream.write(iv);
 
-                OutputStream outputStream = new CipherOutputStream(base64EncoderStream, symmetricCipher);   //NOPMD
+                //the plaintext is encrypted in blocks of CIPHER_BUFFER_SIZE bytes and the base64 encoded
+                //ciphertext is emitted as character events of CHARACTERS_CHUNK_SIZE chars
+                OutputStream outputStream =     //NOPMD
+                    new BufferedCipherOutputStream(base64EncoderStream, symmetricCipher, CIPHER_BUFFER_SIZE);
                 outputStream = applyTransforms(outputStream);
                 //the trimmer output stream is needed to strip away the dummy wrapping element which must be added
                 cipherOutputStream = new TrimmerOutputStream(outputStream, 8192 * 10, 3, 4);
@@ -198,6 +214,8 @@ public abstract class AbstractEncryptOutputProcessor extends AbstractOutputProce
                 throw new XMLSecurityException(e);
             } catch (NoSuchAlgorithmException e) {
                 throw new XMLSecurityException(e);
+            } catch (NoSuchProviderException e) {
+                throw new XMLSecurityException(e);
             } catch (IOException e) {
                 throw new XMLSecurityException(e);
             } catch (XMLStreamException e) {
@@ -237,6 +255,7 @@ public abstract class AbstractEncryptOutputProcessor extends AbstractOutputProce
                         }
                     } else {
                         encryptEvent(xmlSecEvent);
+                        outputCharactersBuffer(outputProcessorChain);
                     }
 
                     this.elementCounter++;
@@ -259,6 +278,7 @@ public abstract class AbstractEncryptOutputProcessor extends AbstractOutputProce
 
                     } else {
                         encryptEvent(xmlSecEvent);
+                        outputCharactersBuffer(outputProcessorChain);
                     }
                     break;
                 default:
@@ -267,16 +287,7 @@ public abstract class AbstractEncryptOutputProcessor extends AbstractOutputProce
                     encryptEvent(xmlSecEvent);
 
                     //push all buffered encrypted character events through the chain
-                    final Deque<XMLSecCharacters> charactersBuffer = characterEventGeneratorOutputStream.getCharactersBuffer();
-                    if (charactersBuffer.size() > 5) {
-                        OutputProcessorChain subOutputProcessorChain = outputProcessorChain.createSubChain(this);
-                        Iterator<XMLSecCharacters> charactersIterator = charactersBuffer.iterator();
-                        while (charactersIterator.hasNext()) {
-                            XMLSecCharacters characters = charactersIterator.next();
-                            outputAsEvent(subOutputProcessorChain, characters);
-                            charactersIterator.remove();
-                        }
-                    }
+                    outputCharactersBuffer(outputProcessorChain);
                     break;
             }
         }
@@ -285,6 +296,18 @@ public abstract class AbstractEncryptOutputProcessor extends AbstractOutputProce
             xmlEventWriter.add(xmlSecEvent);
         }
 
+        private void outputCharactersBuffer(OutputProcessorChain outputProcessorChain)
+                throws XMLStreamException, XMLSecurityException {
+            final Deque<XMLSecCharacters> charactersBuffer = characterEventGeneratorOutputStream.getCharactersBuffer();
+            if (!charactersBuffer.isEmpty()) {
+                OutputProcessorChain subOutputProcessorChain = outputProcessorChain.createSubChain(this);
+                XMLSecCharacters characters;
+                while ((characters = charactersBuffer.poll()) != null) {
+                    outputAsEvent(subOutputProcessorChain, characters);
+                }
+            }
+        }
+
         /**
          * Creates the Data structure around the cipher data
          */
@@ -339,16 +362,13 @@ public abstract class AbstractEncryptOutputProcessor extends AbstractOutputProce
             } catch (IOException e) {
                 throw new XMLStreamException(e);
             }
+            CipherPool.release(securityProperties.getEncryptionSymAlgorithm(), null, symmetricCipher);
 
             //push all buffered encrypted character events through the chain
             final Deque<XMLSecCharacters> charactersBuffer = characterEventGeneratorOutputStream.getCharactersBuffer();
-            if (!charactersBuffer.isEmpty()) {
-                Iterator<XMLSecCharacters> charactersIterator = charactersBuffer.iterator();
-                while (charactersIterator.hasNext()) {
-                    XMLSecCharacters characters = charactersIterator.next();
-                    outputAsEvent(outputProcessorChain, characters);
-                    charactersIterator.remove();
-                }
+            XMLSecCharacters characters;
+            while ((characters = charactersBuffer.poll()) != null) {
+                outputAsEvent(outputProcessorChain, characters);
             }
 
             createEndElementAndOutputAsEvent(outputProcessorChain, XMLSecurityConstants.TAG_xenc_CipherValue);
@@ -382,11 +402,15 @@ public abstract class AbstractEncryptOutputProcessor extends AbstractOutputProce
     }
 
     /**
-     * Creates Character-XMLEvents from the byte stream
+     * Creates Character-XMLEvents from the base64 encoded byte stream. The characters are collected
+     * in chunks of CHARACTERS_CHUNK_SIZE chars, a character event is created per full chunk and
+     * for the remaining characters when the stream is closed.
      */
     public class CharacterEventGeneratorOutputStream extends OutputStream {
 
         private final Deque<XMLSecCharacters> charactersBuffer = new ArrayDeque<>();
+        private char[] chunk = new char[CHARACTERS_CHUNK_SIZE];
+        private int chunkLength;
 
         public Deque<XMLSecCharacters> getCharactersBuffer() {
             return charactersBuffer;
@@ -394,25 +418,45 @@ public abstract class AbstractEncryptOutputProcessor extends AbstractOutputProce
 
         @Override
         public void write(int b) throws IOException {
-            charactersBuffer.offer(createCharacters(new char[]{(char)b}));
+            if (chunkLength == chunk.length) {
+                offerChunk();
+            }
+            chunk[chunkLength++] = (char) (b & 0xFF);
         }
 
         @Override
-        public void write(byte[] b) throws IOException {
-            charactersBuffer.offer(createCharacters(byteToCharArray(b, 0, b.length)));
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (off < 0 || len < 0 || len > b.length - off) {
+                throw new IndexOutOfBoundsException();
+            }
+            int end = off + len;
+            while (off < end) {
+                if (chunkLength == chunk.length) {
+                    offerChunk();
+                }
+                int length = Math.min(end - off, chunk.length - chunkLength);
+                //base64 is ASCII, so every byte is a char
+                for (int i = 0; i < length; i++) {
+                    chunk[chunkLength + i] = (char) (b[off + i] & 0xFF);
+                }
+                chunkLength += length;
+                off += length;
+            }
         }
 
         @Override
-        public void write(byte[] b, int off, int len) throws IOException {
-            charactersBuffer.offer(createCharacters(byteToCharArray(b, off, len)));
+        public void close() throws IOException {
+            if (chunkLength > 0) {
+                charactersBuffer.offer(XMLSecEventFactory.createXmlSecCharacters(chunk, 0, chunkLength));
+                chunkLength = 0;
+            }
         }
-    }
 
-    private char[] byteToCharArray(byte[]  bytes, int off, int len) {
-        char[] chars = new char[len - off];
-        for (int i = off; i < len; i++) {
-            chars[i] = (char)bytes[i];
+        private void offerChunk() {
+            //the event takes over the full chunk, the events are buffered further down the chain
+            charactersBuffer.offer(createCharacters(chunk));
+            chunk = new char[CHARACTERS_CHUNK_SIZE];
+            chunkLength = 0;
         }
-        return chars;
     }
 }
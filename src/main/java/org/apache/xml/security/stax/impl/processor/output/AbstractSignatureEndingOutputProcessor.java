@@ -126,7 +126,7 @@ public abstract class AbstractSignatureEndingOutputProcessor extends AbstractBuf
         SignatureAlgorithm signatureAlgorithm;
         try {
             signatureAlgorithm = SignatureAlgorithmFactory.getInstance().getSignatureAlgorithm(
-                    getSecurityProperties().getSignatureAlgorithm());
+                    getSecurityProperties().getSignatureAlgorithm(), getSecurityProperties().getEngineReuse());
             if (getSecurityProperties().getAlgorithmParameterSpec() != null) {
                 signatureAlgorithm.engineSetParameter(getSecurityProperties().getAlgorithmParameterSpec());
             }
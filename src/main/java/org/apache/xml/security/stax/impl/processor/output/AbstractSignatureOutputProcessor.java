@@ -49,6 +49,7 @@ import org.apache.xml.security.stax.ext.stax.XMLSecStartElement;
 import org.apache.xml.security.stax.impl.SignaturePartDef;
 import org.apache.xml.security.stax.impl.transformer.TransformIdentity;
 import org.apache.xml.security.stax.impl.transformer.canonicalizer.Canonicalizer20010315_Excl;
+import org.apache.xml.security.stax.impl.algorithms.JCEEngineCache;
 import org.apache.xml.security.stax.impl.util.DigestOutputStream;
 import org.apache.xml.security.utils.UnsyncBufferedOutputStream;
 import org.apache.xml.security.utils.XMLUtils;
@@ -113,7 +114,6 @@ public abstract class AbstractSignatureOutputProcessor extends AbstractOutputPro
         }
 
         DigestOutputStream digestOutputStream = createMessageDigestOutputStream(digestAlgo);    //NOPMD
-        InputStream inputStream = resourceResolver.getInputStreamFromExternalReference();   //NOPMD
 
         SignaturePartDef signaturePartDef = new SignaturePartDef();
         signaturePartDef.setSecurePart(securePart);
@@ -122,7 +122,7 @@ public abstract class AbstractSignatureOutputProcessor extends AbstractOutputPro
         signaturePartDef.setTransforms(securePart.getTransforms());
         signaturePartDef.setDigestAlgo(digestAlgo);
 
-        try {
+        try (InputStream inputStream = resourceResolver.getInputStreamFromExternalReference()) {
             if (securePart.getTransforms() != null) {
                 signaturePartDef.setExcludeVisibleC14Nprefixes(true);
                 Transformer transformer = buildTransformerChain(digestOutputStream, signaturePartDef, null);
@@ -188,17 +188,15 @@ public abstract class AbstractSignatureOutputProcessor extends AbstractOutputPro
             throw new XMLSecurityException("algorithms.NoSuchMap",
                                            new Object[] {digestAlgorithm});
         }
-        MessageDigest messageDigest;
+        final XMLSecurityConstants.EngineReuse engineReuse = getSecurityProperties().getEngineReuse();
+        final MessageDigest messageDigest;
         try {
-            if (jceProvider != null) {
-                messageDigest = MessageDigest.getInstance(jceName, jceProvider);
-            } else {
-                messageDigest = MessageDigest.getInstance(jceName);
-            }
+            messageDigest = JCEEngineCache.getMessageDigest(jceName, jceProvider, engineReuse);
         } catch (NoSuchAlgorithmException | NoSuchProviderException e) {
             throw new XMLSecurityException(e);
         }
-        return new DigestOutputStream(messageDigest);
+        return new DigestOutputStream(messageDigest,
+            () -> JCEEngineCache.releaseMessageDigest(jceName, jceProvider, engineReuse, messageDigest));
     }
 
     protected Transformer buildTransformerChain(OutputStream outputStream,
@@ -36,6 +36,7 @@ import org.apache.xml.security.stax.ext.stax.XMLSecStartElement;
 import org.apache.xml.security.stax.impl.SignaturePartDef;
 import org.apache.xml.security.stax.impl.algorithms.SignatureAlgorithm;
 import org.apache.xml.security.stax.securityToken.OutboundSecurityToken;
+import org.apache.xml.security.stax.securityEvent.SecurityEventConstants;
 import org.apache.xml.security.stax.securityEvent.SignatureValueSecurityEvent;
 import org.apache.xml.security.stax.securityToken.SecurityTokenConstants;
 
@@ -69,10 +70,12 @@ public class XMLSignatureEndingOutputProcessor extends AbstractSignatureEndingOu
     @Override
     public void processHeaderEvent(OutputProcessorChain outputProcessorChain) throws XMLStreamException, XMLSecurityException {
         super.processHeaderEvent(outputProcessorChain);
-        SignatureValueSecurityEvent signatureValueSecurityEvent = new SignatureValueSecurityEvent();
-        signatureValueSecurityEvent.setSignatureValue(this.signedInfoProcessor.getSignatureValue());
-        signatureValueSecurityEvent.setCorrelationID(this.signedInfoProcessor.getSignatureId());
-        outputProcessorChain.getSecurityContext().registerSecurityEvent(signatureValueSecurityEvent);
+        if (outputProcessorChain.getSecurityContext().isSubscribed(SecurityEventConstants.SignatureValue)) {
+            SignatureValueSecurityEvent signatureValueSecurityEvent = new SignatureValueSecurityEvent();
+            signatureValueSecurityEvent.setSignatureValue(this.signedInfoProcessor.getSignatureValue());
+            signatureValueSecurityEvent.setCorrelationID(this.signedInfoProcessor.getSignatureId());
+            outputProcessorChain.getSecurityContext().registerSecurityEvent(signatureValueSecurityEvent);
+        }
     }
 
     @Override
@@ -21,17 +21,23 @@ package org.apache.xml.security.stax.impl.resourceResolvers;
 import org.apache.xml.security.exceptions.XMLSecurityException;
 import org.apache.xml.security.stax.ext.ResourceResolver;
 import org.apache.xml.security.stax.ext.ResourceResolverLookup;
+import org.apache.xml.security.stax.ext.VersionedResourceResolver;
 import org.apache.xml.security.stax.ext.stax.XMLSecStartElement;
+import org.apache.xml.security.utils.ExternalDigestCache;
 
 import java.io.InputStream;
 import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
 
 /**
  * Resolver for local filesystem resources. Use the standard java security-manager to
  * restrict filesystem accesses.
  *
  */
-public class ResolverFilesystem implements ResourceResolver, ResourceResolverLookup {
+public class ResolverFilesystem implements VersionedResourceResolver, ResourceResolverLookup {
 
     private String uri;
     private String baseURI;
@@ -73,19 +79,41 @@ public class ResolverFilesystem implements ResourceResolver, ResourceResolverLoo
     @Override
     public InputStream getInputStreamFromExternalReference() throws XMLSecurityException {
         try {
-            URI tmp;
-            if (baseURI == null || baseURI.length() == 0) {
-                tmp = new URI(uri);
-            } else {
-                tmp = new URI(baseURI).resolve(uri);
-            }
+            return getResolvedURI().toURL().openStream();
+        } catch (Exception e) {
+            throw new XMLSecurityException(e);
+        }
+    }
 
-            if (tmp.getFragment() != null) {
-                tmp = new URI(tmp.getScheme(), tmp.getSchemeSpecificPart(), null);
+    /**
+     * The version of a file is its size and its last modification time.
+     */
+    @Override
+    public ExternalDigestCache.ResourceVersion getResourceVersion() throws XMLSecurityException {
+        try {
+            URI tmp = getResolvedURI();
+            if (!"file".equalsIgnoreCase(tmp.getScheme())) {
+                return null;
             }
-            return tmp.toURL().openStream();
+            BasicFileAttributes attributes = Files.readAttributes(Paths.get(tmp), BasicFileAttributes.class);
+            return new ExternalDigestCache.ResourceVersion(
+                tmp.toString(), attributes.size() + "/" + attributes.lastModifiedTime());
         } catch (Exception e) {
             throw new XMLSecurityException(e);
         }
     }
+
+    protected URI getResolvedURI() throws URISyntaxException {
+        URI tmp;
+        if (baseURI == null || baseURI.length() == 0) {
+            tmp = new URI(uri);
+        } else {
+            tmp = new URI(baseURI).resolve(uri);
+        }
+
+        if (tmp.getFragment() != null) {
+            tmp = new URI(tmp.getScheme(), tmp.getSchemeSpecificPart(), null);
+        }
+        return tmp;
+    }
 }
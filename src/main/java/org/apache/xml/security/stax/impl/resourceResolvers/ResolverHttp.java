@@ -21,7 +21,9 @@ package org.apache.xml.security.stax.impl.resourceResolvers;
 import org.apache.xml.security.exceptions.XMLSecurityException;
 import org.apache.xml.security.stax.ext.ResourceResolver;
 import org.apache.xml.security.stax.ext.ResourceResolverLookup;
+import org.apache.xml.security.stax.ext.VersionedResourceResolver;
 import org.apache.xml.security.stax.ext.stax.XMLSecStartElement;
+import org.apache.xml.security.utils.ExternalDigestCache;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -32,7 +34,7 @@ import java.util.regex.Pattern;
  * Resolver for external http[s] resources.
  *
  */
-public class ResolverHttp implements ResourceResolver, ResourceResolverLookup {
+public class ResolverHttp implements VersionedResourceResolver, ResourceResolverLookup {
 
     private static Proxy proxy;
 
@@ -81,26 +83,64 @@ public class ResolverHttp implements ResourceResolver, ResourceResolverLookup {
     @Override
     public InputStream getInputStreamFromExternalReference() throws XMLSecurityException {
         try {
-            URI tmp;
-            if (baseURI == null || baseURI.length() == 0) {
-                tmp = new URI(uri);
-            } else {
-                tmp = new URI(baseURI).resolve(uri);
-            }
+            return openConnection(getResolvedURI()).getInputStream();
+        } catch (URISyntaxException | IOException e) {
+            throw new XMLSecurityException(e);
+        }
+    }
 
-            if (tmp.getFragment() != null) {
-                tmp = new URI(tmp.getScheme(), tmp.getSchemeSpecificPart(), null);
-            }
-            URL url = tmp.toURL();
-            HttpURLConnection urlConnection;
-            if (proxy != null) {
-                urlConnection = (HttpURLConnection)url.openConnection(proxy);
-            } else {
-                urlConnection = (HttpURLConnection)url.openConnection();
+    /**
+     * The version of a resource is its strong ETag or, if there is none, its Last-Modified date
+     * and Content-Length, as returned for a HEAD request.
+     */
+    @Override
+    public ExternalDigestCache.ResourceVersion getResourceVersion() throws XMLSecurityException {
+        try {
+            URI tmp = getResolvedURI();
+            HttpURLConnection urlConnection = openConnection(tmp);
+            try {
+                urlConnection.setRequestMethod("HEAD");
+                if (urlConnection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                    return null;
+                }
+                // a weak ETag doesn't guarantee the same bytes
+                String eTag = urlConnection.getHeaderField("ETag");
+                if (eTag != null && !eTag.startsWith("W/")) {
+                    return new ExternalDigestCache.ResourceVersion(tmp.toString(), "ETag " + eTag);
+                }
+                String lastModified = urlConnection.getHeaderField("Last-Modified");
+                if (lastModified == null) {
+                    return null;
+                }
+                return new ExternalDigestCache.ResourceVersion(tmp.toString(),
+                    "Last-Modified " + lastModified + "/" + urlConnection.getHeaderField("Content-Length"));
+            } finally {
+                urlConnection.disconnect();
             }
-            return urlConnection.getInputStream();
         } catch (URISyntaxException | IOException e) {
             throw new XMLSecurityException(e);
         }
     }
+
+    private URI getResolvedURI() throws URISyntaxException {
+        URI tmp;
+        if (baseURI == null || baseURI.length() == 0) {
+            tmp = new URI(uri);
+        } else {
+            tmp = new URI(baseURI).resolve(uri);
+        }
+
+        if (tmp.getFragment() != null) {
+            tmp = new URI(tmp.getScheme(), tmp.getSchemeSpecificPart(), null);
+        }
+        return tmp;
+    }
+
+    private static HttpURLConnection openConnection(URI uri) throws IOException {
+        URL url = uri.toURL();
+        if (proxy != null) {
+            return (HttpURLConnection)url.openConnection(proxy);
+        }
+        return (HttpURLConnection)url.openConnection();
+    }
 }
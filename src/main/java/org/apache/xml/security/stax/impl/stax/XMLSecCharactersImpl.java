@@ -25,6 +25,7 @@ import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
 import java.io.IOException;
 import java.io.Writer;
+import java.util.Arrays;
 
 /**
  */
@@ -32,6 +33,10 @@ public class XMLSecCharactersImpl extends XMLSecEventBaseImpl implements XMLSecC
 
     private String data;
     private char[] text;
+    // the range of the text, which is a transient buffer of the XMLStreamReader as long as borrowed is true
+    private int textStart;
+    private int textLength = -1;
+    private boolean borrowed;
     private final boolean isCData;
     private final boolean isIgnorableWhiteSpace;
     private final boolean isWhiteSpace;
@@ -52,10 +57,35 @@ public class XMLSecCharactersImpl extends XMLSecEventBaseImpl implements XMLSecC
         setParentXMLSecStartElement(parentXmlSecStartElement);
     }
 
+    /**
+     * Creates a characters event which refers to the text buffer of an XMLStreamReader instead of
+     * a copy of it. The buffer is only valid until the reader moves on, so the event must be
+     * materialized before, if it is kept any longer.
+     *
+     * @see #materialize()
+     */
+    public XMLSecCharactersImpl(char[] buffer, int start, int length, boolean isWhiteSpace, XMLSecStartElement parentXmlSecStartElement) {
+        this(buffer, false, false, isWhiteSpace, parentXmlSecStartElement);
+        this.textStart = start;
+        this.textLength = length;
+        this.borrowed = true;
+    }
+
+    /**
+     * Copies the text out of the buffer of the XMLStreamReader, if the event still refers to it.
+     */
+    public void materialize() {
+        if (borrowed) {
+            text = data != null ? data.toCharArray() : Arrays.copyOfRange(text, textStart, textStart + textLength);
+            textStart = 0;
+            borrowed = false;
+        }
+    }
+
     @Override
     public String getData() {
         if (data == null) {
-            data = new String(text);
+            data = borrowed ? new String(text, textStart, textLength) : new String(text);
         }
         return data;
     }
@@ -65,9 +95,32 @@ public class XMLSecCharactersImpl extends XMLSecEventBaseImpl implements XMLSecC
         if (text == null) {
             text = data.toCharArray();
         }
+        materialize();
         return text;
     }
 
+    @Override
+    public int getTextLength() {
+        if (textLength >= 0) {
+            return textLength;
+        }
+        return text != null ? text.length : data.length();
+    }
+
+    @Override
+    public int getTextCharacters(int sourceStart, char[] target, int targetStart, int length) {
+        int copied = Math.min(length, getTextLength() - sourceStart);
+        if (copied <= 0) {
+            return 0;
+        }
+        if (text != null) {
+            System.arraycopy(text, textStart + sourceStart, target, targetStart, copied);
+        } else {
+            data.getChars(sourceStart, sourceStart + copied, target, targetStart);
+        }
+        return copied;
+    }
+
     @Override
     public boolean isWhiteSpace() {
         return isWhiteSpace;
@@ -19,6 +19,7 @@
 package org.apache.xml.security.stax.impl.stax;
 
 import org.apache.xml.security.stax.ext.stax.XMLSecNamespace;
+import org.apache.xml.security.utils.BoundedCache;
 
 import javax.xml.XMLConstants;
 import javax.xml.namespace.QName;
@@ -26,9 +27,8 @@ import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
 import java.io.IOException;
 import java.io.Writer;
-import java.util.Collections;
-import java.util.Map;
-import java.util.WeakHashMap;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
 
 /**
  * Class to let XML-Namespaces be comparable how it is requested by C14N
@@ -36,8 +36,13 @@ import java.util.WeakHashMap;
  */
 public final class XMLSecNamespaceImpl extends XMLSecEventBaseImpl implements XMLSecNamespace {
 
-    private static final Map<String, Map<String, XMLSecNamespace>> XMLSEC_NS_MAP =
-            Collections.synchronizedMap(new WeakHashMap<String, Map<String, XMLSecNamespace>>());
+    /**
+     * Caches the XMLSecNamespace instances per prefix and namespace URI. The size can be set with the
+     * system property <code>org.apache.xml.security.stax.namespace-cache-size</code> (default 1024).
+     */
+    private static final BoundedCache<NamespaceKey, XMLSecNamespace> XMLSEC_NS_CACHE =
+        new BoundedCache<>(AccessController.doPrivileged(
+            (PrivilegedAction<Integer>) () -> Integer.getInteger("org.apache.xml.security.stax.namespace-cache-size", 1024)));
 
     private String prefix;
     private final String uri;
@@ -58,23 +63,19 @@ public final class XMLSecNamespaceImpl extends XMLSecEventBaseImpl implements XM
         if (uriToUse == null) {
             uriToUse = "";
         }
-        Map<String, XMLSecNamespace> nsMap = XMLSEC_NS_MAP.get(prefixToUse);
-        if (nsMap != null) {
-            XMLSecNamespace xmlSecNamespace = nsMap.get(uriToUse);
-            if (xmlSecNamespace != null) {
-                return xmlSecNamespace;
-            } else {
-                xmlSecNamespace = new XMLSecNamespaceImpl(prefixToUse, uriToUse);
-                nsMap.put(uriToUse, xmlSecNamespace);
-                return xmlSecNamespace;
-            }
-        } else {
-            nsMap = new WeakHashMap<>();
-            XMLSecNamespace xmlSecNamespace = new XMLSecNamespaceImpl(prefixToUse, uriToUse);
-            nsMap.put(uriToUse, xmlSecNamespace);
-            XMLSEC_NS_MAP.put(prefixToUse, nsMap);
-            return xmlSecNamespace;
+        NamespaceKey namespaceKey = new NamespaceKey(prefixToUse, uriToUse);
+        XMLSecNamespace xmlSecNamespace = XMLSEC_NS_CACHE.get(namespaceKey);
+        if (xmlSecNamespace == null) {
+            xmlSecNamespace = XMLSEC_NS_CACHE.putIfAbsent(namespaceKey, new XMLSecNamespaceImpl(prefixToUse, uriToUse));
         }
+        return xmlSecNamespace;
+    }
+
+    /**
+     * Returns the cache of XMLSecNamespace instances, e.g. to monitor its statistics.
+     */
+    public static BoundedCache<?, XMLSecNamespace> getNamespaceCache() {
+        return XMLSEC_NS_CACHE;
     }
 
     @Override
@@ -196,4 +197,28 @@ public final class XMLSecNamespaceImpl extends XMLSecEventBaseImpl implements XM
         }
         return "xmlns:" + this.prefix + "=\"" + this.uri + "\"";
     }
+
+    private static final class NamespaceKey {
+        private final String prefix;
+        private final String uri;
+
+        NamespaceKey(String prefix, String uri) {
+            this.prefix = prefix;
+            this.uri = uri;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof NamespaceKey)) {
+                return false;
+            }
+            NamespaceKey namespaceKey = (NamespaceKey) obj;
+            return prefix.equals(namespaceKey.prefix) && uri.equals(namespaceKey.uri);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * prefix.hashCode() + uri.hashCode();
+        }
+    }
 }
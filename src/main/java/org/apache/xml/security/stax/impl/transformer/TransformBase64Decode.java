@@ -18,12 +18,12 @@
  */
 package org.apache.xml.security.stax.impl.transformer;
 
-import org.apache.commons.codec.binary.Base64InputStream;
-import org.apache.commons.codec.binary.Base64OutputStream;
 import org.apache.xml.security.exceptions.XMLSecurityException;
 import org.apache.xml.security.stax.ext.XMLSecurityConstants;
 import org.apache.xml.security.stax.ext.stax.XMLSecEvent;
 import org.apache.xml.security.stax.impl.processor.input.XMLEventReaderInputProcessor;
+import org.apache.xml.security.utils.Base64DecodingInputStream;
+import org.apache.xml.security.utils.Base64DecodingOutputStream;
 import org.apache.xml.security.utils.UnsyncByteArrayInputStream;
 import org.apache.xml.security.utils.UnsyncByteArrayOutputStream;
 
@@ -36,19 +36,19 @@ import java.io.*;
 public class TransformBase64Decode extends TransformIdentity {
 
     private ChildOutputMethod childOutputMethod;
+    private Base64DecodingOutputStream base64DecodingOutputStream;
 
     @Override
     public void setOutputStream(OutputStream outputStream) throws XMLSecurityException {
-        super.setOutputStream(new Base64OutputStream(
+        base64DecodingOutputStream = new Base64DecodingOutputStream(
                 new FilterOutputStream(outputStream) {
                     @Override
                     public void close() throws IOException {
                         //do not close the parent output stream!
                         super.flush();
                     }
-                },
-                false)
-        );
+                });
+        super.setOutputStream(base64DecodingOutputStream);
     }
 
     @Override
@@ -68,10 +68,10 @@ public class TransformBase64Decode extends TransformIdentity {
         int eventType = xmlSecEvent.getEventType();
         if (XMLStreamConstants.CHARACTERS == eventType) {
             if (getOutputStream() != null) {
-                //we have an output stream
-                //encoding shouldn't matter here, because the data is Base64 encoded and is therefore in the ASCII range.
+                //we have an output stream, the characters are decoded directly
                 try {
-                    getOutputStream().write(xmlSecEvent.asCharacters().getData().getBytes());
+                    char[] text = xmlSecEvent.asCharacters().getText();
+                    base64DecodingOutputStream.write(text, 0, text.length);
                 } catch (IOException e) {
                     throw new XMLStreamException(e);
                 }
@@ -86,13 +86,13 @@ public class TransformBase64Decode extends TransformIdentity {
                         childOutputMethod = new ChildOutputMethod() {
 
                             private UnsyncByteArrayOutputStream byteArrayOutputStream;
-                            private Base64OutputStream base64OutputStream;
+                            private Base64DecodingOutputStream base64OutputStream;
 
                             @Override
                             public void transform(Object object) throws XMLStreamException {
                                 if (base64OutputStream == null) {
                                     byteArrayOutputStream = new UnsyncByteArrayOutputStream();
-                                    base64OutputStream = new Base64OutputStream(byteArrayOutputStream, false);
+                                    base64OutputStream = new Base64DecodingOutputStream(byteArrayOutputStream);
                                 }
                                 try {
                                     base64OutputStream.write((byte[]) object);
@@ -129,13 +129,13 @@ public class TransformBase64Decode extends TransformIdentity {
                         childOutputMethod = new ChildOutputMethod() {
 
                             private UnsyncByteArrayOutputStream byteArrayOutputStream;
-                            private Base64OutputStream base64OutputStream;
+                            private Base64DecodingOutputStream base64OutputStream;
 
                             @Override
                             public void transform(Object object) throws XMLStreamException {
                                 if (base64OutputStream == null) {
                                     byteArrayOutputStream = new UnsyncByteArrayOutputStream();
-                                    base64OutputStream = new Base64OutputStream(byteArrayOutputStream, false);
+                                    base64OutputStream = new Base64DecodingOutputStream(byteArrayOutputStream);
                                 }
                                 try {
                                     base64OutputStream.write((byte[]) object);
@@ -173,7 +173,7 @@ public class TransformBase64Decode extends TransformIdentity {
         if (getOutputStream() != null) {
             super.transform(inputStream);
         } else {
-            super.transform(new Base64InputStream(inputStream, false));
+            super.transform(new Base64DecodingInputStream(inputStream));
         }
     }
 
@@ -21,13 +21,14 @@ package org.apache.xml.security.stax.impl.transformer.canonicalizer;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.WeakHashMap;
 
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLStreamConstants;
@@ -48,6 +49,7 @@ import org.apache.xml.security.stax.ext.stax.XMLSecProcessingInstruction;
 import org.apache.xml.security.stax.ext.stax.XMLSecStartElement;
 import org.apache.xml.security.stax.impl.processor.input.XMLEventReaderInputProcessor;
 import org.apache.xml.security.stax.impl.transformer.TransformIdentity;
+import org.apache.xml.security.utils.BoundedCache;
 import org.apache.xml.security.utils.UnsyncByteArrayInputStream;
 import org.apache.xml.security.utils.UnsyncByteArrayOutputStream;
 
@@ -80,7 +82,13 @@ public abstract class CanonicalizerBase extends TransformIdentity {
         NODE_AFTER_DOCUMENT_ELEMENT
     }
 
-    private static final Map<String, byte[]> CACHE = Collections.synchronizedMap(new WeakHashMap<String, byte[]>());
+    /**
+     * Caches the UTF-8 encoding of element and attribute names and prefixes. The size can be set with the
+     * system property <code>org.apache.xml.security.stax.c14n.name-cache-size</code> (default 1024).
+     */
+    private static final BoundedCache<String, byte[]> CACHE =
+        new BoundedCache<>(AccessController.doPrivileged(
+            (PrivilegedAction<Integer>) () -> Integer.getInteger("org.apache.xml.security.stax.c14n.name-cache-size", 1024)));
     private final C14NStack<XMLSecEvent> outputStack = new C14NStack<>();
     private boolean includeComments = false;
     private DocumentLevel currentDocumentLevel = DocumentLevel.NODE_BEFORE_DOCUMENT_ELEMENT;
@@ -91,6 +99,14 @@ public abstract class CanonicalizerBase extends TransformIdentity {
         this.includeComments = includeComments;
     }
 
+    /**
+     * Returns the cache of UTF-8 encoded names shared by all canonicalizers. The cached arrays are
+     * written as they are, so the cache is not exposed outside of this package.
+     */
+    static BoundedCache<String, byte[]> getNameCache() {
+        return CACHE;
+    }
+
     @Override
     public void setProperties(Map<String, Object> properties) throws XMLSecurityException {
         throw new UnsupportedOperationException("InclusiveNamespace-PrefixList not supported");
@@ -300,9 +316,9 @@ public abstract class CanonicalizerBase extends TransformIdentity {
                             }
 
                             if (xmlSecNamespace.isDefaultNamespaceDeclaration()) {
-                                outputAttrToWriter(null, XMLNS, xmlSecNamespace.getNamespaceURI(), outputStream, CACHE);
+                                outputAttrToWriter(null, XMLNS, xmlSecNamespace.getNamespaceURI(), outputStream, null);
                             } else {
-                                outputAttrToWriter(XMLNS, xmlSecNamespace.getPrefix(), xmlSecNamespace.getNamespaceURI(), outputStream, CACHE);
+                                outputAttrToWriter(XMLNS, xmlSecNamespace.getPrefix(), xmlSecNamespace.getNamespaceURI(), outputStream, null);
                             }
                         }
                     }
@@ -315,9 +331,9 @@ public abstract class CanonicalizerBase extends TransformIdentity {
                             final QName attributeName = xmlSecAttribute.getName();
                             final String attributeNamePrefix = attributeName.getPrefix();
                             if (attributeNamePrefix != null && !attributeNamePrefix.isEmpty()) {
-                                outputAttrToWriter(attributeNamePrefix, attributeName.getLocalPart(), xmlSecAttribute.getValue(), outputStream, CACHE);
+                                outputAttrToWriter(attributeNamePrefix, attributeName.getLocalPart(), xmlSecAttribute.getValue(), outputStream, null);
                             } else {
-                                outputAttrToWriter(null, attributeName.getLocalPart(), xmlSecAttribute.getValue(), outputStream, CACHE);
+                                outputAttrToWriter(null, attributeName.getLocalPart(), xmlSecAttribute.getValue(), outputStream, null);
                             }
                         }
                     }
@@ -415,21 +431,43 @@ public abstract class CanonicalizerBase extends TransformIdentity {
         }
     }
 
+    /**
+     * Outputs an attribute to the internal Writer.
+     *
+     * @param prefix the prefix of the attribute name, or null
+     * @param name the local name of the attribute
+     * @param value the value of the attribute
+     * @param writer writer where to write the things
+     * @param cache the cache of the UTF-8 encoded names, or null to use the cache shared by all
+     *    canonicalizers
+     * @throws IOException
+     */
     protected static void outputAttrToWriter(final String prefix, final String name, final String value, final OutputStream writer,
-                                             final Map<String, byte[]> CACHE) throws IOException {
+                                             final Map<String, byte[]> cache) throws IOException {
         writer.write(' ');
         if (prefix != null) {
-            UtfHelpper.writeByte(prefix, writer, CACHE);
+            writeName(prefix, writer, cache);
             UtfHelpper.writeCodePointToUtf8(DOUBLEPOINT, writer);
         }
-        UtfHelpper.writeByte(name, writer, CACHE);
+        writeName(name, writer, cache);
+        outputAttrValueToWriter(value, writer);
+    }
+
+    private static void writeName(final String name, final OutputStream writer, final Map<String, byte[]> cache)
+        throws IOException {
+        if (cache != null) {
+            UtfHelpper.writeByte(name, writer, cache);
+        } else {
+            UtfHelpper.writeByte(name, writer, CACHE);
+        }
+    }
+
+    private static void outputAttrValueToWriter(final String value, final OutputStream writer) throws IOException {
         writer.write(EQUAL_STRING);
-        byte[] toWrite;
         final int length = value.length();
-        int i = 0;
-        while (i < length) {
-            final int c = value.codePointAt(i);
-            i += Character.charCount(c);
+        byte[] toWrite;
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
 
             switch (c) {
 
@@ -461,7 +499,9 @@ public abstract class CanonicalizerBase extends TransformIdentity {
                     if (c < 0x80) {
                         writer.write(c);
                     } else {
-                        UtfHelpper.writeCodePointToUtf8(c, writer);
+                        final int codePoint = value.codePointAt(i);
+                        i += Character.charCount(codePoint) - 1;
+                        UtfHelpper.writeCodePointToUtf8(codePoint, writer);
                     }
                     continue;
             }
@@ -481,9 +521,8 @@ public abstract class CanonicalizerBase extends TransformIdentity {
     protected static void outputTextToWriter(final String text, final OutputStream writer) throws IOException {
         final int length = text.length();
         byte[] toWrite;
-        for (int i = 0; i < length; ) {
-            final int c = text.codePointAt(i);
-            i += Character.charCount(c);
+        for (int i = 0; i < length; i++) {
+            final char c = text.charAt(i);
 
             switch (c) {
 
@@ -507,7 +546,9 @@ public abstract class CanonicalizerBase extends TransformIdentity {
                     if (c < 0x80) {
                         writer.write(c);
                     } else {
-                        UtfHelpper.writeCodePointToUtf8(c, writer);
+                        final int codePoint = text.codePointAt(i);
+                        i += Character.charCount(codePoint) - 1;
+                        UtfHelpper.writeCodePointToUtf8(codePoint, writer);
                     }
                     continue;
             }
@@ -0,0 +1,129 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.stax.impl.util;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+
+import javax.crypto.Cipher;
+
+/**
+ * An OutputStream which encrypts or decrypts the bytes written to it with an initialized Cipher.
+ * Unlike the javax.crypto.CipherOutputStream, the bytes are collected and passed to
+ * Cipher.update(ByteBuffer, ByteBuffer) in blocks of the buffer size, and the input and output
+ * buffers are reused. A write of at least the buffer size is passed to the Cipher as it is.
+ * Closing the stream calls Cipher.doFinal() and closes the underlying OutputStream.
+ */
+public class BufferedCipherOutputStream extends FilterOutputStream {
+
+    private final Cipher cipher;
+    private final ByteBuffer input;
+    private ByteBuffer output;
+    private boolean closed;
+
+    public BufferedCipherOutputStream(OutputStream out, Cipher cipher, int bufferSize) {
+        super(out);
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize <= 0");
+        }
+        this.cipher = cipher;
+        this.input = ByteBuffer.allocate(bufferSize);
+        this.output = ByteBuffer.allocate(cipher.getOutputSize(bufferSize));
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (!input.hasRemaining()) {
+            update();
+        }
+        input.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (input.position() == 0 && len >= input.capacity()) {
+            crypt(ByteBuffer.wrap(b, off, len), false);
+            return;
+        }
+        while (len > 0) {
+            if (!input.hasRemaining()) {
+                update();
+            }
+            int length = Math.min(len, input.remaining());
+            input.put(b, off, length);
+            off += length;
+            len -= length;
+        }
+    }
+
+    /**
+     * Writes the underlying OutputStream. The collected bytes are not forced through the Cipher,
+     * as for a block cipher they may not make up a whole block yet.
+     */
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try (OutputStream outputStream = out) {
+            input.flip();
+            crypt(input, true);
+            outputStream.flush();
+        }
+    }
+
+    private void update() throws IOException {
+        input.flip();
+        crypt(input, false);
+        input.clear();
+    }
+
+    private void crypt(ByteBuffer bytes, boolean doFinal) throws IOException {
+        int outputSize = cipher.getOutputSize(bytes.remaining());
+        if (output.capacity() < outputSize) {
+            output = ByteBuffer.allocate(outputSize);
+        }
+        output.clear();
+        try {
+            if (doFinal) {
+                cipher.doFinal(bytes, output);
+            } else {
+                cipher.update(bytes, output);
+            }
+        } catch (GeneralSecurityException e) {
+            throw new IOException(e);
+        }
+        output.flip();
+        if (output.hasRemaining()) {
+            out.write(output.array(), output.arrayOffset(), output.remaining());
+        }
+    }
+}
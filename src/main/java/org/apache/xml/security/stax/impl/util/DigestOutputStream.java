@@ -19,6 +19,7 @@
 package org.apache.xml.security.stax.impl.util;
 
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 
 import org.slf4j.Logger;
@@ -33,11 +34,25 @@ public class DigestOutputStream extends OutputStream {
     protected static final transient Logger LOG = LoggerFactory.getLogger(DigestOutputStream.class);
     protected static final transient boolean isDebugEnabled = LOG.isDebugEnabled();
 
+    /** The number of bytes of a ByteBuffer which are added to the debug output */
+    private static final int MAX_DEBUG_BUFFER_BYTES = 1024;
+
     private final MessageDigest messageDigest;
+    private Runnable release;
     private StringBuilder stringBuilder; //NOPMD
 
     public DigestOutputStream(MessageDigest messageDigest) {
+        this(messageDigest, null);
+    }
+
+    /**
+     * @param messageDigest the MessageDigest to update
+     * @param release called once the digest value was calculated, e.g. to hand the
+     *                MessageDigest back to the {@link org.apache.xml.security.stax.impl.algorithms.JCEEngineCache}
+     */
+    public DigestOutputStream(MessageDigest messageDigest, Runnable release) {
         this.messageDigest = messageDigest;
+        this.release = release;
         if (isDebugEnabled) {
             stringBuilder = new StringBuilder();
         }
@@ -65,6 +80,24 @@ public class DigestOutputStream extends OutputStream {
         }
     }
 
+    /**
+     * Digests the remaining bytes of the buffer, without copying a direct or mapped buffer
+     * onto the heap.
+     */
+    public void write(ByteBuffer buffer) {
+        if (isDebugEnabled) {
+            // a buffer may be a whole mapped file, so only its start is logged
+            int length = buffer.remaining();
+            ByteBuffer prefix = buffer.duplicate();
+            prefix.limit(prefix.position() + Math.min(length, MAX_DEBUG_BUFFER_BYTES));
+            stringBuilder.append(java.nio.charset.StandardCharsets.UTF_8.decode(prefix));
+            if (length > MAX_DEBUG_BUFFER_BYTES) {
+                stringBuilder.append("...[").append(length).append(" bytes]");
+            }
+        }
+        messageDigest.update(buffer);
+    }
+
     public byte[] getDigestValue() {
         if (isDebugEnabled) {
             LOG.debug("Pre Digest: ");
@@ -72,6 +105,20 @@ public class DigestOutputStream extends OutputStream {
             LOG.debug("End pre Digest ");
             stringBuilder = new StringBuilder();
         }
-        return messageDigest.digest();
+        byte[] digestValue = messageDigest.digest();
+        release();
+        return digestValue;
+    }
+
+    /**
+     * Hands the MessageDigest back without calculating the digest value, e.g. when the digest value
+     * isn't needed after all. Does nothing if the MessageDigest was handed back already.
+     */
+    public void release() {
+        if (release != null) {
+            Runnable r = release;
+            release = null;
+            r.run();
+        }
     }
 }
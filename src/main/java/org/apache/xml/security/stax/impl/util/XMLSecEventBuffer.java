@@ -0,0 +1,610 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.stax.impl.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractCollection;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamConstants;
+
+import org.apache.xml.security.stax.ext.stax.XMLSecAttribute;
+import org.apache.xml.security.stax.ext.stax.XMLSecCharacters;
+import org.apache.xml.security.stax.ext.stax.XMLSecComment;
+import org.apache.xml.security.stax.ext.stax.XMLSecDTD;
+import org.apache.xml.security.stax.ext.stax.XMLSecEntityReference;
+import org.apache.xml.security.stax.ext.stax.XMLSecEvent;
+import org.apache.xml.security.stax.ext.stax.XMLSecEventFactory;
+import org.apache.xml.security.stax.ext.stax.XMLSecNamespace;
+import org.apache.xml.security.stax.ext.stax.XMLSecProcessingInstruction;
+import org.apache.xml.security.stax.ext.stax.XMLSecStartDocument;
+import org.apache.xml.security.stax.ext.stax.XMLSecStartElement;
+import org.apache.xml.security.stax.impl.stax.XMLSecCharactersImpl;
+
+/**
+ * A Deque of XMLSecEvents which keeps at most a given number of appended events in memory. Each
+ * time that number is reached, the appended events are spilled, in a compact serialized form, to a
+ * temporary file. The spilled events are read back in order when they are taken from the head of
+ * the deque.
+ *
+ * Appending at the tail, and taking or pushing back events at the head, works on the spilled
+ * events directly. Any other operation, e.g. iterating, first reads all spilled events back into
+ * memory. Replayed events are new instances, which are linked to their parent elements again while
+ * they are read back. The temporary file is deleted once all spilled events are read back, or
+ * when the buffer is closed.
+ */
+public class XMLSecEventBuffer extends AbstractCollection<XMLSecEvent> implements Deque<XMLSecEvent>, Closeable {
+
+    private static final int MAX_NAMES = 4096;
+
+    private static final byte START_ELEMENT = 1;
+    private static final byte END_ELEMENT = 2;
+    private static final byte CHARACTERS = 3;
+    private static final byte COMMENT = 4;
+    private static final byte PROCESSING_INSTRUCTION = 5;
+    private static final byte START_DOCUMENT = 6;
+    private static final byte END_DOCUMENT = 7;
+    private static final byte DTD = 8;
+    private static final byte ENTITY_REFERENCE = 9;
+
+    private final int maxEventsInMemory;
+    private final File spillDirectory;
+
+    // the events are ordered: head, the spilled events, tail
+    private final ArrayDeque<XMLSecEvent> head = new ArrayDeque<>();
+    private final ArrayDeque<XMLSecEvent> tail = new ArrayDeque<>(100);
+
+    private Path spillFile;
+    private DataOutputStream spillOutput;
+    private DataInputStream spillInput;
+    private int spilledEvents;
+    private final Map<String, Integer> writtenNames = new HashMap<>();
+    private final List<String> readNames = new ArrayList<>();
+    private XMLSecStartElement readParent;
+
+    private long spilledEventCount;
+    private long spilledByteCount;
+    private int peakEventsInMemory;
+
+    /**
+     * @param maxEventsInMemory the maximum number of appended events kept in memory, they are
+     *                          spilled to disk as soon as this number is reached, 0 keeps all
+     *                          events in memory
+     * @param spillDirectory the directory for the temporary file, or null for the default
+     *                       temporary-file directory
+     */
+    public XMLSecEventBuffer(int maxEventsInMemory, File spillDirectory) {
+        if (maxEventsInMemory < 0) {
+            throw new IllegalArgumentException("maxEventsInMemory must not be negative: " + maxEventsInMemory);
+        }
+        this.maxEventsInMemory = maxEventsInMemory;
+        this.spillDirectory = spillDirectory;
+    }
+
+    /**
+     * Returns the total number of events which were spilled to disk.
+     */
+    public long getSpilledEventCount() {
+        return spilledEventCount;
+    }
+
+    /**
+     * Returns the total number of bytes which were spilled to disk.
+     */
+    public long getSpilledByteCount() {
+        return spilledByteCount;
+    }
+
+    /**
+     * Returns the highest number of events held in memory at the same time.
+     */
+    public int getPeakEventsInMemory() {
+        return peakEventsInMemory;
+    }
+
+    @Override
+    public boolean offerLast(XMLSecEvent xmlSecEvent) {
+        if (xmlSecEvent == null) {
+            throw new NullPointerException();
+        }
+        tail.offerLast(xmlSecEvent);
+        int eventsInMemory = head.size() + tail.size();
+        if (eventsInMemory > peakEventsInMemory) {
+            peakEventsInMemory = eventsInMemory;
+        }
+        // once the spilled events are read back, the remaining events are kept in memory
+        if (maxEventsInMemory > 0 && tail.size() >= maxEventsInMemory && spillInput == null) {
+            spill();
+        }
+        return true;
+    }
+
+    @Override
+    public boolean offerFirst(XMLSecEvent xmlSecEvent) {
+        return head.offerFirst(xmlSecEvent);
+    }
+
+    @Override
+    public XMLSecEvent pollFirst() {
+        if (!head.isEmpty()) {
+            return head.pollFirst();
+        }
+        if (spilledEvents > 0) {
+            return readSpilled();
+        }
+        return tail.pollFirst();
+    }
+
+    @Override
+    public XMLSecEvent peekFirst() {
+        XMLSecEvent xmlSecEvent = pollFirst();
+        if (xmlSecEvent != null) {
+            head.offerFirst(xmlSecEvent);
+        }
+        return xmlSecEvent;
+    }
+
+    @Override
+    public XMLSecEvent pollLast() {
+        if (!tail.isEmpty()) {
+            return tail.pollLast();
+        }
+        unspill();
+        return head.pollLast();
+    }
+
+    @Override
+    public XMLSecEvent peekLast() {
+        if (!tail.isEmpty()) {
+            return tail.peekLast();
+        }
+        unspill();
+        return head.peekLast();
+    }
+
+    @Override
+    public int size() {
+        return head.size() + spilledEvents + tail.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public Iterator<XMLSecEvent> iterator() {
+        unspill();
+        return head.iterator();
+    }
+
+    @Override
+    public Iterator<XMLSecEvent> descendingIterator() {
+        unspill();
+        return head.descendingIterator();
+    }
+
+    @Override
+    public boolean removeFirstOccurrence(Object o) {
+        unspill();
+        return head.removeFirstOccurrence(o);
+    }
+
+    @Override
+    public boolean removeLastOccurrence(Object o) {
+        unspill();
+        return head.removeLastOccurrence(o);
+    }
+
+    @Override
+    public void clear() {
+        head.clear();
+        tail.clear();
+        spilledEvents = 0;
+        close();
+    }
+
+    @Override
+    public void addFirst(XMLSecEvent xmlSecEvent) {
+        offerFirst(xmlSecEvent);
+    }
+
+    @Override
+    public void addLast(XMLSecEvent xmlSecEvent) {
+        offerLast(xmlSecEvent);
+    }
+
+    @Override
+    public XMLSecEvent removeFirst() {
+        XMLSecEvent xmlSecEvent = pollFirst();
+        if (xmlSecEvent == null) {
+            throw new NoSuchElementException();
+        }
+        return xmlSecEvent;
+    }
+
+    @Override
+    public XMLSecEvent removeLast() {
+        XMLSecEvent xmlSecEvent = pollLast();
+        if (xmlSecEvent == null) {
+            throw new NoSuchElementException();
+        }
+        return xmlSecEvent;
+    }
+
+    @Override
+    public XMLSecEvent getFirst() {
+        XMLSecEvent xmlSecEvent = peekFirst();
+        if (xmlSecEvent == null) {
+            throw new NoSuchElementException();
+        }
+        return xmlSecEvent;
+    }
+
+    @Override
+    public XMLSecEvent getLast() {
+        XMLSecEvent xmlSecEvent = peekLast();
+        if (xmlSecEvent == null) {
+            throw new NoSuchElementException();
+        }
+        return xmlSecEvent;
+    }
+
+    @Override
+    public boolean add(XMLSecEvent xmlSecEvent) {
+        return offerLast(xmlSecEvent);
+    }
+
+    @Override
+    public boolean offer(XMLSecEvent xmlSecEvent) {
+        return offerLast(xmlSecEvent);
+    }
+
+    @Override
+    public XMLSecEvent remove() {
+        return removeFirst();
+    }
+
+    @Override
+    public XMLSecEvent poll() {
+        return pollFirst();
+    }
+
+    @Override
+    public XMLSecEvent element() {
+        return getFirst();
+    }
+
+    @Override
+    public XMLSecEvent peek() {
+        return peekFirst();
+    }
+
+    @Override
+    public void push(XMLSecEvent xmlSecEvent) {
+        addFirst(xmlSecEvent);
+    }
+
+    @Override
+    public XMLSecEvent pop() {
+        return removeFirst();
+    }
+
+    /**
+     * Deletes the temporary file, if there is one.
+     */
+    @Override
+    public void close() {
+        try {
+            if (spillOutput != null) {
+                spillOutput.close();
+            }
+            if (spillInput != null) {
+                spillInput.close();
+            }
+            if (spillFile != null) {
+                Files.deleteIfExists(spillFile);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            spillOutput = null;
+            spillInput = null;
+            spillFile = null;
+            readParent = null;
+        }
+    }
+
+    private void spill() {
+        try {
+            if (spillOutput == null) {
+                spillFile = spillDirectory != null
+                    ? Files.createTempFile(spillDirectory.toPath(), "xmlsec-events", ".tmp")
+                    : Files.createTempFile("xmlsec-events", ".tmp");
+                spillOutput = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(spillFile)));
+                writtenNames.clear();
+                readNames.clear();
+            }
+            if (spilledEvents == 0) {
+                readParent = tail.peekFirst().getParentXMLSecStartElement();
+            }
+            int count = tail.size();
+            for (XMLSecEvent xmlSecEvent : tail) {
+                writeEvent(spillOutput, xmlSecEvent);
+            }
+            spillOutput.flush();
+            tail.clear();
+            spilledEvents += count;
+            spilledEventCount += count;
+            spilledByteCount = Files.size(spillFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private XMLSecEvent readSpilled() {
+        try {
+            if (spillInput == null) {
+                spillOutput.close();
+                spillOutput = null;
+                spillInput = new DataInputStream(new BufferedInputStream(Files.newInputStream(spillFile)));
+            }
+            XMLSecEvent xmlSecEvent = readEvent(spillInput);
+            restoreParent(xmlSecEvent);
+            if (--spilledEvents == 0) {
+                close();
+            }
+            return xmlSecEvent;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The spilled events are contiguous, so their parents are tracked like in an event reader,
+     * starting with the parent of the first spilled event.
+     */
+    private void restoreParent(XMLSecEvent xmlSecEvent) {
+        xmlSecEvent.setParentXMLSecStartElement(readParent);
+        if (xmlSecEvent.isStartElement()) {
+            readParent = xmlSecEvent.asStartElement();
+        } else if (xmlSecEvent.isEndElement() && readParent != null) {
+            readParent = readParent.getParentXMLSecStartElement();
+        }
+    }
+
+    private void unspill() {
+        if (spilledEvents == 0) {
+            head.addAll(tail);
+            tail.clear();
+            return;
+        }
+        ArrayDeque<XMLSecEvent> events = new ArrayDeque<>(size());
+        events.addAll(head);
+        while (spilledEvents > 0) {
+            events.add(readSpilled());
+        }
+        events.addAll(tail);
+        head.clear();
+        tail.clear();
+        head.addAll(events);
+    }
+
+    private void writeEvent(DataOutputStream out, XMLSecEvent xmlSecEvent) throws IOException {
+        switch (xmlSecEvent.getEventType()) {
+            case XMLStreamConstants.START_ELEMENT:
+                XMLSecStartElement xmlSecStartElement = xmlSecEvent.asStartElement();
+                out.writeByte(START_ELEMENT);
+                writeQName(out, xmlSecStartElement.getName());
+                List<XMLSecNamespace> namespaces = xmlSecStartElement.getOnElementDeclaredNamespaces();
+                out.writeInt(namespaces.size());
+                for (XMLSecNamespace xmlSecNamespace : namespaces) {
+                    writeName(out, xmlSecNamespace.getPrefix());
+                    writeName(out, xmlSecNamespace.getNamespaceURI());
+                }
+                List<XMLSecAttribute> attributes = xmlSecStartElement.getOnElementDeclaredAttributes();
+                out.writeInt(attributes.size());
+                for (XMLSecAttribute xmlSecAttribute : attributes) {
+                    writeQName(out, xmlSecAttribute.getName());
+                    writeString(out, xmlSecAttribute.getValue());
+                }
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                out.writeByte(END_ELEMENT);
+                writeQName(out, xmlSecEvent.asEndElement().getName());
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+            case XMLStreamConstants.SPACE:
+                XMLSecCharacters xmlSecCharacters = xmlSecEvent.asCharacters();
+                out.writeByte(CHARACTERS);
+                out.writeByte((xmlSecCharacters.isCData() ? 1 : 0)
+                    | (xmlSecCharacters.isIgnorableWhiteSpace() ? 2 : 0)
+                    | (xmlSecCharacters.isWhiteSpace() ? 4 : 0));
+                writeString(out, xmlSecCharacters.getData());
+                break;
+            case XMLStreamConstants.COMMENT:
+                out.writeByte(COMMENT);
+                writeString(out, ((XMLSecComment) xmlSecEvent).getText());
+                break;
+            case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                XMLSecProcessingInstruction xmlSecProcessingInstruction = (XMLSecProcessingInstruction) xmlSecEvent;
+                out.writeByte(PROCESSING_INSTRUCTION);
+                writeString(out, xmlSecProcessingInstruction.getTarget());
+                writeString(out, xmlSecProcessingInstruction.getData());
+                break;
+            case XMLStreamConstants.START_DOCUMENT:
+                XMLSecStartDocument xmlSecStartDocument = (XMLSecStartDocument) xmlSecEvent;
+                out.writeByte(START_DOCUMENT);
+                writeString(out, xmlSecStartDocument.getSystemId());
+                writeString(out, xmlSecStartDocument.encodingSet()
+                    ? xmlSecStartDocument.getCharacterEncodingScheme() : null);
+                out.writeByte(!xmlSecStartDocument.standaloneSet() ? 0 : xmlSecStartDocument.isStandalone() ? 1 : 2);
+                writeString(out, xmlSecStartDocument.getVersion());
+                break;
+            case XMLStreamConstants.END_DOCUMENT:
+                out.writeByte(END_DOCUMENT);
+                break;
+            case XMLStreamConstants.DTD:
+                out.writeByte(DTD);
+                writeString(out, ((XMLSecDTD) xmlSecEvent).getDocumentTypeDeclaration());
+                break;
+            case XMLStreamConstants.ENTITY_REFERENCE:
+                XMLSecEntityReference xmlSecEntityReference = (XMLSecEntityReference) xmlSecEvent;
+                out.writeByte(ENTITY_REFERENCE);
+                writeString(out, xmlSecEntityReference.getName());
+                writeString(out, xmlSecEntityReference.getDeclaration() != null
+                    ? xmlSecEntityReference.getDeclaration().getName() : null);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported XML event type: " + xmlSecEvent.getEventType());
+        }
+    }
+
+    private XMLSecEvent readEvent(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case START_ELEMENT:
+                QName name = readQName(in);
+                int namespaceCount = in.readInt();
+                List<XMLSecNamespace> namespaces = new ArrayList<>(namespaceCount);
+                for (int i = 0; i < namespaceCount; i++) {
+                    namespaces.add(XMLSecEventFactory.createXMLSecNamespace(readName(in), readName(in)));
+                }
+                int attributeCount = in.readInt();
+                List<XMLSecAttribute> attributes = new ArrayList<>(attributeCount);
+                for (int i = 0; i < attributeCount; i++) {
+                    attributes.add(XMLSecEventFactory.createXMLSecAttribute(readQName(in), readString(in)));
+                }
+                return XMLSecEventFactory.createXmlSecStartElement(name, attributes, namespaces);
+            case END_ELEMENT:
+                return XMLSecEventFactory.createXmlSecEndElement(readQName(in));
+            case CHARACTERS:
+                int flags = in.readByte();
+                return new XMLSecCharactersImpl(readString(in), (flags & 1) != 0, (flags & 2) != 0, (flags & 4) != 0, null);
+            case COMMENT:
+                return XMLSecEventFactory.createXMLSecComment(readString(in));
+            case PROCESSING_INSTRUCTION:
+                return XMLSecEventFactory.createXMLSecProcessingInstruction(readString(in), readString(in));
+            case START_DOCUMENT:
+                String systemId = readString(in);
+                String encoding = readString(in);
+                int standalone = in.readByte();
+                return XMLSecEventFactory.createXmlSecStartDocument(
+                    systemId, encoding, standalone == 0 ? null : standalone == 1, readString(in));
+            case END_DOCUMENT:
+                return XMLSecEventFactory.createXMLSecEndDocument();
+            case DTD:
+                return XMLSecEventFactory.createXMLSecDTD(readString(in));
+            case ENTITY_REFERENCE:
+                String entityName = readString(in);
+                String declarationName = readString(in);
+                return XMLSecEventFactory.createXMLSecEntityReference(entityName,
+                    declarationName != null ? XMLSecEventFactory.createXmlSecEntityDeclaration(declarationName) : null);
+            default:
+                throw new IOException("Corrupt event buffer, unknown event type " + type);
+        }
+    }
+
+    private void writeQName(DataOutputStream out, QName name) throws IOException {
+        writeName(out, name.getNamespaceURI());
+        writeName(out, name.getLocalPart());
+        writeName(out, name.getPrefix());
+    }
+
+    private QName readQName(DataInputStream in) throws IOException {
+        String namespaceURI = readName(in);
+        String localPart = readName(in);
+        return new QName(namespaceURI, localPart, readName(in));
+    }
+
+    /**
+     * Names and namespaces repeat throughout a document, so every distinct one is written once
+     * and then referred to by its index.
+     */
+    private void writeName(DataOutputStream out, String name) throws IOException {
+        if (name == null) {
+            out.writeInt(-2);
+            return;
+        }
+        Integer index = writtenNames.get(name);
+        if (index != null) {
+            out.writeInt(index);
+            return;
+        }
+        if (writtenNames.size() < MAX_NAMES) {
+            writtenNames.put(name, writtenNames.size());
+        }
+        out.writeInt(-1);
+        writeString(out, name);
+    }
+
+    private String readName(DataInputStream in) throws IOException {
+        int index = in.readInt();
+        if (index == -2) {
+            return null;
+        }
+        if (index >= 0) {
+            return readNames.get(index);
+        }
+        String name = readString(in);
+        if (readNames.size() < MAX_NAMES) {
+            readNames.add(name);
+        }
+        return name;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
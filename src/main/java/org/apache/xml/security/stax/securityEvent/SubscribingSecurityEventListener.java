@@ -0,0 +1,37 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.stax.securityEvent;
+
+import java.util.Set;
+
+/**
+ * A SecurityEventListener which receives only the SecurityEvents of the types it subscribes to.
+ * The processors don't construct SecurityEvents of types no registered listener subscribes to,
+ * a plain SecurityEventListener subscribes to all types.
+ */
+public interface SubscribingSecurityEventListener extends SecurityEventListener {
+
+    /**
+     * Returns the types of the SecurityEvents this listener receives. The subscription is read
+     * once, when the listener is added to a SecurityContext.
+     *
+     * @return The subscribed SecurityEvent types
+     */
+    Set<SecurityEventConstants.Event> getSubscribedSecurityEvents();
+}
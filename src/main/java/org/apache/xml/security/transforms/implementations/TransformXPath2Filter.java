@@ -38,6 +38,7 @@ import org.apache.xml.security.utils.JDKXPathFactory;
 import org.apache.xml.security.utils.XMLUtils;
 import org.apache.xml.security.utils.XPathAPI;
 import org.apache.xml.security.utils.XPathFactory;
+import org.w3c.dom.Attr;
 import org.w3c.dom.DOMException;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -234,13 +235,16 @@ class XPath2NodeFilter implements NodeFilter {
         if (nodeList.isEmpty()) {
             return false;
         }
-        if (nodeList.contains(currentNode)) {
-            return true;
-        }
-        for (Node rootNode : nodeList) {
-            if (XMLUtils.isDescendantOrSelf(rootNode, currentNode)) {
+        // walk up from the node instead of testing every root, an XPath may select many of them
+        for (Node node = currentNode; node != null; ) {
+            if (nodeList.contains(node)) {
                 return true;
             }
+            if (node.getNodeType() == Node.ATTRIBUTE_NODE) {
+                node = ((Attr) node).getOwnerElement();
+            } else {
+                node = node.getParentNode();
+            }
         }
         return false;
     }
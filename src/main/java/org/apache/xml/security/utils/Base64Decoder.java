@@ -0,0 +1,230 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.utils;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A streaming base64 decoder, which decodes the encoded data chunk by chunk as it arrives, e.g.
+ * from adjacent DOM Text nodes or from StAX character events, into a caller-supplied buffer.
+ * A quantum of four characters may be split across chunks.
+ *
+ * As with the MIME decoder, characters outside of the base64 alphabet, like line breaks, are
+ * ignored. The padding is optional and superfluous padding is ignored, but base64 characters after
+ * the padding are rejected. A single character of a last quantum doesn't make up a byte and is
+ * discarded. As with the commons-codec streams used before, a tampered CipherValue is therefore
+ * reported by the decryption rather than by the decoding.
+ *
+ * A decoder is not thread-safe. It can be reused for the next data after {@link #reset()}.
+ */
+public final class Base64Decoder {
+
+    private static final int IGNORED = -1;
+    private static final int PAD = -2;
+
+    private static final byte[] DECODE_TABLE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE_TABLE, (byte) IGNORED);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        for (int i = 0; i < alphabet.length(); i++) {
+            DECODE_TABLE[alphabet.charAt(i)] = (byte) i;
+        }
+        DECODE_TABLE['='] = (byte) PAD;
+    }
+
+    private static final int CHUNK_SIZE = 1024;
+
+    /** the bits of the incomplete quantum */
+    private int quantum;
+    /** the number of characters of the incomplete quantum */
+    private int quantumLength;
+    /** the number of padding characters still expected, or -1 if no padding was seen */
+    private int missingPadding = -1;
+    private char[] chunk;
+
+    /**
+     * Returns the maximum number of bytes which a call of a decode method decodes from the given
+     * number of characters, including the characters of an incomplete quantum of a previous call.
+     */
+    public static int getMaxDecodedLength(int encodedLength) {
+        return (encodedLength / 4 + 1) * 3;
+    }
+
+    /**
+     * Decodes the characters into the buffer.
+     *
+     * @param src the base64 encoded characters
+     * @param off the offset of the characters
+     * @param len the number of characters
+     * @param dst the buffer, which must have room for {@link #getMaxDecodedLength(int)} bytes
+     * @param dstOff the offset in the buffer
+     * @return the number of decoded bytes
+     * @throws IOException if the characters are not valid base64
+     */
+    public int decode(char[] src, int off, int len, byte[] dst, int dstOff) throws IOException {
+        int end = off + len;
+        int pos = dstOff;
+        int i = off;
+        while (i < end) {
+            // fast path for complete quanta without ignored characters
+            if (quantumLength == 0 && missingPadding < 0) {
+                while (i + 4 <= end) {
+                    int c0 = src[i];
+                    int c1 = src[i + 1];
+                    int c2 = src[i + 2];
+                    int c3 = src[i + 3];
+                    if ((c0 | c1 | c2 | c3) >= 128) {
+                        break;
+                    }
+                    int b0 = DECODE_TABLE[c0];
+                    int b1 = DECODE_TABLE[c1];
+                    int b2 = DECODE_TABLE[c2];
+                    int b3 = DECODE_TABLE[c3];
+                    if ((b0 | b1 | b2 | b3) < 0) {
+                        break;
+                    }
+                    int bits = b0 << 18 | b1 << 12 | b2 << 6 | b3;
+                    dst[pos++] = (byte) (bits >> 16);
+                    dst[pos++] = (byte) (bits >> 8);
+                    dst[pos++] = (byte) bits;
+                    i += 4;
+                }
+                if (i == end) {
+                    break;
+                }
+            }
+            char c = src[i++];
+            int b = c < 128 ? DECODE_TABLE[c] : IGNORED;
+            if (b >= 0) {
+                if (missingPadding >= 0) {
+                    throw new IOException("Base64 data after the padding");
+                }
+                quantum = quantum << 6 | b;
+                if (++quantumLength == 4) {
+                    dst[pos++] = (byte) (quantum >> 16);
+                    dst[pos++] = (byte) (quantum >> 8);
+                    dst[pos++] = (byte) quantum;
+                    quantum = 0;
+                    quantumLength = 0;
+                }
+            } else if (b == PAD) {
+                pos = pad(dst, pos);
+            }
+        }
+        return pos - dstOff;
+    }
+
+    /**
+     * Decodes the characters of the String, e.g. the data of a DOM Text node, into the buffer.
+     *
+     * @see #decode(char[], int, int, byte[], int)
+     */
+    public int decode(String src, int off, int len, byte[] dst, int dstOff) throws IOException {
+        char[] chars = getChunk();
+        int pos = dstOff;
+        for (int i = off; i < off + len; i += CHUNK_SIZE) {
+            int count = Math.min(CHUNK_SIZE, off + len - i);
+            src.getChars(i, i + count, chars, 0);
+            pos += decode(chars, 0, count, dst, pos);
+        }
+        return pos - dstOff;
+    }
+
+    /**
+     * Decodes the base64 encoded US-ASCII bytes into the buffer.
+     *
+     * @see #decode(char[], int, int, byte[], int)
+     */
+    public int decode(byte[] src, int off, int len, byte[] dst, int dstOff) throws IOException {
+        char[] chars = getChunk();
+        int pos = dstOff;
+        for (int i = off; i < off + len; i += CHUNK_SIZE) {
+            int count = Math.min(CHUNK_SIZE, off + len - i);
+            for (int j = 0; j < count; j++) {
+                chars[j] = (char) (src[i + j] & 0xFF);
+            }
+            pos += decode(chars, 0, count, dst, pos);
+        }
+        return pos - dstOff;
+    }
+
+    /**
+     * Completes the decoding at the end of the data. An incomplete quantum without padding is
+     * decoded as if it was padded.
+     *
+     * @param dst the buffer, which must have room for 2 bytes
+     * @param dstOff the offset in the buffer
+     * @return the number of decoded bytes
+     */
+    public int finish(byte[] dst, int dstOff) {
+        int pos = dstOff;
+        if (quantumLength > 0) {
+            pos = pad(dst, pos);
+        }
+        reset();
+        return pos - dstOff;
+    }
+
+    /**
+     * Discards the state of the current data.
+     */
+    public void reset() {
+        quantum = 0;
+        quantumLength = 0;
+        missingPadding = -1;
+    }
+
+    private int pad(byte[] dst, int pos) {
+        if (missingPadding > 0) {
+            missingPadding--;
+            return pos;
+        }
+        switch (quantumLength) {
+        case 1:
+            // the six bits don't make up a byte
+            missingPadding = 2;
+            break;
+        case 2:
+            dst[pos++] = (byte) (quantum >> 4);
+            missingPadding = 1;
+            break;
+        case 3:
+            dst[pos++] = (byte) (quantum >> 10);
+            dst[pos++] = (byte) (quantum >> 2);
+            missingPadding = 0;
+            break;
+        default:
+            // superfluous padding
+            missingPadding = 0;
+            break;
+        }
+        quantum = 0;
+        quantumLength = 0;
+        return pos;
+    }
+
+    private char[] getChunk() {
+        if (chunk == null) {
+            chunk = new char[CHUNK_SIZE];
+        }
+        return chunk;
+    }
+}
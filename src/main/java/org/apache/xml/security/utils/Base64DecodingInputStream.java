@@ -0,0 +1,120 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.utils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An InputStream which base64 decodes the US-ASCII bytes read from the underlying InputStream.
+ * It decodes with the same leniency as {@link Base64DecodingOutputStream}.
+ *
+ * @see Base64Decoder
+ */
+public class Base64DecodingInputStream extends FilterInputStream {
+
+    private static final int CHUNK_SIZE = 4096;
+
+    private final Base64Decoder decoder = new Base64Decoder();
+    private final byte[] encoded = new byte[CHUNK_SIZE];
+    private final byte[] buffer = new byte[Base64Decoder.getMaxDecodedLength(CHUNK_SIZE)];
+    private int position;
+    private int limit;
+    private boolean finished;
+
+    public Base64DecodingInputStream(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int count = Math.min(len, limit - position);
+        System.arraycopy(buffer, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && fill()) {
+            int count = (int) Math.min(n - skipped, limit - position);
+            position += count;
+            skipped += count;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return limit - position;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+        // not supported
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    /**
+     * Decodes the next chunk of the underlying InputStream, unless decoded bytes are left.
+     *
+     * @return false at the end of the decoded data
+     */
+    private boolean fill() throws IOException {
+        while (position == limit) {
+            if (finished) {
+                return false;
+            }
+            position = 0;
+            int read = in.read(encoded, 0, encoded.length);
+            if (read < 0) {
+                limit = decoder.finish(buffer, 0);
+                finished = true;
+            } else {
+                limit = decoder.decode(encoded, 0, read, buffer, 0);
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.utils;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An OutputStream which base64 decodes the US-ASCII bytes written to it into the underlying
+ * OutputStream, e.g. a CipherOutputStream. Characters, e.g. of StAX character events, can be
+ * written directly with {@link #write(char[], int, int)}, without encoding them to bytes first.
+ * Closing the stream completes the decoding and closes the underlying OutputStream.
+ *
+ * @see Base64Decoder
+ */
+public class Base64DecodingOutputStream extends FilterOutputStream {
+
+    private static final int CHUNK_SIZE = 4096;
+
+    private final Base64Decoder decoder = new Base64Decoder();
+    private final byte[] buffer = new byte[Base64Decoder.getMaxDecodedLength(CHUNK_SIZE)];
+    private boolean closed;
+
+    public Base64DecodingOutputStream(OutputStream out) {
+        super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        for (int i = off; i < off + len; i += CHUNK_SIZE) {
+            int count = Math.min(CHUNK_SIZE, off + len - i);
+            int decoded = decoder.decode(b, i, count, buffer, 0);
+            if (decoded > 0) {
+                out.write(buffer, 0, decoded);
+            }
+        }
+    }
+
+    /**
+     * Decodes the base64 encoded characters into the underlying OutputStream.
+     */
+    public void write(char[] c, int off, int len) throws IOException {
+        for (int i = off; i < off + len; i += CHUNK_SIZE) {
+            int count = Math.min(CHUNK_SIZE, off + len - i);
+            int decoded = decoder.decode(c, i, count, buffer, 0);
+            if (decoded > 0) {
+                out.write(buffer, 0, decoded);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try (OutputStream outputStream = out) {
+            int decoded = decoder.finish(buffer, 0);
+            if (decoded > 0) {
+                outputStream.write(buffer, 0, decoded);
+            }
+            outputStream.flush();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.utils;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An OutputStream which base64 encodes the bytes written to it into the underlying OutputStream,
+ * as US-ASCII bytes. The lines are separated by CRLF as by the MIME encoder, without a trailing
+ * line separator. Closing the stream writes the final quantum with its padding and closes the
+ * underlying OutputStream.
+ */
+public class Base64EncodingOutputStream extends FilterOutputStream {
+
+    /** The line length of the MIME encoding */
+    public static final int MIME_LINE_LENGTH = 76;
+
+    private static final byte[] ENCODE_TABLE =
+        "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final int lineLength;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int bufferPosition;
+    private int lineCharacters;
+    /** the bytes of the incomplete quantum */
+    private final byte[] pending = new byte[3];
+    private int pendingLength;
+    private boolean closed;
+
+    /**
+     * Creates an encoding stream with lines of {@link #MIME_LINE_LENGTH} characters.
+     */
+    public Base64EncodingOutputStream(OutputStream out) {
+        this(out, MIME_LINE_LENGTH);
+    }
+
+    /**
+     * @param out the OutputStream of the encoded bytes
+     * @param lineLength the maximum length of a line, which is rounded down to a multiple of 4,
+     *    or 0 for no line breaks
+     */
+    public Base64EncodingOutputStream(OutputStream out, int lineLength) {
+        super(out);
+        if (lineLength < 0) {
+            throw new IllegalArgumentException("lineLength must not be negative: " + lineLength);
+        }
+        this.lineLength = lineLength / 4 * 4;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        int i = off;
+        int end = off + len;
+        // complete the pending quantum
+        while (pendingLength > 0 && pendingLength < 3 && i < end) {
+            pending[pendingLength++] = b[i++];
+        }
+        if (pendingLength == 3) {
+            encode(pending[0], pending[1], pending[2]);
+            pendingLength = 0;
+        }
+        while (i + 3 <= end) {
+            encode(b[i], b[i + 1], b[i + 2]);
+            i += 3;
+        }
+        while (i < end) {
+            pending[pendingLength++] = b[i++];
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try (OutputStream outputStream = out) {
+            if (pendingLength > 0) {
+                int bits = (pending[0] & 0xFF) << 16 | (pendingLength == 2 ? (pending[1] & 0xFF) << 8 : 0);
+                startQuantum();
+                buffer[bufferPosition++] = ENCODE_TABLE[bits >>> 18];
+                buffer[bufferPosition++] = ENCODE_TABLE[bits >>> 12 & 0x3F];
+                buffer[bufferPosition++] = pendingLength == 2 ? ENCODE_TABLE[bits >>> 6 & 0x3F] : (byte) '=';
+                buffer[bufferPosition++] = (byte) '=';
+                pendingLength = 0;
+            }
+            flushBuffer();
+            outputStream.flush();
+        }
+    }
+
+    private void encode(byte b0, byte b1, byte b2) throws IOException {
+        int bits = (b0 & 0xFF) << 16 | (b1 & 0xFF) << 8 | b2 & 0xFF;
+        startQuantum();
+        buffer[bufferPosition++] = ENCODE_TABLE[bits >>> 18];
+        buffer[bufferPosition++] = ENCODE_TABLE[bits >>> 12 & 0x3F];
+        buffer[bufferPosition++] = ENCODE_TABLE[bits >>> 6 & 0x3F];
+        buffer[bufferPosition++] = ENCODE_TABLE[bits & 0x3F];
+    }
+
+    /**
+     * Makes room for a quantum and the line separator in front of it.
+     */
+    private void startQuantum() throws IOException {
+        if (bufferPosition > BUFFER_SIZE - 6) {
+            flushBuffer();
+        }
+        if (lineLength > 0) {
+            if (lineCharacters == lineLength) {
+                buffer[bufferPosition++] = '\r';
+                buffer[bufferPosition++] = '\n';
+                lineCharacters = 0;
+            }
+            lineCharacters += 4;
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (bufferPosition > 0) {
+            out.write(buffer, 0, bufferPosition);
+            bufferPosition = 0;
+        }
+    }
+}
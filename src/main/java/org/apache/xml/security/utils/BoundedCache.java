@@ -0,0 +1,245 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.utils;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A size-bounded, thread-safe cache with CLOCK (second chance) eviction.
+ *
+ * Lookups of cached values are lock-free: they only mark the entry as recently used. Only the
+ * insertion of a new value takes a lock, to record the entry and to evict entries which weren't
+ * used since the last time the clock hand passed them, once the cache holds more than the
+ * maximum number of entries. Removed entries are dropped from the clock lazily, when the clock hand
+ * passes them or once they make up half of the clock. Hits, misses and evictions are counted.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the cached values
+ */
+public final class BoundedCache<K, V> {
+
+    private final Map<K, Entry<K, V>> map;
+    private final Deque<Entry<K, V>> clock = new ArrayDeque<>();
+    private final int maximumSize;
+    // the number of entries in the clock which were removed from the map, guarded by clock
+    private int removedEntries;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * @param maximumSize the maximum number of entries, a value of 0 disables caching
+     */
+    public BoundedCache(int maximumSize) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("maximumSize must not be negative: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.map = new ConcurrentHashMap<>(Math.min(maximumSize, 1024));
+    }
+
+    /**
+     * Returns the cached value for the key, or <code>null</code> if there is none.
+     */
+    public V get(K key) {
+        Entry<K, V> entry = map.get(key);
+        if (entry == null) {
+            missCount.increment();
+            return null;
+        }
+        hitCount.increment();
+        entry.markUsed();
+        return entry.value;
+    }
+
+    /**
+     * Returns the cached value for the key, computing and caching it with the given function if
+     * there is none. The function may be called concurrently for the same key, in which case
+     * the first value cached wins.
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        Entry<K, V> entry = map.get(key);
+        if (entry != null) {
+            hitCount.increment();
+            entry.markUsed();
+            return entry.value;
+        }
+        missCount.increment();
+        V value = mappingFunction.apply(key);
+        if (value != null) {
+            value = add(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Caches the value for the key, unless there is a cached value for the key already.
+     *
+     * @return the value which is cached for the key
+     */
+    public V putIfAbsent(K key, V value) {
+        return add(key, value);
+    }
+
+    private V add(K key, V value) {
+        if (maximumSize == 0) {
+            return value;
+        }
+        Entry<K, V> entry = new Entry<>(key, value);
+        Entry<K, V> existing = map.putIfAbsent(key, entry);
+        if (existing != null) {
+            return existing.value;
+        }
+        synchronized (clock) {
+            clock.addLast(entry);
+            while (map.size() > maximumSize) {
+                Entry<K, V> candidate = clock.pollFirst();
+                if (candidate == null) {
+                    break;
+                }
+                if (map.get(candidate.key) != candidate) {
+                    // removed before
+                    removedEntries--;
+                } else if (candidate.used) {
+                    candidate.used = false;
+                    clock.addLast(candidate);
+                } else if (map.remove(candidate.key, candidate)) {
+                    evictionCount.increment();
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Removes the entry for the key.
+     *
+     * @return whether there was an entry for the key
+     */
+    public boolean remove(K key) {
+        Entry<K, V> entry = map.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        synchronized (clock) {
+            removedEntries++;
+            if (removedEntries > clock.size() / 2) {
+                compactClock();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Drops the removed entries from the clock, keeping the order of the others.
+     */
+    private void compactClock() {
+        for (int i = clock.size(); i > 0; i--) {
+            Entry<K, V> entry = clock.pollFirst();
+            if (map.get(entry.key) == entry) {
+                clock.addLast(entry);
+            }
+        }
+        removedEntries = 0;
+    }
+
+    /**
+     * Removes the entries whose keys match the given predicate.
+     *
+     * @return the number of removed entries
+     */
+    public int removeIf(Predicate<? super K> filter) {
+        int removed = 0;
+        synchronized (clock) {
+            for (Iterator<Entry<K, V>> iterator = clock.iterator(); iterator.hasNext(); ) {
+                Entry<K, V> entry = iterator.next();
+                if (map.get(entry.key) != entry) {
+                    iterator.remove();
+                } else if (filter.test(entry.key)) {
+                    iterator.remove();
+                    if (map.remove(entry.key, entry)) {
+                        removed++;
+                    }
+                }
+            }
+            removedEntries = 0;
+        }
+        return removed;
+    }
+
+    public void clear() {
+        synchronized (clock) {
+            map.clear();
+            clock.clear();
+            removedEntries = 0;
+        }
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "BoundedCache[size=" + size() + ", maximumSize=" + maximumSize + ", hits=" + getHitCount()
+            + ", misses=" + getMissCount() + ", evictions=" + getEvictionCount() + "]";
+    }
+
+    private static final class Entry<K, V> {
+        private final K key;
+        private final V value;
+        private volatile boolean used;
+
+        Entry(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        void markUsed() {
+            // avoid the volatile write, and the cache line invalidation, for entries marked already
+            if (!used) {
+                used = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,265 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.utils;
+
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import javax.xml.xpath.XPathFactoryConfigurationException;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * A shared cache of compiled XPath expressions, keyed by the expression and the namespace
+ * bindings in scope of the node the expression prefixes are resolved from.
+ *
+ * XPathExpression and XPath instances are not thread-safe, so every key maps to a bounded pool
+ * of compiled expressions, and the XPath engines used for compiling are pooled as well. The
+ * expressions are compiled against a copy of the namespace bindings, so that the cache doesn't
+ * keep any DOM documents alive.
+ */
+final class CompiledXPathCache {
+
+    private static final int CACHE_SIZE =
+        Math.max(0, AccessController.doPrivileged(
+            (PrivilegedAction<Integer>) () -> Integer.getInteger("org.apache.xml.security.xpath.cache-size", 256)));
+
+    /** A pool size of 0 (or less) disables pooling */
+    private static final int POOL_SIZE =
+        AccessController.doPrivileged(
+            (PrivilegedAction<Integer>) () -> Integer.getInteger("org.apache.xml.security.xpath.pool-size", 8));
+
+    private static final BoundedCache<Key, Pool> CACHE = new BoundedCache<>(CACHE_SIZE);
+
+    private static final Queue<XPath> XPATH_ENGINES = newPoolQueue();
+
+    private static XPathFactory xpathFactory;
+
+    private CompiledXPathCache() {
+        // we don't allow instantiation
+    }
+
+    static BoundedCache<?, ?> getCache() {
+        return CACHE;
+    }
+
+    private static <T> Queue<T> newPoolQueue() {
+        return new ArrayBlockingQueue<>(Math.max(POOL_SIZE, 1));
+    }
+
+    private static <T> void offer(Queue<T> pool, T instance) {
+        if (POOL_SIZE > 0) {
+            pool.offer(instance);
+        }
+    }
+
+    /**
+     * Returns the pool of compiled expressions for the given expression, with prefixes resolved
+     * from the given node.
+     */
+    static Pool getPool(String expression, Node namespaceNode) {
+        return CACHE.computeIfAbsent(new Key(expression, getNamespaceBindings(namespaceNode)), Pool::new);
+    }
+
+    /**
+     * Collects the namespace bindings in scope of the node, the innermost declaration of a prefix
+     * wins. The default namespace is bound to the empty prefix.
+     */
+    static Map<String, String> getNamespaceBindings(Node namespaceNode) {
+        Node node = namespaceNode;
+        if (node != null && node.getNodeType() == Node.DOCUMENT_NODE) {
+            node = ((Document) node).getDocumentElement();
+        } else if (node != null && node.getNodeType() == Node.ATTRIBUTE_NODE) {
+            node = ((Attr) node).getOwnerElement();
+        }
+        while (node != null && node.getNodeType() != Node.ELEMENT_NODE) {
+            node = node.getParentNode();
+        }
+
+        Map<String, String> bindings = new HashMap<>();
+        while (node != null && node.getNodeType() == Node.ELEMENT_NODE) {
+            Element element = (Element) node;
+            String namespaceURI = element.getNamespaceURI();
+            if (namespaceURI != null) {
+                String prefix = element.getPrefix();
+                bindings.putIfAbsent(prefix == null ? XMLConstants.DEFAULT_NS_PREFIX : prefix, namespaceURI);
+            }
+            NamedNodeMap attributes = element.getAttributes();
+            int length = attributes.getLength();
+            for (int i = 0; i < length; i++) {
+                Attr attr = (Attr) attributes.item(i);
+                if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attr.getNamespaceURI())) {
+                    String prefix = XMLConstants.XMLNS_ATTRIBUTE.equals(attr.getPrefix())
+                        ? attr.getLocalName() : XMLConstants.DEFAULT_NS_PREFIX;
+                    bindings.putIfAbsent(prefix, attr.getValue());
+                }
+            }
+            node = node.getParentNode();
+        }
+        return bindings;
+    }
+
+    private static XPath borrowEngine() throws XPathFactoryConfigurationException {
+        XPath xpath = XPATH_ENGINES.poll();
+        if (xpath != null) {
+            return xpath;
+        }
+        synchronized (XPATH_ENGINES) {
+            if (xpathFactory == null) {
+                XPathFactory factory = XPathFactory.newInstance();
+                factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, Boolean.TRUE);
+                xpathFactory = factory;
+            }
+            return xpathFactory.newXPath();
+        }
+    }
+
+    /**
+     * The pool of compiled expressions for one key.
+     */
+    static final class Pool {
+
+        private final Key key;
+        private final Queue<XPathExpression> expressions = newPoolQueue();
+
+        Pool(Key key) {
+            this.key = key;
+        }
+
+        XPathExpression borrow() throws XPathExpressionException, XPathFactoryConfigurationException {
+            XPathExpression expression = expressions.poll();
+            if (expression != null) {
+                return expression;
+            }
+            XPath xpath = borrowEngine();
+            try {
+                xpath.setNamespaceContext(key.namespaceContext);
+                return xpath.compile(key.expression);
+            } finally {
+                xpath.reset();
+                offer(XPATH_ENGINES, xpath);
+            }
+        }
+
+        void release(XPathExpression expression) {
+            offer(expressions, expression);
+        }
+    }
+
+    static final class Key {
+
+        private final String expression;
+        private final Map<String, String> namespaces;
+        private final NamespaceContext namespaceContext;
+        private final int hashCode;
+
+        Key(String expression, Map<String, String> namespaces) {
+            this.expression = expression;
+            this.namespaces = Collections.unmodifiableMap(namespaces);
+            this.namespaceContext = new MapNamespaceContext(this.namespaces);
+            this.hashCode = 31 * expression.hashCode() + namespaces.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return hashCode == other.hashCode && expression.equals(other.expression)
+                && namespaces.equals(other.namespaces);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * A NamespaceContext over a fixed set of bindings, which resolves like {@link DOMNamespaceContext}.
+     */
+    private static final class MapNamespaceContext implements NamespaceContext {
+
+        private final Map<String, String> namespaces;
+
+        MapNamespaceContext(Map<String, String> namespaces) {
+            this.namespaces = namespaces;
+        }
+
+        public String getNamespaceURI(String prefix) {
+            if (prefix == null) {
+                throw new IllegalArgumentException("prefix is null");
+            }
+            String namespaceURI = namespaces.get(prefix);
+            if (namespaceURI != null && !namespaceURI.isEmpty()) {
+                return namespaceURI;
+            }
+            if (prefix.equals(XMLConstants.XML_NS_PREFIX)) {
+                return XMLConstants.XML_NS_URI;
+            } else if (prefix.equals(XMLConstants.XMLNS_ATTRIBUTE)) {
+                return XMLConstants.XMLNS_ATTRIBUTE_NS_URI;
+            }
+            return XMLConstants.NULL_NS_URI;
+        }
+
+        public String getPrefix(String namespaceURI) {
+            if (namespaceURI == null) {
+                throw new IllegalArgumentException("namespace URI is null");
+            }
+            for (Map.Entry<String, String> entry : namespaces.entrySet()) {
+                if (namespaceURI.equals(entry.getValue())) {
+                    return entry.getKey();
+                }
+            }
+            if (XMLConstants.XML_NS_URI.equals(namespaceURI)) {
+                return XMLConstants.XML_NS_PREFIX;
+            } else if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(namespaceURI)) {
+                return XMLConstants.XMLNS_ATTRIBUTE;
+            }
+            return null;
+        }
+
+        /**
+         * Throws {@link UnsupportedOperationException}.
+         */
+        public Iterator<String> getPrefixes(String namespaceURI) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
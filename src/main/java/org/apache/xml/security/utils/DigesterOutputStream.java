@@ -19,6 +19,7 @@
 package org.apache.xml.security.utils;
 
 import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
 
 import org.apache.xml.security.algorithms.MessageDigestAlgorithm;
 
@@ -31,6 +32,8 @@ public class DigesterOutputStream extends ByteArrayOutputStream {
 
     final MessageDigestAlgorithm mda;
 
+    private long byteCount;
+
     /**
      * @param mda
      */
@@ -46,6 +49,7 @@ public class DigesterOutputStream extends ByteArrayOutputStream {
     /** {@inheritDoc} */
     public void write(int arg0) {
         mda.update((byte)arg0);
+        byteCount++;
     }
 
     /** {@inheritDoc} */
@@ -59,6 +63,26 @@ public class DigesterOutputStream extends ByteArrayOutputStream {
             LOG.debug(sb.toString());
         }
         mda.update(arg0, arg1, arg2);
+        byteCount += arg2;
+    }
+
+    /**
+     * Digests the remaining bytes of the buffer, without copying a direct or mapped buffer
+     * onto the heap.
+     *
+     * @param buffer the bytes to digest
+     */
+    public void write(ByteBuffer buffer) {
+        LOG.debug("Pre-digested input: {} bytes from a buffer", buffer.remaining());
+        byteCount += buffer.remaining();
+        mda.update(buffer);
+    }
+
+    /**
+     * @return the number of bytes digested so far
+     */
+    public long getByteCount() {
+        return byteCount;
     }
 
     /**
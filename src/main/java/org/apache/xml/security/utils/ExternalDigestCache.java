@@ -0,0 +1,213 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.utils;
+
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+
+/**
+ * An opt-in cache of the digests of external (detached) references, so that an unchanged
+ * external resource doesn't need to be fetched, transformed and digested again every time a
+ * signature over it is verified.
+ *
+ * A digest is cached per {@link ResourceVersion}, i.e. the resolved URI of the resource together
+ * with a validator of its content (e.g. an HTTP ETag, or the size and modification time of a
+ * file), the transforms of the reference and the digest algorithm. The resource resolvers
+ * determine the version of a resource before it is fetched, so that a resource which changes
+ * while it is digested is never cached under its new version. The cache trusts the validators:
+ * a resource whose content changes without changing its validator is served the stale digest
+ * until it is invalidated explicitly with {@link #invalidate(String)}. Only the digest is cached,
+ * the reference is still compared with the DigestValue of the signature.
+ *
+ * The cache is disabled by default. The maximum number of cached digests can be configured
+ * with the system property "org.apache.xml.security.external-digest.cache-size", or with
+ * {@link #setMaximumSize(int)}.
+ */
+public final class ExternalDigestCache {
+
+    private static volatile BoundedCache<Key, byte[]> cache =
+        new BoundedCache<>(
+            AccessController.doPrivileged(
+                (PrivilegedAction<Integer>) () ->
+                    Integer.getInteger("org.apache.xml.security.external-digest.cache-size", 0)));
+
+    private ExternalDigestCache() {
+        // we don't allow instantiation
+    }
+
+    /**
+     * Returns whether digests of external references are cached.
+     */
+    public static boolean isEnabled() {
+        return cache.getMaximumSize() > 0;
+    }
+
+    /**
+     * Sets the maximum number of cached digests, a value of 0 disables the cache. The cached
+     * digests and the metrics are discarded.
+     *
+     * @throws SecurityException if a security manager is installed and the
+     *    caller does not have permission to register
+     */
+    public static void setMaximumSize(int maximumSize) {
+        JavaUtils.checkRegisterPermission();
+        cache = new BoundedCache<>(maximumSize);
+    }
+
+    public static int getMaximumSize() {
+        return cache.getMaximumSize();
+    }
+
+    /**
+     * Returns the cached digest of the given version of a resource, or null if there is none.
+     *
+     * @param resourceVersion the version of the resource
+     * @param transforms a representation of all the parameters of the transforms of the reference
+     * @param digestAlgorithm the URI of the digest algorithm
+     */
+    public static byte[] getDigest(ResourceVersion resourceVersion, String transforms, String digestAlgorithm) {
+        byte[] digest = cache.get(new Key(resourceVersion, transforms, digestAlgorithm));
+        return digest != null ? digest.clone() : null;
+    }
+
+    /**
+     * Caches the digest of the given version of a resource.
+     *
+     * @param resourceVersion the version of the resource
+     * @param transforms a representation of all the parameters of the transforms of the reference
+     * @param digestAlgorithm the URI of the digest algorithm
+     * @param digest the digest of the transformed resource
+     */
+    public static void putDigest(
+        ResourceVersion resourceVersion, String transforms, String digestAlgorithm, byte[] digest
+    ) {
+        cache.putIfAbsent(new Key(resourceVersion, transforms, digestAlgorithm), digest.clone());
+    }
+
+    /**
+     * Removes the cached digests of all versions of the resource with the given resolved URI.
+     *
+     * @return the number of removed digests
+     */
+    public static int invalidate(String uri) {
+        return cache.removeIf(key -> key.resourceVersion.getURI().equals(uri));
+    }
+
+    /**
+     * Removes all cached digests.
+     */
+    public static void invalidateAll() {
+        cache.clear();
+    }
+
+    public static int size() {
+        return cache.size();
+    }
+
+    public static long getHitCount() {
+        return cache.getHitCount();
+    }
+
+    public static long getMissCount() {
+        return cache.getMissCount();
+    }
+
+    public static long getEvictionCount() {
+        return cache.getEvictionCount();
+    }
+
+    /**
+     * Identifies the content of an external resource: its resolved URI and a validator which
+     * changes whenever the content changes.
+     */
+    public static final class ResourceVersion {
+
+        private final String uri;
+        private final String validator;
+
+        public ResourceVersion(String uri, String validator) {
+            if (uri == null || validator == null) {
+                throw new IllegalArgumentException("uri and validator must not be null");
+            }
+            this.uri = uri;
+            this.validator = validator;
+        }
+
+        public String getURI() {
+            return uri;
+        }
+
+        public String getValidator() {
+            return validator;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof ResourceVersion)) {
+                return false;
+            }
+            ResourceVersion other = (ResourceVersion) obj;
+            return uri.equals(other.uri) && validator.equals(other.validator);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * uri.hashCode() + validator.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return uri + " (" + validator + ")";
+        }
+    }
+
+    private static final class Key {
+
+        private final ResourceVersion resourceVersion;
+        private final String transforms;
+        private final String digestAlgorithm;
+
+        Key(ResourceVersion resourceVersion, String transforms, String digestAlgorithm) {
+            this.resourceVersion = resourceVersion;
+            this.transforms = transforms;
+            this.digestAlgorithm = digestAlgorithm;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return resourceVersion.equals(other.resourceVersion) && transforms.equals(other.transforms)
+                && digestAlgorithm.equals(other.digestAlgorithm);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * resourceVersion.hashCode() + transforms.hashCode()) + digestAlgorithm.hashCode();
+        }
+    }
+}
@@ -0,0 +1,257 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.utils;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link SecurityMetricsListener} which collects the durations in memory, per stage and per
+ * stage and algorithm, in histograms with power-of-two buckets. It is meant for tests and
+ * benchmarks, e.g.:
+ * <pre>
+ * HistogramSecurityMetricsListener metrics = new HistogramSecurityMetricsListener();
+ * SecurityMetrics.setListener(metrics);
+ * ... sign or verify ...
+ * long digested = metrics.getHistogram(Stage.REFERENCE_DIGEST).getTotalBytes();
+ * </pre>
+ */
+public class HistogramSecurityMetricsListener implements SecurityMetricsListener {
+
+    private final Map<Stage, Histogram> stageHistograms = new ConcurrentHashMap<>();
+    private final Map<Stage, Map<String, Histogram>> algorithmHistograms = new ConcurrentHashMap<>();
+    private final Map<Stage, BufferStatistics> bufferStatistics = new ConcurrentHashMap<>();
+
+    @Override
+    public void operationCompleted(Stage stage, String algorithm, long durationNanos, long bytes) {
+        stageHistograms.computeIfAbsent(stage, k -> new Histogram()).add(durationNanos, bytes);
+        if (algorithm != null) {
+            algorithmHistograms.computeIfAbsent(stage, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(algorithm, k -> new Histogram()).add(durationNanos, bytes);
+        }
+    }
+
+    @Override
+    public void bufferReleased(Stage stage, long spilledEvents, long spilledBytes, int peakEventsInMemory) {
+        bufferStatistics.computeIfAbsent(stage, k -> new BufferStatistics())
+            .add(spilledEvents, spilledBytes, peakEventsInMemory);
+    }
+
+    /**
+     * Returns the histogram of all the operations of the stage, which is empty if none was recorded.
+     */
+    public Histogram getHistogram(Stage stage) {
+        Histogram histogram = stageHistograms.get(stage);
+        return histogram != null ? histogram : new Histogram();
+    }
+
+    /**
+     * Returns the histogram of the operations of the stage with the algorithm, which is empty if
+     * none was recorded.
+     */
+    public Histogram getHistogram(Stage stage, String algorithm) {
+        Map<String, Histogram> histograms = algorithmHistograms.get(stage);
+        Histogram histogram = histograms != null ? histograms.get(algorithm) : null;
+        return histogram != null ? histogram : new Histogram();
+    }
+
+    /**
+     * Returns the statistics of the event buffers released in the stage, which are empty if none
+     * was released.
+     */
+    public BufferStatistics getBufferStatistics(Stage stage) {
+        BufferStatistics statistics = bufferStatistics.get(stage);
+        return statistics != null ? statistics : new BufferStatistics();
+    }
+
+    /**
+     * Returns the algorithms for which operations of the stage were recorded.
+     */
+    public Set<String> getAlgorithms(Stage stage) {
+        Map<String, Histogram> histograms = algorithmHistograms.get(stage);
+        if (histograms == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(new TreeSet<>(histograms.keySet()));
+    }
+
+    /**
+     * Discards all the recorded operations.
+     */
+    public void reset() {
+        stageHistograms.clear();
+        algorithmHistograms.clear();
+        bufferStatistics.clear();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Stage stage : Stage.values()) {
+            Histogram histogram = stageHistograms.get(stage);
+            if (histogram != null) {
+                sb.append(stage).append(": ").append(histogram).append('\n');
+            }
+            BufferStatistics statistics = bufferStatistics.get(stage);
+            if (statistics != null) {
+                sb.append(stage).append(" buffers: ").append(statistics).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A histogram of durations. Bucket i counts the durations d with 2^i &lt;= d &lt; 2^(i+1)
+     * nanoseconds, bucket 0 also counts the durations below one nanosecond.
+     */
+    public static final class Histogram {
+
+        private final long[] buckets = new long[64];
+        private long count;
+        private long totalNanos;
+        private long minNanos = Long.MAX_VALUE;
+        private long maxNanos;
+        private long totalBytes;
+
+        synchronized void add(long durationNanos, long bytes) {
+            long duration = Math.max(durationNanos, 0);
+            buckets[duration == 0 ? 0 : 63 - Long.numberOfLeadingZeros(duration)]++;
+            count++;
+            totalNanos += duration;
+            minNanos = Math.min(minNanos, duration);
+            maxNanos = Math.max(maxNanos, duration);
+            if (bytes > 0) {
+                totalBytes += bytes;
+            }
+        }
+
+        public synchronized long getCount() {
+            return count;
+        }
+
+        public synchronized long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public synchronized long getMinNanos() {
+            return count == 0 ? 0 : minNanos;
+        }
+
+        public synchronized long getMaxNanos() {
+            return maxNanos;
+        }
+
+        public synchronized long getMeanNanos() {
+            return count == 0 ? 0 : totalNanos / count;
+        }
+
+        /**
+         * Returns the sum of the known byte counts of the operations.
+         */
+        public synchronized long getTotalBytes() {
+            return totalBytes;
+        }
+
+        /**
+         * Returns a copy of the bucket counts.
+         */
+        public synchronized long[] getBuckets() {
+            return buckets.clone();
+        }
+
+        /**
+         * Returns an upper bound of the given percentile of the durations, i.e. the exclusive upper
+         * bound of the bucket which contains it, capped by the maximum duration.
+         *
+         * @param percentile the percentile, between 0 and 100
+         */
+        public synchronized long getPercentileNanos(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("percentile must be between 0 and 100: " + percentile);
+            }
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank) {
+                    return i < 62 ? Math.min(1L << (i + 1), maxNanos) : maxNanos;
+                }
+            }
+            return maxNanos;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return "count=" + count + ", mean=" + getMeanNanos() + "ns, min=" + getMinNanos()
+                + "ns, max=" + maxNanos + "ns, bytes=" + totalBytes;
+        }
+    }
+
+    /**
+     * The summed statistics of released event buffers.
+     */
+    public static final class BufferStatistics {
+
+        private long count;
+        private long spilledEvents;
+        private long spilledBytes;
+        private int peakEventsInMemory;
+
+        synchronized void add(long spilledEvents, long spilledBytes, int peakEventsInMemory) {
+            count++;
+            this.spilledEvents += spilledEvents;
+            this.spilledBytes += spilledBytes;
+            this.peakEventsInMemory = Math.max(this.peakEventsInMemory, peakEventsInMemory);
+        }
+
+        /**
+         * Returns the number of released buffers.
+         */
+        public synchronized long getCount() {
+            return count;
+        }
+
+        public synchronized long getSpilledEvents() {
+            return spilledEvents;
+        }
+
+        public synchronized long getSpilledBytes() {
+            return spilledBytes;
+        }
+
+        /**
+         * Returns the highest number of events which a buffer held in memory at the same time.
+         */
+        public synchronized int getPeakEventsInMemory() {
+            return peakEventsInMemory;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return "count=" + count + ", spilledEvents=" + spilledEvents + ", spilledBytes=" + spilledBytes
+                + ", peakEventsInMemory=" + peakEventsInMemory;
+        }
+    }
+}
@@ -18,28 +18,26 @@
  */
 package org.apache.xml.security.utils;
 
-import javax.xml.XMLConstants;
 import javax.xml.transform.TransformerException;
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 import javax.xml.xpath.XPathFactoryConfigurationException;
 
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 /**
- * An implementation for XPath evaluation that uses the JDK API.
+ * An implementation for XPath evaluation that uses the JDK API. Compiled expressions are taken
+ * from, and returned to, the shared {@link CompiledXPathCache}.
  */
 class JDKXPathAPI implements XPathAPI {
 
-    private XPathFactory xpf;
-
     private String xpathStr;
 
-    private XPathExpression xpathExpression;
+    private Node namespaceNode;
+
+    private CompiledXPathCache.Pool pool;
 
     /**
      *  Use an XPath string to select a nodelist.
@@ -56,28 +54,13 @@ class JDKXPathAPI implements XPathAPI {
     public NodeList selectNodeList(
         Node contextNode, Node xpathnode, String str, Node namespaceNode
     ) throws TransformerException {
-        if (!str.equals(xpathStr) || xpathExpression == null) {
-            if (xpf == null) {
-                xpf = XPathFactory.newInstance();
-                try {
-                    xpf.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, Boolean.TRUE);
-                } catch (XPathFactoryConfigurationException ex) {
-                    throw new TransformerException(ex);
-                }
-            }
-            XPath xpath = xpf.newXPath();
-            xpath.setNamespaceContext(new DOMNamespaceContext(namespaceNode));
-            xpathStr = str;
-            try {
-                xpathExpression = xpath.compile(xpathStr);
-            } catch (XPathExpressionException ex) {
-                throw new TransformerException(ex);
-            }
-        }
+        XPathExpression xpathExpression = borrow(str, namespaceNode);
         try {
             return (NodeList)xpathExpression.evaluate(contextNode, XPathConstants.NODESET);
         } catch (XPathExpressionException ex) {
             throw new TransformerException(ex);
+        } finally {
+            pool.release(xpathExpression);
         }
     }
 
@@ -90,28 +73,27 @@ class JDKXPathAPI implements XPathAPI {
      */
     public boolean evaluate(Node contextNode, Node xpathnode, String str, Node namespaceNode)
         throws TransformerException {
-        if (!str.equals(xpathStr) || xpathExpression == null) {
-            if (xpf == null) {
-                xpf = XPathFactory.newInstance();
-                try {
-                    xpf.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, Boolean.TRUE);
-                } catch (XPathFactoryConfigurationException ex) {
-                    throw new TransformerException(ex);
-                }
-            }
-            XPath xpath = xpf.newXPath();
-            xpath.setNamespaceContext(new DOMNamespaceContext(namespaceNode));
-            xpathStr = str;
-            try {
-                xpathExpression = xpath.compile(xpathStr);
-            } catch (XPathExpressionException ex) {
-                throw new TransformerException(ex);
-            }
-        }
+        XPathExpression xpathExpression = borrow(str, namespaceNode);
         try {
             return (Boolean)xpathExpression.evaluate(contextNode, XPathConstants.BOOLEAN);
         } catch (XPathExpressionException ex) {
             throw new TransformerException(ex);
+        } finally {
+            pool.release(xpathExpression);
+        }
+    }
+
+    private XPathExpression borrow(String str, Node namespaceNode) throws TransformerException {
+        // a transform evaluates the same expression for every node, so only look it up once
+        if (pool == null || !str.equals(xpathStr) || namespaceNode != this.namespaceNode) {
+            pool = CompiledXPathCache.getPool(str, namespaceNode);
+            xpathStr = str;
+            this.namespaceNode = namespaceNode;
+        }
+        try {
+            return pool.borrow();
+        } catch (XPathExpressionException | XPathFactoryConfigurationException ex) {
+            throw new TransformerException(ex);
         }
     }
 
@@ -120,8 +102,8 @@ class JDKXPathAPI implements XPathAPI {
      */
     public void clear() {
         xpathStr = null;
-        xpathExpression = null;
-        xpf = null;
+        namespaceNode = null;
+        pool = null;
     }
 
 }
@@ -20,7 +20,11 @@ package org.apache.xml.security.utils;
 
 
 /**
- * A Factory to return a JDKXPathAPI instance.
+ * A Factory to return a JDKXPathAPI instance. All instances share a bounded cache of compiled
+ * expressions, keyed by the expression and the namespace bindings it is resolved against. The
+ * size of the cache is set with the "org.apache.xml.security.xpath.cache-size" system property
+ * (256 by default, 0 disables the cache), the number of compiled copies kept per expression with
+ * "org.apache.xml.security.xpath.pool-size" (8 by default, 0 disables pooling).
  */
 public class JDKXPathFactory extends XPathFactory {
 
@@ -30,4 +34,11 @@ public class JDKXPathFactory extends XPathFactory {
     public XPathAPI newXPathAPI() {
         return new JDKXPathAPI();
     }
+
+    /**
+     * Returns the cache of compiled expressions, e.g. to monitor its hit rate.
+     */
+    public static BoundedCache<?, ?> getCompiledExpressionCache() {
+        return CompiledXPathCache.getCache();
+    }
 }
@@ -0,0 +1,146 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An InputStream over a memory-mapped file. The file is mapped region by region, so files larger
+ * than 2 GB are supported as well.
+ * <p>
+ * Besides reading it like any other stream, the mapped regions can be taken with
+ * {@link #nextRegion()} and handed directly to a digest, which avoids copying the file content
+ * onto the heap. The digest output streams support this for references without transforms.
+ * <p>
+ * A region stays mapped until its buffer is garbage collected, the mapping is not released by
+ * {@link #close()}.
+ */
+public class MappedFileInputStream extends InputStream {
+
+    /** The default size of a mapped region, 64 MB */
+    public static final int DEFAULT_REGION_SIZE = 64 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+    private final int regionSize;
+
+    /** The file position of the next region to map */
+    private long position;
+    private ByteBuffer region;
+
+    public MappedFileInputStream(Path path) throws IOException {
+        this(path, DEFAULT_REGION_SIZE);
+    }
+
+    public MappedFileInputStream(Path path, int regionSize) throws IOException {
+        if (regionSize <= 0) {
+            throw new IllegalArgumentException("regionSize must be positive");
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.regionSize = regionSize;
+    }
+
+    /**
+     * Returns the unread rest of the current region, or maps the next region of the file.
+     * The returned buffer is consumed, i.e. a subsequent read starts after it.
+     *
+     * @return the next mapped region, or null at the end of the file
+     * @throws IOException if the file can't be mapped
+     */
+    public ByteBuffer nextRegion() throws IOException {
+        ByteBuffer next = region != null && region.hasRemaining() ? region : map();
+        region = null;
+        return next;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureRegion()) {
+            return -1;
+        }
+        return region.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureRegion()) {
+            return -1;
+        }
+        int read = Math.min(len, region.remaining());
+        region.get(b, off, read);
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+        long skipped = 0;
+        if (region != null) {
+            int inRegion = (int) Math.min(n, region.remaining());
+            region.position(region.position() + inRegion);
+            skipped = inRegion;
+        }
+        long inFile = Math.min(n - skipped, size - position);
+        position += inFile;
+        return skipped + inFile;
+    }
+
+    @Override
+    public int available() throws IOException {
+        long available = size - position + (region != null ? region.remaining() : 0);
+        return (int) Math.min(available, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        region = null;
+        channel.close();
+    }
+
+    private boolean ensureRegion() throws IOException {
+        if (region == null || !region.hasRemaining()) {
+            region = map();
+        }
+        return region != null;
+    }
+
+    private ByteBuffer map() throws IOException {
+        if (position >= size) {
+            return null;
+        }
+        long length = Math.min(regionSize, size - position);
+        ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        position += length;
+        return mapped;
+    }
+}
@@ -0,0 +1,195 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.utils;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * The registry of the {@link SecurityMetricsListener}, and the helpers used by the instrumented
+ * stages to report to it.
+ *
+ * No listener is registered by default. In this case the instrumented code doesn't even read
+ * the clock, and {@link #start()} and {@link #record} are trivial. An instrumented operation
+ * looks like this:
+ * <pre>
+ * long start = SecurityMetrics.start();
+ * ... the operation ...
+ * SecurityMetrics.record(Stage.CANONICALIZATION, algorithmURI, start, bytes);
+ * </pre>
+ */
+public final class SecurityMetrics {
+
+    private static final org.slf4j.Logger LOG =
+        org.slf4j.LoggerFactory.getLogger(SecurityMetrics.class);
+
+    /** The start time returned by {@link #start()} if no listener is registered */
+    public static final long NOT_STARTED = Long.MIN_VALUE;
+
+    private static volatile SecurityMetricsListener listener;
+
+    private SecurityMetrics() {
+        // we don't allow instantiation
+    }
+
+    /**
+     * Registers the listener, or removes it if null.
+     *
+     * @throws SecurityException if a security manager is installed and the
+     *    caller does not have permission to register
+     */
+    public static void setListener(SecurityMetricsListener listener) {
+        JavaUtils.checkRegisterPermission();
+        SecurityMetrics.listener = listener;
+    }
+
+    public static SecurityMetricsListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Returns whether a listener is registered.
+     */
+    public static boolean isEnabled() {
+        return listener != null;
+    }
+
+    /**
+     * Returns the start time of an operation, or {@link #NOT_STARTED} if no listener is registered.
+     */
+    public static long start() {
+        return listener != null ? System.nanoTime() : NOT_STARTED;
+    }
+
+    /**
+     * Reports a completed operation to the listener, if the operation was started while a listener
+     * was registered. An exception of the listener is logged and otherwise ignored.
+     *
+     * @param stage the stage of the operation
+     * @param algorithm the algorithm URI of the operation, may be null
+     * @param start the start time returned by {@link #start()}
+     * @param bytes the number of bytes processed by the operation, or -1 if not known
+     */
+    public static void record(SecurityMetricsListener.Stage stage, String algorithm, long start, long bytes) {
+        if (start != NOT_STARTED) {
+            recordDuration(stage, algorithm, System.nanoTime() - start, bytes);
+        }
+    }
+
+    /**
+     * Reports a completed operation with a duration measured by the caller, e.g. the sum of the
+     * durations of its steps, to the listener if one is registered. An exception of the listener
+     * is logged and otherwise ignored.
+     *
+     * @param stage the stage of the operation
+     * @param algorithm the algorithm URI of the operation, may be null
+     * @param durationNanos the duration of the operation in nanoseconds
+     * @param bytes the number of bytes processed by the operation, or -1 if not known
+     */
+    public static void recordDuration(
+        SecurityMetricsListener.Stage stage, String algorithm, long durationNanos, long bytes
+    ) {
+        SecurityMetricsListener currentListener = listener;
+        if (currentListener == null) {
+            return;
+        }
+        try {
+            currentListener.operationCompleted(stage, algorithm, durationNanos, bytes);
+        } catch (RuntimeException e) {
+            LOG.debug("The security metrics listener failed", e);
+        }
+    }
+
+    /**
+     * Reports the statistics of a released event buffer to the listener, if one is registered. An
+     * exception of the listener is logged and otherwise ignored.
+     *
+     * @see SecurityMetricsListener#bufferReleased(SecurityMetricsListener.Stage, long, long, int)
+     */
+    public static void recordBufferReleased(
+        SecurityMetricsListener.Stage stage, long spilledEvents, long spilledBytes, int peakEventsInMemory
+    ) {
+        SecurityMetricsListener currentListener = listener;
+        if (currentListener == null) {
+            return;
+        }
+        try {
+            currentListener.bufferReleased(stage, spilledEvents, spilledBytes, peakEventsInMemory);
+        } catch (RuntimeException e) {
+            LOG.debug("The security metrics listener failed", e);
+        }
+    }
+
+    /**
+     * Wraps the OutputStream to count the bytes written to it, if the operation was started while a
+     * listener was registered. The count is reported by {@link #record(SecurityMetricsListener.Stage,
+     * String, long, OutputStream)}.
+     *
+     * @param start the start time returned by {@link #start()}
+     * @param outputStream the OutputStream of the operation
+     * @return the counting OutputStream, or the given OutputStream if the operation wasn't started
+     */
+    public static OutputStream countBytes(long start, OutputStream outputStream) {
+        if (start == NOT_STARTED || outputStream == null) {
+            return outputStream;
+        }
+        return new CountingOutputStream(outputStream);
+    }
+
+    /**
+     * Reports a completed operation with the number of bytes written to an OutputStream which was
+     * wrapped by {@link #countBytes(long, OutputStream)}.
+     *
+     * @param stage the stage of the operation
+     * @param algorithm the algorithm URI of the operation, may be null
+     * @param start the start time returned by {@link #start()}
+     * @param outputStream the OutputStream returned by {@link #countBytes(long, OutputStream)}
+     */
+    public static void record(
+        SecurityMetricsListener.Stage stage, String algorithm, long start, OutputStream outputStream
+    ) {
+        if (start == NOT_STARTED) {
+            return;
+        }
+        long bytes = outputStream instanceof CountingOutputStream ? ((CountingOutputStream) outputStream).count : -1;
+        record(stage, algorithm, start, bytes);
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.utils;
+
+/**
+ * Receives the timings of the individual stages of signature and encryption processing. A
+ * listener is registered with {@link SecurityMetrics#setListener(SecurityMetricsListener)}.
+ *
+ * A listener is called synchronously by the thread which completed the operation, possibly by
+ * many threads concurrently, so it must be thread-safe and should return quickly.
+ */
+public interface SecurityMetricsListener {
+
+    /**
+     * The instrumented stages.
+     */
+    enum Stage {
+        /** Canonicalizer.canonicalize*, the bytes are the canonicalized octets */
+        CANONICALIZATION,
+        /** Digesting a Reference, when generating or verifying it, the bytes are the digested octets */
+        REFERENCE_DIGEST,
+        /** SignatureAlgorithm.sign, the bytes are the octets signed since the initialization */
+        SIGNATURE_SIGN,
+        /** SignatureAlgorithm.verify, the bytes are the octets verified since the initialization */
+        SIGNATURE_VERIFY,
+        /** Resolving a key or certificate from a KeyInfo, the algorithm is the type of the key */
+        KEY_RESOLUTION,
+        /** Encrypting data with XMLCipher, the bytes are the encrypted octets including the IV */
+        ENCRYPTION,
+        /** Decrypting data with XMLCipher, the bytes are the decrypted octets */
+        DECRYPTION,
+        /** Processing a document by a StAX input processor chain, summed over its events */
+        INPUT_PROCESSING,
+        /** Processing a document by a StAX output processor chain, summed over its events and the close */
+        OUTPUT_PROCESSING
+    }
+
+    /**
+     * Called when an operation completed successfully.
+     *
+     * @param stage the stage of the operation
+     * @param algorithm the algorithm URI of the operation, or another qualifier as documented
+     *    by the stage, may be null
+     * @param durationNanos the duration of the operation in nanoseconds
+     * @param bytes the number of bytes processed by the operation, or -1 if not known
+     */
+    void operationCompleted(Stage stage, String algorithm, long durationNanos, long bytes);
+
+    /**
+     * Called when a StAX processor released the buffer in which it held back the events of a
+     * document, e.g. until the end of a trailing Signature. The events are spilled to a temporary
+     * file beyond the limit of XMLSecurityProperties#setInputBufferMaxEventsInMemory or
+     * XMLSecurityProperties#setOutputBufferMaxEventsInMemory. The default implementation does
+     * nothing.
+     *
+     * @param stage {@link Stage#INPUT_PROCESSING} or {@link Stage#OUTPUT_PROCESSING}
+     * @param spilledEvents the number of events which were spilled to the temporary file
+     * @param spilledBytes the number of bytes which were written to the temporary file
+     * @param peakEventsInMemory the highest number of events held in memory at the same time
+     */
+    default void bufferReleased(Stage stage, long spilledEvents, long spilledBytes, int peakEventsInMemory) {
+    }
+}
@@ -0,0 +1,198 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.AccessController;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivilegedAction;
+
+/**
+ * An opt-in cache of successfully verified signature values, so that a signature which is
+ * received many times, e.g. an assertion of an identity provider, is cryptographically verified
+ * only once within a time-to-live.
+ *
+ * A verification is identified by a SHA-256 hash of the canonicalized SignedInfo, the
+ * SignatureValue and the encoded verification key. Only successful verifications are cached,
+ * and only for keys which have an encoding. A cache hit only skips the verification of the
+ * SignatureValue, the References are still dereferenced and digested, and compared with their
+ * DigestValues.
+ *
+ * The cache is disabled by default. The maximum number of cached verifications and their
+ * time-to-live in milliseconds can be configured with the system properties
+ * "org.apache.xml.security.verified-signature.cache-size" and
+ * "org.apache.xml.security.verified-signature.cache-ttl" (default 5 minutes), or with
+ * {@link #setMaximumSize(int)} and {@link #setTimeToLive(long)}.
+ */
+public final class VerifiedSignatureCache {
+
+    private static final org.slf4j.Logger LOG =
+        org.slf4j.LoggerFactory.getLogger(VerifiedSignatureCache.class);
+
+    /** the cached verifications, with their expiry time in terms of System.nanoTime() */
+    private static volatile BoundedCache<String, Long> cache =
+        new BoundedCache<>(
+            AccessController.doPrivileged(
+                (PrivilegedAction<Integer>) () ->
+                    Integer.getInteger("org.apache.xml.security.verified-signature.cache-size", 0)));
+
+    private static volatile long timeToLive =
+        AccessController.doPrivileged(
+            (PrivilegedAction<Long>) () ->
+                Long.getLong("org.apache.xml.security.verified-signature.cache-ttl", 5 * 60 * 1000L));
+
+    private VerifiedSignatureCache() {
+        // we don't allow instantiation
+    }
+
+    /**
+     * Returns whether verified signatures are cached.
+     */
+    public static boolean isEnabled() {
+        return cache.getMaximumSize() > 0 && timeToLive > 0;
+    }
+
+    /**
+     * Sets the maximum number of cached verifications, a value of 0 disables the cache. The
+     * cached verifications and the metrics are discarded.
+     *
+     * @throws SecurityException if a security manager is installed and the
+     *    caller does not have permission to register
+     */
+    public static void setMaximumSize(int maximumSize) {
+        JavaUtils.checkRegisterPermission();
+        cache = new BoundedCache<>(maximumSize);
+    }
+
+    public static int getMaximumSize() {
+        return cache.getMaximumSize();
+    }
+
+    /**
+     * Sets for how long a verification is cached. It applies to verifications cached from now on.
+     *
+     * @param timeToLive the time-to-live in milliseconds, a value of 0 disables the cache
+     * @throws SecurityException if a security manager is installed and the
+     *    caller does not have permission to register
+     */
+    public static void setTimeToLive(long timeToLive) {
+        JavaUtils.checkRegisterPermission();
+        if (timeToLive < 0) {
+            throw new IllegalArgumentException("timeToLive must not be negative: " + timeToLive);
+        }
+        VerifiedSignatureCache.timeToLive = timeToLive;
+    }
+
+    public static long getTimeToLive() {
+        return timeToLive;
+    }
+
+    /**
+     * Returns whether the signature value was verified successfully with the key before, and the
+     * verification didn't expire yet.
+     *
+     * @param signedInfo the canonicalized SignedInfo
+     * @param signatureValue the SignatureValue
+     * @param key the verification key
+     */
+    public static boolean isVerified(byte[] signedInfo, byte[] signatureValue, Key key) {
+        String cacheKey = getCacheKey(signedInfo, signatureValue, key);
+        if (cacheKey == null) {
+            return false;
+        }
+        BoundedCache<String, Long> currentCache = cache;
+        Long expiry = currentCache.get(cacheKey);
+        if (expiry == null) {
+            return false;
+        }
+        if (System.nanoTime() - expiry >= 0) {
+            currentCache.remove(cacheKey);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Records the successful verification of the signature value with the key.
+     *
+     * @param signedInfo the canonicalized SignedInfo
+     * @param signatureValue the SignatureValue
+     * @param key the verification key
+     */
+    public static void putVerified(byte[] signedInfo, byte[] signatureValue, Key key) {
+        String cacheKey = getCacheKey(signedInfo, signatureValue, key);
+        if (cacheKey != null) {
+            cache.putIfAbsent(cacheKey, System.nanoTime() + timeToLive * 1000000L);
+        }
+    }
+
+    /**
+     * Removes all cached verifications, e.g. when a key was revoked.
+     */
+    public static void clear() {
+        cache.clear();
+    }
+
+    public static int size() {
+        return cache.size();
+    }
+
+    public static long getHitCount() {
+        return cache.getHitCount();
+    }
+
+    public static long getMissCount() {
+        return cache.getMissCount();
+    }
+
+    public static long getEvictionCount() {
+        return cache.getEvictionCount();
+    }
+
+    private static String getCacheKey(byte[] signedInfo, byte[] signatureValue, Key key) {
+        if (!isEnabled() || signedInfo == null || signatureValue == null || key == null) {
+            return null;
+        }
+        byte[] encodedKey = key.getEncoded();
+        if (encodedKey == null) {
+            LOG.debug("Not caching the verification with a key without encoding");
+            return null;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            update(digest, signedInfo);
+            update(digest, signatureValue);
+            update(digest, String.valueOf(key.getAlgorithm()).getBytes(StandardCharsets.UTF_8));
+            update(digest, encodedKey);
+            return XMLUtils.encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            LOG.debug(e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private static void update(MessageDigest digest, byte[] input) {
+        // prefix every input with its length, so that the boundaries between them are unambiguous
+        int length = input.length;
+        digest.update(new byte[] {(byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length});
+        digest.update(input);
+    }
+}
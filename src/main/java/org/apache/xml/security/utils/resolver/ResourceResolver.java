@@ -20,11 +20,13 @@ package org.apache.xml.security.utils.resolver;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.xml.security.signature.XMLSignatureInput;
 import org.apache.xml.security.utils.ClassLoaderUtils;
+import org.apache.xml.security.utils.ExternalDigestCache;
 import org.apache.xml.security.utils.JavaUtils;
 import org.apache.xml.security.utils.resolver.implementations.ResolverFragment;
 import org.apache.xml.security.utils.resolver.implementations.ResolverXPointer;
@@ -34,6 +36,10 @@ import org.apache.xml.security.utils.resolver.implementations.ResolverXPointer;
  * This is done by retrieving a Resolver. The resolver needs two arguments: The
  * URI in which the link to the new resource is defined and the baseURI of the
  * file/entity in which the URI occurs (the baseURI is the same as the SystemId).
+ *
+ * The system-wide resolvers are indexed by the types of URI they support (see
+ * {@link ResourceResolverSpi#engineGetSupportedURITypes()}), so that a URI is only offered to
+ * the resolvers which may be able to resolve it, in the order in which they were registered.
  */
 public class ResourceResolver {
 
@@ -45,6 +51,15 @@ public class ResourceResolver {
 
     private static final AtomicBoolean defaultResolversAdded = new AtomicBoolean();
 
+    /** guards the registration of resolvers and the construction of the index */
+    private static final Object indexLock = new Object();
+
+    /**
+     * The registered resolvers per {@link ResourceResolverContext.URIType#ordinal()}, or null
+     * if the index has to be rebuilt.
+     */
+    private static volatile ResourceResolverSpi[][] resolverIndex;
+
     /**
      * Registers a ResourceResolverSpi class.
      *
@@ -92,10 +107,13 @@ public class ResourceResolver {
      */
     public static void register(ResourceResolverSpi resourceResolverSpi, boolean start) {
         JavaUtils.checkRegisterPermission();
-        if (start) {
-            resolverList.add(0, resourceResolverSpi);
-        } else {
-            resolverList.add(resourceResolverSpi);
+        synchronized (indexLock) {
+            if (start) {
+                resolverList.add(0, resourceResolverSpi);
+            } else {
+                resolverList.add(resourceResolverSpi);
+            }
+            resolverIndex = null;
         }
         LOG.debug("Registered resolver: {}", resourceResolverSpi.toString());
     }
@@ -120,7 +138,10 @@ public class ResourceResolver {
                 JavaUtils.newInstanceWithEmptyConstructor(ClassLoaderUtils.loadClass(className, ResourceResolver.class));
             resourceResolversToAdd.add(resourceResolverSpi);
         }
-        resolverList.addAll(resourceResolversToAdd);
+        synchronized (indexLock) {
+            resolverList.addAll(resourceResolversToAdd);
+            resolverIndex = null;
+        }
     }
 
     /**
@@ -133,7 +154,10 @@ public class ResourceResolver {
             resourceResolversToAdd.add(new ResolverFragment());
             resourceResolversToAdd.add(new ResolverXPointer());
 
-            resolverList.addAll(resourceResolversToAdd);
+            synchronized (indexLock) {
+                resolverList.addAll(resourceResolversToAdd);
+                resolverIndex = null;
+            }
         }
     }
 
@@ -147,7 +171,7 @@ public class ResourceResolver {
      */
     public static XMLSignatureInput resolve(ResourceResolverContext context)
         throws ResourceResolverException {
-        for (ResourceResolverSpi resolver : resolverList) {
+        for (ResourceResolverSpi resolver : getResolvers(context.getURIType())) {
             LOG.debug("check resolvability by class {}", resolver.getClass().getName());
 
             if (resolver.engineCanResolveURI(context)) {
@@ -192,4 +216,73 @@ public class ResourceResolver {
 
         return resolve(context);
     }
+
+    /**
+     * Returns the current version of the resource the URI resolves to, as reported by the
+     * resolver which would resolve it, without fetching its content.
+     *
+     * @param individualResolvers
+     * @param context
+     * @return the version of the resource, or null if it is not known
+     *
+     * @throws ResourceResolverException
+     * @see ResourceResolverSpi#engineGetResourceVersion(ResourceResolverContext)
+     */
+    public static ExternalDigestCache.ResourceVersion getResourceVersion(
+        List<ResourceResolverSpi> individualResolvers, ResourceResolverContext context
+    ) throws ResourceResolverException {
+        if (individualResolvers != null) {
+            for (ResourceResolverSpi resolver : individualResolvers) {
+                if (resolver.engineCanResolveURI(context)) {
+                    return resolver.engineGetResourceVersion(context);
+                }
+            }
+        }
+        for (ResourceResolverSpi resolver : getResolvers(context.getURIType())) {
+            if (resolver.engineCanResolveURI(context)) {
+                return resolver.engineGetResourceVersion(context);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the registered resolvers which support the given type of URI, in the order in
+     * which they were registered.
+     */
+    private static ResourceResolverSpi[] getResolvers(ResourceResolverContext.URIType uriType) {
+        ResourceResolverSpi[][] index = resolverIndex;
+        if (index == null) {
+            synchronized (indexLock) {
+                index = resolverIndex;
+                if (index == null) {
+                    index = buildIndex(resolverList);
+                    resolverIndex = index;
+                }
+            }
+        }
+        return index[uriType.ordinal()];
+    }
+
+    private static ResourceResolverSpi[][] buildIndex(List<ResourceResolverSpi> resolvers) {
+        ResourceResolverContext.URIType[] uriTypes = ResourceResolverContext.URIType.values();
+        List<List<ResourceResolverSpi>> candidates = new ArrayList<>(uriTypes.length);
+        for (int i = 0; i < uriTypes.length; i++) {
+            candidates.add(new ArrayList<>());
+        }
+        for (ResourceResolverSpi resolver : resolvers) {
+            Set<ResourceResolverContext.URIType> supported = resolver.engineGetSupportedURITypes();
+            for (ResourceResolverContext.URIType uriType : uriTypes) {
+                if (supported == null || supported.contains(uriType)) {
+                    candidates.get(uriType.ordinal()).add(resolver);
+                }
+            }
+        }
+
+        ResourceResolverSpi[][] index = new ResourceResolverSpi[uriTypes.length][];
+        for (int i = 0; i < uriTypes.length; i++) {
+            index[i] = candidates.get(i).toArray(new ResourceResolverSpi[0]);
+        }
+        return index;
+    }
 }
@@ -27,6 +27,49 @@ import org.w3c.dom.Attr;
 
 public class ResourceResolverContext {
 
+    /**
+     * The shape of the URI to resolve, which decides the resolvers {@link ResourceResolver}
+     * offers the URI to.
+     */
+    public enum URIType {
+        /** no URI attribute */
+        NONE,
+        /** an empty URI, i.e. the whole document */
+        EMPTY,
+        /** a same-document reference to an ID, i.e. "#id" */
+        FRAGMENT,
+        /** a same-document XPointer reference, i.e. "#xpointer(...)" */
+        XPOINTER,
+        /** a URI which starts with "http:" */
+        HTTP,
+        /** a URI which starts with "file:" */
+        FILE,
+        /** any other URI, e.g. a relative reference or a URI with another scheme */
+        OTHER;
+
+        /**
+         * Returns the type of the given URI.
+         */
+        public static URIType of(String uri) {
+            if (uri == null) {
+                return NONE;
+            }
+            if (uri.isEmpty()) {
+                return EMPTY;
+            }
+            if (uri.charAt(0) == '#') {
+                return uri.startsWith("#xpointer(") ? XPOINTER : FRAGMENT;
+            }
+            if (uri.startsWith("http:")) {
+                return HTTP;
+            }
+            if (uri.startsWith("file:")) {
+                return FILE;
+            }
+            return OTHER;
+        }
+    }
+
     private static boolean allowUnsafeResourceResolving =
             AccessController.doPrivileged(
                     (PrivilegedAction<Boolean>) () -> Boolean.getBoolean("org.apache.xml.security.allowUnsafeResourceResolving"));
@@ -41,6 +84,8 @@ public class ResourceResolverContext {
 
     public final Attr attr;
 
+    private final URIType uriType;
+
     public ResourceResolverContext(Attr attr, String baseUri, boolean secureValidation) {
         this(attr, baseUri, secureValidation, Collections.emptyMap());
     }
@@ -50,6 +95,7 @@ public class ResourceResolverContext {
         this.baseUri = baseUri;
         this.secureValidation = secureValidation;
         this.uriToResolve = attr != null ? attr.getValue() : null;
+        this.uriType = URIType.of(uriToResolve);
         this.properties = Collections.unmodifiableMap(properties != null ? properties : Collections.emptyMap());
     }
 
@@ -57,6 +103,10 @@ public class ResourceResolverContext {
         return properties;
     }
 
+    public URIType getURIType() {
+        return uriType;
+    }
+
     public boolean isURISafeToResolve() {
         if (allowUnsafeResourceResolving) {
             return true;
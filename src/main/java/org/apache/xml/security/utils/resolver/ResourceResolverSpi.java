@@ -18,7 +18,11 @@
  */
 package org.apache.xml.security.utils.resolver;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 import org.apache.xml.security.signature.XMLSignatureInput;
+import org.apache.xml.security.utils.ExternalDigestCache;
 
 /**
  * During reference validation, we have to retrieve resources from somewhere.
@@ -47,4 +51,29 @@ public abstract class ResourceResolverSpi {
      */
     public abstract boolean engineCanResolveURI(ResourceResolverContext context);
 
+    /**
+     * Returns the types of URI this resolver is able to resolve. {@link ResourceResolver} only
+     * calls {@link #engineCanResolveURI} with a URI of one of these types, which saves asking
+     * every registered resolver about every URI. The default is all types.
+     *
+     * @return the types of URI this resolver is able to resolve
+     */
+    public Set<ResourceResolverContext.URIType> engineGetSupportedURITypes() {
+        return EnumSet.allOf(ResourceResolverContext.URIType.class);
+    }
+
+    /**
+     * Returns the current version of the resource the URI resolves to, without fetching its
+     * content, so that the digest of an unchanged external resource can be taken from the
+     * {@link ExternalDigestCache}. The default returns null, i.e. the resource is always fetched.
+     *
+     * @param context Context in which to do resolution.
+     * @return the version of the resource, or null if it is not known
+     * @throws ResourceResolverException if the resource can't be accessed
+     */
+    public ExternalDigestCache.ResourceVersion engineGetResourceVersion(ResourceResolverContext context)
+        throws ResourceResolverException {
+        return null;
+    }
+
 }
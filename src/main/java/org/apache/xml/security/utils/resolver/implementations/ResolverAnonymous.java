@@ -23,9 +23,13 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
 
 import org.apache.xml.security.signature.XMLSignatureInput;
 import org.apache.xml.security.utils.resolver.ResourceResolverContext;
+import org.apache.xml.security.utils.resolver.ResourceResolverContext.URIType;
 import org.apache.xml.security.utils.resolver.ResourceResolverException;
 import org.apache.xml.security.utils.resolver.ResourceResolverSpi;
 
@@ -33,6 +37,9 @@ import org.apache.xml.security.utils.resolver.ResourceResolverSpi;
  */
 public class ResolverAnonymous extends ResourceResolverSpi {
 
+    private static final Set<URIType> SUPPORTED_URI_TYPES =
+        Collections.unmodifiableSet(EnumSet.of(URIType.NONE));
+
     private final Path resourcePath;
 
     /**
@@ -70,4 +77,10 @@ public class ResolverAnonymous extends ResourceResolverSpi {
         return context.uriToResolve == null;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public Set<URIType> engineGetSupportedURITypes() {
+        return SUPPORTED_URI_TYPES;
+    }
+
 }
@@ -21,6 +21,7 @@ package org.apache.xml.security.utils.resolver.implementations;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.HttpURLConnection;
 import java.net.InetSocketAddress;
 import java.net.Proxy;
 import java.net.URISyntaxException;
@@ -29,11 +30,15 @@ import java.net.URL;
 import java.net.URLConnection;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.xml.security.signature.XMLSignatureInput;
+import org.apache.xml.security.utils.ExternalDigestCache;
 import org.apache.xml.security.utils.XMLUtils;
 import org.apache.xml.security.utils.resolver.ResourceResolverContext;
+import org.apache.xml.security.utils.resolver.ResourceResolverContext.URIType;
 import org.apache.xml.security.utils.resolver.ResourceResolverException;
 import org.apache.xml.security.utils.resolver.ResourceResolverSpi;
 
@@ -62,6 +67,9 @@ public class ResolverDirectHTTP extends ResourceResolverSpi {
     private static final org.slf4j.Logger LOG =
         org.slf4j.LoggerFactory.getLogger(ResolverDirectHTTP.class);
 
+    private static final Set<URIType> SUPPORTED_URI_TYPES =
+        Collections.unmodifiableSet(EnumSet.of(URIType.HTTP, URIType.FILE, URIType.OTHER));
+
     /** Field properties[] */
     private static final String[] properties = {
                                                  "http.proxy.host", "http.proxy.port",
@@ -109,29 +117,7 @@ public class ResolverDirectHTTP extends ResourceResolverSpi {
             // calculate new URI
             URI uriNew = getNewURI(context.uriToResolve, context.baseUri);
             URL url = uriNew.toURL();
-            URLConnection urlConnection = openConnection(url, context);
-
-            // check if Basic authentication is required
-            String auth = urlConnection.getHeaderField("WWW-Authenticate");
-
-            if (auth != null && auth.startsWith("Basic")) {
-                // do http basic authentication
-                String user =
-                    getProperty(context, ResolverDirectHTTP.properties[ResolverDirectHTTP.HttpBasicUser]);
-                String pass =
-                    getProperty(context, ResolverDirectHTTP.properties[ResolverDirectHTTP.HttpBasicPass]);
-
-                if (user != null && pass != null) {
-                    urlConnection = openConnection(url, context);
-
-                    String password = user + ":" + pass;
-                    String encodedPassword = XMLUtils.encodeToString(password.getBytes(StandardCharsets.ISO_8859_1));
-
-                    // set authentication property in the http header
-                    urlConnection.setRequestProperty("Authorization",
-                                                     "Basic " + encodedPassword);
-                }
-            }
+            URLConnection urlConnection = openAuthenticatedConnection(url, context, null);
 
             String mimeType = urlConnection.getHeaderField("Content-Type");
             try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
@@ -161,7 +147,75 @@ public class ResolverDirectHTTP extends ResourceResolverSpi {
         }
     }
 
-    private URLConnection openConnection(URL url, ResourceResolverContext context) throws IOException {
+    /**
+     * {@inheritDoc}
+     *
+     * The version of a resource is its strong ETag or, if there is none, its Last-Modified date
+     * and Content-Length, as returned for a HEAD request.
+     */
+    @Override
+    public ExternalDigestCache.ResourceVersion engineGetResourceVersion(ResourceResolverContext context)
+        throws ResourceResolverException {
+        try {
+            URI uriNew = getNewURI(context.uriToResolve, context.baseUri);
+            URLConnection urlConnection = openAuthenticatedConnection(uriNew.toURL(), context, "HEAD");
+            if (!(urlConnection instanceof HttpURLConnection)) {
+                return null;
+            }
+            HttpURLConnection httpURLConnection = (HttpURLConnection) urlConnection;
+            try {
+                if (httpURLConnection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                    return null;
+                }
+                // a weak ETag doesn't guarantee the same bytes
+                String eTag = httpURLConnection.getHeaderField("ETag");
+                if (eTag != null && !eTag.startsWith("W/")) {
+                    return new ExternalDigestCache.ResourceVersion(uriNew.toString(), "ETag " + eTag);
+                }
+                String lastModified = httpURLConnection.getHeaderField("Last-Modified");
+                if (lastModified == null) {
+                    return null;
+                }
+                return new ExternalDigestCache.ResourceVersion(uriNew.toString(),
+                    "Last-Modified " + lastModified + "/" + httpURLConnection.getHeaderField("Content-Length"));
+            } finally {
+                httpURLConnection.disconnect();
+            }
+        } catch (URISyntaxException | IOException | IllegalArgumentException ex) {
+            throw new ResourceResolverException(ex, context.uriToResolve, context.baseUri, "generic.EmptyMessage");
+        }
+    }
+
+    private URLConnection openAuthenticatedConnection(URL url, ResourceResolverContext context, String requestMethod)
+        throws IOException {
+        URLConnection urlConnection = openConnection(url, context, requestMethod);
+
+        // check if Basic authentication is required
+        String auth = urlConnection.getHeaderField("WWW-Authenticate");
+
+        if (auth != null && auth.startsWith("Basic")) {
+            // do http basic authentication
+            String user =
+                getProperty(context, ResolverDirectHTTP.properties[ResolverDirectHTTP.HttpBasicUser]);
+            String pass =
+                getProperty(context, ResolverDirectHTTP.properties[ResolverDirectHTTP.HttpBasicPass]);
+
+            if (user != null && pass != null) {
+                urlConnection = openConnection(url, context, requestMethod);
+
+                String password = user + ":" + pass;
+                String encodedPassword = XMLUtils.encodeToString(password.getBytes(StandardCharsets.ISO_8859_1));
+
+                // set authentication property in the http header
+                urlConnection.setRequestProperty("Authorization",
+                                                 "Basic " + encodedPassword);
+            }
+        }
+        return urlConnection;
+    }
+
+    private URLConnection openConnection(URL url, ResourceResolverContext context, String requestMethod)
+        throws IOException {
 
         String proxyHostProp =
             getProperty(context, ResolverDirectHTTP.properties[ResolverDirectHTTP.HttpProxyHost]);
@@ -192,6 +246,9 @@ public class ResolverDirectHTTP extends ResourceResolverSpi {
             urlConnection = url.openConnection();
         }
 
+        if (requestMethod != null && urlConnection instanceof HttpURLConnection) {
+            ((HttpURLConnection) urlConnection).setRequestMethod(requestMethod);
+        }
         return urlConnection;
     }
 
@@ -225,6 +282,12 @@ public class ResolverDirectHTTP extends ResourceResolverSpi {
         return false;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public Set<URIType> engineGetSupportedURITypes() {
+        return SUPPORTED_URI_TYPES;
+    }
+
     private static URI getNewURI(String uri, String baseURI) throws URISyntaxException {
         URI newUri = null;
         if (baseURI == null || baseURI.length() == 0) {
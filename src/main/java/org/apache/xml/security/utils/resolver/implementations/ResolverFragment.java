@@ -18,9 +18,14 @@
  */
 package org.apache.xml.security.utils.resolver.implementations;
 
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
 import org.apache.xml.security.signature.XMLSignatureInput;
 import org.apache.xml.security.utils.XMLUtils;
 import org.apache.xml.security.utils.resolver.ResourceResolverContext;
+import org.apache.xml.security.utils.resolver.ResourceResolverContext.URIType;
 import org.apache.xml.security.utils.resolver.ResourceResolverException;
 import org.apache.xml.security.utils.resolver.ResourceResolverSpi;
 import org.w3c.dom.Document;
@@ -39,6 +44,9 @@ public class ResolverFragment extends ResourceResolverSpi {
     private static final org.slf4j.Logger LOG =
         org.slf4j.LoggerFactory.getLogger(ResolverFragment.class);
 
+    private static final Set<URIType> SUPPORTED_URI_TYPES =
+        Collections.unmodifiableSet(EnumSet.of(URIType.EMPTY, URIType.FRAGMENT));
+
     /**
      * {@inheritDoc}
      */
@@ -122,4 +130,10 @@ public class ResolverFragment extends ResourceResolverSpi {
         return false;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public Set<URIType> engineGetSupportedURITypes() {
+        return SUPPORTED_URI_TYPES;
+    }
+
 }
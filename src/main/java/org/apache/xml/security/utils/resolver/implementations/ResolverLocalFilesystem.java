@@ -23,20 +23,54 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
 
 import org.apache.xml.security.signature.XMLSignatureInput;
+import org.apache.xml.security.utils.ExternalDigestCache;
+import org.apache.xml.security.utils.MappedFileInputStream;
 import org.apache.xml.security.utils.resolver.ResourceResolverContext;
+import org.apache.xml.security.utils.resolver.ResourceResolverContext.URIType;
 import org.apache.xml.security.utils.resolver.ResourceResolverException;
 import org.apache.xml.security.utils.resolver.ResourceResolverSpi;
 
 /**
  * A simple ResourceResolver for requests into the local filesystem.
+ * <BR>
+ * Large files can be memory-mapped instead of being read through a stream, by
+ * passing the "file.memory-mapped" property to the resolver, or by setting it
+ * on the signature:
+ * <PRE>
+ * signature.getSignedInfo().setResolverProperty("file.memory-mapped", "true");
+ * </PRE>
+ * The mapped file is then handed directly to the digest if the reference has no
+ * transforms, without copying it onto the heap.
  */
 public class ResolverLocalFilesystem extends ResourceResolverSpi {
 
     private static final org.slf4j.Logger LOG =
         org.slf4j.LoggerFactory.getLogger(ResolverLocalFilesystem.class);
 
+    private static final Set<URIType> SUPPORTED_URI_TYPES =
+        Collections.unmodifiableSet(EnumSet.of(URIType.FILE, URIType.OTHER));
+
+    /** The property to memory-map the files instead of streaming them */
+    public static final String PROPERTY_MEMORY_MAPPED = "file.memory-mapped";
+
+    private final Map<String, String> resolverProperties;
+
+    public ResolverLocalFilesystem() {
+        resolverProperties = Collections.emptyMap();
+    }
+
+    public ResolverLocalFilesystem(Map<String, String> resolverProperties) {
+        this.resolverProperties =
+            Collections.unmodifiableMap(resolverProperties != null ? resolverProperties : Collections.emptyMap());
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -47,7 +81,12 @@ public class ResolverLocalFilesystem extends ResourceResolverSpi {
             // calculate new URI
             URI uriNew = getNewURI(context.uriToResolve, context.baseUri);
 
-            InputStream inputStream = Files.newInputStream(Paths.get(uriNew));  //NOPMD
+            InputStream inputStream;    //NOPMD
+            if (Boolean.parseBoolean(getProperty(context, PROPERTY_MEMORY_MAPPED))) {
+                inputStream = new MappedFileInputStream(Paths.get(uriNew));
+            } else {
+                inputStream = Files.newInputStream(Paths.get(uriNew));
+            }
             XMLSignatureInput result = new XMLSignatureInput(inputStream);
             result.setSecureValidation(context.secureValidation);
 
@@ -88,6 +127,30 @@ public class ResolverLocalFilesystem extends ResourceResolverSpi {
         return false;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public Set<URIType> engineGetSupportedURITypes() {
+        return SUPPORTED_URI_TYPES;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The version of a file is its size and its last modification time.
+     */
+    @Override
+    public ExternalDigestCache.ResourceVersion engineGetResourceVersion(ResourceResolverContext context)
+        throws ResourceResolverException {
+        try {
+            URI uriNew = getNewURI(context.uriToResolve, context.baseUri);
+            BasicFileAttributes attributes = Files.readAttributes(Paths.get(uriNew), BasicFileAttributes.class);
+            return new ExternalDigestCache.ResourceVersion(
+                uriNew.toString(), attributes.size() + "/" + attributes.lastModifiedTime());
+        } catch (Exception e) {
+            throw new ResourceResolverException(e, context.uriToResolve, context.baseUri, "generic.EmptyMessage");
+        }
+    }
+
     private static URI getNewURI(String uri, String baseURI) throws URISyntaxException {
         URI newUri = null;
         if (baseURI == null || baseURI.length() == 0) {
@@ -102,4 +165,15 @@ public class ResolverLocalFilesystem extends ResourceResolverSpi {
         }
         return newUri;
     }
+
+    private String getProperty(ResourceResolverContext context, String propertyName) {
+        // First check the properties defined on this Resolver.
+        if (resolverProperties.containsKey(propertyName)) {
+            return resolverProperties.get(propertyName);
+        }
+
+        // Otherwise defer to the passed in properties
+        return context.getProperties().get(propertyName);
+    }
+
 }
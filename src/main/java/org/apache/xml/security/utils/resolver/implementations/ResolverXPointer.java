@@ -18,9 +18,14 @@
  */
 package org.apache.xml.security.utils.resolver.implementations;
 
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
 import org.apache.xml.security.signature.XMLSignatureInput;
 import org.apache.xml.security.utils.XMLUtils;
 import org.apache.xml.security.utils.resolver.ResourceResolverContext;
+import org.apache.xml.security.utils.resolver.ResourceResolverContext.URIType;
 import org.apache.xml.security.utils.resolver.ResourceResolverException;
 import org.apache.xml.security.utils.resolver.ResourceResolverSpi;
 import org.w3c.dom.Document;
@@ -46,6 +51,9 @@ public class ResolverXPointer extends ResourceResolverSpi {
     private static final org.slf4j.Logger LOG =
         org.slf4j.LoggerFactory.getLogger(ResolverXPointer.class);
 
+    private static final Set<URIType> SUPPORTED_URI_TYPES =
+        Collections.unmodifiableSet(EnumSet.of(URIType.XPOINTER));
+
     private static final String XP = "#xpointer(id(";
     private static final int XP_LENGTH = XP.length();
 
@@ -104,6 +112,12 @@ public class ResolverXPointer extends ResourceResolverSpi {
         return isXPointerSlash(context.uriToResolve) || isXPointerId(context.uriToResolve);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public Set<URIType> engineGetSupportedURITypes() {
+        return SUPPORTED_URI_TYPES;
+    }
+
     /**
      * Method isXPointerSlash
      *
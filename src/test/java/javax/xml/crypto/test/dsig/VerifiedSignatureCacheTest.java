@@ -0,0 +1,119 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package javax.xml.crypto.test.dsig;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.Security;
+import java.util.Collections;
+
+import javax.crypto.spec.SecretKeySpec;
+import javax.xml.crypto.KeySelector;
+import javax.xml.crypto.dsig.CanonicalizationMethod;
+import javax.xml.crypto.dsig.DigestMethod;
+import javax.xml.crypto.dsig.Reference;
+import javax.xml.crypto.dsig.SignedInfo;
+import javax.xml.crypto.dsig.Transform;
+import javax.xml.crypto.dsig.XMLSignature;
+import javax.xml.crypto.dsig.XMLSignatureFactory;
+import javax.xml.crypto.dsig.dom.DOMSignContext;
+import javax.xml.crypto.dsig.dom.DOMValidateContext;
+import javax.xml.crypto.dsig.spec.C14NMethodParameterSpec;
+import javax.xml.crypto.dsig.spec.TransformParameterSpec;
+
+import org.apache.xml.security.utils.VerifiedSignatureCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the cache of verified signature values in the JSR-105 API.
+ */
+public class VerifiedSignatureCacheTest {
+
+    static {
+        Security.insertProviderAt
+            (new org.apache.jcp.xml.dsig.internal.dom.XMLDSigRI(), 1);
+    }
+
+    private final XMLSignatureFactory fac =
+        XMLSignatureFactory.getInstance("DOM", new org.apache.jcp.xml.dsig.internal.dom.XMLDSigRI());
+    private final Key key = new SecretKeySpec("testkey".getBytes(StandardCharsets.US_ASCII), "HmacSHA256");
+
+    @BeforeEach
+    public void enableCache() {
+        VerifiedSignatureCache.setMaximumSize(16);
+    }
+
+    @AfterEach
+    public void disableCache() {
+        VerifiedSignatureCache.setMaximumSize(0);
+    }
+
+    @Test
+    public void testRepeatedValidation() throws Exception {
+        Document doc = sign();
+
+        assertTrue(validate(doc));
+        assertEquals(0, VerifiedSignatureCache.getHitCount());
+        assertEquals(1, VerifiedSignatureCache.size());
+
+        assertTrue(validate(doc));
+        assertEquals(1, VerifiedSignatureCache.getHitCount());
+
+        // the references are still validated
+        doc.getDocumentElement().getFirstChild().setTextContent("tampered");
+        assertFalse(validate(doc));
+        assertEquals(2, VerifiedSignatureCache.getHitCount());
+    }
+
+    private Document sign() throws Exception {
+        Document doc = TestUtils.newDocument();
+        Element root = doc.createElementNS(null, "Assertion");
+        doc.appendChild(root);
+        Element content = doc.createElementNS(null, "Subject");
+        content.setTextContent("subject");
+        root.appendChild(content);
+
+        Reference ref = fac.newReference("", fac.newDigestMethod(DigestMethod.SHA256, null),
+            Collections.singletonList(fac.newTransform(Transform.ENVELOPED, (TransformParameterSpec) null)),
+            null, null);
+        SignedInfo si = fac.newSignedInfo(
+            fac.newCanonicalizationMethod(CanonicalizationMethod.EXCLUSIVE, (C14NMethodParameterSpec) null),
+            fac.newSignatureMethod("http://www.w3.org/2001/04/xmldsig-more#hmac-sha256", null),
+            Collections.singletonList(ref));
+        XMLSignature signature = fac.newXMLSignature(si, null);
+        signature.sign(new DOMSignContext(key, root));
+        return doc;
+    }
+
+    private boolean validate(Document doc) throws Exception {
+        Element sigElement =
+            (Element) doc.getElementsByTagNameNS(XMLSignature.XMLNS, "Signature").item(0);
+        DOMValidateContext vc = new DOMValidateContext(KeySelector.singletonKeySelector(key), sigElement);
+        XMLSignature signature = fac.unmarshalXMLSignature(vc);
+        return signature.validate(vc);
+    }
+}
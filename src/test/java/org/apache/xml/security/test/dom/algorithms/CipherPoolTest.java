@@ -0,0 +1,111 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.test.dom.algorithms;
+
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.Arrays;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.xml.security.algorithms.CipherPool;
+import org.apache.xml.security.algorithms.JCEMapper;
+import org.apache.xml.security.encryption.XMLCipher;
+import org.apache.xml.security.encryption.XMLCipherUtil;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CipherPoolTest {
+
+    static {
+        org.apache.xml.security.Init.init();
+    }
+
+    @org.junit.jupiter.api.Test
+    public void testReleasedCipherIsReused() throws Exception {
+        CipherPool.clear();
+
+        Cipher cipher = CipherPool.getInstance(XMLCipher.AES_128, null);
+        assertEquals("AES/CBC/ISO10126Padding", cipher.getAlgorithm());
+        assertEquals(0, CipherPool.getHitCount());
+        assertEquals(1, CipherPool.getMissCount());
+
+        CipherPool.release(XMLCipher.AES_128, null, cipher);
+        assertSame(cipher, CipherPool.getInstance(XMLCipher.AES_128, null));
+        assertEquals(1, CipherPool.getHitCount());
+
+        // Ciphers are pooled per algorithm and provider
+        CipherPool.release(XMLCipher.AES_128, null, cipher);
+        assertNotSame(cipher, CipherPool.getInstance(XMLCipher.AES_256, null));
+        assertNotSame(cipher, CipherPool.getInstance(XMLCipher.AES_128, "SunJCE"));
+        assertEquals(1, CipherPool.getHitCount());
+        assertEquals(3, CipherPool.getMissCount());
+
+        CipherPool.clear();
+        assertEquals(0, CipherPool.getHitCount());
+        assertEquals(0, CipherPool.getMissCount());
+    }
+
+    @org.junit.jupiter.api.Test
+    public void testReleasedCipherDoesNotKeepKey() throws Exception {
+        CipherPool.clear();
+
+        for (String algorithm : new String[] {XMLCipher.AES_128, XMLCipher.AES_256_GCM, XMLCipher.TRIPLEDES}) {
+            int keyLength = JCEMapper.getKeyLengthFromURI(algorithm) / 8;
+            int ivLength = JCEMapper.getIVLengthFromURI(algorithm) / 8;
+            String keyAlgorithm = JCEMapper.getJCEKeyAlgorithmFromURI(algorithm);
+            byte[] keyBytes = new byte[keyLength];
+            Arrays.fill(keyBytes, (byte) 0x5A);
+            SecretKey secretKey = new SecretKeySpec(keyBytes, keyAlgorithm);
+            AlgorithmParameterSpec parameterSpec =
+                XMLCipherUtil.constructBlockCipherParameters(algorithm, new byte[ivLength]);
+            byte[] plaintext = "secret plaintext".getBytes(StandardCharsets.UTF_8);
+
+            Cipher cipher = CipherPool.getInstance(algorithm, null);
+            cipher.init(Cipher.ENCRYPT_MODE, secretKey, parameterSpec);
+            cipher.doFinal(plaintext);
+            CipherPool.release(algorithm, null, cipher);
+
+            // the pooled Cipher was re-initialized with an all-zero key and IV in decrypt mode,
+            // so it decrypts what was encrypted with that key instead of the secret key
+            Cipher pooledCipher = CipherPool.getInstance(algorithm, null);
+            assertSame(cipher, pooledCipher);
+            Cipher zeroKeyCipher = Cipher.getInstance(JCEMapper.translateURItoJCEID(algorithm));
+            zeroKeyCipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(new byte[keyLength], keyAlgorithm),
+                               XMLCipherUtil.constructBlockCipherParameters(algorithm, new byte[ivLength]));
+            byte[] zeroKeyCiphertext = zeroKeyCipher.doFinal(plaintext);
+            assertArrayEquals(plaintext, pooledCipher.doFinal(zeroKeyCiphertext), algorithm);
+        }
+        CipherPool.clear();
+    }
+
+    @org.junit.jupiter.api.Test
+    public void testUnknownAlgorithm() throws Exception {
+        assertThrows(NoSuchAlgorithmException.class, () ->
+            CipherPool.getInstance("http://www.example.com/unknown", null));
+    }
+
+}
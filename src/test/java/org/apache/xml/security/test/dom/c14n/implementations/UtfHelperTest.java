@@ -90,4 +90,20 @@ public class UtfHelperTest {
         );
     }
 
+    @org.junit.jupiter.api.Test
+    public void testMixedContent() throws Exception {
+        String[] strings = {
+            "", "soapenv:Envelope", "wsu:Id", "ascii \u00e4 then latin", "\u00e4 first", "trailing \u20ac",
+            "pair \ud83d\ude00 pair", "lone \ud83d high", "lone \ude00 low", "\ud83d"
+        };
+        for (String s : strings) {
+            byte[] correct = s.getBytes(StandardCharsets.UTF_8);
+            assertArrayEquals(correct, UtfHelpper.getStringInUtf8(s), s);
+
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            UtfHelpper.writeStringToUtf8(s, os);
+            assertArrayEquals(correct, os.toByteArray(), s);
+        }
+    }
+
 }
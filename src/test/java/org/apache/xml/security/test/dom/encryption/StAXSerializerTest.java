@@ -0,0 +1,138 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.test.dom.encryption;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+
+import org.apache.xml.security.c14n.Canonicalizer;
+import org.apache.xml.security.encryption.DocumentSerializer;
+import org.apache.xml.security.encryption.StAXSerializer;
+import org.apache.xml.security.encryption.XMLCipher;
+import org.apache.xml.security.encryption.XMLEncryptionException;
+import org.apache.xml.security.utils.XMLUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the StAXSerializer, which builds the decrypted nodes directly in the target Document.
+ */
+public class StAXSerializerTest {
+
+    private static final String SAMPLE_MSG = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<ns:root xmlns:ns=\"urn:root\" xmlns=\"urn:default\">"
+            + "<ns:content a=\"1\" ns:b=\"2\">"
+            + "text &amp; more<![CDATA[<cdata/>]]><!-- comment --><?pi data?>"
+            + "<child xmlns:o=\"urn:other\" o:c=\"3\"><o:grandchild/></child>"
+            + "<plain xmlns=\"\">tail</plain>"
+            + "</ns:content>"
+            + "</ns:root>";
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        org.apache.xml.security.Init.init();
+    }
+
+    @Test
+    public void testDeserializeMatchesDocumentSerializer() throws Exception {
+        Document document = readSample();
+        Element content = (Element) document.getDocumentElement().getFirstChild();
+        byte[] serialized = new DocumentSerializer(true).serializeToByteArray(content.getChildNodes());
+
+        Node expected = new DocumentSerializer(true).deserialize(serialized, content);
+        Node actual = new StAXSerializer(true).deserialize(serialized, content);
+
+        assertSame(document, actual.getOwnerDocument());
+        assertTrue(expected.isEqualNode(actual));
+    }
+
+    @Test
+    public void testDeserializeIgnoresContentOutsideTheContext() throws Exception {
+        Document document = readSample();
+        Element content = (Element) document.getDocumentElement().getFirstChild();
+
+        Node fragment = new StAXSerializer(false).deserialize(
+            "<a/><![CDATA[x]]>".getBytes(StandardCharsets.UTF_8), content);
+
+        assertEquals(2, fragment.getChildNodes().getLength());
+        assertEquals(Node.CDATA_SECTION_NODE, fragment.getLastChild().getNodeType());
+        assertNull(fragment.getParentNode());
+    }
+
+    @Test
+    public void testDeserializeRejectsEntityReferences() throws Exception {
+        Document document = readSample();
+
+        assertThrows(XMLEncryptionException.class, () ->
+            new StAXSerializer(true).deserialize(
+                "<a>&undeclared;</a>".getBytes(StandardCharsets.UTF_8), document.getDocumentElement()));
+        assertThrows(XMLEncryptionException.class, () ->
+            new StAXSerializer(false).deserialize(
+                "<a>&undeclared;</a>".getBytes(StandardCharsets.UTF_8), document.getDocumentElement()));
+    }
+
+    @Test
+    public void testEncryptDecryptContent() throws Exception {
+        Document document = readSample();
+        Element content = (Element) document.getDocumentElement().getFirstChild();
+        String expected = canonicalize(document);
+
+        KeyGenerator keygen = KeyGenerator.getInstance("AES");
+        keygen.init(128);
+        SecretKey secretKey = keygen.generateKey();
+
+        XMLCipher cipher = XMLCipher.getInstance(XMLCipher.AES_128);
+        cipher.init(XMLCipher.ENCRYPT_MODE, secretKey);
+        document = cipher.doFinal(document, content, true);
+        assertEquals(1, content.getChildNodes().getLength());
+
+        XMLCipher deCipher = XMLCipher.getInstance(new StAXSerializer(true), XMLCipher.AES_128);
+        deCipher.init(XMLCipher.DECRYPT_MODE, secretKey);
+        document = deCipher.doFinal(document, content, true);
+
+        assertEquals(expected, canonicalize(document));
+    }
+
+    private static Document readSample() throws Exception {
+        try (InputStream is = new ByteArrayInputStream(SAMPLE_MSG.getBytes(StandardCharsets.UTF_8))) {
+            return XMLUtils.read(is, false);
+        }
+    }
+
+    private static String canonicalize(Document document) throws Exception {
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+            Canonicalizer.getInstance(Canonicalizer.ALGO_ID_C14N_WITH_COMMENTS).canonicalizeSubtree(document, baos);
+            return new String(baos.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
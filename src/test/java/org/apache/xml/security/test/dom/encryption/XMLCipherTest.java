@@ -63,6 +63,7 @@ import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
@@ -862,6 +863,85 @@ public class XMLCipherTest {
         }
     }
 
+    @org.junit.jupiter.api.Test
+    public void testStreamingDecryption() throws Exception {
+        if (!haveISOPadding || !haveKeyWraps) {
+            LOG.warn("Test testStreamingDecryption skipped as necessary algorithms not available");
+            return;
+        }
+
+        streamingDecryption(XMLCipher.AES_128);
+    }
+
+    @org.junit.jupiter.api.Test
+    public void testStreamingDecryptionGCM() throws Exception {
+        if (!haveKeyWraps) {
+            LOG.warn("Test testStreamingDecryptionGCM skipped as necessary algorithms not available");
+            return;
+        }
+
+        streamingDecryption(XMLCipher.AES_128_GCM);
+    }
+
+    private void streamingDecryption(String algorithm) throws Exception {
+        byte[] plaintext = new byte[100000];
+        new java.util.Random(42).nextBytes(plaintext);
+
+        KeyGenerator keygen = KeyGenerator.getInstance("AES");
+        keygen.init(128);
+        Key kek = keygen.generateKey();
+        Key key = keygen.generateKey();
+
+        Document d = document();
+        cipher = XMLCipher.getInstance(XMLCipher.AES_128_KeyWrap);
+        cipher.init(XMLCipher.WRAP_MODE, kek);
+        EncryptedKey encryptedKey = cipher.encryptKey(d, key);
+
+        cipher = XMLCipher.getInstance(algorithm);
+        cipher.init(XMLCipher.ENCRYPT_MODE, key);
+        EncryptedData encryptedData;
+        try (InputStream is = new ByteArrayInputStream(plaintext)) {
+            encryptedData = cipher.encryptData(d, null, is);
+        }
+        KeyInfo keyInfo = new KeyInfo(d);
+        keyInfo.add(encryptedKey);
+        encryptedData.setKeyInfo(keyInfo);
+        Element ee = cipher.martial(d, encryptedData);
+
+        // Split the CipherValue into several Text and CDATA nodes with line breaks, splitting base64 quanta as well
+        Element cipherValue =
+            (Element) ee.getElementsByTagNameNS(
+                EncryptionConstants.EncryptionSpecNS, EncryptionConstants._TAG_CIPHERVALUE).item(1);
+        String base64 = cipherValue.getTextContent();
+        cipherValue.setTextContent(null);
+        for (int i = 0; i < base64.length(); i += 75) {
+            String chunk = base64.substring(i, Math.min(i + 75, base64.length())) + "\n";
+            cipherValue.appendChild(i % 150 == 0 ? d.createTextNode(chunk) : d.createCDATASection(chunk));
+        }
+
+        XMLCipher dcipher = XMLCipher.getInstance(algorithm);
+        dcipher.init(XMLCipher.DECRYPT_MODE, null);
+        dcipher.setKEK(kek);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        dcipher.decryptToOutputStream(ee, baos);
+        assertArrayEquals(plaintext, baos.toByteArray());
+
+        dcipher = XMLCipher.getInstance(algorithm);
+        dcipher.init(XMLCipher.DECRYPT_MODE, key);
+        baos = new ByteArrayOutputStream();
+        try (InputStream is = dcipher.decryptToInputStream(ee)) {
+            assertEquals(plaintext[0] & 0xFF, is.read());
+            byte[] buffer = new byte[1000];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                baos.write(buffer, 0, read);
+            }
+        }
+        assertArrayEquals(java.util.Arrays.copyOfRange(plaintext, 1, plaintext.length), baos.toByteArray());
+
+        assertArrayEquals(plaintext, dcipher.decryptToByteArray(ee));
+    }
+
     @org.junit.jupiter.api.Test
     public void testEncryptedKeyWithRecipient() throws Exception {
         String filename =
@@ -31,11 +31,17 @@ import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
 import java.security.spec.RSAPrivateKeySpec;
 import java.security.spec.RSAPublicKeySpec;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.crypto.Cipher;
 import javax.crypto.NoSuchPaddingException;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
+import javax.xml.namespace.QName;
 
 import org.apache.xml.security.algorithms.JCEMapper;
 import org.apache.xml.security.encryption.EncryptedData;
@@ -63,6 +69,7 @@ import org.w3c.dom.Text;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.fail;
 
 
 /**
@@ -313,6 +320,100 @@ public class KeyResolverTest {
         assertEquals("elem", decryptedElement.getLocalName());
     }
 
+    /**
+     * Test that a KeyInfo child is only offered to the resolvers which support it, in the order
+     * in which the resolvers were registered.
+     */
+    @org.junit.jupiter.api.Test
+    public void testDispatchByElementName() throws Exception {
+        List<String> calls = new CopyOnWriteArrayList<>();
+        KeyResolver.register(new RecordingKeyResolver("first", calls, "First"), false);
+        KeyResolver.register(new RecordingKeyResolver("any", calls, null), false);
+        KeyResolver.register(new RecordingKeyResolver("second", calls, "Second"), false);
+
+        Document doc = TestUtils.newDocument();
+        Element first = doc.createElementNS(RecordingKeyResolver.NS, "t:First");
+        Element second = doc.createElementNS(RecordingKeyResolver.NS, "t:Second");
+        Element unknown = doc.createElementNS(RecordingKeyResolver.NS, "t:Unknown");
+
+        assertUnresolvable(first);
+        assertEquals(Arrays.asList("first", "any"), calls);
+
+        calls.clear();
+        assertUnresolvable(second);
+        assertEquals(Arrays.asList("any", "second"), calls);
+
+        calls.clear();
+        assertUnresolvable(unknown);
+        assertEquals(Collections.singletonList("any"), calls);
+    }
+
+    private static void assertUnresolvable(Element element) {
+        try {
+            KeyResolver.getPublicKey(element, null, null, true);
+            fail(element.getLocalName() + " should not be resolvable");
+        } catch (KeyResolverException e) {
+            //
+        }
+    }
+
+    // A KeyResolver which records that it was asked about a test element, but never resolves anything.
+    private static class RecordingKeyResolver extends KeyResolverSpi {
+
+        static final String NS = "urn:recording-key-resolver-test";
+
+        private final String name;
+        private final List<String> calls;
+        private final Set<QName> supportedElements;
+
+        RecordingKeyResolver(String name, List<String> calls, String localName) {
+            this.name = name;
+            this.calls = calls;
+            this.supportedElements = localName == null ? null : Collections.singleton(new QName(NS, localName));
+        }
+
+        @Override
+        protected boolean engineCanResolve(Element element, String baseURI, StorageResolver storage) {
+            if (NS.equals(element.getNamespaceURI())) {
+                calls.add(name);
+            }
+            return false;
+        }
+
+        @Override
+        protected Set<QName> engineGetSupportedElements() {
+            return supportedElements;
+        }
+
+        @Override
+        protected PublicKey engineResolvePublicKey(
+            Element element, String baseURI, StorageResolver storage, boolean secureValidation
+        ) {
+            return null;
+        }
+
+        @Override
+        protected X509Certificate engineResolveX509Certificate(
+            Element element, String baseURI, StorageResolver storage, boolean secureValidation
+        ) {
+            return null;
+        }
+
+        @Override
+        protected PrivateKey engineResolvePrivateKey(
+            Element element, String baseURI, StorageResolver storage, boolean secureValidation
+        ) {
+            return null;
+        }
+
+        @Override
+        protected javax.crypto.SecretKey engineResolveSecretKey(
+            Element element, String baseURI, StorageResolver storage, boolean secureValidation
+        ) {
+            return null;
+        }
+    }
+
     // A KeyResolver that returns a PrivateKey for a specific KeyName.
     public static class MyPrivateKeyResolver extends KeyResolverSpi {
 
@@ -0,0 +1,139 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.test.dom.keys.storage;
+
+import java.io.FileInputStream;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.xml.security.exceptions.XMLSecurityException;
+import org.apache.xml.security.keys.content.x509.XMLX509SKI;
+import org.apache.xml.security.keys.storage.StorageResolver;
+import org.apache.xml.security.keys.storage.implementations.IndexedKeyStoreResolver;
+import org.apache.xml.security.keys.storage.implementations.KeyStoreResolver;
+import org.apache.xml.security.signature.XMLSignature;
+import org.apache.xml.security.utils.RFC2253Parser;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Indexed KeyStore StorageResolver test.
+ */
+public class IndexedKeyStoreResolverTest {
+
+    private static final String BASEDIR =
+        System.getProperty("basedir") == null ? "./": System.getProperty("basedir");
+    private static final String SEP = System.getProperty("file.separator");
+
+    private static final String SHA256 = "http://www.w3.org/2001/04/xmlenc#sha256";
+
+    public IndexedKeyStoreResolverTest() {
+        org.apache.xml.security.Init.init();
+    }
+
+    @Test
+    public void testLookupsMatchScan() throws Exception {
+        KeyStore ks = loadKeyStore("keystore2.jks", "JCEKS");
+        IndexedKeyStoreResolver indexed = new IndexedKeyStoreResolver(ks);
+        KeyStoreResolver scanning = new KeyStoreResolver(ks);
+
+        List<X509Certificate> certs = getCertificates(scanning);
+        assertEquals(certs, getCertificates(indexed));
+        for (X509Certificate cert : certs) {
+            String issuerName = RFC2253Parser.normalize(cert.getIssuerX500Principal().getName());
+            assertSame(scanning.getCertificateByIssuerSerial(issuerName, cert.getSerialNumber()),
+                       indexed.getCertificateByIssuerSerial(issuerName, cert.getSerialNumber()));
+
+            String subjectName = RFC2253Parser.normalize(cert.getSubjectX500Principal().getName());
+            assertSame(scanning.getCertificateBySubjectName(subjectName),
+                       indexed.getCertificateBySubjectName(subjectName));
+
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(cert.getEncoded());
+            assertSame(cert, indexed.getCertificateByDigest(SHA256, digest));
+            assertSame(cert, scanning.getCertificateByDigest(SHA256, digest));
+
+            if (cert.getVersion() >= 3 && cert.getExtensionValue("2.5.29.14") != null) {
+                byte[] ski = XMLX509SKI.getSKIBytesFromCert(cert);
+                assertSame(scanning.getCertificateBySKI(ski), indexed.getCertificateBySKI(ski));
+            }
+        }
+
+        assertNull(indexed.getCertificateBySubjectName("CN=Unknown"));
+        assertNull(indexed.getCertificateBySKI(new byte[] {1, 2, 3}));
+        assertThrows(XMLSecurityException.class,
+            () -> indexed.getCertificateByDigest(XMLSignature.ALGO_ID_SIGNATURE_RSA_SHA256, new byte[32]));
+    }
+
+    @Test
+    public void testRefresh() throws Exception {
+        KeyStore source = loadKeyStore("keystore2.jks", "JCEKS");
+        List<X509Certificate> certs = getCertificates(new KeyStoreResolver(source));
+
+        KeyStore ks = KeyStore.getInstance("JKS");
+        ks.load(null, null);
+        ks.setCertificateEntry("first", certs.get(0));
+        IndexedKeyStoreResolver resolver = new IndexedKeyStoreResolver(ks);
+        StorageResolver storage = new StorageResolver(resolver);
+
+        X509Certificate other = certs.get(certs.size() - 1);
+        String subjectName = RFC2253Parser.normalize(other.getSubjectX500Principal().getName());
+        assertNull(storage.getCertificateBySubjectName(subjectName));
+
+        // A new entry is picked up, as the size of the KeyStore changes
+        ks.setCertificateEntry("second", other);
+        assertSame(other, storage.getCertificateBySubjectName(subjectName));
+
+        // A replaced entry only after a refresh
+        ks.setCertificateEntry("second", certs.get(0));
+        assertSame(other, storage.getCertificateBySubjectName(subjectName));
+        resolver.refresh();
+        assertNull(storage.getCertificateBySubjectName(subjectName));
+    }
+
+    private static KeyStore loadKeyStore(String name, String type) throws Exception {
+        String inputDir = BASEDIR + SEP + "src/test/resources" + SEP
+            + "org" + SEP + "apache" + SEP + "xml" + SEP + "security" + SEP
+            + "samples" + SEP + "input";
+        KeyStore ks = KeyStore.getInstance(type);
+        try (FileInputStream inStream = new FileInputStream(inputDir + SEP + name)) {
+            ks.load(inStream, "xmlsecurity".toCharArray());
+        }
+        return ks;
+    }
+
+    private static List<X509Certificate> getCertificates(
+        org.apache.xml.security.keys.storage.StorageResolverSpi resolver
+    ) {
+        List<X509Certificate> certs = new ArrayList<>();
+        Iterator<Certificate> iterator = resolver.getIterator();
+        while (iterator.hasNext()) {
+            certs.add((X509Certificate) iterator.next());
+        }
+        return certs;
+    }
+}
@@ -0,0 +1,194 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.test.dom.signature;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.xml.security.Init;
+import org.apache.xml.security.signature.XMLSignature;
+import org.apache.xml.security.signature.XMLSignatureInput;
+import org.apache.xml.security.test.dom.TestUtils;
+import org.apache.xml.security.utils.BoundedCache;
+import org.apache.xml.security.utils.Constants;
+import org.apache.xml.security.utils.ExternalDigestCache;
+import org.apache.xml.security.utils.resolver.ResourceResolverContext;
+import org.apache.xml.security.utils.resolver.ResourceResolverException;
+import org.apache.xml.security.utils.resolver.implementations.ResolverLocalFilesystem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the digest cache of external references.
+ */
+public class ExternalDigestCacheTest {
+
+    private static final SecretKey KEY =
+        new SecretKeySpec("secret-key-for-external-digest-cache".getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+
+    @TempDir
+    Path tempDir;
+
+    public ExternalDigestCacheTest() {
+        Init.init();
+    }
+
+    @BeforeEach
+    public void enableCache() {
+        ExternalDigestCache.setMaximumSize(16);
+    }
+
+    @AfterEach
+    public void disableCache() {
+        ExternalDigestCache.setMaximumSize(0);
+    }
+
+    @Test
+    public void testUnchangedFileIsNotDigestedAgain() throws Exception {
+        Path file = tempDir.resolve("external.txt");
+        Files.write(file, "external content".getBytes(StandardCharsets.UTF_8));
+        Document doc = sign(file.toUri().toString());
+
+        CountingResolver resolver = new CountingResolver();
+        assertTrue(verify(doc, resolver));
+        assertEquals(1, resolver.resolved.get());
+        assertEquals(1, ExternalDigestCache.size());
+        assertEquals(1, ExternalDigestCache.getMissCount());
+
+        assertTrue(verify(doc, resolver));
+        assertEquals(1, resolver.resolved.get());
+        assertEquals(1, ExternalDigestCache.getHitCount());
+    }
+
+    @Test
+    public void testChangedFileIsDigestedAgain() throws Exception {
+        Path file = tempDir.resolve("external.txt");
+        Files.write(file, "external content".getBytes(StandardCharsets.UTF_8));
+        FileTime lastModified = Files.getLastModifiedTime(file);
+        Document doc = sign(file.toUri().toString());
+
+        CountingResolver resolver = new CountingResolver();
+        assertTrue(verify(doc, resolver));
+
+        Files.write(file, "modified external content".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(lastModified.toMillis() + 10000));
+        assertFalse(verify(doc, resolver));
+        assertEquals(2, resolver.resolved.get());
+        assertEquals(0, ExternalDigestCache.getHitCount());
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        Path file = tempDir.resolve("external.txt");
+        Files.write(file, "external content".getBytes(StandardCharsets.UTF_8));
+        String uri = file.toUri().toString();
+        Document doc = sign(uri);
+
+        CountingResolver resolver = new CountingResolver();
+        assertTrue(verify(doc, resolver));
+        assertEquals(1, ExternalDigestCache.size());
+
+        assertEquals(0, ExternalDigestCache.invalidate("file:/does/not/exist"));
+        assertEquals(1, ExternalDigestCache.invalidate(uri));
+        assertEquals(0, ExternalDigestCache.size());
+
+        assertTrue(verify(doc, resolver));
+        assertEquals(2, resolver.resolved.get());
+    }
+
+    @Test
+    public void testDisabledCache() throws Exception {
+        ExternalDigestCache.setMaximumSize(0);
+        assertFalse(ExternalDigestCache.isEnabled());
+
+        ExternalDigestCache.ResourceVersion version =
+            new ExternalDigestCache.ResourceVersion("file:/external.txt", "1");
+        ExternalDigestCache.putDigest(version, "", Constants.SignatureSpecNS + "sha1", new byte[] {1});
+        assertNull(ExternalDigestCache.getDigest(version, "", Constants.SignatureSpecNS + "sha1"));
+    }
+
+    @Test
+    public void testBoundedCacheRemoveIf() throws Exception {
+        BoundedCache<String, String> cache = new BoundedCache<>(4);
+        cache.putIfAbsent("a1", "1");
+        cache.putIfAbsent("a2", "2");
+        cache.putIfAbsent("b1", "3");
+
+        assertEquals(2, cache.removeIf(key -> key.startsWith("a")));
+        assertEquals(1, cache.size());
+        assertNull(cache.get("a1"));
+        assertEquals("3", cache.get("b1"));
+
+        // removed entries free up their slots
+        cache.putIfAbsent("c1", "4");
+        cache.putIfAbsent("c2", "5");
+        cache.putIfAbsent("c3", "6");
+        assertEquals(4, cache.size());
+        assertEquals(0, cache.getEvictionCount());
+    }
+
+    private static Document sign(String uri) throws Exception {
+        Document doc = TestUtils.newDocument();
+        Element root = doc.createElementNS(null, "Root");
+        doc.appendChild(root);
+
+        XMLSignature sig = new XMLSignature(doc, null, XMLSignature.ALGO_ID_MAC_HMAC_SHA256);
+        root.appendChild(sig.getElement());
+        sig.addResourceResolver(new ResolverLocalFilesystem());
+        sig.addDocument(uri, null, Constants.ALGO_ID_DIGEST_SHA1);
+        sig.sign(KEY);
+        return doc;
+    }
+
+    private static boolean verify(Document doc, CountingResolver resolver) throws Exception {
+        Element sigElement =
+            (Element) doc.getElementsByTagNameNS(Constants.SignatureSpecNS, Constants._TAG_SIGNATURE).item(0);
+        XMLSignature sig = new XMLSignature(sigElement, null, false);
+        sig.addResourceResolver(resolver);
+        return sig.checkSignatureValue(KEY);
+    }
+
+    private static class CountingResolver extends ResolverLocalFilesystem {
+
+        private final AtomicInteger resolved = new AtomicInteger();
+
+        @Override
+        public XMLSignatureInput engineResolveURI(ResourceResolverContext context)
+            throws ResourceResolverException {
+            resolved.incrementAndGet();
+            return super.engineResolveURI(context);
+        }
+    }
+
+}
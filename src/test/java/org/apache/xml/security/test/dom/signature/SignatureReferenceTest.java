@@ -19,6 +19,8 @@
 package org.apache.xml.security.test.dom.signature;
 
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
 import java.io.InputStream;
 import java.security.KeyStore;
@@ -26,19 +28,28 @@ import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.util.Enumeration;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.xml.crypto.dsig.DigestMethod;
+import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathFactory;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
 import org.apache.xml.security.Init;
 import org.apache.xml.security.exceptions.XMLSecurityException;
 import org.apache.xml.security.keys.KeyInfo;
 import org.apache.xml.security.signature.Manifest;
+import org.apache.xml.security.signature.ObjectContainer;
 import org.apache.xml.security.signature.Reference;
 import org.apache.xml.security.signature.SignedInfo;
 import org.apache.xml.security.signature.VerifiedReference;
@@ -49,6 +60,7 @@ import org.apache.xml.security.signature.reference.ReferenceNodeSetData;
 import org.apache.xml.security.test.dom.DSNamespaceContext;
 import org.apache.xml.security.test.dom.TestUtils;
 import org.apache.xml.security.transforms.Transforms;
+import org.apache.xml.security.transforms.params.XPathContainer;
 import org.apache.xml.security.utils.Constants;
 import org.apache.xml.security.utils.ElementProxy;
 import org.apache.xml.security.utils.XMLUtils;
@@ -192,6 +204,195 @@ public class SignatureReferenceTest {
         assertFalse(verifiedReferences.get(0).getManifestReferences().get(0).isValid());
     }
 
+    @org.junit.jupiter.api.Test
+    public void testConcurrentReferenceVerification() throws Throwable {
+        Document doc = TestUtils.newDocument();
+        Element rootElement = doc.createElementNS("http://ns.example.org/", "root");
+        doc.appendChild(rootElement);
+
+        XMLSignature sig = new XMLSignature(doc, "", XMLSignature.ALGO_ID_SIGNATURE_DSA);
+        rootElement.appendChild(sig.getElement());
+        for (int i = 0; i < 8; i++) {
+            Element child = doc.createElementNS("http://ns.example.org/", "child");
+            child.setAttributeNS(null, "Id", "child-" + i);
+            child.setIdAttributeNS(null, "Id", true);
+            child.appendChild(doc.createTextNode("Hello World " + i));
+            rootElement.appendChild(child);
+
+            Transforms transforms = new Transforms(doc);
+            transforms.addTransform(Transforms.TRANSFORM_C14N_EXCL_OMIT_COMMENTS);
+            sig.addDocument("#child-" + i, transforms, Constants.ALGO_ID_DIGEST_SHA1);
+        }
+        sig.sign(getPrivateKey());
+
+        // Break the digest of one of the References
+        ((Element)rootElement.getElementsByTagNameNS("http://ns.example.org/", "child").item(5))
+            .setTextContent("Modified");
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            XMLSignature signatureToVerify = new XMLSignature(sig.getElement(), "");
+            signatureToVerify.setReferenceVerificationExecutor(executor);
+            assertFalse(signatureToVerify.checkSignatureValue(getPublicKey()));
+
+            List<VerifiedReference> verifiedReferences =
+                signatureToVerify.getSignedInfo().getVerificationResults();
+            assertEquals(8, verifiedReferences.size());
+            for (int i = 0; i < 8; i++) {
+                assertEquals("#child-" + i, verifiedReferences.get(i).getUri());
+                assertEquals(i != 5, verifiedReferences.get(i).isValid());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @org.junit.jupiter.api.Test
+    public void testConcurrentReferenceVerificationWithXPathTransform() throws Throwable {
+        Document doc = TestUtils.newDocument();
+        Element rootElement = doc.createElementNS("http://ns.example.org/", "root");
+        doc.appendChild(rootElement);
+
+        XMLSignature sig = new XMLSignature(doc, "", XMLSignature.ALGO_ID_SIGNATURE_DSA);
+        rootElement.appendChild(sig.getElement());
+        for (int i = 0; i < 2; i++) {
+            Element child = doc.createElementNS("http://ns.example.org/", "child");
+            child.setAttributeNS(null, "Id", "child-" + i);
+            child.setIdAttributeNS(null, "Id", true);
+            child.appendChild(doc.createTextNode("Hello World " + i));
+            rootElement.appendChild(child);
+
+            // an XPath on the namespace axis expands the namespace nodes of the Document
+            Transforms transforms = new Transforms(doc);
+            XPathContainer xpath = new XPathContainer(doc);
+            xpath.setXPath("count(namespace::*) >= 0");
+            transforms.addTransform(Transforms.TRANSFORM_XPATH, xpath.getElement());
+            sig.addDocument("#child-" + i, transforms, Constants.ALGO_ID_DIGEST_SHA1);
+        }
+        sig.sign(getPrivateKey());
+
+        AtomicInteger executed = new AtomicInteger();
+        XMLSignature signatureToVerify = new XMLSignature(sig.getElement(), "");
+        signatureToVerify.setReferenceVerificationExecutor(command -> {
+            executed.incrementAndGet();
+            command.run();
+        });
+        assertTrue(signatureToVerify.checkSignatureValue(getPublicKey()));
+        assertEquals(2, signatureToVerify.getSignedInfo().getVerificationResults().size());
+        assertEquals(0, executed.get());
+    }
+
+    @org.junit.jupiter.api.Test
+    public void testConcurrentManifestReferences() throws Throwable {
+        XPathFactory xpf = XPathFactory.newInstance();
+        XPath xPath = xpf.newXPath();
+        xPath.setNamespaceContext(new DSNamespaceContext());
+
+        InputStream sourceDocument =
+            this.getClass().getClassLoader().getResourceAsStream(
+                    "at/iaik/ixsil/coreFeatures/signatures/manifestSignature.xml");
+        Document document = XMLUtils.read(sourceDocument, false);
+
+        String expression = "//dsig:Signature[1]";
+        Element sigElement =
+            (Element) xPath.evaluate(expression, document, XPathConstants.NODE);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            XMLSignature signatureToVerify = new XMLSignature(sigElement, "");
+            signatureToVerify.addResourceResolver(new DummyResourceResolver());
+            signatureToVerify.setFollowNestedManifests(true);
+            signatureToVerify.setReferenceVerificationExecutor(executor);
+
+            PublicKey publicKey = signatureToVerify.getKeyInfo().getPublicKey();
+            assertFalse(signatureToVerify.checkSignatureValue(publicKey));
+
+            List<VerifiedReference> verifiedReferences =
+                signatureToVerify.getSignedInfo().getVerificationResults();
+            assertEquals(1, verifiedReferences.size());
+            assertTrue(verifiedReferences.get(0).isValid());
+            assertEquals(1, verifiedReferences.get(0).getManifestReferences().size());
+            assertFalse(verifiedReferences.get(0).getManifestReferences().get(0).isValid());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @org.junit.jupiter.api.Test
+    public void testConcurrentManifestReferencesWithFailure() throws Throwable {
+        Document doc = TestUtils.newDocument();
+        Element rootElement = doc.createElementNS("http://ns.example.org/", "root");
+        doc.appendChild(rootElement);
+
+        XMLSignature sig = new XMLSignature(doc, "", XMLSignature.ALGO_ID_SIGNATURE_DSA);
+        rootElement.appendChild(sig.getElement());
+
+        Manifest manifest = new Manifest(doc);
+        manifest.setId("manifest");
+        for (int i = 0; i < 6; i++) {
+            Element child = doc.createElementNS("http://ns.example.org/", "child");
+            child.setAttributeNS(null, "Id", "child-" + i);
+            child.appendChild(doc.createTextNode("Hello World " + i));
+            rootElement.appendChild(child);
+
+            Transforms transforms = new Transforms(doc);
+            transforms.addTransform(Transforms.TRANSFORM_C14N_EXCL_OMIT_COMMENTS);
+            manifest.addDocument("", "#child-" + i, transforms, Constants.ALGO_ID_DIGEST_SHA1, null, null);
+        }
+        registerIds(doc);
+        manifest.generateDigestValues();
+        ObjectContainer object = new ObjectContainer(doc);
+        object.appendChild(manifest.getElement());
+        sig.appendObject(object);
+        sig.addDocument("#manifest", null, Constants.ALGO_ID_DIGEST_SHA1, null, Reference.MANIFEST_URI);
+        sig.sign(getPrivateKey());
+
+        // Re-parse the signed document without deferred node expansion, so that it can be read
+        // from several threads, and break the digest of one of the Manifest References
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        TransformerFactory.newInstance().newTransformer().transform(new DOMSource(doc), new StreamResult(baos));
+        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+        dbf.setNamespaceAware(true);
+        dbf.setFeature("http://apache.org/xml/features/dom/defer-node-expansion", false);
+        Document parsedDoc = dbf.newDocumentBuilder().parse(new ByteArrayInputStream(baos.toByteArray()));
+        registerIds(parsedDoc);
+        parsedDoc.getElementsByTagNameNS("http://ns.example.org/", "child").item(3).setTextContent("Modified");
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Element sigElement =
+                (Element) parsedDoc.getElementsByTagNameNS(Constants.SignatureSpecNS, Constants._TAG_SIGNATURE).item(0);
+            XMLSignature signatureToVerify = new XMLSignature(sigElement, "");
+            signatureToVerify.setFollowNestedManifests(true);
+            signatureToVerify.setReferenceVerificationExecutor(executor);
+            assertFalse(signatureToVerify.checkSignatureValue(getPublicKey()));
+
+            List<VerifiedReference> verifiedReferences =
+                signatureToVerify.getSignedInfo().getVerificationResults();
+            assertEquals(1, verifiedReferences.size());
+            assertTrue(verifiedReferences.get(0).isValid());
+            List<VerifiedReference> manifestReferences = verifiedReferences.get(0).getManifestReferences();
+            assertEquals(6, manifestReferences.size());
+            for (int i = 0; i < 6; i++) {
+                assertEquals("#child-" + i, manifestReferences.get(i).getUri());
+                assertEquals(i != 3, manifestReferences.get(i).isValid());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void registerIds(Document doc) {
+        NodeList children = doc.getElementsByTagNameNS("http://ns.example.org/", "child");
+        for (int i = 0; i < children.getLength(); i++) {
+            ((Element) children.item(i)).setIdAttributeNS(null, "Id", true);
+        }
+        NodeList manifests = doc.getElementsByTagNameNS(Constants.SignatureSpecNS, Constants._TAG_MANIFEST);
+        for (int i = 0; i < manifests.getLength(); i++) {
+            ((Element) manifests.item(i)).setIdAttributeNS(null, "Id", true);
+        }
+    }
+
     /**
      * Loads the 'localhost' keystore from the test keystore.
      *
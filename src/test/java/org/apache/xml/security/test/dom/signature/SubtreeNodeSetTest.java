@@ -0,0 +1,159 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.test.dom.signature;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.xml.security.c14n.Canonicalizer;
+import org.apache.xml.security.signature.SubtreeNodeSet;
+import org.apache.xml.security.signature.XMLSignatureInput;
+import org.apache.xml.security.utils.XMLUtils;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SubtreeNodeSetTest {
+
+    static {
+        org.apache.xml.security.Init.init();
+    }
+
+    private static final String XML =
+        "<!DOCTYPE root [<!ATTLIST b id ID #IMPLIED>]>\n"
+        + "<!-- before --><?pi before?>"
+        + "<root xmlns=\"urn:default\" xmlns:p=\"urn:p\" p:a=\"1\" xml:lang=\"en\">"
+        + "text<![CDATA[cdata]]>more<!-- comment -->"
+        + "<a><p:b id=\"b1\">b<c/><?pi inside?></p:b><d xmlns=\"\">d</d></a>"
+        + "<ds:Signature xmlns:ds=\"http://www.w3.org/2000/09/xmldsig#\"><ds:SignedInfo/></ds:Signature>"
+        + "tail</root><!-- after -->";
+
+    @Test
+    public void testSameNodesAsGetSet() throws Exception {
+        Document doc = read();
+        Element root = doc.getDocumentElement();
+        // adjacent text nodes, of which only the first one is part of the node-set
+        root.insertBefore(doc.createTextNode("split"), root.getLastChild());
+        Node signature = root.getElementsByTagNameNS("http://www.w3.org/2000/09/xmldsig#", "Signature").item(0);
+
+        Node[] roots = {doc, root, root.getFirstChild(), root.getElementsByTagName("a").item(0)};
+        for (Node subtreeRoot : roots) {
+            for (Node excludeNode : new Node[] {null, signature, root.getElementsByTagName("c").item(0)}) {
+                for (boolean comments : new boolean[] {true, false}) {
+                    Set<Node> expected = new LinkedHashSet<>();
+                    XMLUtils.getSet(subtreeRoot, expected, excludeNode, comments);
+                    SubtreeNodeSet nodeSet = new SubtreeNodeSet(subtreeRoot, excludeNode, comments);
+
+                    assertEquals(new ArrayList<>(expected), new ArrayList<>(nodeSet));
+                    assertEquals(expected.size(), nodeSet.size());
+                    for (Node node : allNodes(doc)) {
+                        assertEquals(expected.contains(node), nodeSet.contains(node), node.toString());
+                    }
+                }
+            }
+        }
+
+        SubtreeNodeSet excluded = new SubtreeNodeSet(signature, root, true);
+        assertTrue(excluded.isEmpty());
+        assertEquals(0, excluded.size());
+    }
+
+    @Test
+    public void testCanonicalization() throws Exception {
+        Document doc = read();
+        Element a = (Element) doc.getElementsByTagName("a").item(0);
+        Node signature = doc.getElementsByTagNameNS("http://www.w3.org/2000/09/xmldsig#", "Signature").item(0);
+
+        String[] algorithms = {
+            Canonicalizer.ALGO_ID_C14N_WITH_COMMENTS,
+            Canonicalizer.ALGO_ID_C14N11_OMIT_COMMENTS,
+            Canonicalizer.ALGO_ID_C14N_EXCL_WITH_COMMENTS,
+        };
+        for (String algorithm : algorithms) {
+            for (Node subtreeRoot : new Node[] {doc, a}) {
+                Set<Node> expected = new LinkedHashSet<>();
+                XMLUtils.getSet(subtreeRoot, expected, signature, true);
+
+                assertArrayEquals(canonicalize(algorithm, expected),
+                                  canonicalize(algorithm, new SubtreeNodeSet(subtreeRoot, signature, true)),
+                                  algorithm);
+            }
+        }
+    }
+
+    @Test
+    public void testSignatureInput() throws Exception {
+        Document doc = read();
+        Node signature = doc.getElementsByTagNameNS("http://www.w3.org/2000/09/xmldsig#", "Signature").item(0);
+
+        XMLSignatureInput input = new XMLSignatureInput(doc);
+        input.setExcludeNode(signature);
+        input.setExcludeComments(true);
+        Set<Node> nodeSetView = input.getNodeSetView();
+        assertTrue(nodeSetView instanceof SubtreeNodeSet);
+
+        Set<Node> expected = new LinkedHashSet<>();
+        XMLUtils.getSet(doc, expected, signature, true);
+        assertEquals(expected, nodeSetView);
+
+        // getNodeSet still returns a modifiable copy
+        Set<Node> nodeSet = input.getNodeSet();
+        assertFalse(nodeSet instanceof SubtreeNodeSet);
+        assertEquals(expected, nodeSet);
+        nodeSet.remove(doc.getDocumentElement());
+        assertTrue(nodeSetView.contains(doc.getDocumentElement()));
+    }
+
+    private static byte[] canonicalize(String algorithm, Set<Node> nodeSet) throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        Canonicalizer.getInstance(algorithm).canonicalizeXPathNodeSet(nodeSet, os);
+        return os.toByteArray();
+    }
+
+    private static List<Node> allNodes(Node node) {
+        List<Node> nodes = new ArrayList<>();
+        nodes.add(node);
+        NamedNodeMap attributes = node.getAttributes();
+        if (attributes != null) {
+            for (int i = 0; i < attributes.getLength(); i++) {
+                nodes.add(attributes.item(i));
+            }
+        }
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            nodes.addAll(allNodes(child));
+        }
+        return nodes;
+    }
+
+    private static Document read() throws Exception {
+        return XMLUtils.read(new ByteArrayInputStream(XML.getBytes(StandardCharsets.UTF_8)), false);
+    }
+}
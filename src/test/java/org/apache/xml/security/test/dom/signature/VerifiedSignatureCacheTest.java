@@ -0,0 +1,148 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.test.dom.signature;
+
+import java.nio.charset.StandardCharsets;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.xml.security.Init;
+import org.apache.xml.security.signature.XMLSignature;
+import org.apache.xml.security.test.dom.TestUtils;
+import org.apache.xml.security.transforms.Transforms;
+import org.apache.xml.security.utils.Constants;
+import org.apache.xml.security.utils.VerifiedSignatureCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the cache of verified signature values.
+ */
+public class VerifiedSignatureCacheTest {
+
+    private static final SecretKey KEY =
+        new SecretKeySpec("secret-key-for-verified-signature-cache".getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+
+    public VerifiedSignatureCacheTest() {
+        Init.init();
+    }
+
+    @BeforeEach
+    public void enableCache() {
+        VerifiedSignatureCache.setMaximumSize(16);
+        VerifiedSignatureCache.setTimeToLive(60000);
+    }
+
+    @AfterEach
+    public void disableCache() {
+        VerifiedSignatureCache.setMaximumSize(0);
+        VerifiedSignatureCache.setTimeToLive(5 * 60 * 1000L);
+    }
+
+    @Test
+    public void testRepeatedVerification() throws Exception {
+        Document doc = sign();
+
+        assertTrue(verify(doc, KEY));
+        assertEquals(0, VerifiedSignatureCache.getHitCount());
+        assertEquals(1, VerifiedSignatureCache.size());
+
+        assertTrue(verify(doc, KEY));
+        assertEquals(1, VerifiedSignatureCache.getHitCount());
+    }
+
+    @Test
+    public void testReferencesAreStillVerified() throws Exception {
+        Document doc = sign();
+        assertTrue(verify(doc, KEY));
+
+        doc.getDocumentElement().getFirstChild().setTextContent("tampered");
+        assertFalse(verify(doc, KEY));
+        assertEquals(1, VerifiedSignatureCache.getHitCount());
+    }
+
+    @Test
+    public void testOtherKey() throws Exception {
+        Document doc = sign();
+        assertTrue(verify(doc, KEY));
+
+        SecretKey otherKey = new SecretKeySpec("another-key".getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        assertFalse(verify(doc, otherKey));
+        assertEquals(0, VerifiedSignatureCache.getHitCount());
+        assertEquals(1, VerifiedSignatureCache.size());
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+        VerifiedSignatureCache.setTimeToLive(1);
+        Document doc = sign();
+        assertTrue(verify(doc, KEY));
+        Thread.sleep(10);
+
+        assertTrue(verify(doc, KEY));
+        // the expired verification was replaced
+        assertEquals(1, VerifiedSignatureCache.size());
+        Thread.sleep(10);
+        assertTrue(verify(doc, KEY));
+    }
+
+    @Test
+    public void testDisabledCache() throws Exception {
+        VerifiedSignatureCache.setMaximumSize(0);
+        Document doc = sign();
+        assertTrue(verify(doc, KEY));
+        assertTrue(verify(doc, KEY));
+        assertEquals(0, VerifiedSignatureCache.size());
+        assertEquals(0, VerifiedSignatureCache.getHitCount());
+    }
+
+    private static Document sign() throws Exception {
+        Document doc = TestUtils.newDocument();
+        Element root = doc.createElementNS(null, "Assertion");
+        doc.appendChild(root);
+        Element content = doc.createElementNS(null, "Subject");
+        content.setTextContent("subject");
+        root.appendChild(content);
+
+        XMLSignature sig = new XMLSignature(doc, null, XMLSignature.ALGO_ID_MAC_HMAC_SHA256);
+        root.appendChild(sig.getElement());
+        Transforms transforms = new Transforms(doc);
+        transforms.addTransform(Transforms.TRANSFORM_ENVELOPED_SIGNATURE);
+        transforms.addTransform(Transforms.TRANSFORM_C14N_EXCL_OMIT_COMMENTS);
+        sig.addDocument("", transforms, Constants.ALGO_ID_DIGEST_SHA1);
+        sig.sign(KEY);
+        return doc;
+    }
+
+    private static boolean verify(Document doc, SecretKey key) throws Exception {
+        Element sigElement =
+            (Element) doc.getElementsByTagNameNS(Constants.SignatureSpecNS, Constants._TAG_SIGNATURE).item(0);
+        XMLSignature sig = new XMLSignature(sigElement, null);
+        return sig.checkSignatureValue(key);
+    }
+
+}
@@ -0,0 +1,183 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.test.dom.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Random;
+
+import org.apache.xml.security.utils.Base64Decoder;
+import org.apache.xml.security.utils.Base64DecodingInputStream;
+import org.apache.xml.security.utils.Base64DecodingOutputStream;
+import org.apache.xml.security.utils.Base64EncodingOutputStream;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for the streaming base64 codec.
+ */
+public class Base64CodecTest {
+
+    @Test
+    public void testEncodeLikeMimeEncoder() throws Exception {
+        Random random = new Random(42);
+        for (int length = 0; length < 300; length++) {
+            byte[] data = new byte[length];
+            random.nextBytes(data);
+
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            try (Base64EncodingOutputStream encoder = new Base64EncodingOutputStream(baos)) {
+                writeInPieces(encoder, data, random);
+            }
+            assertArrayEquals(Base64.getMimeEncoder().encode(data), baos.toByteArray());
+
+            baos = new ByteArrayOutputStream();
+            try (Base64EncodingOutputStream encoder = new Base64EncodingOutputStream(baos, 0)) {
+                writeInPieces(encoder, data, random);
+            }
+            assertArrayEquals(Base64.getEncoder().encode(data), baos.toByteArray());
+        }
+    }
+
+    @Test
+    public void testDecodeChunks() throws Exception {
+        Random random = new Random(42);
+        for (int length = 0; length < 300; length++) {
+            byte[] data = new byte[length];
+            random.nextBytes(data);
+            char[] encoded = Base64.getMimeEncoder(20, "\n".getBytes(StandardCharsets.US_ASCII))
+                .encodeToString(data).toCharArray();
+
+            // decode in chunks of random sizes, which split the quanta
+            Base64Decoder decoder = new Base64Decoder();
+            byte[] decoded = new byte[Base64Decoder.getMaxDecodedLength(encoded.length) + 2];
+            int decodedLength = 0;
+            int position = 0;
+            while (position < encoded.length) {
+                int count = Math.min(random.nextInt(7), encoded.length - position);
+                decodedLength += decoder.decode(encoded, position, count, decoded, decodedLength);
+                position += count;
+            }
+            decodedLength += decoder.finish(decoded, decodedLength);
+            assertArrayEquals(data, Arrays.copyOf(decoded, decodedLength));
+        }
+    }
+
+    @Test
+    public void testDecodeStringAndBytes() throws Exception {
+        byte[] data = new byte[5000];
+        new Random(42).nextBytes(data);
+        String encoded = Base64.getMimeEncoder().encodeToString(data);
+
+        Base64Decoder decoder = new Base64Decoder();
+        byte[] decoded = new byte[Base64Decoder.getMaxDecodedLength(encoded.length())];
+        int decodedLength = decoder.decode(encoded, 0, encoded.length(), decoded, 0);
+        decodedLength += decoder.finish(decoded, decodedLength);
+        assertArrayEquals(data, Arrays.copyOf(decoded, decodedLength));
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (Base64DecodingOutputStream decodingOutputStream = new Base64DecodingOutputStream(baos)) {
+            decodingOutputStream.write(encoded.getBytes(StandardCharsets.US_ASCII));
+        }
+        assertArrayEquals(data, baos.toByteArray());
+
+        baos = new ByteArrayOutputStream();
+        try (InputStream decodingInputStream =
+                 new Base64DecodingInputStream(new ByteArrayInputStream(encoded.getBytes(StandardCharsets.US_ASCII)))) {
+            byte[] buffer = new byte[1000];
+            int read;
+            while ((read = decodingInputStream.read(buffer)) != -1) {
+                baos.write(buffer, 0, read);
+            }
+        }
+        assertArrayEquals(data, baos.toByteArray());
+    }
+
+    @Test
+    public void testLenientDecodingInputStream() throws Exception {
+        assertEquals("any", decodeInputStream("YW55I==="));
+        assertEquals("any carnal pleas", decodeInputStream("YW55 IGNh\r\ncm5hbCBwbGVhcw"));
+        assertThrows(IOException.class, () -> decodeInputStream("YW5=YW55"));
+    }
+
+    @Test
+    public void testLenientDecoding() throws Exception {
+        // ignored characters, a missing padding and a quantum split across writes
+        assertEquals("any carnal pleas", decode("YW55 IGNh\r\ncm5h", "bCBwbGVhäcw"));
+        assertEquals("any carnal pleasu", decode("YW55IGNhcm5hbCBwbGVhc3U="));
+        assertEquals("any carnal pleas", decode("YW55IGNhcm5hbCBwbGVhcw=", "="));
+        assertEquals("", decode(""));
+        // a single character of a quantum is discarded
+        assertEquals("any", decode("YW55I"));
+        assertEquals("any", decode("YW55I==="));
+        // superfluous padding is ignored
+        assertEquals("an", decode("YW5=="));
+        assertEquals("any carnal pleas", decode("YW55IGNhcm5hbCBwbGVhcw==="));
+    }
+
+    @Test
+    public void testInvalidData() throws Exception {
+        assertThrows(IOException.class, () -> decode("YW55IGNhcm5hbCBwbGVhcw==YW55"));
+        assertThrows(IOException.class, () -> decode("YW5=YW55"));
+    }
+
+    private static String decode(String... chunks) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (Base64DecodingOutputStream decodingOutputStream = new Base64DecodingOutputStream(baos)) {
+            for (String chunk : chunks) {
+                decodingOutputStream.write(chunk.toCharArray(), 0, chunk.length());
+            }
+        }
+        return new String(baos.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static String decodeInputStream(String encoded) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (InputStream decodingInputStream =
+                 new Base64DecodingInputStream(new ByteArrayInputStream(encoded.getBytes(StandardCharsets.US_ASCII)))) {
+            int b;
+            while ((b = decodingInputStream.read()) != -1) {
+                baos.write(b);
+            }
+        }
+        return new String(baos.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void writeInPieces(Base64EncodingOutputStream encoder, byte[] data, Random random)
+        throws IOException {
+        int position = 0;
+        while (position < data.length) {
+            int count = Math.min(random.nextInt(5), data.length - position);
+            if (count == 1) {
+                encoder.write(data[position]);
+            } else {
+                encoder.write(data, position, count);
+            }
+            position += count;
+        }
+    }
+}
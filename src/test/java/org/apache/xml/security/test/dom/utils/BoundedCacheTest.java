@@ -0,0 +1,121 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.test.dom.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.xml.security.utils.BoundedCache;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BoundedCacheTest {
+
+    @Test
+    public void testStatistics() {
+        BoundedCache<String, String> cache = new BoundedCache<>(10);
+        assertNull(cache.get("a"));
+        assertEquals("A", cache.computeIfAbsent("a", String::toUpperCase));
+        assertEquals("A", cache.computeIfAbsent("a", k -> "other"));
+        assertEquals("A", cache.get("a"));
+
+        assertEquals(2, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(0, cache.getEvictionCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testEvictsUnusedEntries() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(4);
+        for (int i = 0; i < 4; i++) {
+            cache.putIfAbsent(i, String.valueOf(i));
+        }
+        // 0 and 2 are used again, so 1 and 3 are evicted first
+        assertNotNull(cache.get(0));
+        assertNotNull(cache.get(2));
+        cache.putIfAbsent(4, "4");
+        cache.putIfAbsent(5, "5");
+
+        assertEquals(4, cache.size());
+        assertEquals(2, cache.getEvictionCount());
+        assertNull(cache.get(1));
+        assertNull(cache.get(3));
+        assertEquals("0", cache.get(0));
+        assertEquals("2", cache.get(2));
+    }
+
+    @Test
+    public void testDisabled() {
+        BoundedCache<String, String> cache = new BoundedCache<>(0);
+        assertEquals("A", cache.computeIfAbsent("a", String::toUpperCase));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testRemove() {
+        BoundedCache<String, String> cache = new BoundedCache<>(2);
+        cache.putIfAbsent("a", "1");
+        cache.putIfAbsent("b", "2");
+        assertTrue(cache.remove("a"));
+        assertFalse(cache.remove("a"));
+        assertNull(cache.get("a"));
+
+        // the freed slot is taken without evicting
+        cache.putIfAbsent("a", "3");
+        assertEquals("3", cache.get("a"));
+        assertEquals(2, cache.size());
+        assertEquals(0, cache.getEvictionCount());
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>(64);
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executorService.submit(() -> {
+                    for (int i = 0; i < 10000; i++) {
+                        Integer key = i % 100;
+                        assertEquals(key, cache.computeIfAbsent(key, k -> k));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+        assertTrue(cache.size() <= 64);
+        assertEquals(80000, cache.getHitCount() + cache.getMissCount());
+        Integer cached = cache.computeIfAbsent(1, k -> k);
+        assertSame(cached, cache.get(1));
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.test.dom.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.xml.security.utils.BoundedCache;
+import org.apache.xml.security.utils.JDKXPathFactory;
+import org.apache.xml.security.utils.XMLUtils;
+import org.apache.xml.security.utils.XPathAPI;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test the cache of compiled expressions shared by the JDKXPathAPI instances.
+ */
+public class CompiledXPathCacheTest {
+
+    private static final String XML =
+        "<root xmlns:a=\"urn:a\" xmlns:b=\"urn:b\">"
+        + "<a:item>1</a:item><b:item>2</b:item><a:item>3</a:item>"
+        + "<filter xmlns:p=\"urn:a\"/><filter xmlns:p=\"urn:b\"/>"
+        + "</root>";
+
+    private static final String POOL_SIZE_PROPERTY = "org.apache.xml.security.xpath.pool-size";
+
+    @Test
+    public void testCachedPerNamespaceBindings() throws Exception {
+        Document doc = read(XML);
+        Element root = doc.getDocumentElement();
+        Element filterA = (Element) root.getElementsByTagName("filter").item(0);
+        Element filterB = (Element) root.getElementsByTagName("filter").item(1);
+        String expression = "//p:item[. = '3' or . = '2' or . = '1'] | //a:item[. = 'cache-test']";
+
+        BoundedCache<?, ?> cache = JDKXPathFactory.getCompiledExpressionCache();
+        long misses = cache.getMissCount();
+        long hits = cache.getHitCount();
+
+        JDKXPathFactory factory = new JDKXPathFactory();
+        assertEquals(2, factory.newXPathAPI().selectNodeList(doc, null, expression, filterA).getLength());
+        assertEquals(1, factory.newXPathAPI().selectNodeList(doc, null, expression, filterB).getLength());
+        assertEquals(misses + 2, cache.getMissCount());
+
+        // the same bindings in another document are served from the cache
+        Document other = read(XML);
+        Element otherFilterA = (Element) other.getElementsByTagName("filter").item(0);
+        assertEquals(2, factory.newXPathAPI().selectNodeList(other, null, expression, otherFilterA).getLength());
+        assertEquals(misses + 2, cache.getMissCount());
+        assertEquals(hits + 1, cache.getHitCount());
+    }
+
+    @Test
+    public void testEvaluatePerNode() throws Exception {
+        Document doc = read(XML);
+        Element root = doc.getDocumentElement();
+        Element filterB = (Element) root.getElementsByTagName("filter").item(1);
+
+        XPathAPI xpathAPI = new JDKXPathFactory().newXPathAPI();
+        Element first = (Element) root.getFirstChild();
+        assertFalse(xpathAPI.evaluate(first, null, "self::p:item", filterB));
+        assertTrue(xpathAPI.evaluate(first.getNextSibling(), null, "self::p:item", filterB));
+        xpathAPI.clear();
+        assertTrue(xpathAPI.evaluate(first, null, "self::a:item", filterB));
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executorService.submit(() -> {
+                    Document doc = read(XML);
+                    Element filterA = (Element) doc.getElementsByTagName("filter").item(0);
+                    XPathAPI xpathAPI = new JDKXPathFactory().newXPathAPI();
+                    for (int i = 0; i < 200; i++) {
+                        String expression = "//p:item[. != '" + (i % 10) + "']";
+                        // p is bound to urn:a, with items "1" and "3"
+                        int expected = i % 10 == 1 || i % 10 == 3 ? 1 : 2;
+                        assertEquals(expected, xpathAPI.selectNodeList(doc, null, expression, filterA).getLength());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void testPoolingDisabled() throws Exception {
+        // the pool size is read when the cache is initialized, so load it in a class loader of its own
+        String[] classpath = System.getProperty("java.class.path").split(File.pathSeparator);
+        URL[] urls = new URL[classpath.length];
+        for (int i = 0; i < classpath.length; i++) {
+            urls[i] = new File(classpath[i]).toURI().toURL();
+        }
+        String poolSize = System.getProperty(POOL_SIZE_PROPERTY);
+        System.setProperty(POOL_SIZE_PROPERTY, "0");
+        try (URLClassLoader classLoader = new URLClassLoader(urls, ClassLoader.getSystemClassLoader().getParent())) {
+            Class<?> factoryClass = Class.forName(JDKXPathFactory.class.getName(), true, classLoader);
+            Object xpathAPI =
+                factoryClass.getMethod("newXPathAPI").invoke(factoryClass.getDeclaredConstructor().newInstance());
+            Method selectNodeList = Class.forName(XPathAPI.class.getName(), true, classLoader)
+                .getMethod("selectNodeList", Node.class, Node.class, String.class, Node.class);
+
+            Document doc = read(XML);
+            Element filterA = (Element) doc.getElementsByTagName("filter").item(0);
+            for (int i = 0; i < 2; i++) {
+                NodeList nodeList = (NodeList) selectNodeList.invoke(xpathAPI, doc, null, "//p:item", filterA);
+                assertEquals(2, nodeList.getLength());
+            }
+        } finally {
+            if (poolSize == null) {
+                System.clearProperty(POOL_SIZE_PROPERTY);
+            } else {
+                System.setProperty(POOL_SIZE_PROPERTY, poolSize);
+            }
+        }
+    }
+
+    private static Document read(String xml) throws Exception {
+        return XMLUtils.read(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), false);
+    }
+}
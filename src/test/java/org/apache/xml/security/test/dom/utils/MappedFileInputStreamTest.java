@@ -0,0 +1,184 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.test.dom.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.Random;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.xml.security.Init;
+import org.apache.xml.security.algorithms.MessageDigestAlgorithm;
+import org.apache.xml.security.signature.XMLSignature;
+import org.apache.xml.security.signature.XMLSignatureInput;
+import org.apache.xml.security.test.dom.TestUtils;
+import org.apache.xml.security.utils.DigesterOutputStream;
+import org.apache.xml.security.utils.MappedFileInputStream;
+import org.apache.xml.security.utils.resolver.ResourceResolverContext;
+import org.apache.xml.security.utils.resolver.implementations.ResolverLocalFilesystem;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MappedFileInputStreamTest {
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeAll
+    public static void setUp() {
+        Init.init();
+    }
+
+    @Test
+    public void testReadAcrossRegions() throws Exception {
+        byte[] content = createContent(10000);
+        Path file = tempDir.resolve("file.bin");
+        Files.write(file, content);
+
+        try (InputStream inputStream = new MappedFileInputStream(file, 1024)) {
+            assertEquals(content.length, inputStream.available());
+            assertEquals(content[0] & 0xFF, inputStream.read());
+            assertEquals(100, inputStream.skip(100));
+
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            byte[] buffer = new byte[700];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                baos.write(buffer, 0, read);
+            }
+            byte[] expected = new byte[content.length - 101];
+            System.arraycopy(content, 101, expected, 0, expected.length);
+            assertArrayEquals(expected, baos.toByteArray());
+            assertEquals(-1, inputStream.read());
+            assertEquals(0, inputStream.available());
+        }
+    }
+
+    @Test
+    public void testNextRegion() throws Exception {
+        byte[] content = createContent(2500);
+        Path file = tempDir.resolve("file.bin");
+        Files.write(file, content);
+
+        try (MappedFileInputStream inputStream = new MappedFileInputStream(file, 1024)) {
+            inputStream.skip(10);
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            ByteBuffer region;
+            int regions = 0;
+            while ((region = inputStream.nextRegion()) != null) {
+                byte[] bytes = new byte[region.remaining()];
+                region.get(bytes);
+                baos.write(bytes);
+                regions++;
+            }
+            assertEquals(3, regions);
+            byte[] expected = new byte[content.length - 10];
+            System.arraycopy(content, 10, expected, 0, expected.length);
+            assertArrayEquals(expected, baos.toByteArray());
+            assertEquals(-1, inputStream.read());
+        }
+    }
+
+    @Test
+    public void testEmptyFile() throws Exception {
+        Path file = tempDir.resolve("empty.bin");
+        Files.write(file, new byte[0]);
+
+        try (MappedFileInputStream inputStream = new MappedFileInputStream(file)) {
+            assertEquals(-1, inputStream.read());
+            assertNull(inputStream.nextRegion());
+        }
+    }
+
+    @Test
+    public void testDigestMappedFile() throws Exception {
+        byte[] content = createContent(100000);
+        Path file = tempDir.resolve("file.bin");
+        Files.write(file, content);
+
+        Document doc = TestUtils.newDocument();
+        Attr uriAttr = doc.createAttributeNS(null, "URI");
+        uriAttr.setValue(file.toUri().toString());
+        doc.appendChild(doc.createElementNS(null, "Reference")).getAttributes().setNamedItem(uriAttr);
+
+        ResolverLocalFilesystem resolver = new ResolverLocalFilesystem(
+            Collections.singletonMap(ResolverLocalFilesystem.PROPERTY_MEMORY_MAPPED, "true"));
+        XMLSignatureInput input = resolver.engineResolveURI(new ResourceResolverContext(uriAttr, null, true));
+        assertTrue(input.getOctetStreamReal() instanceof MappedFileInputStream);
+
+        MessageDigestAlgorithm mda =
+            MessageDigestAlgorithm.getInstance(doc, MessageDigestAlgorithm.ALGO_ID_DIGEST_SHA256);
+        try (DigesterOutputStream digesterOutputStream = new DigesterOutputStream(mda)) {
+            input.updateOutputStream(digesterOutputStream);
+            assertArrayEquals(
+                MessageDigest.getInstance("SHA-256").digest(content), digesterOutputStream.getDigestValue());
+        } finally {
+            input.getOctetStreamReal().close();
+        }
+
+        XMLSignatureInput streamedInput =
+            new ResolverLocalFilesystem().engineResolveURI(new ResourceResolverContext(uriAttr, null, true));
+        try (InputStream inputStream = streamedInput.getOctetStreamReal()) {
+            assertFalse(inputStream instanceof MappedFileInputStream);
+        }
+    }
+
+    @Test
+    public void testSignMappedFile() throws Exception {
+        Path file = tempDir.resolve("file.bin");
+        Files.write(file, createContent(100000));
+        SecretKey key = new SecretKeySpec("secret-key-for-mapped-file-test".getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+
+        Document doc = TestUtils.newDocument();
+        XMLSignature sig = new XMLSignature(doc, null, XMLSignature.ALGO_ID_MAC_HMAC_SHA256);
+        doc.appendChild(sig.getElement());
+        sig.getSignedInfo().setResolverProperty(ResolverLocalFilesystem.PROPERTY_MEMORY_MAPPED, "true");
+        sig.addResourceResolver(new ResolverLocalFilesystem());
+        sig.addDocument(file.toUri().toString(), null, MessageDigestAlgorithm.ALGO_ID_DIGEST_SHA256);
+        sig.sign(key);
+
+        // verify with the streaming resolver
+        XMLSignature verifySig = new XMLSignature(doc.getDocumentElement(), null, false);
+        verifySig.addResourceResolver(new ResolverLocalFilesystem());
+        assertTrue(verifySig.checkSignatureValue(key));
+    }
+
+    private static byte[] createContent(int length) {
+        byte[] content = new byte[length];
+        new Random(42).nextBytes(content);
+        return content;
+    }
+}
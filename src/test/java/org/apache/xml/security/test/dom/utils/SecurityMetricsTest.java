@@ -0,0 +1,202 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.test.dom.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.xml.security.Init;
+import org.apache.xml.security.algorithms.MessageDigestAlgorithm;
+import org.apache.xml.security.c14n.Canonicalizer;
+import org.apache.xml.security.encryption.XMLCipher;
+import org.apache.xml.security.signature.XMLSignature;
+import org.apache.xml.security.test.dom.TestUtils;
+import org.apache.xml.security.transforms.Transforms;
+import org.apache.xml.security.utils.HistogramSecurityMetricsListener;
+import org.apache.xml.security.utils.SecurityMetrics;
+import org.apache.xml.security.utils.SecurityMetricsListener.Stage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the metrics of the signature and encryption stages.
+ */
+public class SecurityMetricsTest {
+
+    private final HistogramSecurityMetricsListener metrics = new HistogramSecurityMetricsListener();
+
+    @BeforeAll
+    public static void setUp() {
+        Init.init();
+    }
+
+    @BeforeEach
+    public void setListener() {
+        SecurityMetrics.setListener(metrics);
+    }
+
+    @AfterEach
+    public void removeListener() {
+        SecurityMetrics.setListener(null);
+    }
+
+    @Test
+    public void testSignAndVerify() throws Exception {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        KeyPair keyPair = keyPairGenerator.generateKeyPair();
+
+        Document doc = createDocument();
+        XMLSignature sig = new XMLSignature(doc, null, XMLSignature.ALGO_ID_SIGNATURE_RSA_SHA256);
+        doc.getDocumentElement().appendChild(sig.getElement());
+        Transforms transforms = new Transforms(doc);
+        transforms.addTransform(Transforms.TRANSFORM_ENVELOPED_SIGNATURE);
+        transforms.addTransform(Transforms.TRANSFORM_C14N_EXCL_OMIT_COMMENTS);
+        sig.addDocument("", transforms, MessageDigestAlgorithm.ALGO_ID_DIGEST_SHA256);
+        sig.addKeyInfo(keyPair.getPublic());
+        sig.sign(keyPair.getPrivate());
+
+        assertEquals(1, metrics.getHistogram(Stage.SIGNATURE_SIGN).getCount());
+        assertEquals(1, metrics.getHistogram(Stage.REFERENCE_DIGEST, MessageDigestAlgorithm.ALGO_ID_DIGEST_SHA256).getCount());
+        assertTrue(metrics.getHistogram(Stage.REFERENCE_DIGEST).getTotalBytes() > 0);
+        long signedBytes = metrics.getHistogram(Stage.SIGNATURE_SIGN).getTotalBytes();
+        assertTrue(signedBytes > 0);
+        // the SignedInfo is canonicalized with the default algorithm
+        assertTrue(metrics.getAlgorithms(Stage.CANONICALIZATION).contains(Canonicalizer.ALGO_ID_C14N_OMIT_COMMENTS));
+
+        XMLSignature verifySig = new XMLSignature(sig.getElement(), null, false);
+        PublicKey publicKey = verifySig.getKeyInfo().getPublicKey();
+        assertNotNull(publicKey);
+        assertTrue(verifySig.checkSignatureValue(publicKey));
+
+        assertEquals(1, metrics.getHistogram(Stage.KEY_RESOLUTION, "PublicKey").getCount());
+        assertEquals(1, metrics.getHistogram(Stage.SIGNATURE_VERIFY, XMLSignature.ALGO_ID_SIGNATURE_RSA_SHA256)
+            .getCount());
+        // the canonicalized SignedInfo is signed and verified
+        assertEquals(signedBytes, metrics.getHistogram(Stage.SIGNATURE_VERIFY).getTotalBytes());
+        assertEquals(2, metrics.getHistogram(Stage.REFERENCE_DIGEST).getCount());
+    }
+
+    @Test
+    public void testCanonicalizedBytes() throws Exception {
+        Document doc = createDocument();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Canonicalizer.getInstance(Canonicalizer.ALGO_ID_C14N_OMIT_COMMENTS)
+            .canonicalizeSubtree(doc.getDocumentElement(), baos);
+
+        HistogramSecurityMetricsListener.Histogram histogram =
+            metrics.getHistogram(Stage.CANONICALIZATION, Canonicalizer.ALGO_ID_C14N_OMIT_COMMENTS);
+        assertEquals(1, histogram.getCount());
+        assertEquals(baos.size(), histogram.getTotalBytes());
+    }
+
+    @Test
+    public void testEncryptAndDecrypt() throws Exception {
+        SecretKey key = new SecretKeySpec("0123456789abcdef".getBytes(StandardCharsets.UTF_8), "AES");
+        Document doc = createDocument();
+        Element data = (Element) doc.getDocumentElement().getFirstChild();
+
+        XMLCipher cipher = XMLCipher.getInstance(XMLCipher.AES_128_GCM);
+        cipher.init(XMLCipher.ENCRYPT_MODE, key);
+        cipher.doFinal(doc, data, false);
+
+        HistogramSecurityMetricsListener.Histogram encryption =
+            metrics.getHistogram(Stage.ENCRYPTION, XMLCipher.AES_128_GCM);
+        assertEquals(1, encryption.getCount());
+        assertTrue(encryption.getTotalBytes() > 0);
+
+        XMLCipher decryptCipher = XMLCipher.getInstance(XMLCipher.AES_128_GCM);
+        decryptCipher.init(XMLCipher.DECRYPT_MODE, key);
+        decryptCipher.doFinal(doc, (Element) doc.getDocumentElement().getFirstChild());
+
+        HistogramSecurityMetricsListener.Histogram decryption =
+            metrics.getHistogram(Stage.DECRYPTION, XMLCipher.AES_128_GCM);
+        assertEquals(1, decryption.getCount());
+        assertEquals("<Data>some data to protect</Data>".length(), decryption.getTotalBytes());
+    }
+
+    @Test
+    public void testNoListener() throws Exception {
+        SecurityMetrics.setListener(null);
+        assertFalse(SecurityMetrics.isEnabled());
+        assertEquals(SecurityMetrics.NOT_STARTED, SecurityMetrics.start());
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        // without a listener the output stream isn't wrapped
+        assertTrue(baos == SecurityMetrics.countBytes(SecurityMetrics.start(), baos));
+        Canonicalizer.getInstance(Canonicalizer.ALGO_ID_C14N_OMIT_COMMENTS)
+            .canonicalizeSubtree(createDocument(), baos);
+        assertEquals(0, metrics.getHistogram(Stage.CANONICALIZATION).getCount());
+    }
+
+    @Test
+    public void testHistogram() throws Exception {
+        metrics.operationCompleted(Stage.SIGNATURE_VERIFY, "a", 100, 10);
+        metrics.operationCompleted(Stage.SIGNATURE_VERIFY, "a", 1000, -1);
+        metrics.operationCompleted(Stage.SIGNATURE_VERIFY, "b", 5000, 20);
+        metrics.operationCompleted(Stage.SIGNATURE_VERIFY, null, 0, 0);
+
+        HistogramSecurityMetricsListener.Histogram histogram = metrics.getHistogram(Stage.SIGNATURE_VERIFY);
+        assertEquals(4, histogram.getCount());
+        assertEquals(6100, histogram.getTotalNanos());
+        assertEquals(0, histogram.getMinNanos());
+        assertEquals(5000, histogram.getMaxNanos());
+        assertEquals(30, histogram.getTotalBytes());
+        long[] buckets = histogram.getBuckets();
+        assertEquals(1, buckets[0]);
+        assertEquals(1, buckets[6]);
+        assertEquals(1, buckets[9]);
+        assertEquals(1, buckets[12]);
+        assertEquals(128, histogram.getPercentileNanos(50));
+        assertEquals(5000, histogram.getPercentileNanos(100));
+
+        assertEquals(2, metrics.getHistogram(Stage.SIGNATURE_VERIFY, "a").getCount());
+        assertArrayEquals(new Object[] {"a", "b"}, metrics.getAlgorithms(Stage.SIGNATURE_VERIFY).toArray());
+        assertEquals(0, metrics.getHistogram(Stage.ENCRYPTION).getCount());
+
+        metrics.reset();
+        assertEquals(0, metrics.getHistogram(Stage.SIGNATURE_VERIFY).getCount());
+    }
+
+    private static Document createDocument() throws Exception {
+        Document doc = TestUtils.newDocument();
+        Element root = doc.createElementNS(null, "Root");
+        doc.appendChild(root);
+        Element data = doc.createElementNS(null, "Data");
+        data.appendChild(doc.createTextNode("some data to protect"));
+        root.appendChild(data);
+        return doc;
+    }
+}
@@ -20,14 +20,25 @@ package org.apache.xml.security.test.dom.utils.resolver;
 
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+import org.apache.xml.security.signature.XMLSignatureInput;
 import org.apache.xml.security.test.dom.TestUtils;
 import org.apache.xml.security.utils.resolver.ResourceResolver;
 import org.apache.xml.security.utils.resolver.ResourceResolverContext;
+import org.apache.xml.security.utils.resolver.ResourceResolverContext.URIType;
+import org.apache.xml.security.utils.resolver.ResourceResolverException;
+import org.apache.xml.security.utils.resolver.ResourceResolverSpi;
 import org.apache.xml.security.utils.resolver.implementations.ResolverLocalFilesystem;
 import org.w3c.dom.Attr;
 import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -156,4 +167,96 @@ public class ResourceResolverTest {
                 new ResourceResolverContext(uriAttr, null, false);
         assertTrue(resolverContext.isURISafeToResolve());
     }
-}
\ No newline at end of file
+
+    @org.junit.jupiter.api.Test
+    public void testURIType() throws Exception {
+        assertEquals(URIType.NONE, URIType.of(null));
+        assertEquals(URIType.EMPTY, URIType.of(""));
+        assertEquals(URIType.FRAGMENT, URIType.of("#1234"));
+        assertEquals(URIType.FRAGMENT, URIType.of("#xpointer"));
+        assertEquals(URIType.XPOINTER, URIType.of("#xpointer(/)"));
+        assertEquals(URIType.XPOINTER, URIType.of("#xpointer(id('1234'))"));
+        assertEquals(URIType.HTTP, URIType.of("http://www.apache.org"));
+        assertEquals(URIType.FILE, URIType.of("file:/tmp/test.xml"));
+        assertEquals(URIType.OTHER, URIType.of("https://www.apache.org"));
+        assertEquals(URIType.OTHER, URIType.of("test.xml"));
+
+        Document doc = TestUtils.newDocument();
+        assertEquals(URIType.NONE, new ResourceResolverContext(null, null, false).getURIType());
+        Attr uriAttr = doc.createAttribute("URI");
+        uriAttr.setValue("#1234");
+        assertEquals(URIType.FRAGMENT, new ResourceResolverContext(uriAttr, null, false).getURIType());
+    }
+
+    /**
+     * Tests that URIs are only offered to the resolvers which support their type, in the order
+     * in which the resolvers were registered.
+     */
+    @org.junit.jupiter.api.Test
+    public void testDispatchByURIType() throws Exception {
+        List<String> calls = new CopyOnWriteArrayList<>();
+        ResourceResolver.register(new RecordingResolver("http", calls, EnumSet.of(URIType.HTTP)), true);
+        ResourceResolver.register(new RecordingResolver("any", calls, null), true);
+        ResourceResolver.register(new RecordingResolver("fragment", calls, EnumSet.of(URIType.FRAGMENT)), true);
+
+        Document doc = TestUtils.newDocument();
+        Element reference = doc.createElement("Reference");
+        doc.appendChild(reference);
+        Attr uriAttr = doc.createAttribute("URI");
+        reference.setAttributeNode(uriAttr);
+
+        uriAttr.setValue("http://www.example.com/" + RecordingResolver.MARKER);
+        assertUnresolvable(uriAttr);
+        assertEquals(Arrays.asList("any", "http"), calls);
+
+        calls.clear();
+        uriAttr.setValue("#" + RecordingResolver.MARKER);
+        assertUnresolvable(uriAttr);
+        assertEquals(Arrays.asList("fragment", "any"), calls);
+    }
+
+    private static void assertUnresolvable(Attr uriAttr) {
+        try {
+            ResourceResolver.resolve(new ResourceResolverContext(uriAttr, null, true));
+            fail(uriAttr.getValue() + " should not be resolvable");
+        } catch (ResourceResolverException e) {
+            //
+        }
+    }
+
+    /**
+     * A resolver which records that it was asked about a test URI, but never resolves anything.
+     */
+    private static class RecordingResolver extends ResourceResolverSpi {
+
+        static final String MARKER = "recording-resolver-test";
+
+        private final String name;
+        private final List<String> calls;
+        private final Set<URIType> uriTypes;
+
+        RecordingResolver(String name, List<String> calls, Set<URIType> uriTypes) {
+            this.name = name;
+            this.calls = calls;
+            this.uriTypes = uriTypes;
+        }
+
+        @Override
+        public XMLSignatureInput engineResolveURI(ResourceResolverContext context) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean engineCanResolveURI(ResourceResolverContext context) {
+            if (context.uriToResolve != null && context.uriToResolve.endsWith(MARKER)) {
+                calls.add(name);
+            }
+            return false;
+        }
+
+        @Override
+        public Set<URIType> engineGetSupportedURITypes() {
+            return uriTypes == null ? super.engineGetSupportedURITypes() : uriTypes;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.test.stax;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.Random;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+
+import org.apache.xml.security.stax.impl.util.BufferedCipherOutputStream;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+public class BufferedCipherOutputStreamTest {
+
+    private static final int BUFFER_SIZE = 1024;
+
+    @Test
+    public void testCBC() throws Exception {
+        SecretKey secretKey = generateKey();
+        IvParameterSpec ivParameterSpec = new IvParameterSpec(new byte[16]);
+        Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+
+        for (int writeSize : new int[] {1, 15, 100, BUFFER_SIZE, 3000}) {
+            for (int length : new int[] {0, 1, 16, BUFFER_SIZE, 10000}) {
+                byte[] plaintext = createContent(length);
+                cipher.init(Cipher.ENCRYPT_MODE, secretKey, ivParameterSpec);
+                byte[] expected = cipher.doFinal(plaintext);
+
+                cipher.init(Cipher.ENCRYPT_MODE, secretKey, ivParameterSpec);
+                assertArrayEquals(expected, encrypt(cipher, plaintext, writeSize));
+            }
+        }
+    }
+
+    @Test
+    public void testGCM() throws Exception {
+        SecretKey secretKey = generateKey();
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+
+        int iv = 0;
+        for (int writeSize : new int[] {1, 100, 3000}) {
+            byte[] plaintext = createContent(5000);
+            //a GCM cipher can't be initialized twice with the same key and iv
+            GCMParameterSpec parameterSpec = new GCMParameterSpec(128, new byte[] {0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, (byte) iv++});
+            cipher.init(Cipher.ENCRYPT_MODE, secretKey, parameterSpec);
+            byte[] ciphertext = encrypt(cipher, plaintext, writeSize);
+
+            cipher.init(Cipher.DECRYPT_MODE, secretKey, parameterSpec);
+            assertArrayEquals(plaintext, cipher.doFinal(ciphertext));
+        }
+    }
+
+    private static byte[] encrypt(Cipher cipher, byte[] plaintext, int writeSize) throws Exception {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        try (OutputStream outputStream = new BufferedCipherOutputStream(byteArrayOutputStream, cipher, BUFFER_SIZE)) {
+            for (int i = 0; i < plaintext.length; i += writeSize) {
+                int length = Math.min(writeSize, plaintext.length - i);
+                if (length == 1) {
+                    outputStream.write(plaintext[i]);
+                } else {
+                    outputStream.write(plaintext, i, length);
+                }
+            }
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    private static SecretKey generateKey() throws Exception {
+        KeyGenerator keyGenerator = KeyGenerator.getInstance("AES");
+        keyGenerator.init(128);
+        return keyGenerator.generateKey();
+    }
+
+    private static byte[] createContent(int length) {
+        byte[] content = new byte[length];
+        new Random(42).nextBytes(content);
+        return content;
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.test.stax;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.xml.security.stax.ext.XMLSecurityConstants;
+import org.apache.xml.security.stax.impl.algorithms.JCEEngineCache;
+import org.apache.xml.security.stax.impl.util.DigestOutputStream;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class JCEEngineCacheTest {
+
+    @Test
+    public void testNoReuse() throws Exception {
+        XMLSecurityConstants.EngineReuse engineReuse = XMLSecurityConstants.EngineReuse.None;
+        MessageDigest messageDigest = JCEEngineCache.getMessageDigest("SHA-256", null, engineReuse);
+        JCEEngineCache.releaseMessageDigest("SHA-256", null, engineReuse, messageDigest);
+        assertNotSame(messageDigest, JCEEngineCache.getMessageDigest("SHA-256", null, engineReuse));
+    }
+
+    @Test
+    public void testThreadConfinedReuse() throws Exception {
+        XMLSecurityConstants.EngineReuse engineReuse = XMLSecurityConstants.EngineReuse.ThreadConfined;
+        MessageDigest messageDigest = JCEEngineCache.getMessageDigest("SHA-384", null, engineReuse);
+        messageDigest.update((byte) 1);
+        JCEEngineCache.releaseMessageDigest("SHA-384", null, engineReuse, messageDigest);
+
+        // Another thread doesn't see the released engine
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            assertNotSame(messageDigest,
+                executorService.submit(() -> JCEEngineCache.getMessageDigest("SHA-384", null, engineReuse)).get());
+        } finally {
+            executorService.shutdown();
+        }
+
+        MessageDigest reused = JCEEngineCache.getMessageDigest("SHA-384", null, engineReuse);
+        assertSame(messageDigest, reused);
+        // The engine was reset on release
+        assertArrayEquals(MessageDigest.getInstance("SHA-384").digest(), reused.digest());
+        assertNotSame(messageDigest, JCEEngineCache.getMessageDigest("SHA-384", null, engineReuse));
+    }
+
+    @Test
+    public void testPooledReuseWithDigestOutputStream() throws Exception {
+        XMLSecurityConstants.EngineReuse engineReuse = XMLSecurityConstants.EngineReuse.Pooled;
+        MessageDigest messageDigest = JCEEngineCache.getMessageDigest("SHA-512", null, engineReuse);
+        DigestOutputStream digestOutputStream = new DigestOutputStream(messageDigest,
+            () -> JCEEngineCache.releaseMessageDigest("SHA-512", null, engineReuse, messageDigest));
+
+        byte[] input = "Some content to digest".getBytes(StandardCharsets.UTF_8);
+        digestOutputStream.write(input);
+        assertArrayEquals(MessageDigest.getInstance("SHA-512").digest(input), digestOutputStream.getDigestValue());
+
+        // getDigestValue released the engine to the pool
+        assertSame(messageDigest, JCEEngineCache.getMessageDigest("SHA-512", null, engineReuse));
+    }
+
+    @Test
+    public void testReleaseDigestOutputStreamWithoutDigestValue() throws Exception {
+        XMLSecurityConstants.EngineReuse engineReuse = XMLSecurityConstants.EngineReuse.Pooled;
+        MessageDigest messageDigest = JCEEngineCache.getMessageDigest("SHA-384", null, engineReuse);
+        DigestOutputStream digestOutputStream = new DigestOutputStream(messageDigest,
+            () -> JCEEngineCache.releaseMessageDigest("SHA-384", null, engineReuse, messageDigest));
+
+        digestOutputStream.write("Some content which isn't digested".getBytes(StandardCharsets.UTF_8));
+        digestOutputStream.release();
+        digestOutputStream.release();
+
+        // the engine was released, and reset
+        MessageDigest reused = JCEEngineCache.getMessageDigest("SHA-384", null, engineReuse);
+        assertSame(messageDigest, reused);
+        byte[] input = "Some content to digest".getBytes(StandardCharsets.UTF_8);
+        assertArrayEquals(MessageDigest.getInstance("SHA-384").digest(input), reused.digest(input));
+    }
+
+    @Test
+    public void testReleasedMacDoesNotKeepKey() throws Exception {
+        XMLSecurityConstants.EngineReuse engineReuse = XMLSecurityConstants.EngineReuse.Pooled;
+        byte[] input = "Some content to mac".getBytes(StandardCharsets.UTF_8);
+        SecretKeySpec key = new SecretKeySpec("secret".getBytes(StandardCharsets.UTF_8), "HmacSHA384");
+
+        Mac mac = JCEEngineCache.getMac("HmacSHA384", null, engineReuse);
+        mac.init(key);
+        byte[] keyedValue = mac.doFinal(input);
+        JCEEngineCache.releaseMac("HmacSHA384", null, engineReuse, mac);
+
+        Mac reused = JCEEngineCache.getMac("HmacSHA384", null, engineReuse);
+        assertSame(mac, reused);
+        // The released engine was re-initialized with an all-zero key
+        Mac zeroKeyMac = Mac.getInstance("HmacSHA384");
+        zeroKeyMac.init(new SecretKeySpec(new byte[zeroKeyMac.getMacLength()], "HmacSHA384"));
+        byte[] reusedValue = reused.doFinal(input);
+        assertArrayEquals(zeroKeyMac.doFinal(input), reusedValue);
+        assertFalse(MessageDigest.isEqual(keyedValue, reusedValue));
+    }
+
+    @Test
+    public void testClearThreadCache() throws Exception {
+        XMLSecurityConstants.EngineReuse engineReuse = XMLSecurityConstants.EngineReuse.ThreadConfined;
+        MessageDigest messageDigest = JCEEngineCache.getMessageDigest("SHA-224", null, engineReuse);
+        JCEEngineCache.releaseMessageDigest("SHA-224", null, engineReuse, messageDigest);
+
+        JCEEngineCache.clearThreadCache();
+        assertNotSame(messageDigest, JCEEngineCache.getMessageDigest("SHA-224", null, engineReuse));
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.test.stax;
+
+import org.apache.xml.security.stax.ext.ResourceResolver;
+import org.apache.xml.security.stax.ext.XMLSecurityUtils;
+import org.apache.xml.security.stax.impl.resourceResolvers.ResolverMappedFilesystem;
+import org.apache.xml.security.stax.impl.util.DigestOutputStream;
+import org.apache.xml.security.utils.MappedFileInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ */
+public class ResolverMappedFilesystemTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testDigestMappedFile() throws Exception {
+        byte[] content = new byte[100000];
+        new Random(42).nextBytes(content);
+        Path file = tempDir.resolve("file.bin");
+        Files.write(file, content);
+
+        ResolverMappedFilesystem lookup = new ResolverMappedFilesystem();
+        assertNotNull(lookup.canResolve(file.toUri().toString(), null));
+        ResourceResolver resourceResolver = lookup.newInstance(file.toUri().toString(), null);
+
+        try (InputStream inputStream = resourceResolver.getInputStreamFromExternalReference();
+            DigestOutputStream digestOutputStream = new DigestOutputStream(MessageDigest.getInstance("SHA-256"))) {
+            assertTrue(inputStream instanceof MappedFileInputStream);
+            XMLSecurityUtils.copy(inputStream, digestOutputStream);
+            assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(content), digestOutputStream.getDigestValue());
+        }
+    }
+}
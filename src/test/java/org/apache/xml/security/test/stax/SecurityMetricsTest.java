@@ -0,0 +1,165 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.test.stax;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.xml.security.stax.ext.InboundXMLSec;
+import org.apache.xml.security.stax.ext.OutboundXMLSec;
+import org.apache.xml.security.stax.ext.SecurePart;
+import org.apache.xml.security.stax.ext.XMLSec;
+import org.apache.xml.security.stax.ext.XMLSecurityConstants;
+import org.apache.xml.security.stax.ext.XMLSecurityProperties;
+import org.apache.xml.security.stax.securityToken.SecurityTokenConstants;
+import org.apache.xml.security.test.stax.utils.StAX2DOM;
+import org.apache.xml.security.test.stax.utils.XmlReaderToWriter;
+import org.apache.xml.security.utils.HistogramSecurityMetricsListener;
+import org.apache.xml.security.utils.HistogramSecurityMetricsListener.BufferStatistics;
+import org.apache.xml.security.utils.SecurityMetrics;
+import org.apache.xml.security.utils.SecurityMetricsListener.Stage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that the StAX processor chains report their processing times.
+ */
+public class SecurityMetricsTest {
+
+    private static final String HMAC_SHA256 = "http://www.w3.org/2001/04/xmldsig-more#hmac-sha256";
+
+    private final XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+    private final HistogramSecurityMetricsListener metrics = new HistogramSecurityMetricsListener();
+
+    @BeforeEach
+    public void setListener() {
+        SecurityMetrics.setListener(metrics);
+    }
+
+    @AfterEach
+    public void removeListener() {
+        SecurityMetrics.setListener(null);
+    }
+
+    @TempDir
+    File spillDirectory;
+
+    @Test
+    public void testSignAndVerify() throws Exception {
+        SecretKey key = new SecretKeySpec("secret-key-for-metrics".getBytes(StandardCharsets.UTF_8), HMAC_SHA256);
+
+        XMLSecurityProperties properties = new XMLSecurityProperties();
+        properties.setActions(Collections.singletonList(XMLSecurityConstants.SIGNATURE));
+        properties.setSignatureKey(key);
+        properties.setSignatureAlgorithm(HMAC_SHA256);
+        properties.setSignatureKeyIdentifier(SecurityTokenConstants.KeyIdentifier_NoKeyInfo);
+        properties.addSignaturePart(new SecurePart(
+            new QName("urn:example:po", "PaymentInfo"), SecurePart.Modifier.Content,
+            new String[]{"http://www.w3.org/2001/10/xml-exc-c14n#"}, "http://www.w3.org/2001/04/xmlenc#sha256"));
+
+        OutboundXMLSec outboundXMLSec = XMLSec.getOutboundXMLSec(properties);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        XMLStreamWriter xmlStreamWriter = outboundXMLSec.processOutMessage(baos, StandardCharsets.UTF_8.name());
+        try (InputStream sourceDocument =
+                this.getClass().getClassLoader().getResourceAsStream(
+                    "ie/baltimore/merlin-examples/merlin-xmlenc-five/plaintext.xml")) {
+            XMLStreamReader xmlStreamReader = xmlInputFactory.createXMLStreamReader(sourceDocument);
+            XmlReaderToWriter.writeAll(xmlStreamReader, xmlStreamWriter);
+        }
+        xmlStreamWriter.close();
+
+        assertEquals(1, metrics.getHistogram(Stage.OUTPUT_PROCESSING).getCount());
+        assertTrue(metrics.getHistogram(Stage.OUTPUT_PROCESSING).getTotalNanos() > 0);
+        assertEquals(0, metrics.getHistogram(Stage.INPUT_PROCESSING).getCount());
+
+        XMLSecurityProperties inboundProperties = new XMLSecurityProperties();
+        inboundProperties.setSignatureVerificationKey(key);
+        InboundXMLSec inboundXMLSec = XMLSec.getInboundWSSec(inboundProperties);
+        XMLStreamReader xmlStreamReader =
+            xmlInputFactory.createXMLStreamReader(new ByteArrayInputStream(baos.toByteArray()));
+        StAX2DOM.readDoc(inboundXMLSec.processInMessage(xmlStreamReader));
+
+        assertEquals(1, metrics.getHistogram(Stage.INPUT_PROCESSING).getCount());
+        assertTrue(metrics.getHistogram(Stage.INPUT_PROCESSING).getTotalNanos() > 0);
+    }
+
+    @Test
+    public void testSpilledBuffers() throws Exception {
+        SecretKey key = new SecretKeySpec("secret-key-for-metrics".getBytes(StandardCharsets.UTF_8), HMAC_SHA256);
+
+        XMLSecurityProperties properties = new XMLSecurityProperties();
+        properties.setActions(Collections.singletonList(XMLSecurityConstants.SIGNATURE));
+        properties.setSignatureKey(key);
+        properties.setSignatureAlgorithm(HMAC_SHA256);
+        properties.setSignatureKeyIdentifier(SecurityTokenConstants.KeyIdentifier_NoKeyInfo);
+        properties.addSignaturePart(new SecurePart(
+            new QName("urn:example:po", "PaymentInfo"), SecurePart.Modifier.Content,
+            new String[]{"http://www.w3.org/2001/10/xml-exc-c14n#"}, "http://www.w3.org/2001/04/xmlenc#sha256"));
+        properties.setOutputBufferMaxEventsInMemory(5);
+        properties.setOutputBufferSpillDirectory(spillDirectory);
+
+        OutboundXMLSec outboundXMLSec = XMLSec.getOutboundXMLSec(properties);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        XMLStreamWriter xmlStreamWriter = outboundXMLSec.processOutMessage(baos, StandardCharsets.UTF_8.name());
+        try (InputStream sourceDocument =
+                this.getClass().getClassLoader().getResourceAsStream(
+                    "ie/baltimore/merlin-examples/merlin-xmlenc-five/plaintext.xml")) {
+            XMLStreamReader xmlStreamReader = xmlInputFactory.createXMLStreamReader(sourceDocument);
+            XmlReaderToWriter.writeAll(xmlStreamReader, xmlStreamWriter);
+        }
+        xmlStreamWriter.close();
+
+        BufferStatistics outputStatistics = metrics.getBufferStatistics(Stage.OUTPUT_PROCESSING);
+        assertTrue(outputStatistics.getCount() > 0);
+        assertTrue(outputStatistics.getSpilledEvents() > 0);
+        assertTrue(outputStatistics.getSpilledBytes() > 0);
+        assertTrue(outputStatistics.getPeakEventsInMemory() > 0);
+
+        XMLSecurityProperties inboundProperties = new XMLSecurityProperties();
+        inboundProperties.setSignatureVerificationKey(key);
+        inboundProperties.setInputBufferMaxEventsInMemory(2);
+        inboundProperties.setInputBufferSpillDirectory(spillDirectory);
+        InboundXMLSec inboundXMLSec = XMLSec.getInboundWSSec(inboundProperties);
+        XMLStreamReader xmlStreamReader =
+            xmlInputFactory.createXMLStreamReader(new ByteArrayInputStream(baos.toByteArray()));
+        StAX2DOM.readDoc(inboundXMLSec.processInMessage(xmlStreamReader));
+
+        BufferStatistics inputStatistics = metrics.getBufferStatistics(Stage.INPUT_PROCESSING);
+        assertEquals(1, inputStatistics.getCount());
+        assertTrue(inputStatistics.getSpilledEvents() > 0);
+        assertTrue(inputStatistics.getSpilledBytes() > 0);
+        assertTrue(inputStatistics.getPeakEventsInMemory() > 0);
+    }
+}
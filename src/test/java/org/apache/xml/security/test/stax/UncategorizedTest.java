@@ -25,11 +25,18 @@ import org.apache.xml.security.stax.ext.XMLSec;
 import org.apache.xml.security.stax.ext.XMLSecurityConfigurationException;
 import org.apache.xml.security.stax.ext.XMLSecurityConstants;
 import org.apache.xml.security.stax.ext.XMLSecurityProperties;
+import org.apache.xml.security.stax.impl.AbstractSecurityContextImpl;
+import org.apache.xml.security.stax.securityEvent.SecurityEvent;
+import org.apache.xml.security.stax.securityEvent.SecurityEventConstants;
+import org.apache.xml.security.stax.securityEvent.SubscribingSecurityEventListener;
 
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -71,4 +78,27 @@ public class UncategorizedTest {
             assertTrue(ex.getMessage().contains("Duplicate Actions are not allowed"));
         }
     }
+
+    @Test
+    public void testSubscribedSecurityEvents() throws Exception {
+        AbstractSecurityContextImpl securityContext = new AbstractSecurityContextImpl();
+        // without a listener a subclass may still consume every event
+        assertTrue(securityContext.isSubscribed(SecurityEventConstants.SignedElement));
+
+        securityContext.addSecurityEventListener(new SubscribingSecurityEventListener() {
+            @Override
+            public Set<SecurityEventConstants.Event> getSubscribedSecurityEvents() {
+                return Collections.singleton(SecurityEventConstants.SignedElement);
+            }
+
+            @Override
+            public void registerSecurityEvent(SecurityEvent securityEvent) {
+            }
+        });
+        assertTrue(securityContext.isSubscribed(SecurityEventConstants.SignedElement));
+        assertFalse(securityContext.isSubscribed(SecurityEventConstants.AlgorithmSuite));
+
+        securityContext.addSecurityEventListener(securityEvent -> { });
+        assertTrue(securityContext.isSubscribed(SecurityEventConstants.AlgorithmSuite));
+    }
 }
@@ -0,0 +1,205 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.test.stax;
+
+import java.io.File;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.xml.security.stax.ext.stax.XMLSecEvent;
+import org.apache.xml.security.stax.ext.stax.XMLSecEventFactory;
+import org.apache.xml.security.stax.ext.stax.XMLSecNamespace;
+import org.apache.xml.security.stax.ext.stax.XMLSecStartElement;
+import org.apache.xml.security.stax.impl.util.XMLSecEventBuffer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test the buffer of held-back events which spills to a temporary file.
+ */
+public class XMLSecEventBufferTest {
+
+    private static final String XML =
+        "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+        + "<!-- comment --><?pi data?>"
+        + "<root xmlns=\"urn:default\" xmlns:p=\"urn:p\" p:a=\"1\" b=\"&lt;2&gt;\">"
+        + "text &amp; more<![CDATA[<cdata>]]>"
+        + "<p:child p:a=\"x\"><grandchild/>é€😀</p:child>"
+        + "<child xmlns=\"\">   </child><p:child/><p:child/>"
+        + "</root>";
+
+    @TempDir
+    public File spillDirectory;
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        List<XMLSecEvent> events = readEvents();
+
+        XMLSecEventBuffer buffer = new XMLSecEventBuffer(3, spillDirectory);
+        events.forEach(buffer::offerLast);
+        assertEquals(events.size(), buffer.size());
+        assertTrue(buffer.getSpilledEventCount() > 0);
+        assertTrue(buffer.getSpilledByteCount() > 0);
+        assertTrue(buffer.getPeakEventsInMemory() <= 3);
+        assertEquals(1, spillDirectory.list().length);
+
+        for (XMLSecEvent expected : events) {
+            assertEquals(toString(expected), toString(buffer.pollFirst()));
+        }
+        assertNull(buffer.pollFirst());
+        assertTrue(buffer.isEmpty());
+        // the temporary file is deleted as soon as all spilled events are read
+        assertEquals(0, spillDirectory.list().length);
+    }
+
+    @Test
+    public void testPushBackAndPeek() throws Exception {
+        List<XMLSecEvent> events = readEvents();
+
+        XMLSecEventBuffer buffer = new XMLSecEventBuffer(2, spillDirectory);
+        events.forEach(buffer::offerLast);
+
+        XMLSecEvent first = buffer.pollFirst();
+        XMLSecEvent second = buffer.pollFirst();
+        buffer.push(second);
+        buffer.push(first);
+        assertEquals(events.size(), buffer.size());
+
+        // events appended while spilled events are read back stay in memory
+        XMLSecEvent appended = XMLSecEventFactory.createXMLSecComment("appended");
+        buffer.offerLast(appended);
+
+        List<String> actual = new ArrayList<>();
+        while (!buffer.isEmpty()) {
+            XMLSecEvent peeked = buffer.peekFirst();
+            XMLSecEvent polled = buffer.pollFirst();
+            assertEquals(toString(peeked), toString(polled));
+            actual.add(toString(polled));
+        }
+
+        List<String> expected = new ArrayList<>();
+        events.forEach(event -> expected.add(toString(event)));
+        expected.add(toString(appended));
+        assertEquals(expected, actual);
+        assertEquals(0, spillDirectory.list().length);
+    }
+
+    @Test
+    public void testIteratorAndClose() throws Exception {
+        List<XMLSecEvent> events = readEvents();
+
+        XMLSecEventBuffer buffer = new XMLSecEventBuffer(4, spillDirectory);
+        events.forEach(buffer::offerLast);
+        assertTrue(buffer.getSpilledEventCount() > 0);
+
+        Iterator<XMLSecEvent> iterator = buffer.descendingIterator();
+        for (int i = events.size() - 1; i >= 0; i--) {
+            assertEquals(toString(events.get(i)), toString(iterator.next()));
+        }
+        assertFalse(iterator.hasNext());
+        // iterating reads all spilled events back into memory
+        assertEquals(0, spillDirectory.list().length);
+        assertEquals(events.size(), buffer.size());
+
+        buffer.clear();
+        events.forEach(buffer::offerLast);
+        assertEquals(1, spillDirectory.list().length);
+        buffer.close();
+        assertEquals(0, spillDirectory.list().length);
+    }
+
+    @Test
+    public void testParentsOfSpilledEvents() throws Exception {
+        List<XMLSecEvent> events = readEvents();
+
+        XMLSecEventBuffer buffer = new XMLSecEventBuffer(2, spillDirectory);
+        events.forEach(buffer::offerLast);
+        assertTrue(buffer.getSpilledEventCount() > 0);
+
+        for (XMLSecEvent expected : events) {
+            XMLSecEvent actual = buffer.pollFirst();
+            assertEquals(expected.getElementPath(), actual.getElementPath());
+            assertEquals(expected.getDocumentLevel(), actual.getDocumentLevel());
+            if (actual.isStartElement()) {
+                List<XMLSecNamespace> expectedNamespaces = new ArrayList<>();
+                expected.asStartElement().getNamespacesFromCurrentScope(expectedNamespaces);
+                List<XMLSecNamespace> actualNamespaces = new ArrayList<>();
+                actual.asStartElement().getNamespacesFromCurrentScope(actualNamespaces);
+                assertEquals(expectedNamespaces.toString(), actualNamespaces.toString());
+            }
+        }
+    }
+
+    @Test
+    public void testInMemory() throws Exception {
+        List<XMLSecEvent> events = readEvents();
+
+        XMLSecEventBuffer buffer = new XMLSecEventBuffer(0, spillDirectory);
+        events.forEach(buffer::offerLast);
+        assertEquals(0, buffer.getSpilledEventCount());
+        assertEquals(events.size(), buffer.getPeakEventsInMemory());
+        assertEquals(0, spillDirectory.list().length);
+        for (XMLSecEvent expected : events) {
+            assertTrue(expected == buffer.pollFirst());
+        }
+        buffer.close();
+    }
+
+    private static List<XMLSecEvent> readEvents() throws Exception {
+        XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+        XMLStreamReader xmlStreamReader = xmlInputFactory.createXMLStreamReader(new StringReader(XML));
+        List<XMLSecEvent> events = new ArrayList<>();
+        events.add(XMLSecEventFactory.allocate(xmlStreamReader, null));
+        XMLSecStartElement parent = null;
+        while (xmlStreamReader.hasNext()) {
+            xmlStreamReader.next();
+            XMLSecEvent xmlSecEvent = XMLSecEventFactory.allocate(xmlStreamReader, parent);
+            if (xmlSecEvent.isStartElement()) {
+                parent = xmlSecEvent.asStartElement();
+            } else if (xmlSecEvent.isEndElement()) {
+                parent = parent.getParentXMLSecStartElement();
+            }
+            events.add(xmlSecEvent);
+        }
+        xmlStreamReader.close();
+        return events;
+    }
+
+    private static String toString(XMLSecEvent xmlSecEvent) {
+        StringWriter stringWriter = new StringWriter();
+        try {
+            xmlSecEvent.writeAsEncodedUnicode(stringWriter);
+        } catch (XMLStreamException e) {
+            throw new IllegalStateException(e);
+        }
+        return xmlSecEvent.getEventType() + ":" + stringWriter;
+    }
+}
@@ -18,6 +18,7 @@
  */
 package org.apache.xml.security.test.stax;
 
+import java.io.StringReader;
 import java.io.StringWriter;
 import java.util.ArrayDeque;
 import java.util.Deque;
@@ -87,6 +88,35 @@ public class XMLSecEventTest {
         assertEquals(" &lt; &amp; &gt; ", stringWriter.toString());
     }
 
+    @Test
+    public void testMaterializePassThroughCharacters() throws Exception {
+        XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+        xmlInputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        XMLStreamReader xmlStreamReader =
+                xmlInputFactory.createXMLStreamReader(new StringReader("<a>first &amp; text<b/>second text</a>"));
+
+        Deque<XMLSecEvent> xmlSecEventDeque = new ArrayDeque<>();
+        while (xmlStreamReader.hasNext()) {
+            XMLSecEvent xmlSecEvent = XMLSecEventFactory.allocate(xmlStreamReader, null, true);
+            if (xmlSecEvent.isCharacters()) {
+                XMLSecCharacters xmlSecCharacters = xmlSecEvent.asCharacters();
+                char[] target = new char[4];
+                assertEquals(4, xmlSecCharacters.getTextCharacters(xmlSecCharacters.getTextLength() - 4, target, 0, 10));
+                assertEquals("text", new String(target));
+            }
+            xmlSecEventDeque.offerLast(XMLSecEventFactory.materialize(xmlSecEvent));
+            xmlStreamReader.next();
+        }
+
+        StringBuilder text = new StringBuilder();
+        for (XMLSecEvent xmlSecEvent : xmlSecEventDeque) {
+            if (xmlSecEvent.isCharacters()) {
+                text.append(xmlSecEvent.asCharacters().getText()).append('|');
+            }
+        }
+        assertEquals("first & text|second text|", text.toString());
+    }
+
     @Test
     public void testWriteAttributeEncoded() throws Exception {
         StringWriter stringWriter = new StringWriter();
@@ -47,6 +47,7 @@ import org.apache.xml.security.stax.impl.DocumentContextImpl;
 import org.apache.xml.security.stax.impl.InboundSecurityContextImpl;
 import org.apache.xml.security.stax.impl.InputProcessorChainImpl;
 import org.apache.xml.security.stax.impl.XMLSecurityStreamReader;
+import org.apache.xml.security.stax.impl.processor.input.XMLEventReaderInputProcessor;
 import org.hamcrest.MatcherAssert;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -197,12 +198,23 @@ public class XMLSecurityStreamReaderTest {
 
     @Test
     public void testCorrectness() throws Exception {
+        assertCorrectness(new XMLSecurityProperties(), new EventReaderProcessor());
+    }
+
+    @Test
+    public void testCorrectnessWithPassThroughCharacters() throws Exception {
         XMLSecurityProperties securityProperties = new XMLSecurityProperties();
+        securityProperties.setPassThroughCharacters(true);
+        assertCorrectness(securityProperties, new XMLEventReaderInputProcessor(securityProperties, createXmlStreamReader()));
+    }
+
+    private void assertCorrectness(XMLSecurityProperties securityProperties, InputProcessor eventReaderProcessor)
+            throws Exception {
         InboundSecurityContextImpl securityContext = new InboundSecurityContextImpl();
         DocumentContextImpl documentContext = new DocumentContextImpl();
         documentContext.setEncoding(StandardCharsets.UTF_8.name());
         InputProcessorChainImpl inputProcessorChain = new InputProcessorChainImpl(securityContext, documentContext);
-        inputProcessorChain.addProcessor(new EventReaderProcessor());
+        inputProcessorChain.addProcessor(eventReaderProcessor);
         XMLSecurityStreamReader xmlSecurityStreamReader = new XMLSecurityStreamReader(inputProcessorChain, securityProperties);
 
         XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
@@ -287,6 +299,10 @@ public class XMLSecurityStreamReaderTest {
                             new String(stdXmlStreamReader.getTextCharacters(), stdXmlStreamReader.getTextStart(), stdXmlStreamReader.getTextLength()),
                             new String(xmlSecurityStreamReader.getTextCharacters(), xmlSecurityStreamReader.getTextStart(), xmlSecurityStreamReader.getTextLength()));
                     assertEquals(stdXmlStreamReader.getTextLength(), xmlSecurityStreamReader.getTextLength());
+                    char[] target = new char[stdXmlStreamReader.getTextLength() + 1];
+                    assertEquals(stdXmlStreamReader.getTextLength(),
+                            xmlSecurityStreamReader.getTextCharacters(0, target, 1, target.length));
+                    assertEquals(stdXmlStreamReader.getText(), new String(target, 1, target.length - 1));
                     break;
                 case XMLStreamConstants.COMMENT:
                     assertEquals(stdXmlStreamReader.isCharacters(), xmlSecurityStreamReader.isCharacters());
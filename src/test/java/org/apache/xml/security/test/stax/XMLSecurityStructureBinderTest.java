@@ -0,0 +1,204 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.test.stax;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.Marshaller;
+import jakarta.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.xml.security.stax.ext.XMLSec;
+import org.apache.xml.security.stax.ext.XMLSecurityConstants;
+import org.apache.xml.security.stax.ext.stax.XMLSecEvent;
+import org.apache.xml.security.stax.ext.stax.XMLSecEventFactory;
+import org.apache.xml.security.stax.ext.stax.XMLSecStartElement;
+import org.apache.xml.security.stax.impl.XMLSecurityEventReader;
+import org.apache.xml.security.stax.impl.XMLSecurityStructureBinder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class XMLSecurityStructureBinderTest {
+
+    private static final String SIGNATURE =
+        "<ds:Signature xmlns:ds=\"http://www.w3.org/2000/09/xmldsig#\" Id=\"Signature-1\">"
+            + "<ds:SignedInfo>"
+            + "<ds:CanonicalizationMethod Algorithm=\"http://www.w3.org/2001/10/xml-exc-c14n#\">"
+            + "<ec:InclusiveNamespaces xmlns:ec=\"http://www.w3.org/2001/10/xml-exc-c14n#\" PrefixList=\"ds  xs\"/>"
+            + "</ds:CanonicalizationMethod>"
+            + "<ds:SignatureMethod Algorithm=\"http://www.w3.org/2001/04/xmldsig-more#rsa-sha256\"/>"
+            + "<ds:Reference URI=\"#id-1\">"
+            + "<ds:Transforms>"
+            + "<ds:Transform Algorithm=\"http://www.w3.org/2000/09/xmldsig#enveloped-signature\"/>"
+            + "<ds:Transform Algorithm=\"http://www.w3.org/2001/10/xml-exc-c14n#\"/>"
+            + "</ds:Transforms>"
+            + "<ds:DigestMethod Algorithm=\"http://www.w3.org/2001/04/xmlenc#sha256\"/>"
+            + "<ds:DigestValue>47DEQpj8HBSa+/TImW+5JCeu\nQeRkm5NMpJWZG3hSuFU=</ds:DigestValue>"
+            + "</ds:Reference>"
+            + "<ds:Reference URI=\"#id-2\" Type=\"http://www.w3.org/2000/09/xmldsig#Object\">"
+            + "<ds:DigestMethod Algorithm=\"http://www.w3.org/2000/09/xmldsig#sha1\"/>"
+            + "<ds:DigestValue>2jmj7l5rSw0yVb/vlWAYkK/YBwk=</ds:DigestValue>"
+            + "</ds:Reference>"
+            + "</ds:SignedInfo>"
+            + "<ds:SignatureValue>AAECAwQFBgcICQ==</ds:SignatureValue>"
+            + "<ds:KeyInfo>"
+            + "<ds:KeyName>transmitter</ds:KeyName>"
+            + "<ds:X509Data>"
+            + "<ds:X509IssuerSerial>"
+            + "<ds:X509IssuerName>CN=Transmitter,O=Apache</ds:X509IssuerName>"
+            + "<ds:X509SerialNumber>1234567890</ds:X509SerialNumber>"
+            + "</ds:X509IssuerSerial>"
+            + "<ds:X509SKI>AQIDBA==</ds:X509SKI>"
+            + "</ds:X509Data>"
+            + "</ds:KeyInfo>"
+            + "</ds:Signature>";
+
+    private static final String ENCRYPTED_DATA =
+        "<xenc:EncryptedData xmlns:xenc=\"http://www.w3.org/2001/04/xmlenc#\" Id=\"ED-1\" "
+            + "Type=\"http://www.w3.org/2001/04/xmlenc#Element\">"
+            + "<xenc:EncryptionMethod Algorithm=\"http://www.w3.org/2001/04/xmlenc#aes256-cbc\"/>"
+            + "<ds:KeyInfo xmlns:ds=\"http://www.w3.org/2000/09/xmldsig#\">"
+            + "<xenc:EncryptedKey Id=\"EK-1\">"
+            + "<xenc:EncryptionMethod Algorithm=\"http://www.w3.org/2009/xmlenc11#rsa-oaep\">"
+            + "<xenc:OAEPparams>AQID</xenc:OAEPparams>"
+            + "<ds:DigestMethod Algorithm=\"http://www.w3.org/2001/04/xmlenc#sha256\"/>"
+            + "<xenc11:MGF xmlns:xenc11=\"http://www.w3.org/2009/xmlenc11#\" "
+            + "Algorithm=\"http://www.w3.org/2009/xmlenc11#mgf1sha256\"/>"
+            + "</xenc:EncryptionMethod>"
+            + "<ds:KeyInfo><ds:X509Data><ds:X509SubjectName>CN=Receiver</ds:X509SubjectName></ds:X509Data></ds:KeyInfo>"
+            + "<xenc:CipherData><xenc:CipherValue>c2VjcmV0</xenc:CipherValue></xenc:CipherData>"
+            + "<xenc:ReferenceList><xenc:DataReference URI=\"#ED-1\"/></xenc:ReferenceList>"
+            + "</xenc:EncryptedKey>"
+            + "</ds:KeyInfo>"
+            + "<xenc:CipherData><xenc:CipherValue>AAECAwQFBgcICQoLDA0ODw==</xenc:CipherValue></xenc:CipherData>"
+            + "</xenc:EncryptedData>";
+
+    private static JAXBContext jaxbContext;
+
+    @BeforeAll
+    public static void setUp() throws Exception {
+        XMLSec.init();
+        jaxbContext = JAXBContext.newInstance(
+            org.apache.xml.security.binding.xmlenc.ObjectFactory.class,
+            org.apache.xml.security.binding.xmlenc11.ObjectFactory.class,
+            org.apache.xml.security.binding.xmldsig.ObjectFactory.class,
+            org.apache.xml.security.binding.xmldsig11.ObjectFactory.class,
+            org.apache.xml.security.binding.excc14n.ObjectFactory.class,
+            org.apache.xml.security.binding.xop.ObjectFactory.class
+        );
+    }
+
+    @Test
+    public void testSignature() throws Exception {
+        assertBoundLikeJAXB(SIGNATURE);
+    }
+
+    @Test
+    public void testEncryptedData() throws Exception {
+        assertBoundLikeJAXB(ENCRYPTED_DATA);
+    }
+
+    @Test
+    public void testUnsupportedStructure() throws Exception {
+        String signatureWithObject =
+            SIGNATURE.replace("</ds:KeyInfo>", "</ds:KeyInfo><ds:Object>data</ds:Object>");
+        assertNull(XMLSecurityStructureBinder.bind(readEvents(signatureWithObject), 0));
+
+        String signatureWithoutSignatureValue =
+            SIGNATURE.replace("<ds:SignatureValue>AAECAwQFBgcICQ==</ds:SignatureValue>", "");
+        assertNull(XMLSecurityStructureBinder.bind(readEvents(signatureWithoutSignatureValue), 0));
+
+        String invalidBase64 = ENCRYPTED_DATA.replace("AQID", "AQ*D");
+        assertNull(XMLSecurityStructureBinder.bind(readEvents(invalidBase64), 0));
+    }
+
+    @Test
+    public void testUnmarshallerPool() throws Exception {
+        Unmarshaller unmarshaller = XMLSecurityConstants.getJaxbUnmarshaller(false);
+        XMLSecurityConstants.releaseJaxbUnmarshaller(unmarshaller, false);
+        assertSame(unmarshaller, XMLSecurityConstants.getJaxbUnmarshaller(false));
+        assertNotNull(unmarshaller.getSchema());
+
+        XMLSecurityConstants.releaseJaxbUnmarshaller(unmarshaller, false);
+        Unmarshaller nonValidatingUnmarshaller = XMLSecurityConstants.getJaxbUnmarshaller(true);
+        assertNull(nonValidatingUnmarshaller.getSchema());
+    }
+
+    @Test
+    public void testUnmarshallerPoolDiscardsStaleUnmarshallers() throws Exception {
+        Unmarshaller unmarshaller = XMLSecurityConstants.getJaxbUnmarshaller(false);
+        // Changing the Schema starts a new pool while the Unmarshaller is borrowed
+        XMLSecurityConstants.setJaxbSchemas(XMLSecurityConstants.getJaxbSchemas());
+        XMLSecurityConstants.releaseJaxbUnmarshaller(unmarshaller, false);
+        assertNotSame(unmarshaller, XMLSecurityConstants.getJaxbUnmarshaller(false));
+    }
+
+    private void assertBoundLikeJAXB(String xml) throws Exception {
+        Deque<XMLSecEvent> xmlSecEvents = readEvents(xml);
+
+        Object bound = XMLSecurityStructureBinder.bind(xmlSecEvents, 0);
+        assertNotNull(bound);
+
+        Unmarshaller unmarshaller = XMLSecurityConstants.getJaxbUnmarshaller(false);
+        Object unmarshalled = unmarshaller.unmarshal(new XMLSecurityEventReader(xmlSecEvents, 0));
+
+        assertEquals(marshal(unmarshalled), marshal(bound));
+    }
+
+    private String marshal(Object jaxbElement) throws Exception {
+        Marshaller marshaller = jaxbContext.createMarshaller();
+        StringWriter stringWriter = new StringWriter();
+        marshaller.marshal(jaxbElement, stringWriter);
+        return stringWriter.toString();
+    }
+
+    private Deque<XMLSecEvent> readEvents(String xml) throws Exception {
+        XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+        XMLStreamReader xmlStreamReader = xmlInputFactory.createXMLStreamReader(new StringReader(xml));
+
+        Deque<XMLSecEvent> xmlSecEvents = new ArrayDeque<>();
+        XMLSecStartElement parentXMLSecStartElement = null;
+        while (xmlStreamReader.hasNext()) {
+            int eventType = xmlStreamReader.next();
+            if (eventType == XMLStreamConstants.END_DOCUMENT) {
+                break;
+            }
+            XMLSecEvent xmlSecEvent = XMLSecEventFactory.allocate(xmlStreamReader, parentXMLSecStartElement);
+            if (xmlSecEvent.isStartElement()) {
+                parentXMLSecStartElement = xmlSecEvent.asStartElement();
+            } else if (xmlSecEvent.isEndElement() && parentXMLSecStartElement != null) {
+                parentXMLSecStartElement = parentXMLSecStartElement.getParentXMLSecStartElement();
+            }
+            xmlSecEvents.push(xmlSecEvent);
+        }
+        return xmlSecEvents;
+    }
+}
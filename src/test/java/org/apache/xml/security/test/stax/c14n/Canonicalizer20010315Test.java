@@ -37,6 +37,7 @@ import javax.xml.stream.XMLStreamException;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringReader;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 
@@ -413,6 +414,32 @@ public class Canonicalizer20010315Test {
         assertTrue(equals);
     }
 
+    /**
+     * Prefixed element and attribute names go through the shared name cache;
+     * canonicalizing the same document twice must produce identical output.
+     */
+    @Test
+    public void testPrefixedNamesTwice() throws Exception {
+        String input =
+            "<a:root xmlns:a=\"urn:a\" xmlns:b=\"urn:b\" b:attr=\"1\" plain=\"x\">"
+                + "<b:child a:id=\"é\">text</b:child><a:child/></a:root>";
+        String expected =
+            "<a:root xmlns:a=\"urn:a\" xmlns:b=\"urn:b\" plain=\"x\" b:attr=\"1\">"
+                + "<b:child a:id=\"é\">text</b:child><a:child></a:child></a:root>";
+
+        for (int i = 0; i < 2; i++) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            Canonicalizer20010315_OmitCommentsTransformer c = new Canonicalizer20010315_OmitCommentsTransformer();
+            c.setOutputStream(baos);
+            XMLEventReader xmlSecEventReader = xmlInputFactory.createXMLEventReader(
+                    new StringReader(input));
+            while (xmlSecEventReader.hasNext()) {
+                c.transform((XMLSecEvent) xmlSecEventReader.nextEvent());
+            }
+            assertEquals(expected, new String(baos.toByteArray(), StandardCharsets.UTF_8));
+        }
+    }
+
 //   /**
 //    * The XPath data model represents data using UCS characters.
 //    * Implementations MUST use XML processors that support UTF-8 and UTF-16
@@ -31,6 +31,8 @@ import java.security.PublicKey;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
@@ -335,6 +337,114 @@ public class DecryptionTest {
                 securityEventListener, "http://www.w3.org/2001/04/xmlenc#tripledes-cbc", null);
     }
 
+    @Test
+    public void testDecryptMultipleElementsWithPassThroughCharacters() throws Exception {
+        // Read in plaintext document
+        InputStream sourceDocument =
+                this.getClass().getClassLoader().getResourceAsStream(
+                        "ie/baltimore/merlin-examples/merlin-xmlenc-five/plaintext.xml");
+        Document document = XMLUtils.read(sourceDocument, false);
+        String plaintext = document.getDocumentElement().getTextContent();
+
+        // Set up the Key
+        SecretKey secretKey = generateSecretKey();
+
+        // Encrypt using DOM
+        List<String> localNames = new ArrayList<>();
+        localNames.add("PaymentInfo");
+        localNames.add("ShippingAddress");
+        encryptUsingDOM(
+            "http://www.w3.org/2001/04/xmlenc#tripledes-cbc", secretKey, null, null, document,
+            localNames, false
+        );
+
+        // Convert Document to a Stream Reader
+        javax.xml.transform.Transformer transformer = transformerFactory.newTransformer();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        transformer.transform(new DOMSource(document), new StreamResult(baos));
+
+        for (boolean decryptOnly : new boolean[] {false, true}) {
+            XMLStreamReader xmlStreamReader = null;
+            try (InputStream is = new ByteArrayInputStream(baos.toByteArray())) {
+               xmlStreamReader = xmlInputFactory.createXMLStreamReader(is);
+            }
+
+            // Decrypt
+            XMLSecurityProperties properties = new XMLSecurityProperties();
+            properties.setDecryptionKey(secretKey);
+            properties.setPassThroughCharacters(true);
+            if (decryptOnly) {
+                properties.addAction(XMLSecurityConstants.ENCRYPTION);
+            }
+            InboundXMLSec inboundXMLSec = XMLSec.getInboundWSSec(properties);
+            TestSecurityEventListener securityEventListener = new TestSecurityEventListener();
+            XMLStreamReader securityStreamReader =
+                    inboundXMLSec.processInMessage(xmlStreamReader, null, securityEventListener);
+
+            Document decryptedDocument = StAX2DOM.readDoc(securityStreamReader);
+
+            // Check that the character data outside and inside of the encrypted elements was passed through
+            assertEquals(plaintext, decryptedDocument.getDocumentElement().getTextContent());
+            checkMultipleEncryptedElementSecurityEvents(securityEventListener);
+        }
+    }
+
+    @Test
+    public void testDecryptMultipleElementsUsingExecutor() throws Exception {
+        // Read in plaintext document
+        InputStream sourceDocument =
+                this.getClass().getClassLoader().getResourceAsStream(
+                        "ie/baltimore/merlin-examples/merlin-xmlenc-five/plaintext.xml");
+        Document document = XMLUtils.read(sourceDocument, false);
+
+        // Set up the Key
+        SecretKey secretKey = generateSecretKey();
+
+        // Encrypt using DOM
+        List<String> localNames = new ArrayList<>();
+        localNames.add("PaymentInfo");
+        localNames.add("ShippingAddress");
+        encryptUsingDOM(
+            "http://www.w3.org/2001/04/xmlenc#tripledes-cbc", secretKey, null, null, document,
+            localNames, false
+        );
+
+        // Convert Document to a Stream Reader
+        javax.xml.transform.Transformer transformer = transformerFactory.newTransformer();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        transformer.transform(new DOMSource(document), new StreamResult(baos));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            XMLStreamReader xmlStreamReader = null;
+            try (InputStream is = new ByteArrayInputStream(baos.toByteArray())) {
+               xmlStreamReader = xmlInputFactory.createXMLStreamReader(is);
+            }
+
+            // Decrypt
+            XMLSecurityProperties properties = new XMLSecurityProperties();
+            properties.setDecryptionKey(secretKey);
+            properties.setDecryptionMode(XMLSecurityConstants.DecryptionMode.Executor);
+            properties.setDecryptionExecutor(executor);
+            InboundXMLSec inboundXMLSec = XMLSec.getInboundWSSec(properties);
+            TestSecurityEventListener securityEventListener = new TestSecurityEventListener();
+            XMLStreamReader securityStreamReader =
+                    inboundXMLSec.processInMessage(xmlStreamReader, null, securityEventListener);
+
+            document = StAX2DOM.readDoc(securityStreamReader);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Check the CreditCard decrypted ok
+        NodeList nodeList = document.getElementsByTagNameNS("urn:example:po", "CreditCard");
+        assertEquals(nodeList.getLength(), 1);
+
+        // Check the ShippingAddress decrypted ok
+        nodeList = document.getElementsByTagNameNS("urn:example:po", "ShippingAddress");
+        assertEquals(nodeList.getLength(), 1);
+    }
+
     /**
      * Test encryption using a generated AES 128 bit key that is
      * encrypted using a AES 192 bit key.  Then reverse using the KEK
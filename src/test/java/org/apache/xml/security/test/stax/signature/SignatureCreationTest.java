@@ -51,6 +51,7 @@ import org.apache.xml.security.signature.XMLSignature;
 import org.apache.xml.security.stax.ext.OutboundXMLSec;
 import org.apache.xml.security.stax.ext.SecurePart;
 import org.apache.xml.security.stax.ext.XMLSec;
+import org.apache.xml.security.stax.ext.XMLSecurityConfigurationException;
 import org.apache.xml.security.stax.ext.XMLSecurityConstants;
 import org.apache.xml.security.stax.ext.XMLSecurityProperties;
 import org.apache.xml.security.stax.securityEvent.SecurityEventConstants;
@@ -66,6 +67,7 @@ import static org.apache.xml.security.stax.ext.XMLSecurityConstants.NS_C14N_EXCL
 import static org.apache.xml.security.stax.ext.XMLSecurityConstants.NS_XMLDSIG_ENVELOPED_SIGNATURE;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -435,16 +437,41 @@ public class SignatureCreationTest extends AbstractSignatureCreationTest {
         signAtSpecificPosition(0, new QName("urn:example:po", "ShippingAddress"), false);
     }
 
+    @Test
+    public void testSignAtSpecificPositionWithSpilledEvents() throws Exception {
+        // only a few events are held in memory, the rest of the document is buffered on disk
+        signAtSpecificPosition(0, null, false, 5);
+        signAtSpecificPosition(2, null, false, 5);
+        signAtSpecificPosition(0, new QName("urn:example:po", "Items"), true, 1);
+        signAtSpecificPosition(0, new QName("urn:example:po", "ShippingAddress"), false, 10);
+    }
+
+    @Test
+    public void testInvalidOutputBufferMaxEventsInMemory() throws Exception {
+        XMLSecurityProperties properties = new XMLSecurityProperties();
+        List<XMLSecurityConstants.Action> actions = new ArrayList<>();
+        actions.add(XMLSecurityConstants.SIGNATURE);
+        properties.setActions(actions);
+        properties.setOutputBufferMaxEventsInMemory(-1);
+        assertThrows(XMLSecurityConfigurationException.class, () -> XMLSec.getOutboundXMLSec(properties));
+    }
+
     private void signAtSpecificPosition(int position) throws Exception {
         signAtSpecificPosition(position, null, false);
     }
 
     private void signAtSpecificPosition(int position, QName positionQName, boolean start) throws Exception {
+        signAtSpecificPosition(position, positionQName, start, 0);
+    }
+
+    private void signAtSpecificPosition(int position, QName positionQName, boolean start,
+                                        int outputBufferMaxEventsInMemory) throws Exception {
         // Set up the Configuration
         XMLSecurityProperties properties = new XMLSecurityProperties();
         List<XMLSecurityConstants.Action> actions = new ArrayList<>();
         actions.add(XMLSecurityConstants.SIGNATURE);
         properties.setActions(actions);
+        properties.setOutputBufferMaxEventsInMemory(outputBufferMaxEventsInMemory);
 
         // Specify the signature position
         properties.setSignaturePosition(position);
@@ -20,6 +20,7 @@ package org.apache.xml.security.test.stax.signature;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.InputStream;
 import java.lang.reflect.Field;
 import java.nio.charset.StandardCharsets;
@@ -28,8 +29,10 @@ import java.security.KeyStore;
 import java.security.Security;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
@@ -53,6 +56,7 @@ import org.apache.xml.security.signature.XMLSignature;
 import org.apache.xml.security.stax.config.TransformerAlgorithmMapper;
 import org.apache.xml.security.stax.ext.InboundXMLSec;
 import org.apache.xml.security.stax.ext.XMLSec;
+import org.apache.xml.security.stax.ext.XMLSecurityConfigurationException;
 import org.apache.xml.security.stax.ext.XMLSecurityConstants;
 import org.apache.xml.security.stax.ext.XMLSecurityProperties;
 import org.apache.xml.security.stax.securityEvent.KeyNameTokenSecurityEvent;
@@ -60,6 +64,7 @@ import org.apache.xml.security.stax.securityEvent.KeyValueTokenSecurityEvent;
 import org.apache.xml.security.stax.securityEvent.SecurityEvent;
 import org.apache.xml.security.stax.securityEvent.SecurityEventConstants;
 import org.apache.xml.security.stax.securityEvent.SignedElementSecurityEvent;
+import org.apache.xml.security.stax.securityEvent.SubscribingSecurityEventListener;
 import org.apache.xml.security.stax.securityEvent.X509TokenSecurityEvent;
 import org.apache.xml.security.stax.securityToken.SecurityTokenConstants;
 import org.apache.xml.security.test.stax.utils.StAX2DOM;
@@ -68,8 +73,11 @@ import org.apache.xml.security.transforms.implementations.TransformC14N;
 import org.apache.xml.security.utils.XMLUtils;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -81,6 +89,9 @@ public class SignatureVerificationTest extends AbstractSignatureVerificationTest
 
     private TransformerFactory transformerFactory = TransformerFactory.newInstance();
 
+    @TempDir
+    public File spillDirectory;
+
     @Test
     public void testSignatureVerification() throws Exception {
         // Read in plaintext document
@@ -306,6 +317,188 @@ public class SignatureVerificationTest extends AbstractSignatureVerificationTest
         }
     }
 
+    @Test
+    public void testMultipleSignaturesInOnePass() throws Exception {
+        // Read in plaintext document
+        InputStream sourceDocument =
+                this.getClass().getClassLoader().getResourceAsStream(
+                        "ie/baltimore/merlin-examples/merlin-xmlenc-five/plaintext.xml");
+        Document document = XMLUtils.read(sourceDocument, false);
+
+        // Set up the Key
+        KeyStore keyStore = KeyStore.getInstance("jks");
+        keyStore.load(
+            this.getClass().getClassLoader().getResource("transmitter.jks").openStream(),
+            "default".toCharArray()
+        );
+        Key key = keyStore.getKey("transmitter", "default".toCharArray());
+        X509Certificate cert = (X509Certificate)keyStore.getCertificate("transmitter");
+
+        // Sign using DOM, each signature covers another element
+        XMLSignature sig = signUsingDOM(
+            "http://www.w3.org/2000/09/xmldsig#rsa-sha1", document, Collections.singletonList("PaymentInfo"), key
+        );
+        sig.addKeyInfo(cert);
+
+        sig = signUsingDOM(
+            "http://www.w3.org/2000/09/xmldsig#rsa-sha1", document, Collections.singletonList("ShippingAddress"), key
+        );
+        sig.addKeyInfo(cert);
+
+        // Convert Document to a Stream Reader
+        javax.xml.transform.Transformer transformer = transformerFactory.newTransformer();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        transformer.transform(new DOMSource(document), new StreamResult(baos));
+
+        // Verify both signatures, with the buffered events replayed at the end of the second
+        // signature, or at the end of the document
+        for (int maxInboundSignatures : new int[] {2, 3}) {
+            XMLStreamReader xmlStreamReader = null;
+            try (InputStream is = new ByteArrayInputStream(baos.toByteArray())) {
+               xmlStreamReader = xmlInputFactory.createXMLStreamReader(is);
+            }
+
+            XMLSecurityProperties properties = new XMLSecurityProperties();
+            properties.setMaxInboundSignatures(maxInboundSignatures);
+            properties.setInputBufferMaxEventsInMemory(5);
+            properties.setInputBufferSpillDirectory(spillDirectory);
+            InboundXMLSec inboundXMLSec = XMLSec.getInboundWSSec(properties);
+            TestSecurityEventListener securityEventListener = new TestSecurityEventListener();
+            XMLStreamReader securityStreamReader =
+                inboundXMLSec.processInMessage(xmlStreamReader, null, securityEventListener);
+
+            StAX2DOM.readDoc(securityStreamReader);
+
+            List<SecurityEvent> signatureValueSecurityEvents =
+                securityEventListener.getSecurityEvents(SecurityEventConstants.SignatureValue);
+            assertEquals(2, signatureValueSecurityEvents.size());
+            assertNotEquals(signatureValueSecurityEvents.get(0).getCorrelationID(),
+                            signatureValueSecurityEvents.get(1).getCorrelationID());
+
+            List<SignedElementSecurityEvent> signedElementSecurityEvents =
+                securityEventListener.getSecurityEvents(SecurityEventConstants.SignedElement);
+            assertEquals(2, signedElementSecurityEvents.size());
+            assertEquals(0, spillDirectory.list().length);
+        }
+
+        // Modify the element which is covered by the second signature
+        Element shippingAddress =
+            (Element) document.getElementsByTagNameNS("urn:example:po", "ShippingAddress").item(0);
+        shippingAddress.appendChild(document.createTextNode("modified"));
+        baos = new ByteArrayOutputStream();
+        transformer.transform(new DOMSource(document), new StreamResult(baos));
+
+        XMLStreamReader xmlStreamReader = null;
+        try (InputStream is = new ByteArrayInputStream(baos.toByteArray())) {
+           xmlStreamReader = xmlInputFactory.createXMLStreamReader(is);
+        }
+
+        XMLSecurityProperties properties = new XMLSecurityProperties();
+        properties.setMaxInboundSignatures(2);
+        InboundXMLSec inboundXMLSec = XMLSec.getInboundWSSec(properties);
+        XMLStreamReader securityStreamReader =
+            inboundXMLSec.processInMessage(xmlStreamReader, null, new TestSecurityEventListener());
+
+        try {
+            StAX2DOM.readDoc(securityStreamReader);
+            fail("Failure expected on a modified document");
+        } catch (XMLStreamException ex) {
+            assertTrue(ex.getMessage().contains("Invalid digest of reference"));
+        }
+    }
+
+    @Test
+    public void testInvalidMaxInboundSignatures() throws Exception {
+        XMLSecurityProperties properties = new XMLSecurityProperties();
+        properties.setMaxInboundSignatures(0);
+        assertThrows(XMLSecurityConfigurationException.class, () -> XMLSec.getInboundWSSec(properties));
+    }
+
+    @Test
+    public void testInvalidInputBufferMaxEventsInMemory() throws Exception {
+        XMLSecurityProperties properties = new XMLSecurityProperties();
+        properties.setInputBufferMaxEventsInMemory(-1);
+        assertThrows(XMLSecurityConfigurationException.class, () -> XMLSec.getInboundWSSec(properties));
+    }
+
+    @Test
+    public void testSignatureVerificationWithPassThroughCharacters() throws Exception {
+        // Read in plaintext document
+        InputStream sourceDocument =
+                this.getClass().getClassLoader().getResourceAsStream(
+                        "ie/baltimore/merlin-examples/merlin-xmlenc-five/plaintext.xml");
+        Document document = XMLUtils.read(sourceDocument, false);
+
+        // Set up the Key
+        KeyStore keyStore = KeyStore.getInstance("jks");
+        keyStore.load(
+            this.getClass().getClassLoader().getResource("transmitter.jks").openStream(),
+            "default".toCharArray()
+        );
+        Key key = keyStore.getKey("transmitter", "default".toCharArray());
+        X509Certificate cert = (X509Certificate)keyStore.getCertificate("transmitter");
+
+        // Sign using DOM
+        List<String> localNames = new ArrayList<>();
+        localNames.add("PaymentInfo");
+        XMLSignature sig = signUsingDOM(
+            "http://www.w3.org/2000/09/xmldsig#rsa-sha1", document, localNames, key
+        );
+
+        // Add KeyInfo
+        sig.addKeyInfo(cert);
+
+        // Move the Signature in front of the signed element, so that the element is verified while it passes through
+        Element root = document.getDocumentElement();
+        root.insertBefore(sig.getElement(), root.getFirstChild());
+
+        // Convert Document to a Stream Reader
+        javax.xml.transform.Transformer transformer = transformerFactory.newTransformer();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        transformer.transform(new DOMSource(document), new StreamResult(baos));
+
+        XMLStreamReader xmlStreamReader = null;
+        try (InputStream is = new ByteArrayInputStream(baos.toByteArray())) {
+           xmlStreamReader = xmlInputFactory.createXMLStreamReader(is);
+        }
+
+        // Verify signature
+        XMLSecurityProperties properties = new XMLSecurityProperties();
+        properties.setPassThroughCharacters(true);
+        InboundXMLSec inboundXMLSec = XMLSec.getInboundWSSec(properties);
+        TestSecurityEventListener securityEventListener = new TestSecurityEventListener();
+        XMLStreamReader securityStreamReader =
+                inboundXMLSec.processInMessage(xmlStreamReader, null, securityEventListener);
+
+        Document verifiedDocument = StAX2DOM.readDoc(securityStreamReader);
+        assertEquals(document.getDocumentElement().getTextContent(), verifiedDocument.getDocumentElement().getTextContent());
+
+        checkSignedElementSecurityEvents(securityEventListener);
+        checkSignatureToken(securityEventListener, cert, null,
+                            SecurityTokenConstants.KeyIdentifier_X509KeyIdentifier);
+
+        // Modify the character data of the signed element
+        Element paymentInfo =
+            (Element) document.getElementsByTagNameNS("urn:example:po", "PaymentInfo").item(0);
+        paymentInfo.appendChild(document.createTextNode("modified"));
+        baos = new ByteArrayOutputStream();
+        transformer.transform(new DOMSource(document), new StreamResult(baos));
+
+        try (InputStream is = new ByteArrayInputStream(baos.toByteArray())) {
+           xmlStreamReader = xmlInputFactory.createXMLStreamReader(is);
+        }
+
+        securityStreamReader =
+            inboundXMLSec.processInMessage(xmlStreamReader, null, new TestSecurityEventListener());
+
+        try {
+            StAX2DOM.readDoc(securityStreamReader);
+            fail("Failure expected on a modified document");
+        } catch (XMLStreamException ex) {
+            assertTrue(ex.getMessage().contains("Invalid digest of reference"));
+        }
+    }
+
     @Test
     public void testEnvelopedSignatureVerification() throws Exception {
         // Read in plaintext document
@@ -430,6 +623,76 @@ public class SignatureVerificationTest extends AbstractSignatureVerificationTest
         StAX2DOM.readDoc(securityStreamReader);
     }
 
+    @Test
+    public void testEnvelopedSignatureVerificationWithSpilledEvents() throws Exception {
+        // Read in plaintext document
+        InputStream sourceDocument =
+                this.getClass().getClassLoader().getResourceAsStream(
+                        "ie/baltimore/merlin-examples/merlin-xmlenc-five/plaintext.xml");
+        Document document = XMLUtils.read(sourceDocument, false);
+
+        // Set up the Key
+        KeyStore keyStore = KeyStore.getInstance("jks");
+        keyStore.load(
+                this.getClass().getClassLoader().getResource("transmitter.jks").openStream(),
+                "default".toCharArray()
+        );
+        Key key = keyStore.getKey("transmitter", "default".toCharArray());
+        X509Certificate cert = (X509Certificate)keyStore.getCertificate("transmitter");
+
+        ReferenceInfo referenceInfo = new ReferenceInfo(
+                "",
+                new String[]{
+                        "http://www.w3.org/2000/09/xmldsig#enveloped-signature",
+                        "http://www.w3.org/2006/12/xml-c14n11"
+                },
+                "http://www.w3.org/2000/09/xmldsig#sha1",
+                false
+        );
+
+        List<ReferenceInfo> referenceInfos = new ArrayList<>();
+        referenceInfos.add(referenceInfo);
+
+        // Sign using DOM, the Signature is appended to the end of the document
+        List<String> localNames = new ArrayList<>();
+        localNames.add("PaymentInfo");
+        XMLSignature sig = signUsingDOM(
+                "http://www.w3.org/2000/09/xmldsig#rsa-sha1", document, localNames, key, referenceInfos
+        );
+
+        // Add KeyInfo
+        sig.addKeyInfo(cert);
+
+        // Convert Document to a Stream Reader
+        javax.xml.transform.Transformer transformer = transformerFactory.newTransformer();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        transformer.transform(new DOMSource(document), new StreamResult(baos));
+
+        // Verify signature, with only a few events of the document held in memory
+        for (int maxEventsInMemory : new int[] {1, 5, 20}) {
+            XMLStreamReader xmlStreamReader = null;
+            try (InputStream is = new ByteArrayInputStream(baos.toByteArray())) {
+                xmlStreamReader = xmlInputFactory.createXMLStreamReader(is);
+            }
+
+            XMLSecurityProperties properties = new XMLSecurityProperties();
+            properties.setInputBufferMaxEventsInMemory(maxEventsInMemory);
+            properties.setInputBufferSpillDirectory(spillDirectory);
+            InboundXMLSec inboundXMLSec = XMLSec.getInboundWSSec(properties);
+            TestSecurityEventListener securityEventListener = new TestSecurityEventListener();
+            XMLStreamReader securityStreamReader =
+                    inboundXMLSec.processInMessage(xmlStreamReader, null, securityEventListener);
+
+            Document verifiedDocument = StAX2DOM.readDoc(securityStreamReader);
+            assertEquals(1, verifiedDocument.getElementsByTagNameNS("urn:example:po", "PaymentInfo").getLength());
+
+            checkSignatureToken(securityEventListener, cert, null,
+                                SecurityTokenConstants.KeyIdentifier_X509KeyIdentifier);
+            // the temporary file is deleted
+            assertEquals(0, spillDirectory.list().length);
+        }
+    }
+
     @Test
     public void testHMACSignatureVerification() throws Exception {
         // Read in plaintext document
@@ -1366,6 +1629,122 @@ public class SignatureVerificationTest extends AbstractSignatureVerificationTest
         }
     }
 
+    @Test
+    public void testSubscribedSecurityEvents() throws Exception {
+        // Read in plaintext document
+        InputStream sourceDocument =
+                this.getClass().getClassLoader().getResourceAsStream(
+                        "ie/baltimore/merlin-examples/merlin-xmlenc-five/plaintext.xml");
+        Document document = XMLUtils.read(sourceDocument, false);
+
+        // Set up the Key
+        KeyStore keyStore = KeyStore.getInstance("jks");
+        keyStore.load(
+                this.getClass().getClassLoader().getResource("transmitter.jks").openStream(),
+                "default".toCharArray()
+        );
+        Key key = keyStore.getKey("transmitter", "default".toCharArray());
+        X509Certificate cert = (X509Certificate)keyStore.getCertificate("transmitter");
+
+        // Sign using DOM
+        List<String> localNames = new ArrayList<>();
+        localNames.add("PaymentInfo");
+        XMLSignature sig = signUsingDOM(
+                "http://www.w3.org/2000/09/xmldsig#rsa-sha1", document, localNames, key
+        );
+
+        // Add KeyInfo
+        sig.addKeyInfo(cert);
+
+        // Convert Document to a Stream Reader
+        javax.xml.transform.Transformer transformer = transformerFactory.newTransformer();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        transformer.transform(new DOMSource(document), new StreamResult(baos));
+
+        XMLStreamReader xmlStreamReader = null;
+        try (InputStream is = new ByteArrayInputStream(baos.toByteArray())) {
+           xmlStreamReader = xmlInputFactory.createXMLStreamReader(is);
+        }
+
+        // Verify signature, only the SignedElement events are subscribed to
+        XMLSecurityProperties properties = new XMLSecurityProperties();
+        InboundXMLSec inboundXMLSec = XMLSec.getInboundWSSec(properties);
+        final List<SecurityEvent> securityEvents = new ArrayList<>();
+        SubscribingSecurityEventListener securityEventListener = new SubscribingSecurityEventListener() {
+            @Override
+            public Set<SecurityEventConstants.Event> getSubscribedSecurityEvents() {
+                return Collections.singleton(SecurityEventConstants.SignedElement);
+            }
+
+            @Override
+            public void registerSecurityEvent(SecurityEvent securityEvent) {
+                securityEvents.add(securityEvent);
+            }
+        };
+        XMLStreamReader securityStreamReader =
+                inboundXMLSec.processInMessage(xmlStreamReader, null, securityEventListener);
+
+        document = StAX2DOM.readDoc(securityStreamReader);
+
+        assertEquals(1, securityEvents.size());
+        SignedElementSecurityEvent signedElementSecurityEvent = (SignedElementSecurityEvent) securityEvents.get(0);
+        assertEquals("PaymentInfo", signedElementSecurityEvent.getElementPath().get(1).getLocalPart());
+    }
+
+    @Test
+    public void testDisallowMD5AlgorithmWithoutSubscription() throws Exception {
+        // Read in plaintext document
+        InputStream sourceDocument =
+                this.getClass().getClassLoader().getResourceAsStream(
+                        "ie/baltimore/merlin-examples/merlin-xmlenc-five/plaintext.xml");
+        Document document = XMLUtils.read(sourceDocument, false);
+
+        // Set up the Key
+        KeyStore keyStore = KeyStore.getInstance("jks");
+        keyStore.load(
+                this.getClass().getClassLoader().getResource("transmitter.jks").openStream(),
+                "default".toCharArray()
+        );
+        Key key = keyStore.getKey("transmitter", "default".toCharArray());
+        X509Certificate cert = (X509Certificate)keyStore.getCertificate("transmitter");
+
+        // Sign using DOM
+        List<String> localNames = new ArrayList<>();
+        localNames.add("PaymentInfo");
+        XMLSignature sig = signUsingDOM(
+                "http://www.w3.org/2001/04/xmldsig-more#rsa-md5", document, localNames, key
+        );
+
+        // Add KeyInfo
+        sig.addKeyInfo(cert);
+
+        // Convert Document to a Stream Reader
+        javax.xml.transform.Transformer transformer = transformerFactory.newTransformer();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        transformer.transform(new DOMSource(document), new StreamResult(baos));
+
+        XMLStreamReader xmlStreamReader = null;
+        try (InputStream is = new ByteArrayInputStream(baos.toByteArray())) {
+           xmlStreamReader = xmlInputFactory.createXMLStreamReader(is);
+        }
+
+        // Verify signature without any SecurityEventListener, MD5 must still be rejected
+        XMLSecurityProperties properties = new XMLSecurityProperties();
+        InboundXMLSec inboundXMLSec = XMLSec.getInboundWSSec(properties);
+        XMLStreamReader securityStreamReader =
+                inboundXMLSec.processInMessage(xmlStreamReader, null, null);
+
+        try {
+            document = StAX2DOM.readDoc(securityStreamReader);
+            fail("Exception expected");
+        } catch (XMLStreamException e) {
+            assertTrue(e.getCause() instanceof XMLSecurityException);
+            assertEquals("The use of MD5 algorithm is strongly discouraged. Nonetheless can it be enabled via the " +
+                    "\"AllowMD5Algorithm\" property in the configuration.",
+                    e.getCause().getMessage());
+        }
+    }
+
     @Test
     public void testCustomC14nAlgo() throws Exception {
 